@@ -0,0 +1,42 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.amberjack.api;
+
+import com.io7m.eigion.model.EIAuditEvent;
+
+import java.util.List;
+
+/**
+ * A receiver of audit events from a followed audit log.
+ */
+
+@FunctionalInterface
+public interface EIAJClientAuditFollowerType
+{
+  /**
+   * Receive a batch of new audit events. The server periodically sends empty
+   * batches while no events are arriving, and so this method is called
+   * regularly even when the audit log is quiet.
+   *
+   * @param events The events, in ascending ID order, possibly empty
+   *
+   * @return {@code true} if the audit log should continue to be followed
+   */
+
+  boolean receive(List<EIAuditEvent> events);
+}
@@ -20,6 +20,8 @@ package com.io7m.eigion.amberjack.api;
 import com.io7m.eigion.model.EIAuditEvent;
 import com.io7m.eigion.model.EIAuditSearchParameters;
 
+import java.io.OutputStream;
+
 /**
  * Commands to access the audit log.
  */
@@ -40,4 +42,46 @@ public interface EIAJClientAuditType
   EIAJClientPagedType<EIAuditEvent> auditSearch(
     EIAuditSearchParameters parameters)
     throws EIAJClientException, InterruptedException;
+
+  /**
+   * Export all audit records matching the given parameters. The records are
+   * streamed from the server in batches of at most {@code parameters.limit()}
+   * records, and each batch is written to {@code output} as a framed
+   * {@code EIAJResponseAuditExport} message as soon as it arrives. The
+   * output stream is neither flushed nor closed.
+   *
+   * @param parameters The parameters
+   * @param output     The output stream
+   *
+   * @return The total number of exported records
+   *
+   * @throws EIAJClientException  On errors
+   * @throws InterruptedException On interruption
+   */
+
+  long auditExport(
+    EIAuditSearchParameters parameters,
+    OutputStream output)
+    throws EIAJClientException, InterruptedException;
+
+  /**
+   * Follow the audit log, passing new records matching the given parameters
+   * to {@code follower} as they are created. Records that existed before
+   * the call are not delivered. The call returns when the follower asks to
+   * stop, or when the server ends the stream. If the follower does not
+   * consume records as quickly as they are created, the server disconnects
+   * it and the call fails with the error code
+   * {@code error-audit-follow-overflow}.
+   *
+   * @param parameters The parameters; the limit is the maximum batch size
+   * @param follower   The receiver of records
+   *
+   * @throws EIAJClientException  On errors
+   * @throws InterruptedException On interruption
+   */
+
+  void auditFollow(
+    EIAuditSearchParameters parameters,
+    EIAJClientAuditFollowerType follower)
+    throws EIAJClientException, InterruptedException;
 }
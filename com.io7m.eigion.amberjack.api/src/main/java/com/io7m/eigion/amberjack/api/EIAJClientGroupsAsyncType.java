@@ -0,0 +1,44 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.eigion.amberjack.api;
+
+import com.io7m.eigion.model.EIGroupName;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous methods for manipulating groups. Commands submitted through
+ * these methods may be in flight concurrently; the number of requests in
+ * flight at any one time is bounded by the client, and commands submitted
+ * beyond that bound are queued until an earlier command completes. Futures
+ * are completed exceptionally with {@link EIAJClientException} on errors.
+ */
+
+public interface EIAJClientGroupsAsyncType
+{
+  /**
+   * Create a new group.
+   *
+   * @param name The group name
+   *
+   * @return A future representing the operation in progress
+   *
+   * @see EIAJClientGroupsType#groupCreate(EIGroupName)
+   */
+
+  CompletableFuture<Void> groupCreateAsync(EIGroupName name);
+}
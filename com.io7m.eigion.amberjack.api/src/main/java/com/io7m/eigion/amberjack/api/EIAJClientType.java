@@ -26,7 +26,10 @@ import java.net.URI;
  */
 
 public interface EIAJClientType
-  extends Closeable, EIAJClientGroupsType, EIAJClientAuditType
+  extends Closeable,
+    EIAJClientGroupsType,
+    EIAJClientGroupsAsyncType,
+    EIAJClientAuditType
 {
   /**
    * Log in.
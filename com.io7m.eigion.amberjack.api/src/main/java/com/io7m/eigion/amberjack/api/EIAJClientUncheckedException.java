@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.eigion.amberjack.api;
+
+import java.util.Objects;
+
+/**
+ * An unchecked exception wrapping a {@link EIAJClientException}, raised by
+ * operations that cannot throw checked exceptions such as iteration over
+ * streams of results.
+ */
+
+public final class EIAJClientUncheckedException extends RuntimeException
+{
+  /**
+   * Construct an exception.
+   *
+   * @param cause The cause
+   */
+
+  public EIAJClientUncheckedException(
+    final EIAJClientException cause)
+  {
+    super(Objects.requireNonNull(cause, "cause"));
+  }
+
+  @Override
+  public EIAJClientException getCause()
+  {
+    return (EIAJClientException) super.getCause();
+  }
+}
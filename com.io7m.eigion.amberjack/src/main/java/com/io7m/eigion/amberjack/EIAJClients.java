@@ -20,6 +20,7 @@ import com.io7m.eigion.amberjack.api.EIAJClientFactoryType;
 import com.io7m.eigion.amberjack.api.EIAJClientType;
 import com.io7m.eigion.amberjack.internal.EIAJClient;
 import com.io7m.eigion.amberjack.internal.EIAJClientProtocolHandlerDisconnected;
+import com.io7m.eigion.amberjack.internal.EIAJProtocolNegotiationCache;
 import com.io7m.eigion.amberjack.internal.EIAJStrings;
 
 import java.io.IOException;
@@ -34,13 +35,16 @@ import java.util.Locale;
 
 public final class EIAJClients implements EIAJClientFactoryType
 {
+  private final EIAJProtocolNegotiationCache negotiations;
+
   /**
-   * The default client factory.
+   * The default client factory. Clients created by the factory share a
+   * cache of negotiated protocols.
    */
 
   public EIAJClients()
   {
-
+    this.negotiations = EIAJProtocolNegotiationCache.create();
   }
 
   @Override
@@ -65,7 +69,13 @@ public final class EIAJClients implements EIAJClientFactoryType
       locale,
       strings,
       httpClient,
-      new EIAJClientProtocolHandlerDisconnected(locale, strings, httpClient)
+      this.negotiations,
+      new EIAJClientProtocolHandlerDisconnected(
+        locale,
+        strings,
+        httpClient,
+        this.negotiations
+      )
     );
   }
 }
@@ -16,6 +16,7 @@
 
 package com.io7m.eigion.amberjack.internal;
 
+import com.io7m.eigion.amberjack.api.EIAJClientAuditFollowerType;
 import com.io7m.eigion.amberjack.api.EIAJClientException;
 import com.io7m.eigion.amberjack.api.EIAJClientPagedType;
 import com.io7m.eigion.amberjack.api.EIAJClientType;
@@ -26,10 +27,14 @@ import com.io7m.eigion.model.EIGroupSearchByNameParameters;
 import com.io7m.eigion.model.EIUser;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.PROTOCOL_ERROR;
 
 /**
  * The default client implementation.
@@ -40,21 +45,24 @@ public final class EIAJClient implements EIAJClientType
   private final EIAJStrings strings;
   private final HttpClient httpClient;
   private final Locale locale;
+  private final EIAJProtocolNegotiationCache negotiations;
   private volatile EIAJClientProtocolHandlerType handler;
 
   /**
    * The default client implementation.
    *
-   * @param inLocale     The locale
-   * @param inStrings    The string resources
-   * @param inHttpClient The HTTP client
-   * @param inHandler    The versioned handler
+   * @param inLocale       The locale
+   * @param inStrings      The string resources
+   * @param inHttpClient   The HTTP client
+   * @param inNegotiations The cache of negotiated protocols
+   * @param inHandler      The versioned handler
    */
 
   public EIAJClient(
     final Locale inLocale,
     final EIAJStrings inStrings,
     final HttpClient inHttpClient,
+    final EIAJProtocolNegotiationCache inNegotiations,
     final EIAJClientProtocolHandlerType inHandler)
   {
     this.locale =
@@ -63,6 +71,8 @@ public final class EIAJClient implements EIAJClientType
       Objects.requireNonNull(inStrings, "strings");
     this.httpClient =
       Objects.requireNonNull(inHttpClient, "httpClient");
+    this.negotiations =
+      Objects.requireNonNull(inNegotiations, "negotiations");
     this.handler =
       Objects.requireNonNull(inHandler, "handler");
   }
@@ -80,12 +90,37 @@ public final class EIAJClient implements EIAJClientType
     final String password,
     final URI base)
     throws EIAJClientException, InterruptedException
+  {
+    try {
+      return this.loginWithNegotiatedHandler(admin, password, base);
+    } catch (final EIAJClientException e) {
+      /*
+       * A protocol error may indicate that the server no longer supports
+       * the cached protocol version. Negotiate again, once.
+       */
+
+      if (!Objects.equals(e.errorCode(), PROTOCOL_ERROR)) {
+        throw e;
+      }
+      if (!this.negotiations.invalidate(base)) {
+        throw e;
+      }
+      return this.loginWithNegotiatedHandler(admin, password, base);
+    }
+  }
+
+  private EIUser loginWithNegotiatedHandler(
+    final String admin,
+    final String password,
+    final URI base)
+    throws EIAJClientException, InterruptedException
   {
     final var newHandler =
       EIAJProtocolNegotiation.negotiateProtocolHandler(
         this.locale,
         this.httpClient,
         this.strings,
+        this.negotiations,
         base
       );
 
@@ -111,6 +146,13 @@ public final class EIAJClient implements EIAJClientType
     this.handler.groupCreate(name);
   }
 
+  @Override
+  public CompletableFuture<Void> groupCreateAsync(
+    final EIGroupName name)
+  {
+    return this.handler.groupCreateAsync(name);
+  }
+
   @Override
   public EIAJClientPagedType<EIGroupName> groupSearchByName(
     final EIGroupSearchByNameParameters parameters)
@@ -126,4 +168,22 @@ public final class EIAJClient implements EIAJClientType
   {
     return this.handler.auditSearch(parameters);
   }
+
+  @Override
+  public long auditExport(
+    final EIAuditSearchParameters parameters,
+    final OutputStream output)
+    throws EIAJClientException, InterruptedException
+  {
+    return this.handler.auditExport(parameters, output);
+  }
+
+  @Override
+  public void auditFollow(
+    final EIAuditSearchParameters parameters,
+    final EIAJClientAuditFollowerType follower)
+    throws EIAJClientException, InterruptedException
+  {
+    this.handler.auditFollow(parameters, follower);
+  }
 }
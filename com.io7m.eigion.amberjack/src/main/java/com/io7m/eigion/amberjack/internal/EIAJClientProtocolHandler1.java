@@ -16,6 +16,7 @@
 
 package com.io7m.eigion.amberjack.internal;
 
+import com.io7m.eigion.amberjack.api.EIAJClientAuditFollowerType;
 import com.io7m.eigion.amberjack.api.EIAJClientException;
 import com.io7m.eigion.amberjack.api.EIAJClientPagedType;
 import com.io7m.eigion.model.EIAuditEvent;
@@ -23,6 +24,8 @@ import com.io7m.eigion.model.EIAuditSearchParameters;
 import com.io7m.eigion.model.EIGroupName;
 import com.io7m.eigion.model.EIGroupSearchByNameParameters;
 import com.io7m.eigion.model.EIPage;
+import com.io7m.eigion.protocol.amberjack.EIAJCommandAuditExport;
+import com.io7m.eigion.protocol.amberjack.EIAJCommandAuditFollow;
 import com.io7m.eigion.protocol.amberjack.EIAJCommandAuditSearchBegin;
 import com.io7m.eigion.protocol.amberjack.EIAJCommandAuditSearchNext;
 import com.io7m.eigion.protocol.amberjack.EIAJCommandAuditSearchPrevious;
@@ -32,6 +35,10 @@ import com.io7m.eigion.protocol.amberjack.EIAJCommandGroupSearchByNameNext;
 import com.io7m.eigion.protocol.amberjack.EIAJCommandGroupSearchByNamePrevious;
 import com.io7m.eigion.protocol.amberjack.EIAJCommandLogin;
 import com.io7m.eigion.protocol.amberjack.EIAJCommandType;
+import com.io7m.eigion.protocol.amberjack.EIAJMessageType;
+import com.io7m.eigion.protocol.amberjack.EIAJResponseAuditExport;
+import com.io7m.eigion.protocol.amberjack.EIAJResponseAuditExportEnd;
+import com.io7m.eigion.protocol.amberjack.EIAJResponseAuditFollow;
 import com.io7m.eigion.protocol.amberjack.EIAJResponseAuditSearch;
 import com.io7m.eigion.protocol.amberjack.EIAJResponseError;
 import com.io7m.eigion.protocol.amberjack.EIAJResponseGroupCreate;
@@ -40,21 +47,34 @@ import com.io7m.eigion.protocol.amberjack.EIAJResponseLogin;
 import com.io7m.eigion.protocol.amberjack.EIAJResponseType;
 import com.io7m.eigion.protocol.amberjack.cb.EIAJCB1Messages;
 import com.io7m.eigion.protocol.api.EIProtocolException;
+import com.io7m.eigion.protocol.api.EIProtocolFrames;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.util.Objects;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import static com.io7m.eigion.amberjack.internal.EIAJCompression.ACCEPT_ENCODING;
 import static com.io7m.eigion.amberjack.internal.EIAJCompression.decompressResponse;
 import static com.io7m.eigion.error_codes.EIStandardErrorCodes.IO_ERROR;
 import static com.io7m.eigion.error_codes.EIStandardErrorCodes.PROTOCOL_ERROR;
+import static com.io7m.eigion.protocol.api.EIProtocolFrames.FRAME_SIZE_MAXIMUM;
 import static com.io7m.idstore.error_codes.IdStandardErrorCodes.AUTHENTICATION_ERROR;
 import static java.net.http.HttpResponse.BodyHandlers;
+import static java.util.Spliterator.NONNULL;
+import static java.util.Spliterator.ORDERED;
 
 /**
  * The version 1 protocol handler.
@@ -66,10 +86,21 @@ public final class EIAJClientProtocolHandler1
   private static final Logger LOG =
     LoggerFactory.getLogger(EIAJClientProtocolHandler1.class);
 
+  /**
+   * The maximum number of asynchronous commands in flight at any one time.
+   */
+
+  private static final int IN_FLIGHT_MAXIMUM = 16;
+
   private final URI commandURI;
   private final EIAJCB1Messages messages;
   private final URI loginURI;
-  private EIAJCommandLogin mostRecentLogin;
+  private final URI auditExportURI;
+  private final URI auditFollowURI;
+  private final EIAJInFlightLimiter limiter;
+  private final Object reLoginLock;
+  private CompletableFuture<EIAJResponseLogin> reLogin;
+  private volatile EIAJCommandLogin mostRecentLogin;
 
   /**
    * The version 1 protocol handler.
@@ -88,6 +119,10 @@ public final class EIAJClientProtocolHandler1
 
     this.messages =
       new EIAJCB1Messages();
+    this.limiter =
+      new EIAJInFlightLimiter(IN_FLIGHT_MAXIMUM);
+    this.reLoginLock =
+      new Object();
 
     this.loginURI =
       inBase.resolve("login")
@@ -95,6 +130,12 @@ public final class EIAJClientProtocolHandler1
     this.commandURI =
       inBase.resolve("command")
         .normalize();
+    this.auditExportURI =
+      inBase.resolve("audit-export")
+        .normalize();
+    this.auditFollowURI =
+      inBase.resolve("audit-follow")
+        .normalize();
   }
 
   @Override
@@ -124,6 +165,30 @@ public final class EIAJClientProtocolHandler1
     return this.send(1, this.commandURI, responseClass, false, message);
   }
 
+  private <T extends EIAJResponseType> CompletableFuture<T> sendCommandAsync(
+    final Class<T> responseClass,
+    final EIAJCommandType<T> message)
+  {
+    return this.limiter.submit(() -> {
+      return this.sendAsync(1, this.commandURI, responseClass, false, message);
+    });
+  }
+
+  private HttpRequest createRequest(
+    final URI uri,
+    final EIAJCommandType<?> message)
+    throws EIProtocolException
+  {
+    final var sendBytes =
+      this.messages.serialize(message);
+
+    return HttpRequest.newBuilder(uri)
+      .header("User-Agent", userAgent())
+      .header("Accept-Encoding", ACCEPT_ENCODING)
+      .POST(HttpRequest.BodyPublishers.ofByteArray(sendBytes))
+      .build();
+  }
+
   private <T extends EIAJResponseType> T send(
     final int attempt,
     final URI uri,
@@ -136,110 +201,280 @@ public final class EIAJClientProtocolHandler1
       final var commandType = message.getClass().getSimpleName();
       LOG.debug("sending {} to {}", commandType, uri);
 
-      final var sendBytes =
-        this.messages.serialize(message);
-
-      final var request =
-        HttpRequest.newBuilder(uri)
-          .header("User-Agent", userAgent())
-          .POST(HttpRequest.BodyPublishers.ofByteArray(sendBytes))
-          .build();
-
       final var response =
         this.httpClient()
-          .send(request, BodyHandlers.ofByteArray());
+          .send(
+            this.createRequest(uri, message),
+            BodyHandlers.ofInputStream()
+          );
+
+      final var responseActual =
+        this.receive(commandType, response);
+
+      if (attempt < 3 && !isLoggingIn && isAuthenticationError(responseActual)) {
+        LOG.debug("attempting re-login");
+        this.sendLogin(this.mostRecentLogin);
+        return this.send(
+          attempt + 1,
+          uri,
+          responseClass,
+          false,
+          message
+        );
+      }
 
-      LOG.debug("server: status {}", response.statusCode());
+      return this.checkResponse(
+        commandType,
+        responseClass,
+        response.statusCode(),
+        responseActual
+      );
+    } catch (final EIProtocolException e) {
+      throw new EIAJClientException(PROTOCOL_ERROR, e);
+    } catch (final IOException e) {
+      throw new EIAJClientException(IO_ERROR, e);
+    }
+  }
 
-      final var responseHeaders =
-        response.headers();
+  private <T extends EIAJResponseType> CompletableFuture<T> sendAsync(
+    final int attempt,
+    final URI uri,
+    final Class<T> responseClass,
+    final boolean isLoggingIn,
+    final EIAJCommandType<T> message)
+  {
+    final var commandType = message.getClass().getSimpleName();
+    LOG.debug("sending {} to {} (async)", commandType, uri);
 
-      final var contentType =
-        responseHeaders.firstValue("content-type")
-          .orElse("application/octet-stream");
+    final HttpRequest request;
+    try {
+      request = this.createRequest(uri, message);
+    } catch (final EIProtocolException e) {
+      return CompletableFuture.failedFuture(
+        new EIAJClientException(PROTOCOL_ERROR, e)
+      );
+    }
 
-      final var expectedContentType = EIAJCB1Messages.contentType();
-      if (!contentType.equals(expectedContentType)) {
-        throw new EIAJClientException(
-          PROTOCOL_ERROR,
-          this.strings()
-            .format(
-              "errorContentType",
-              commandType,
-              expectedContentType,
-              contentType)
+    final var result = new CompletableFuture<T>();
+    this.httpClient()
+      .sendAsync(request, BodyHandlers.ofInputStream())
+      .thenCompose(response -> {
+        return this.onResponseAsync(
+          attempt,
+          uri,
+          responseClass,
+          isLoggingIn,
+          message,
+          response
         );
-      }
+      })
+      .whenComplete((value, exception) -> {
+        if (exception != null) {
+          result.completeExceptionally(toClientException(exception));
+        } else {
+          result.complete(value);
+        }
+      });
+    return result;
+  }
 
-      final var responseMessage =
-        this.messages.parse(decompressResponse(response, responseHeaders));
+  private <T extends EIAJResponseType> CompletableFuture<T> onResponseAsync(
+    final int attempt,
+    final URI uri,
+    final Class<T> responseClass,
+    final boolean isLoggingIn,
+    final EIAJCommandType<T> message,
+    final HttpResponse<InputStream> response)
+  {
+    final var commandType = message.getClass().getSimpleName();
 
-      if (!(responseMessage instanceof final EIAJResponseType responseActual)) {
-        throw new EIAJClientException(
-          PROTOCOL_ERROR,
-          this.strings()
-            .format(
-              "errorResponseType",
-              "(unavailable)",
-              commandType,
-              EIAJResponseType.class,
-              responseMessage.getClass())
-        );
-      }
+    try {
+      final var responseActual =
+        this.receive(commandType, response);
 
-      if (responseActual instanceof EIAJResponseError error) {
-        if (attempt < 3) {
-          if (isAuthenticationError(error) && !isLoggingIn) {
-            LOG.debug("attempting re-login");
-            this.sendLogin(this.mostRecentLogin);
-            return this.send(
+      if (attempt < 3 && !isLoggingIn && isAuthenticationError(responseActual)) {
+        return this.reLoginAsync()
+          .thenCompose(ignored -> {
+            return this.sendAsync(
               attempt + 1,
               uri,
               responseClass,
               false,
               message
             );
-          }
-        }
+          });
+      }
 
-        throw new EIAJClientException(
-          error.errorCode(),
-          this.strings()
-            .format(
-              "errorResponse",
-              error.requestId(),
-              commandType,
-              Integer.valueOf(response.statusCode()),
-              error.errorCode(),
-              error.message())
-        );
+      return CompletableFuture.completedFuture(
+        this.checkResponse(
+          commandType,
+          responseClass,
+          response.statusCode(),
+          responseActual
+        )
+      );
+    } catch (final EIAJClientException e) {
+      return CompletableFuture.failedFuture(e);
+    } catch (final EIProtocolException e) {
+      return CompletableFuture.failedFuture(
+        new EIAJClientException(PROTOCOL_ERROR, e));
+    } catch (final IOException e) {
+      return CompletableFuture.failedFuture(
+        new EIAJClientException(IO_ERROR, e));
+    }
+  }
+
+  /**
+   * Log in again after the server has rejected a command with an
+   * authentication error. Any number of commands in flight may receive
+   * such an error at the same time, so concurrent attempts are coalesced
+   * into a single login request.
+   */
+
+  private CompletableFuture<EIAJResponseLogin> reLoginAsync()
+  {
+    synchronized (this.reLoginLock) {
+      final var existing = this.reLogin;
+      if (existing != null && !existing.isDone()) {
+        return existing;
       }
 
-      if (!Objects.equals(responseActual.getClass(), responseClass)) {
-        throw new EIAJClientException(
-          PROTOCOL_ERROR,
-          this.strings()
-            .format(
-              "errorResponseType",
-              responseActual.requestId(),
-              commandType,
-              responseClass,
-              responseMessage.getClass())
+      LOG.debug("attempting re-login");
+      final var login =
+        this.sendAsync(
+          1,
+          this.loginURI,
+          EIAJResponseLogin.class,
+          true,
+          this.mostRecentLogin
         );
-      }
+      this.reLogin = login;
+      return login;
+    }
+  }
 
-      return responseClass.cast(responseMessage);
-    } catch (final EIProtocolException e) {
-      throw new EIAJClientException(PROTOCOL_ERROR, e);
-    } catch (final IOException e) {
-      throw new EIAJClientException(IO_ERROR, e);
+  private EIAJResponseType receive(
+    final String commandType,
+    final HttpResponse<InputStream> response)
+    throws EIAJClientException, EIProtocolException, IOException
+  {
+    LOG.debug("server: status {}", response.statusCode());
+
+    final var responseHeaders =
+      response.headers();
+
+    this.checkContentType(commandType, response);
+
+    final EIAJMessageType responseMessage;
+    try (var stream = decompressResponse(response, responseHeaders)) {
+      responseMessage = this.messages.parse(stream);
+    }
+
+    return this.checkResponseType(commandType, responseMessage);
+  }
+
+  private EIAJResponseType checkResponseType(
+    final String commandType,
+    final EIAJMessageType responseMessage)
+    throws EIAJClientException
+  {
+    if (!(responseMessage instanceof final EIAJResponseType responseActual)) {
+      throw new EIAJClientException(
+        PROTOCOL_ERROR,
+        this.strings()
+          .format(
+            "errorResponseType",
+            "(unavailable)",
+            commandType,
+            EIAJResponseType.class,
+            responseMessage.getClass())
+      );
+    }
+    return responseActual;
+  }
+
+  private void checkContentType(
+    final String commandType,
+    final HttpResponse<InputStream> response)
+    throws EIAJClientException, IOException
+  {
+    final var contentType =
+      response.headers()
+        .firstValue("content-type")
+        .orElse("application/octet-stream");
+
+    final var expectedContentType = EIAJCB1Messages.contentType();
+    if (!contentType.equals(expectedContentType)) {
+      response.body().close();
+      throw new EIAJClientException(
+        PROTOCOL_ERROR,
+        this.strings()
+          .format(
+            "errorContentType",
+            commandType,
+            expectedContentType,
+            contentType)
+      );
+    }
+  }
+
+  private <T extends EIAJResponseType> T checkResponse(
+    final String commandType,
+    final Class<T> responseClass,
+    final int statusCode,
+    final EIAJResponseType responseActual)
+    throws EIAJClientException
+  {
+    if (responseActual instanceof EIAJResponseError error) {
+      throw new EIAJClientException(
+        error.errorCode(),
+        this.strings()
+          .format(
+            "errorResponse",
+            error.requestId(),
+            commandType,
+            Integer.valueOf(statusCode),
+            error.errorCode(),
+            error.message())
+      );
+    }
+
+    if (!Objects.equals(responseActual.getClass(), responseClass)) {
+      throw new EIAJClientException(
+        PROTOCOL_ERROR,
+        this.strings()
+          .format(
+            "errorResponseType",
+            responseActual.requestId(),
+            commandType,
+            responseClass,
+            responseActual.getClass())
+      );
+    }
+
+    return responseClass.cast(responseActual);
+  }
+
+  private static EIAJClientException toClientException(
+    final Throwable exception)
+  {
+    var cause = exception;
+    while (cause instanceof CompletionException
+           && cause.getCause() != null) {
+      cause = cause.getCause();
     }
+
+    if (cause instanceof EIAJClientException e) {
+      return e;
+    }
+    return new EIAJClientException(IO_ERROR, cause);
   }
 
   private static boolean isAuthenticationError(
-    final EIAJResponseError error)
+    final EIAJResponseType response)
   {
-    return Objects.equals(error.errorCode(), AUTHENTICATION_ERROR.id());
+    return response instanceof EIAJResponseError error
+      && Objects.equals(error.errorCode(), AUTHENTICATION_ERROR.id());
   }
 
   private static String userAgent()
@@ -265,6 +500,18 @@ public final class EIAJClientProtocolHandler1
     );
   }
 
+  @Override
+  public CompletableFuture<Void> groupCreateAsync(
+    final EIGroupName name)
+  {
+    return this.sendCommandAsync(
+      EIAJResponseGroupCreate.class,
+      new EIAJCommandGroupCreate(name)
+    ).thenAccept(response -> {
+
+    });
+  }
+
   @Override
   public EIAJClientPagedType<EIGroupName> groupSearchByName(
     final EIGroupSearchByNameParameters parameters)
@@ -293,6 +540,191 @@ public final class EIAJClientProtocolHandler1
     );
   }
 
+  @Override
+  public long auditExport(
+    final EIAuditSearchParameters parameters,
+    final OutputStream output)
+    throws EIAJClientException, InterruptedException
+  {
+    Objects.requireNonNull(output, "output");
+    return this.auditExport(1, new EIAJCommandAuditExport(parameters), output);
+  }
+
+  private long auditExport(
+    final int attempt,
+    final EIAJCommandAuditExport message,
+    final OutputStream output)
+    throws EIAJClientException, InterruptedException
+  {
+    final var commandType = message.getClass().getSimpleName();
+    LOG.debug("sending {} to {}", commandType, this.auditExportURI);
+
+    try {
+      final var response =
+        this.httpClient()
+          .send(
+            this.createRequest(this.auditExportURI, message),
+            BodyHandlers.ofInputStream()
+          );
+
+      /*
+       * Requests that fail before the export begins receive an ordinary
+       * unframed response.
+       */
+
+      final var statusCode = response.statusCode();
+      if (statusCode != 200) {
+        final var responseActual =
+          this.receive(commandType, response);
+
+        if (attempt < 3 && isAuthenticationError(responseActual)) {
+          LOG.debug("attempting re-login");
+          this.sendLogin(this.mostRecentLogin);
+          return this.auditExport(attempt + 1, message, output);
+        }
+
+        return this.checkResponse(
+          commandType,
+          EIAJResponseAuditExportEnd.class,
+          statusCode,
+          responseActual
+        ).count();
+      }
+
+      this.checkContentType(commandType, response);
+      try (var stream = decompressResponse(response, response.headers())) {
+        return this.receiveExport(commandType, statusCode, stream, output);
+      }
+    } catch (final EIProtocolException e) {
+      throw new EIAJClientException(PROTOCOL_ERROR, e);
+    } catch (final IOException e) {
+      throw new EIAJClientException(IO_ERROR, e);
+    }
+  }
+
+  private long receiveExport(
+    final String commandType,
+    final int statusCode,
+    final InputStream stream,
+    final OutputStream output)
+    throws EIAJClientException, EIProtocolException
+  {
+    while (true) {
+      final var frame =
+        EIProtocolFrames.readFrame(this.messages, stream, FRAME_SIZE_MAXIMUM);
+
+      if (frame.isEmpty()) {
+        throw new EIAJClientException(
+          PROTOCOL_ERROR,
+          this.strings().format("errorExportTruncated", commandType)
+        );
+      }
+
+      final var responseActual =
+        this.checkResponseType(commandType, frame.get());
+
+      if (responseActual instanceof EIAJResponseAuditExport batch) {
+        EIProtocolFrames.writeFrame(this.messages, batch, output);
+        continue;
+      }
+
+      return this.checkResponse(
+        commandType,
+        EIAJResponseAuditExportEnd.class,
+        statusCode,
+        responseActual
+      ).count();
+    }
+  }
+
+  @Override
+  public void auditFollow(
+    final EIAuditSearchParameters parameters,
+    final EIAJClientAuditFollowerType follower)
+    throws EIAJClientException, InterruptedException
+  {
+    Objects.requireNonNull(follower, "follower");
+    this.auditFollow(1, new EIAJCommandAuditFollow(parameters), follower);
+  }
+
+  private void auditFollow(
+    final int attempt,
+    final EIAJCommandAuditFollow message,
+    final EIAJClientAuditFollowerType follower)
+    throws EIAJClientException, InterruptedException
+  {
+    final var commandType = message.getClass().getSimpleName();
+    LOG.debug("sending {} to {}", commandType, this.auditFollowURI);
+
+    try {
+      final var response =
+        this.httpClient()
+          .send(
+            this.createRequest(this.auditFollowURI, message),
+            BodyHandlers.ofInputStream()
+          );
+
+      final var statusCode = response.statusCode();
+      if (statusCode != 200) {
+        final var responseActual =
+          this.receive(commandType, response);
+
+        if (attempt < 3 && isAuthenticationError(responseActual)) {
+          LOG.debug("attempting re-login");
+          this.sendLogin(this.mostRecentLogin);
+          this.auditFollow(attempt + 1, message, follower);
+          return;
+        }
+
+        this.checkResponse(
+          commandType,
+          EIAJResponseAuditFollow.class,
+          statusCode,
+          responseActual
+        );
+        return;
+      }
+
+      this.checkContentType(commandType, response);
+      try (var stream = decompressResponse(response, response.headers())) {
+        this.receiveFollow(commandType, statusCode, stream, follower);
+      }
+    } catch (final EIProtocolException e) {
+      throw new EIAJClientException(PROTOCOL_ERROR, e);
+    } catch (final IOException e) {
+      throw new EIAJClientException(IO_ERROR, e);
+    }
+  }
+
+  private void receiveFollow(
+    final String commandType,
+    final int statusCode,
+    final InputStream stream,
+    final EIAJClientAuditFollowerType follower)
+    throws EIAJClientException, EIProtocolException
+  {
+    while (true) {
+      final var frame =
+        EIProtocolFrames.readFrame(this.messages, stream, FRAME_SIZE_MAXIMUM);
+
+      if (frame.isEmpty()) {
+        return;
+      }
+
+      final var batch =
+        this.checkResponse(
+          commandType,
+          EIAJResponseAuditFollow.class,
+          statusCode,
+          this.checkResponseType(commandType, frame.get())
+        );
+
+      if (!follower.receive(batch.events())) {
+        return;
+      }
+    }
+  }
+
   private static final class GenericPaged<
     T,
     R extends EIAJResponseType,
@@ -356,5 +788,19 @@ public final class EIAJClientProtocolHandler1
         this.handler.sendCommand(this.responseClass, this.cmdPrevious)
       );
     }
+
+    @Override
+    public Stream<EIPage<T>> pages(
+      final int prefetch)
+    {
+      final var prefetcher =
+        new EIAJPagePrefetcher<T>(prefetch, this::current, this::next);
+      prefetcher.start();
+
+      return StreamSupport.stream(
+        Spliterators.spliteratorUnknownSize(prefetcher, ORDERED | NONNULL),
+        false
+      ).onClose(prefetcher::close);
+    }
   }
 }
@@ -16,6 +16,7 @@
 
 package com.io7m.eigion.amberjack.internal;
 
+import com.io7m.eigion.amberjack.api.EIAJClientAuditFollowerType;
 import com.io7m.eigion.amberjack.api.EIAJClientException;
 import com.io7m.eigion.amberjack.api.EIAJClientPagedType;
 import com.io7m.eigion.model.EIAuditEvent;
@@ -23,10 +24,12 @@ import com.io7m.eigion.model.EIAuditSearchParameters;
 import com.io7m.eigion.model.EIGroupName;
 import com.io7m.eigion.model.EIGroupSearchByNameParameters;
 
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 import static com.io7m.eigion.error_codes.EIStandardErrorCodes.NOT_LOGGED_IN;
 
@@ -39,20 +42,23 @@ public final class EIAJClientProtocolHandlerDisconnected
 {
   private final HttpClient httpClient;
   private final Locale locale;
+  private final EIAJProtocolNegotiationCache negotiations;
   private final EIAJStrings strings;
 
   /**
    * The "disconnected" protocol handler.
    *
-   * @param inLocale     The locale
-   * @param inStrings    The string resources
-   * @param inHttpClient The HTTP client
+   * @param inLocale       The locale
+   * @param inStrings      The string resources
+   * @param inHttpClient   The HTTP client
+   * @param inNegotiations The cache of negotiated protocols
    */
 
   public EIAJClientProtocolHandlerDisconnected(
     final Locale inLocale,
     final EIAJStrings inStrings,
-    final HttpClient inHttpClient)
+    final HttpClient inHttpClient,
+    final EIAJProtocolNegotiationCache inNegotiations)
   {
     this.locale =
       Objects.requireNonNull(inLocale, "locale");
@@ -60,6 +66,8 @@ public final class EIAJClientProtocolHandlerDisconnected
       Objects.requireNonNull(inStrings, "strings");
     this.httpClient =
       Objects.requireNonNull(inHttpClient, "httpClient");
+    this.negotiations =
+      Objects.requireNonNull(inNegotiations, "negotiations");
   }
 
   @Override
@@ -74,6 +82,7 @@ public final class EIAJClientProtocolHandlerDisconnected
         this.locale,
         this.httpClient,
         this.strings,
+        this.negotiations,
         base
       );
 
@@ -96,6 +105,13 @@ public final class EIAJClientProtocolHandlerDisconnected
     throw this.notLoggedIn();
   }
 
+  @Override
+  public CompletableFuture<Void> groupCreateAsync(
+    final EIGroupName name)
+  {
+    return CompletableFuture.failedFuture(this.notLoggedIn());
+  }
+
   private EIAJClientException notLoggedIn()
   {
     return new EIAJClientException(
@@ -111,4 +127,22 @@ public final class EIAJClientProtocolHandlerDisconnected
   {
     throw this.notLoggedIn();
   }
+
+  @Override
+  public long auditExport(
+    final EIAuditSearchParameters parameters,
+    final OutputStream output)
+    throws EIAJClientException
+  {
+    throw this.notLoggedIn();
+  }
+
+  @Override
+  public void auditFollow(
+    final EIAuditSearchParameters parameters,
+    final EIAJClientAuditFollowerType follower)
+    throws EIAJClientException
+  {
+    throw this.notLoggedIn();
+  }
 }
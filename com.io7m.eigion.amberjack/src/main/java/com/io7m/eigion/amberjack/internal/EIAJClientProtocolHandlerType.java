@@ -18,6 +18,7 @@ package com.io7m.eigion.amberjack.internal;
 
 import com.io7m.eigion.amberjack.api.EIAJClientAuditType;
 import com.io7m.eigion.amberjack.api.EIAJClientException;
+import com.io7m.eigion.amberjack.api.EIAJClientGroupsAsyncType;
 import com.io7m.eigion.amberjack.api.EIAJClientGroupsType;
 
 import java.net.URI;
@@ -27,7 +28,9 @@ import java.net.URI;
  */
 
 public interface EIAJClientProtocolHandlerType
-  extends EIAJClientGroupsType, EIAJClientAuditType
+  extends EIAJClientGroupsType,
+    EIAJClientGroupsAsyncType,
+    EIAJClientAuditType
 {
   /**
    * Attempt to log in.
@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.eigion.amberjack.internal;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * A limiter that bounds the number of asynchronous requests in flight.
+ * Tasks submitted when the limit has been reached are queued, and are
+ * started in submission order as earlier tasks complete. Submitting a task
+ * never blocks.
+ */
+
+public final class EIAJInFlightLimiter
+{
+  private final int maximum;
+  private final ArrayDeque<Runnable> waiting;
+  private int inFlight;
+
+  /**
+   * A limiter that bounds the number of asynchronous requests in flight.
+   *
+   * @param inMaximum The maximum number of tasks in flight
+   */
+
+  public EIAJInFlightLimiter(
+    final int inMaximum)
+  {
+    if (inMaximum < 1) {
+      throw new IllegalArgumentException(
+        "Maximum in-flight count %d must be positive".formatted(
+          Integer.valueOf(inMaximum))
+      );
+    }
+
+    this.maximum = inMaximum;
+    this.waiting = new ArrayDeque<>();
+    this.inFlight = 0;
+  }
+
+  /**
+   * Submit a task. The task is started immediately if fewer than the maximum
+   * number of tasks are in flight, and is otherwise queued.
+   *
+   * @param task The task
+   * @param <T>  The type of returned values
+   *
+   * @return A future that completes when the task's future completes
+   */
+
+  public <T> CompletableFuture<T> submit(
+    final Supplier<CompletableFuture<T>> task)
+  {
+    final var result = new CompletableFuture<T>();
+    final Runnable start = () -> this.start(task, result);
+
+    synchronized (this.waiting) {
+      if (this.inFlight >= this.maximum) {
+        this.waiting.add(start);
+        return result;
+      }
+      ++this.inFlight;
+    }
+
+    start.run();
+    return result;
+  }
+
+  /**
+   * @return The number of tasks currently in flight
+   */
+
+  public int inFlight()
+  {
+    synchronized (this.waiting) {
+      return this.inFlight;
+    }
+  }
+
+  private <T> void start(
+    final Supplier<CompletableFuture<T>> task,
+    final CompletableFuture<T> result)
+  {
+    final CompletableFuture<T> future;
+    try {
+      future = task.get();
+    } catch (final Throwable e) {
+      this.release();
+      result.completeExceptionally(e);
+      return;
+    }
+
+    future.whenComplete((value, exception) -> {
+      this.release();
+      if (exception != null) {
+        result.completeExceptionally(exception);
+      } else {
+        result.complete(value);
+      }
+    });
+  }
+
+  private void release()
+  {
+    final Runnable next;
+    synchronized (this.waiting) {
+      next = this.waiting.poll();
+      if (next == null) {
+        --this.inFlight;
+      }
+    }
+
+    if (next != null) {
+      next.run();
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[EIAJInFlightLimiter 0x%s]".formatted(
+      Long.toUnsignedString(this.hashCode(), 16));
+  }
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.eigion.amberjack.internal;
+
+import com.io7m.eigion.model.EIPage;
+import com.io7m.eigion.amberjack.api.EIAJClientException;
+import com.io7m.eigion.amberjack.api.EIAJClientUncheckedException;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.IO_ERROR;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * An iterator over pages that fetches pages on a background thread ahead of
+ * the consumer. The producer runs at most {@code prefetch} pages ahead of
+ * the page most recently returned by {@link #next()}.
+ *
+ * <p>The prefetcher must be closed if it is not consumed in its entirety.
+ * As a backstop, a producer that has been unable to deliver a page for
+ * the abandon timeout ({@link #ABANDON_TIMEOUT} by default) assumes that
+ * the consumer has been discarded without being closed, and stops; a
+ * consumer that subsequently returns receives the pages that were already
+ * fetched, followed by an error.</p>
+ *
+ * @param <T> The type of items
+ */
+
+public final class EIAJPagePrefetcher<T>
+  implements Iterator<EIPage<T>>, AutoCloseable
+{
+  /**
+   * The time after which a producer that cannot deliver a page assumes that
+   * the consumer has been abandoned.
+   */
+
+  public static final Duration ABANDON_TIMEOUT = Duration.ofMinutes(5L);
+
+  private static final long OFFER_INTERVAL_MILLIS = 1000L;
+
+  private final Duration abandonTimeout;
+  private final long offerIntervalMillis;
+  private final ArrayBlockingQueue<EntryType<T>> queue;
+  private final FetchType<T> fetchFirst;
+  private final FetchType<T> fetchNext;
+  private final Thread thread;
+  private EntryType<T> head;
+  private volatile boolean closed;
+  private volatile boolean abandoned;
+
+  /**
+   * An iterator over pages that fetches pages on a background thread ahead
+   * of the consumer.
+   *
+   * @param inPrefetch   The number of pages to fetch ahead
+   * @param inFetchFirst A function that fetches the first page
+   * @param inFetchNext  A function that fetches the next page
+   */
+
+  public EIAJPagePrefetcher(
+    final int inPrefetch,
+    final FetchType<T> inFetchFirst,
+    final FetchType<T> inFetchNext)
+  {
+    this(inPrefetch, ABANDON_TIMEOUT, inFetchFirst, inFetchNext);
+  }
+
+  /**
+   * An iterator over pages that fetches pages on a background thread ahead
+   * of the consumer.
+   *
+   * @param inPrefetch       The number of pages to fetch ahead
+   * @param inAbandonTimeout The time after which a producer that cannot
+   *                         deliver a page assumes that the consumer has
+   *                         been abandoned
+   * @param inFetchFirst     A function that fetches the first page
+   * @param inFetchNext      A function that fetches the next page
+   */
+
+  public EIAJPagePrefetcher(
+    final int inPrefetch,
+    final Duration inAbandonTimeout,
+    final FetchType<T> inFetchFirst,
+    final FetchType<T> inFetchNext)
+  {
+    if (inPrefetch < 1) {
+      throw new IllegalArgumentException(
+        "Prefetch count %d must be positive".formatted(
+          Integer.valueOf(inPrefetch))
+      );
+    }
+
+    this.abandonTimeout =
+      Objects.requireNonNull(inAbandonTimeout, "abandonTimeout");
+    this.offerIntervalMillis =
+      Math.max(
+        1L,
+        Math.min(OFFER_INTERVAL_MILLIS, inAbandonTimeout.toMillis()));
+    this.fetchFirst =
+      Objects.requireNonNull(inFetchFirst, "fetchFirst");
+    this.fetchNext =
+      Objects.requireNonNull(inFetchNext, "fetchNext");
+    this.queue =
+      new ArrayBlockingQueue<>(inPrefetch);
+
+    this.thread = new Thread(this::run);
+    this.thread.setName(
+      "%s[%s]".formatted(
+        EIAJPagePrefetcher.class.getCanonicalName(),
+        Long.toUnsignedString(this.thread.getId()))
+    );
+    this.thread.setDaemon(true);
+  }
+
+  /**
+   * Start fetching pages.
+   */
+
+  public void start()
+  {
+    this.thread.start();
+  }
+
+  private static boolean isLastPage(
+    final EIPage<?> page)
+  {
+    return page.pageIndex() >= page.pageCount();
+  }
+
+  private void run()
+  {
+    try {
+      var page = this.fetchFirst.fetch();
+      while (!this.closed) {
+        if (!this.offer(new Page<>(page))) {
+          return;
+        }
+        if (isLastPage(page)) {
+          break;
+        }
+        page = this.fetchNext.fetch();
+      }
+      this.offer(new End<>());
+    } catch (final EIAJClientException e) {
+      this.offerQuietly(new Failed<>(e));
+    } catch (final InterruptedException e) {
+      if (!this.closed) {
+        this.offerQuietly(new Failed<>(new EIAJClientException(IO_ERROR, e)));
+      }
+    } catch (final RuntimeException e) {
+      this.offerQuietly(new Failed<>(new EIAJClientException(IO_ERROR, e)));
+    }
+  }
+
+  /*
+   * Deliver an entry to the consumer, giving up if the prefetcher is closed
+   * or if the consumer appears to have been abandoned.
+   */
+
+  private boolean offer(
+    final EntryType<T> entry)
+    throws InterruptedException
+  {
+    final var timeStart = System.nanoTime();
+    while (!this.closed) {
+      final var offered =
+        this.queue.offer(entry, this.offerIntervalMillis, MILLISECONDS);
+      if (offered) {
+        return true;
+      }
+      if (System.nanoTime() - timeStart >= this.abandonTimeout.toNanos()) {
+        this.abandoned = true;
+        return false;
+      }
+    }
+    return false;
+  }
+
+  private void offerQuietly(
+    final EntryType<T> entry)
+  {
+    try {
+      this.offer(entry);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public boolean hasNext()
+  {
+    if (this.head == null) {
+      if (this.closed) {
+        return false;
+      }
+
+      try {
+        this.head = this.take();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        this.close();
+        throw new EIAJClientUncheckedException(
+          new EIAJClientException(IO_ERROR, e)
+        );
+      }
+    }
+
+    if (this.head instanceof Failed<T> failed) {
+      this.close();
+      throw new EIAJClientUncheckedException(failed.exception());
+    }
+    return this.head instanceof Page<T>;
+  }
+
+  private EntryType<T> take()
+    throws InterruptedException
+  {
+    while (true) {
+      final var entry =
+        this.queue.poll(this.offerIntervalMillis, MILLISECONDS);
+      if (entry != null) {
+        return entry;
+      }
+
+      /*
+       * The producer only gives up when the queue is full, so once the
+       * queue is observed to be empty after the producer has given up, no
+       * further entries can arrive.
+       */
+
+      if (this.abandoned) {
+        final var last = this.queue.poll();
+        if (last != null) {
+          return last;
+        }
+        return new Failed<>(
+          new EIAJClientException(
+            IO_ERROR,
+            "Page prefetching stopped after the consumer was idle for %s."
+              .formatted(this.abandonTimeout)
+          )
+        );
+      }
+    }
+  }
+
+  @Override
+  public EIPage<T> next()
+  {
+    if (!this.hasNext()) {
+      throw new NoSuchElementException();
+    }
+
+    final var page = (Page<T>) this.head;
+    this.head = null;
+    return page.page();
+  }
+
+  @Override
+  public void close()
+  {
+    if (!this.closed) {
+      this.closed = true;
+      this.thread.interrupt();
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[EIAJPagePrefetcher 0x%s]".formatted(
+      Long.toUnsignedString(this.hashCode(), 16));
+  }
+
+  /**
+   * A function that fetches a page.
+   *
+   * @param <T> The type of items
+   */
+
+  public interface FetchType<T>
+  {
+    /**
+     * @return The fetched page
+     *
+     * @throws EIAJClientException   On errors
+     * @throws InterruptedException On interruption
+     */
+
+    EIPage<T> fetch()
+      throws EIAJClientException, InterruptedException;
+  }
+
+  private sealed interface EntryType<T>
+  {
+
+  }
+
+  private record Page<T>(EIPage<T> page)
+    implements EntryType<T>
+  {
+
+  }
+
+  private record Failed<T>(EIAJClientException exception)
+    implements EntryType<T>
+  {
+
+  }
+
+  private record End<T>()
+    implements EntryType<T>
+  {
+
+  }
+}
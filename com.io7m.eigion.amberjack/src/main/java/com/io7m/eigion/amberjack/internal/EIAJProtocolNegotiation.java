@@ -32,6 +32,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigInteger;
 import java.net.URI;
 import java.net.http.HttpClient;
@@ -41,12 +42,13 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 
+import static com.io7m.eigion.amberjack.internal.EIAJCompression.ACCEPT_ENCODING;
 import static com.io7m.eigion.amberjack.internal.EIAJCompression.decompressResponse;
 import static com.io7m.eigion.error_codes.EIStandardErrorCodes.HTTP_ERROR;
 import static com.io7m.eigion.error_codes.EIStandardErrorCodes.IO_ERROR;
 import static com.io7m.eigion.error_codes.EIStandardErrorCodes.NO_SUPPORTED_PROTOCOLS;
 import static com.io7m.eigion.error_codes.EIStandardErrorCodes.PROTOCOL_ERROR;
-import static java.net.http.HttpResponse.BodyHandlers.ofByteArray;
+import static java.net.http.HttpResponse.BodyHandlers.ofInputStream;
 
 /**
  * Functions to negotiate protocols.
@@ -62,6 +64,16 @@ public final class EIAJProtocolNegotiation
 
   }
 
+  private static void closeQuietly(
+    final InputStream stream)
+  {
+    try {
+      stream.close();
+    } catch (final IOException e) {
+      LOG.debug("failed to close response stream: ", e);
+    }
+  }
+
   private static List<IdAServerEndpoint> fetchSupportedVersions(
     final URI base,
     final HttpClient httpClient,
@@ -72,12 +84,13 @@ public final class EIAJProtocolNegotiation
 
     final var request =
       HttpRequest.newBuilder(base)
+        .header("Accept-Encoding", ACCEPT_ENCODING)
         .GET()
         .build();
 
-    final HttpResponse<byte[]> response;
+    final HttpResponse<InputStream> response;
     try {
-      response = httpClient.send(request, ofByteArray());
+      response = httpClient.send(request, ofInputStream());
     } catch (final IOException e) {
       throw new EIAJClientException(IO_ERROR, e);
     }
@@ -85,6 +98,7 @@ public final class EIAJProtocolNegotiation
     LOG.debug("server: status {}", response.statusCode());
 
     if (response.statusCode() >= 400) {
+      closeQuietly(response.body());
       throw new EIAJClientException(
         HTTP_ERROR,
         strings.format("httpError", Integer.valueOf(response.statusCode()))
@@ -96,8 +110,9 @@ public final class EIAJProtocolNegotiation
 
     final VProtocols message;
     try {
-      final var body = decompressResponse(response, response.headers());
-      message = protocols.parse(base, body);
+      try (var stream = decompressResponse(response, response.headers())) {
+        message = protocols.parse(base, stream.readAllBytes());
+      }
     } catch (final VProtocolException e) {
       throw new EIAJClientException(PROTOCOL_ERROR, e);
     } catch (final IOException e) {
@@ -120,7 +135,14 @@ public final class EIAJProtocolNegotiation
       }).toList();
   }
 
-  private record IdAServerEndpoint(
+  /**
+   * A protocol endpoint advertised by a server.
+   *
+   * @param supported The supported protocol
+   * @param endpoint  The endpoint path
+   */
+
+  public record IdAServerEndpoint(
     GenProtocolIdentifier supported,
     String endpoint)
     implements GenProtocolServerEndpointType
@@ -138,6 +160,7 @@ public final class EIAJProtocolNegotiation
    * @param locale     The locale
    * @param httpClient The HTTP client
    * @param strings    The string resources
+   * @param cache      The cache of server protocols
    * @param base       The base URI
    *
    * @return The protocol handler
@@ -150,12 +173,14 @@ public final class EIAJProtocolNegotiation
     final Locale locale,
     final HttpClient httpClient,
     final EIAJStrings strings,
+    final EIAJProtocolNegotiationCache cache,
     final URI base)
     throws EIAJClientException, InterruptedException
   {
     Objects.requireNonNull(locale, "locale");
     Objects.requireNonNull(httpClient, "httpClient");
     Objects.requireNonNull(strings, "strings");
+    Objects.requireNonNull(cache, "cache");
     Objects.requireNonNull(base, "base");
 
     final var clientSupports =
@@ -163,8 +188,15 @@ public final class EIAJProtocolNegotiation
         new EIAJClientProtocolHandlers1()
       );
 
-    final var serverProtocols =
-      fetchSupportedVersions(base, httpClient, strings);
+    final List<IdAServerEndpoint> serverProtocols;
+    final var cached = cache.get(base);
+    if (cached.isPresent()) {
+      LOG.debug("using cached server protocols");
+      serverProtocols = cached.get();
+    } else {
+      serverProtocols = fetchSupportedVersions(base, httpClient, strings);
+      cache.put(base, serverProtocols);
+    }
 
     LOG.debug("server supports {} protocols", serverProtocols.size());
 
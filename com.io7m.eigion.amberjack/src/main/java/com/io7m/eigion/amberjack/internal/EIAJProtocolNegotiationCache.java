@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.eigion.amberjack.internal;
+
+import com.io7m.eigion.amberjack.internal.EIAJProtocolNegotiation.IdAServerEndpoint;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache of the protocols supported by servers, keyed by base URI. Entries
+ * expire after a configurable duration, and are explicitly invalidated when
+ * a server returns a protocol error.
+ */
+
+public final class EIAJProtocolNegotiationCache
+{
+  /**
+   * The default duration for which entries are retained.
+   */
+
+  public static final Duration DEFAULT_EXPIRATION = Duration.ofMinutes(10L);
+
+  private final Clock clock;
+  private final Duration expiration;
+  private final ConcurrentHashMap<URI, Entry> entries;
+
+  /**
+   * A cache of the protocols supported by servers.
+   *
+   * @param inClock      The clock used to expire entries
+   * @param inExpiration The duration for which entries are retained
+   */
+
+  public EIAJProtocolNegotiationCache(
+    final Clock inClock,
+    final Duration inExpiration)
+  {
+    this.clock =
+      Objects.requireNonNull(inClock, "clock");
+    this.expiration =
+      Objects.requireNonNull(inExpiration, "expiration");
+    this.entries =
+      new ConcurrentHashMap<>();
+  }
+
+  /**
+   * @return A cache using the system clock and the default expiration
+   */
+
+  public static EIAJProtocolNegotiationCache create()
+  {
+    return new EIAJProtocolNegotiationCache(
+      Clock.systemUTC(),
+      DEFAULT_EXPIRATION
+    );
+  }
+
+  /**
+   * Retrieve the cached protocols for the given server, if an entry exists
+   * and has not expired. Base URIs are normalized before use.
+   *
+   * @param base The base URI of the server
+   *
+   * @return The cached protocols, if any
+   */
+
+  public Optional<List<IdAServerEndpoint>> get(
+    final URI base)
+  {
+    final var key = base.normalize();
+    final var entry = this.entries.get(key);
+    if (entry == null) {
+      return Optional.empty();
+    }
+
+    if (!this.clock.instant().isBefore(entry.expires())) {
+      this.entries.remove(key, entry);
+      return Optional.empty();
+    }
+    return Optional.of(entry.endpoints());
+  }
+
+  /**
+   * Cache the protocols supported by the given server, replacing any
+   * existing entry. Base URIs are normalized before use.
+   *
+   * @param base      The base URI of the server
+   * @param endpoints The supported protocols
+   */
+
+  public void put(
+    final URI base,
+    final List<IdAServerEndpoint> endpoints)
+  {
+    this.entries.put(
+      base.normalize(),
+      new Entry(
+        List.copyOf(endpoints),
+        this.clock.instant().plus(this.expiration))
+    );
+  }
+
+  /**
+   * Invalidate any cached protocols for the given server.
+   *
+   * @param base The base URI of the server
+   *
+   * @return {@code true} if an entry was removed
+   */
+
+  public boolean invalidate(
+    final URI base)
+  {
+    return this.entries.remove(base.normalize()) != null;
+  }
+
+  /**
+   * @return The number of cached entries
+   */
+
+  public int size()
+  {
+    return this.entries.size();
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[EIAJProtocolNegotiationCache 0x%s]".formatted(
+      Long.toUnsignedString(this.hashCode(), 16));
+  }
+
+  private record Entry(
+    List<IdAServerEndpoint> endpoints,
+    Instant expires)
+  {
+    Entry
+    {
+      Objects.requireNonNull(endpoints, "endpoints");
+      Objects.requireNonNull(expires, "expires");
+    }
+  }
+}
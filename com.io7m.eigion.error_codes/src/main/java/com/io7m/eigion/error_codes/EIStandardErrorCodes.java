@@ -369,6 +369,29 @@ public final class EIStandardErrorCodes
   public static final EIErrorCode USAGE_ERROR =
     new EIErrorCode("error-usage");
 
+  /**
+   * The identity server is currently unavailable.
+   */
+
+  public static final EIErrorCode IDSTORE_UNAVAILABLE =
+    new EIErrorCode("error-idstore-unavailable");
+
+  /**
+   * A client following the audit log did not consume events quickly enough,
+   * and was disconnected.
+   */
+
+  public static final EIErrorCode AUDIT_FOLLOW_OVERFLOW =
+    new EIErrorCode("error-audit-follow-overflow");
+
+  /**
+   * An operation was refused because too many similar operations have been
+   * performed recently.
+   */
+
+  public static final EIErrorCode RATE_LIMITED =
+    new EIErrorCode("error-rate-limited");
+
   private EIStandardErrorCodes()
   {
 
@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.eigion.pike.api;
+
+import com.io7m.eigion.model.EIGroupCreationChallenge;
+import com.io7m.eigion.model.EIGroupName;
+import com.io7m.eigion.model.EIToken;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous methods for manipulating groups. Commands submitted through
+ * these methods may be in flight concurrently; the number of requests in
+ * flight at any one time is bounded by the client, and commands submitted
+ * beyond that bound are queued until an earlier command completes. Futures
+ * are completed exceptionally with {@link EIPClientException} on errors.
+ */
+
+public interface EIPClientGroupsAsyncType
+{
+  /**
+   * Start the creation of a group.
+   *
+   * @param groupName The group name
+   *
+   * @return The challenge that must be fulfilled to create the group
+   *
+   * @see EIPClientGroupsType#groupCreateBegin(EIGroupName)
+   */
+
+  CompletableFuture<EIGroupCreationChallenge> groupCreateBeginAsync(
+    EIGroupName groupName);
+
+  /**
+   * Indicate that the challenge associated with the given token is ready for
+   * checking.
+   *
+   * @param token The token
+   *
+   * @return A future representing the operation in progress
+   *
+   * @see EIPClientGroupsType#groupCreateReady(EIToken)
+   */
+
+  CompletableFuture<Void> groupCreateReadyAsync(EIToken token);
+
+  /**
+   * Indicate that the challenge associated with the given token should be
+   * cancelled.
+   *
+   * @param token The token
+   *
+   * @return A future representing the operation in progress
+   *
+   * @see EIPClientGroupsType#groupCreateCancel(EIToken)
+   */
+
+  CompletableFuture<Void> groupCreateCancelAsync(EIToken token);
+}
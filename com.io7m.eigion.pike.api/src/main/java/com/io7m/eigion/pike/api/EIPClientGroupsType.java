@@ -22,6 +22,9 @@ import com.io7m.eigion.model.EIGroupMembership;
 import com.io7m.eigion.model.EIGroupName;
 import com.io7m.eigion.model.EIToken;
 
+import java.time.Duration;
+import java.util.List;
+
 /**
  * Methods for manipulating groups.
  */
@@ -88,4 +91,22 @@ public interface EIPClientGroupsType
 
   EIPClientPagedType<EIGroupCreationRequest> groupCreateRequests()
     throws EIPClientException, InterruptedException;
+
+  /**
+   * Wait for changes to the user's group requests. The call returns as soon
+   * as at least one request changes, or when the timeout elapses. The server
+   * limits the timeout to at most one minute.
+   *
+   * @param timeout The maximum time to wait
+   *
+   * @return The current state of every request that changed, or an empty
+   * list if the timeout elapsed
+   *
+   * @throws EIPClientException   On errors
+   * @throws InterruptedException On interruption
+   */
+
+  List<EIGroupCreationRequest> groupCreateRequestsWait(
+    Duration timeout)
+    throws EIPClientException, InterruptedException;
 }
@@ -19,6 +19,8 @@ package com.io7m.eigion.pike.api;
 
 import com.io7m.eigion.model.EIPage;
 
+import java.util.stream.Stream;
+
 /**
  * A paged client command.
  *
@@ -56,4 +58,41 @@ public interface EIPClientPagedType<T>
 
   EIPage<T> previous()
     throws EIPClientException, InterruptedException;
+
+  /**
+   * Iterate over all pages of results, starting from the first page. Pages
+   * are fetched on a background thread, and up to {@code prefetch} pages
+   * are fetched ahead of the page currently being consumed. Errors
+   * encountered whilst fetching pages are raised as
+   * {@link EIPClientUncheckedException} when the failed page would have
+   * been consumed. The returned stream must be closed if it is not consumed
+   * in its entirety (for example, when using {@code findFirst()}), as
+   * closing the stream stops the background thread. A stream that is
+   * discarded without being closed holds a blocked thread until the
+   * background thread gives up, five minutes after it last delivered a
+   * page.
+   *
+   * @param prefetch The number of pages to fetch ahead ({@code >= 1})
+   *
+   * @return A stream of pages
+   */
+
+  Stream<EIPage<T>> pages(int prefetch);
+
+  /**
+   * Iterate over all results, one page at a time.
+   *
+   * @param prefetch The number of pages to fetch ahead ({@code >= 1})
+   *
+   * @return A stream of results
+   *
+   * @see #pages(int)
+   */
+
+  default Stream<T> items(
+    final int prefetch)
+  {
+    return this.pages(prefetch)
+      .flatMap(page -> page.items().stream());
+  }
 }
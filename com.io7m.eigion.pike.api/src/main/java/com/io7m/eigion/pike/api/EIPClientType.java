@@ -26,7 +26,7 @@ import java.net.URI;
  */
 
 public interface EIPClientType
-  extends Closeable, EIPClientGroupsType
+  extends Closeable, EIPClientGroupsType, EIPClientGroupsAsyncType
 {
   /**
    * Log in.
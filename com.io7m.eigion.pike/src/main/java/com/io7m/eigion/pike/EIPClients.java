@@ -20,6 +20,7 @@ import com.io7m.eigion.pike.api.EIPClientFactoryType;
 import com.io7m.eigion.pike.api.EIPClientType;
 import com.io7m.eigion.pike.internal.EIPClient;
 import com.io7m.eigion.pike.internal.EIPClientProtocolHandlerDisconnected;
+import com.io7m.eigion.pike.internal.EIPProtocolNegotiationCache;
 import com.io7m.eigion.pike.internal.EIPStrings;
 
 import java.io.IOException;
@@ -34,13 +35,16 @@ import java.util.Locale;
 
 public final class EIPClients implements EIPClientFactoryType
 {
+  private final EIPProtocolNegotiationCache negotiations;
+
   /**
-   * The default client factory.
+   * The default client factory. Clients created by the factory share a
+   * cache of negotiated protocols.
    */
 
   public EIPClients()
   {
-
+    this.negotiations = EIPProtocolNegotiationCache.create();
   }
 
   @Override
@@ -65,7 +69,13 @@ public final class EIPClients implements EIPClientFactoryType
       locale,
       strings,
       httpClient,
-      new EIPClientProtocolHandlerDisconnected(locale, strings, httpClient)
+      this.negotiations,
+      new EIPClientProtocolHandlerDisconnected(
+        locale,
+        strings,
+        httpClient,
+        this.negotiations
+      )
     );
   }
 }
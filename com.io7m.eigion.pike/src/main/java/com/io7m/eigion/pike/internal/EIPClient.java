@@ -29,8 +29,13 @@ import com.io7m.eigion.pike.api.EIPClientType;
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.PROTOCOL_ERROR;
 
 /**
  * The default client implementation.
@@ -41,21 +46,24 @@ public final class EIPClient implements EIPClientType
   private final EIPStrings strings;
   private final HttpClient httpClient;
   private final Locale locale;
+  private final EIPProtocolNegotiationCache negotiations;
   private volatile EIPClientProtocolHandlerType handler;
 
   /**
    * The default client implementation.
    *
-   * @param inLocale     The locale
-   * @param inStrings    The string resources
-   * @param inHttpClient The HTTP client
-   * @param inHandler    The versioned handler
+   * @param inLocale       The locale
+   * @param inStrings      The string resources
+   * @param inHttpClient   The HTTP client
+   * @param inNegotiations The cache of negotiated protocols
+   * @param inHandler      The versioned handler
    */
 
   public EIPClient(
     final Locale inLocale,
     final EIPStrings inStrings,
     final HttpClient inHttpClient,
+    final EIPProtocolNegotiationCache inNegotiations,
     final EIPClientProtocolHandlerType inHandler)
   {
     this.locale =
@@ -64,6 +72,8 @@ public final class EIPClient implements EIPClientType
       Objects.requireNonNull(inStrings, "strings");
     this.httpClient =
       Objects.requireNonNull(inHttpClient, "httpClient");
+    this.negotiations =
+      Objects.requireNonNull(inNegotiations, "negotiations");
     this.handler =
       Objects.requireNonNull(inHandler, "handler");
   }
@@ -81,12 +91,37 @@ public final class EIPClient implements EIPClientType
     final String password,
     final URI base)
     throws EIPClientException, InterruptedException
+  {
+    try {
+      return this.loginWithNegotiatedHandler(admin, password, base);
+    } catch (final EIPClientException e) {
+      /*
+       * A protocol error may indicate that the server no longer supports
+       * the cached protocol version. Negotiate again, once.
+       */
+
+      if (!Objects.equals(e.errorCode(), PROTOCOL_ERROR)) {
+        throw e;
+      }
+      if (!this.negotiations.invalidate(base)) {
+        throw e;
+      }
+      return this.loginWithNegotiatedHandler(admin, password, base);
+    }
+  }
+
+  private EIUser loginWithNegotiatedHandler(
+    final String admin,
+    final String password,
+    final URI base)
+    throws EIPClientException, InterruptedException
   {
     final var newHandler =
       EIPProtocolNegotiation.negotiateProtocolHandler(
         this.locale,
         this.httpClient,
         this.strings,
+        this.negotiations,
         base
       );
 
@@ -141,4 +176,33 @@ public final class EIPClient implements EIPClientType
   {
     return this.handler.groupCreateRequests();
   }
+
+  @Override
+  public List<EIGroupCreationRequest> groupCreateRequestsWait(
+    final Duration timeout)
+    throws EIPClientException, InterruptedException
+  {
+    return this.handler.groupCreateRequestsWait(timeout);
+  }
+
+  @Override
+  public CompletableFuture<EIGroupCreationChallenge> groupCreateBeginAsync(
+    final EIGroupName groupName)
+  {
+    return this.handler.groupCreateBeginAsync(groupName);
+  }
+
+  @Override
+  public CompletableFuture<Void> groupCreateReadyAsync(
+    final EIToken token)
+  {
+    return this.handler.groupCreateReadyAsync(token);
+  }
+
+  @Override
+  public CompletableFuture<Void> groupCreateCancelAsync(
+    final EIToken token)
+  {
+    return this.handler.groupCreateCancelAsync(token);
+  }
 }
@@ -31,16 +31,19 @@ import com.io7m.eigion.protocol.pike.EIPCommandGroupCreateReady;
 import com.io7m.eigion.protocol.pike.EIPCommandGroupCreateRequestsBegin;
 import com.io7m.eigion.protocol.pike.EIPCommandGroupCreateRequestsNext;
 import com.io7m.eigion.protocol.pike.EIPCommandGroupCreateRequestsPrevious;
+import com.io7m.eigion.protocol.pike.EIPCommandGroupCreateRequestsWait;
 import com.io7m.eigion.protocol.pike.EIPCommandGroupsBegin;
 import com.io7m.eigion.protocol.pike.EIPCommandGroupsNext;
 import com.io7m.eigion.protocol.pike.EIPCommandGroupsPrevious;
 import com.io7m.eigion.protocol.pike.EIPCommandLogin;
 import com.io7m.eigion.protocol.pike.EIPCommandType;
+import com.io7m.eigion.protocol.pike.EIPMessageType;
 import com.io7m.eigion.protocol.pike.EIPResponseError;
 import com.io7m.eigion.protocol.pike.EIPResponseGroupCreateBegin;
 import com.io7m.eigion.protocol.pike.EIPResponseGroupCreateCancel;
 import com.io7m.eigion.protocol.pike.EIPResponseGroupCreateReady;
 import com.io7m.eigion.protocol.pike.EIPResponseGroupCreateRequests;
+import com.io7m.eigion.protocol.pike.EIPResponseGroupCreateRequestsChanged;
 import com.io7m.eigion.protocol.pike.EIPResponseGroups;
 import com.io7m.eigion.protocol.pike.EIPResponseLogin;
 import com.io7m.eigion.protocol.pike.EIPResponseType;
@@ -49,17 +52,29 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
 import java.util.Objects;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static com.io7m.eigion.error_codes.EIStandardErrorCodes.IO_ERROR;
 import static com.io7m.eigion.error_codes.EIStandardErrorCodes.PROTOCOL_ERROR;
+import static com.io7m.eigion.pike.internal.EIPCompression.ACCEPT_ENCODING;
 import static com.io7m.eigion.pike.internal.EIPCompression.decompressResponse;
 import static com.io7m.idstore.error_codes.IdStandardErrorCodes.AUTHENTICATION_ERROR;
 import static java.net.http.HttpResponse.BodyHandlers;
+import static java.util.Spliterator.NONNULL;
+import static java.util.Spliterator.ORDERED;
 
 /**
  * The version 1 protocol handler.
@@ -71,10 +86,20 @@ public final class EIPClientProtocolHandler1
   private static final Logger LOG =
     LoggerFactory.getLogger(EIPClientProtocolHandler1.class);
 
+  /**
+   * The maximum number of asynchronous commands in flight at any one time.
+   */
+
+  private static final int IN_FLIGHT_MAXIMUM = 16;
+
   private final URI commandURI;
   private final EIPCB1Messages messages;
   private final URI loginURI;
-  private EIPCommandLogin mostRecentLogin;
+  private final URI groupCreateRequestsWaitURI;
+  private final EIPInFlightLimiter limiter;
+  private final Object reLoginLock;
+  private CompletableFuture<EIPResponseLogin> reLogin;
+  private volatile EIPCommandLogin mostRecentLogin;
 
   /**
    * The version 1 protocol handler.
@@ -93,6 +118,10 @@ public final class EIPClientProtocolHandler1
 
     this.messages =
       new EIPCB1Messages();
+    this.limiter =
+      new EIPInFlightLimiter(IN_FLIGHT_MAXIMUM);
+    this.reLoginLock =
+      new Object();
 
     this.loginURI =
       inBase.resolve("login")
@@ -100,6 +129,9 @@ public final class EIPClientProtocolHandler1
     this.commandURI =
       inBase.resolve("command")
         .normalize();
+    this.groupCreateRequestsWaitURI =
+      inBase.resolve("group-create-requests-wait")
+        .normalize();
   }
 
   @Override
@@ -129,6 +161,30 @@ public final class EIPClientProtocolHandler1
     return this.send(1, this.commandURI, responseClass, false, message);
   }
 
+  private <T extends EIPResponseType> CompletableFuture<T> sendCommandAsync(
+    final Class<T> responseClass,
+    final EIPCommandType<T> message)
+  {
+    return this.limiter.submit(() -> {
+      return this.sendAsync(1, this.commandURI, responseClass, false, message);
+    });
+  }
+
+  private HttpRequest createRequest(
+    final URI uri,
+    final EIPCommandType<?> message)
+    throws EIProtocolException
+  {
+    final var sendBytes =
+      this.messages.serialize(message);
+
+    return HttpRequest.newBuilder(uri)
+      .header("User-Agent", userAgent())
+      .header("Accept-Encoding", ACCEPT_ENCODING)
+      .POST(HttpRequest.BodyPublishers.ofByteArray(sendBytes))
+      .build();
+  }
+
   private <T extends EIPResponseType> T send(
     final int attempt,
     final URI uri,
@@ -141,110 +197,263 @@ public final class EIPClientProtocolHandler1
       final var commandType = message.getClass().getSimpleName();
       LOG.debug("sending {} to {}", commandType, uri);
 
-      final var sendBytes =
-        this.messages.serialize(message);
-
-      final var request =
-        HttpRequest.newBuilder(uri)
-          .header("User-Agent", userAgent())
-          .POST(HttpRequest.BodyPublishers.ofByteArray(sendBytes))
-          .build();
-
       final var response =
         this.httpClient()
-          .send(request, BodyHandlers.ofByteArray());
-
-      LOG.debug("server: status {}", response.statusCode());
-
-      final var responseHeaders =
-        response.headers();
-
-      final var contentType =
-        responseHeaders.firstValue("content-type")
-          .orElse("application/octet-stream");
-
-      final var expectedContentType = EIPCB1Messages.contentType();
-      if (!contentType.equals(expectedContentType)) {
-        throw new EIPClientException(
-          PROTOCOL_ERROR,
-          this.strings()
-            .format(
-              "errorContentType",
-              commandType,
-              expectedContentType,
-              contentType)
+          .send(
+            this.createRequest(uri, message),
+            BodyHandlers.ofInputStream()
+          );
+
+      final var responseActual =
+        this.receive(commandType, response);
+
+      if (attempt < 3 && !isLoggingIn && isAuthenticationError(responseActual)) {
+        LOG.debug("attempting re-login");
+        this.sendLogin(this.mostRecentLogin);
+        return this.send(
+          attempt + 1,
+          uri,
+          responseClass,
+          false,
+          message
         );
       }
 
-      final var responseMessage =
-        this.messages.parse(decompressResponse(response, responseHeaders));
-
-      if (!(responseMessage instanceof final EIPResponseType responseActual)) {
-        throw new EIPClientException(
-          PROTOCOL_ERROR,
-          this.strings()
-            .format(
-              "errorResponseType",
-              "(unavailable)",
-              commandType,
-              EIPResponseType.class,
-              responseMessage.getClass())
+      return this.checkResponse(
+        commandType,
+        responseClass,
+        response.statusCode(),
+        responseActual
+      );
+    } catch (final EIProtocolException e) {
+      throw new EIPClientException(PROTOCOL_ERROR, e);
+    } catch (final IOException e) {
+      throw new EIPClientException(IO_ERROR, e);
+    }
+  }
+
+  private <T extends EIPResponseType> CompletableFuture<T> sendAsync(
+    final int attempt,
+    final URI uri,
+    final Class<T> responseClass,
+    final boolean isLoggingIn,
+    final EIPCommandType<T> message)
+  {
+    final var commandType = message.getClass().getSimpleName();
+    LOG.debug("sending {} to {} (async)", commandType, uri);
+
+    final HttpRequest request;
+    try {
+      request = this.createRequest(uri, message);
+    } catch (final EIProtocolException e) {
+      return CompletableFuture.failedFuture(
+        new EIPClientException(PROTOCOL_ERROR, e)
+      );
+    }
+
+    final var result = new CompletableFuture<T>();
+    this.httpClient()
+      .sendAsync(request, BodyHandlers.ofInputStream())
+      .thenCompose(response -> {
+        return this.onResponseAsync(
+          attempt,
+          uri,
+          responseClass,
+          isLoggingIn,
+          message,
+          response
         );
-      }
+      })
+      .whenComplete((value, exception) -> {
+        if (exception != null) {
+          result.completeExceptionally(toClientException(exception));
+        } else {
+          result.complete(value);
+        }
+      });
+    return result;
+  }
+
+  private <T extends EIPResponseType> CompletableFuture<T> onResponseAsync(
+    final int attempt,
+    final URI uri,
+    final Class<T> responseClass,
+    final boolean isLoggingIn,
+    final EIPCommandType<T> message,
+    final HttpResponse<InputStream> response)
+  {
+    final var commandType = message.getClass().getSimpleName();
+
+    try {
+      final var responseActual =
+        this.receive(commandType, response);
 
-      if (responseActual instanceof EIPResponseError error) {
-        if (attempt < 3) {
-          if (isAuthenticationError(error) && !isLoggingIn) {
-            LOG.debug("attempting re-login");
-            this.sendLogin(this.mostRecentLogin);
-            return this.send(
+      if (attempt < 3 && !isLoggingIn && isAuthenticationError(responseActual)) {
+        return this.reLoginAsync()
+          .thenCompose(ignored -> {
+            return this.sendAsync(
               attempt + 1,
               uri,
               responseClass,
               false,
               message
             );
-          }
-        }
+          });
+      }
 
-        throw new EIPClientException(
-          error.errorCode(),
-          this.strings()
-            .format(
-              "errorResponse",
-              error.requestId(),
-              commandType,
-              Integer.valueOf(response.statusCode()),
-              error.errorCode(),
-              error.message())
-        );
+      return CompletableFuture.completedFuture(
+        this.checkResponse(
+          commandType,
+          responseClass,
+          response.statusCode(),
+          responseActual
+        )
+      );
+    } catch (final EIPClientException e) {
+      return CompletableFuture.failedFuture(e);
+    } catch (final EIProtocolException e) {
+      return CompletableFuture.failedFuture(
+        new EIPClientException(PROTOCOL_ERROR, e));
+    } catch (final IOException e) {
+      return CompletableFuture.failedFuture(
+        new EIPClientException(IO_ERROR, e));
+    }
+  }
+
+  /**
+   * Log in again after the server has rejected a command with an
+   * authentication error. Any number of commands in flight may receive
+   * such an error at the same time, so concurrent attempts are coalesced
+   * into a single login request.
+   */
+
+  private CompletableFuture<EIPResponseLogin> reLoginAsync()
+  {
+    synchronized (this.reLoginLock) {
+      final var existing = this.reLogin;
+      if (existing != null && !existing.isDone()) {
+        return existing;
       }
 
-      if (!Objects.equals(responseActual.getClass(), responseClass)) {
-        throw new EIPClientException(
-          PROTOCOL_ERROR,
-          this.strings()
-            .format(
-              "errorResponseType",
-              responseActual.requestId(),
-              commandType,
-              responseClass,
-              responseMessage.getClass())
+      LOG.debug("attempting re-login");
+      final var login =
+        this.sendAsync(
+          1,
+          this.loginURI,
+          EIPResponseLogin.class,
+          true,
+          this.mostRecentLogin
         );
-      }
+      this.reLogin = login;
+      return login;
+    }
+  }
 
-      return responseClass.cast(responseMessage);
-    } catch (final EIProtocolException e) {
-      throw new EIPClientException(PROTOCOL_ERROR, e);
-    } catch (final IOException e) {
-      throw new EIPClientException(IO_ERROR, e);
+  private EIPResponseType receive(
+    final String commandType,
+    final HttpResponse<InputStream> response)
+    throws EIPClientException, EIProtocolException, IOException
+  {
+    LOG.debug("server: status {}", response.statusCode());
+
+    final var responseHeaders =
+      response.headers();
+
+    final var contentType =
+      responseHeaders.firstValue("content-type")
+        .orElse("application/octet-stream");
+
+    final var expectedContentType = EIPCB1Messages.contentType();
+    if (!contentType.equals(expectedContentType)) {
+      response.body().close();
+      throw new EIPClientException(
+        PROTOCOL_ERROR,
+        this.strings()
+          .format(
+            "errorContentType",
+            commandType,
+            expectedContentType,
+            contentType)
+      );
     }
+
+    final EIPMessageType responseMessage;
+    try (var stream = decompressResponse(response, responseHeaders)) {
+      responseMessage = this.messages.parse(stream);
+    }
+
+    if (!(responseMessage instanceof final EIPResponseType responseActual)) {
+      throw new EIPClientException(
+        PROTOCOL_ERROR,
+        this.strings()
+          .format(
+            "errorResponseType",
+            "(unavailable)",
+            commandType,
+            EIPResponseType.class,
+            responseMessage.getClass())
+      );
+    }
+    return responseActual;
+  }
+
+  private <T extends EIPResponseType> T checkResponse(
+    final String commandType,
+    final Class<T> responseClass,
+    final int statusCode,
+    final EIPResponseType responseActual)
+    throws EIPClientException
+  {
+    if (responseActual instanceof EIPResponseError error) {
+      throw new EIPClientException(
+        error.errorCode(),
+        this.strings()
+          .format(
+            "errorResponse",
+            error.requestId(),
+            commandType,
+            Integer.valueOf(statusCode),
+            error.errorCode(),
+            error.message())
+      );
+    }
+
+    if (!Objects.equals(responseActual.getClass(), responseClass)) {
+      throw new EIPClientException(
+        PROTOCOL_ERROR,
+        this.strings()
+          .format(
+            "errorResponseType",
+            responseActual.requestId(),
+            commandType,
+            responseClass,
+            responseActual.getClass())
+      );
+    }
+
+    return responseClass.cast(responseActual);
+  }
+
+  private static EIPClientException toClientException(
+    final Throwable exception)
+  {
+    var cause = exception;
+    while (cause instanceof CompletionException
+           && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+
+    if (cause instanceof EIPClientException e) {
+      return e;
+    }
+    return new EIPClientException(IO_ERROR, cause);
   }
 
   private static boolean isAuthenticationError(
-    final EIPResponseError error)
+    final EIPResponseType response)
   {
-    return Objects.equals(error.errorCode(), AUTHENTICATION_ERROR.id());
+    return response instanceof EIPResponseError error
+      && Objects.equals(error.errorCode(), AUTHENTICATION_ERROR.id());
   }
 
   private static String userAgent()
@@ -270,6 +479,12 @@ public final class EIPClientProtocolHandler1
         new EIPCommandGroupCreateBegin(groupName)
       );
 
+    return challengeOf(response);
+  }
+
+  private static EIGroupCreationChallenge challengeOf(
+    final EIPResponseGroupCreateBegin response)
+  {
     return new EIGroupCreationChallenge(
       response.groupName(),
       response.token(),
@@ -299,6 +514,40 @@ public final class EIPClientProtocolHandler1
     );
   }
 
+  @Override
+  public CompletableFuture<EIGroupCreationChallenge> groupCreateBeginAsync(
+    final EIGroupName groupName)
+  {
+    return this.sendCommandAsync(
+      EIPResponseGroupCreateBegin.class,
+      new EIPCommandGroupCreateBegin(groupName)
+    ).thenApply(EIPClientProtocolHandler1::challengeOf);
+  }
+
+  @Override
+  public CompletableFuture<Void> groupCreateReadyAsync(
+    final EIToken token)
+  {
+    return this.sendCommandAsync(
+      EIPResponseGroupCreateReady.class,
+      new EIPCommandGroupCreateReady(token)
+    ).thenAccept(response -> {
+
+    });
+  }
+
+  @Override
+  public CompletableFuture<Void> groupCreateCancelAsync(
+    final EIToken token)
+  {
+    return this.sendCommandAsync(
+      EIPResponseGroupCreateCancel.class,
+      new EIPCommandGroupCreateCancel(token)
+    ).thenAccept(response -> {
+
+    });
+  }
+
   @Override
   public EIPClientPagedType<EIGroupMembership> groups()
   {
@@ -325,6 +574,28 @@ public final class EIPClientProtocolHandler1
     );
   }
 
+  @Override
+  public List<EIGroupCreationRequest> groupCreateRequestsWait(
+    final Duration timeout)
+    throws EIPClientException, InterruptedException
+  {
+    Objects.requireNonNull(timeout, "timeout");
+
+    final var seconds =
+      Math.max(1L, Math.min(
+        EIPCommandGroupCreateRequestsWait.TIMEOUT_SECONDS_MAXIMUM,
+        timeout.toSeconds()
+      ));
+
+    return this.send(
+      1,
+      this.groupCreateRequestsWaitURI,
+      EIPResponseGroupCreateRequestsChanged.class,
+      false,
+      new EIPCommandGroupCreateRequestsWait(seconds)
+    ).requests();
+  }
+
   private static final class GenericPaged<
     T,
     R extends EIPResponseType,
@@ -388,5 +659,19 @@ public final class EIPClientProtocolHandler1
         this.handler.sendCommand(this.responseClass, this.cmdPrevious)
       );
     }
+
+    @Override
+    public Stream<EIPage<T>> pages(
+      final int prefetch)
+    {
+      final var prefetcher =
+        new EIPPagePrefetcher<T>(prefetch, this::current, this::next);
+      prefetcher.start();
+
+      return StreamSupport.stream(
+        Spliterators.spliteratorUnknownSize(prefetcher, ORDERED | NONNULL),
+        false
+      ).onClose(prefetcher::close);
+    }
   }
 }
@@ -26,8 +26,11 @@ import com.io7m.eigion.pike.api.EIPClientPagedType;
 
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 import static com.io7m.eigion.error_codes.EIStandardErrorCodes.NOT_LOGGED_IN;
 
@@ -40,20 +43,23 @@ public final class EIPClientProtocolHandlerDisconnected
 {
   private final HttpClient httpClient;
   private final Locale locale;
+  private final EIPProtocolNegotiationCache negotiations;
   private final EIPStrings strings;
 
   /**
    * The "disconnected" protocol handler.
    *
-   * @param inLocale     The locale
-   * @param inStrings    The string resources
-   * @param inHttpClient The HTTP client
+   * @param inLocale       The locale
+   * @param inStrings      The string resources
+   * @param inHttpClient   The HTTP client
+   * @param inNegotiations The cache of negotiated protocols
    */
 
   public EIPClientProtocolHandlerDisconnected(
     final Locale inLocale,
     final EIPStrings inStrings,
-    final HttpClient inHttpClient)
+    final HttpClient inHttpClient,
+    final EIPProtocolNegotiationCache inNegotiations)
   {
     this.locale =
       Objects.requireNonNull(inLocale, "locale");
@@ -61,6 +67,8 @@ public final class EIPClientProtocolHandlerDisconnected
       Objects.requireNonNull(inStrings, "strings");
     this.httpClient =
       Objects.requireNonNull(inHttpClient, "httpClient");
+    this.negotiations =
+      Objects.requireNonNull(inNegotiations, "negotiations");
   }
 
   @Override
@@ -75,6 +83,7 @@ public final class EIPClientProtocolHandlerDisconnected
         this.locale,
         this.httpClient,
         this.strings,
+        this.negotiations,
         base
       );
 
@@ -119,6 +128,35 @@ public final class EIPClientProtocolHandlerDisconnected
     throw this.notLoggedIn();
   }
 
+  @Override
+  public List<EIGroupCreationRequest> groupCreateRequestsWait(
+    final Duration timeout)
+    throws EIPClientException
+  {
+    throw this.notLoggedIn();
+  }
+
+  @Override
+  public CompletableFuture<EIGroupCreationChallenge> groupCreateBeginAsync(
+    final EIGroupName groupName)
+  {
+    return CompletableFuture.failedFuture(this.notLoggedIn());
+  }
+
+  @Override
+  public CompletableFuture<Void> groupCreateReadyAsync(
+    final EIToken token)
+  {
+    return CompletableFuture.failedFuture(this.notLoggedIn());
+  }
+
+  @Override
+  public CompletableFuture<Void> groupCreateCancelAsync(
+    final EIToken token)
+  {
+    return CompletableFuture.failedFuture(this.notLoggedIn());
+  }
+
   private EIPClientException notLoggedIn()
   {
     return new EIPClientException(
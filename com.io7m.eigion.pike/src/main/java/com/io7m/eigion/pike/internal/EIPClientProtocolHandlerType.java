@@ -17,6 +17,7 @@
 package com.io7m.eigion.pike.internal;
 
 import com.io7m.eigion.pike.api.EIPClientException;
+import com.io7m.eigion.pike.api.EIPClientGroupsAsyncType;
 import com.io7m.eigion.pike.api.EIPClientGroupsType;
 
 import java.net.URI;
@@ -26,7 +27,7 @@ import java.net.URI;
  */
 
 public interface EIPClientProtocolHandlerType
-  extends EIPClientGroupsType
+  extends EIPClientGroupsType, EIPClientGroupsAsyncType
 {
   /**
    * Attempt to log in.
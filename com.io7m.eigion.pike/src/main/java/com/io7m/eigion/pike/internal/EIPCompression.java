@@ -16,8 +16,8 @@
 
 package com.io7m.eigion.pike.internal;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.http.HttpHeaders;
 import java.net.http.HttpResponse;
 import java.util.Objects;
@@ -36,32 +36,35 @@ public final class EIPCompression
   }
 
   /**
-   * Decompress the response if necessary.
+   * The value of the {@code Accept-Encoding} header sent by clients.
+   */
+
+  public static final String ACCEPT_ENCODING = "gzip";
+
+  /**
+   * Decompress the response if necessary. The returned stream decompresses
+   * the response body incrementally as it is read; the body is never
+   * buffered in its entirety.
    *
    * @param response        The response
    * @param responseHeaders The response headers
    *
-   * @return The decompressed bytes
+   * @return The decompressed stream
    *
    * @throws IOException On errors
    */
 
-  public static byte[] decompressResponse(
-    final HttpResponse<byte[]> response,
+  public static InputStream decompressResponse(
+    final HttpResponse<InputStream> response,
     final HttpHeaders responseHeaders)
     throws IOException
   {
     final var encoding =
       responseHeaders.firstValue("Content-Encoding");
 
-    final byte[] body;
     if (Objects.equals(encoding, Optional.of("gzip"))) {
-      try (var s = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
-        body = s.readAllBytes();
-      }
-    } else {
-      body = response.body();
+      return new GZIPInputStream(response.body());
     }
-    return body;
+    return response.body();
   }
 }
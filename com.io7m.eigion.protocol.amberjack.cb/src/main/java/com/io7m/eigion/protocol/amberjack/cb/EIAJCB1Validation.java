@@ -17,6 +17,7 @@
 package com.io7m.eigion.protocol.amberjack.cb;
 
 import com.io7m.cedarbridge.runtime.api.CBCore;
+import com.io7m.cedarbridge.runtime.api.CBIntegerUnsigned64;
 import com.io7m.cedarbridge.runtime.api.CBList;
 import com.io7m.cedarbridge.runtime.api.CBMap;
 import com.io7m.cedarbridge.runtime.api.CBOptionType;
@@ -30,6 +31,8 @@ import com.io7m.eigion.model.EIPermission;
 import com.io7m.eigion.model.EIPermissionSet;
 import com.io7m.eigion.model.EIUser;
 import com.io7m.eigion.model.EIValidityException;
+import com.io7m.eigion.protocol.amberjack.EIAJCommandAuditExport;
+import com.io7m.eigion.protocol.amberjack.EIAJCommandAuditFollow;
 import com.io7m.eigion.protocol.amberjack.EIAJCommandAuditSearchBegin;
 import com.io7m.eigion.protocol.amberjack.EIAJCommandAuditSearchNext;
 import com.io7m.eigion.protocol.amberjack.EIAJCommandAuditSearchPrevious;
@@ -40,6 +43,9 @@ import com.io7m.eigion.protocol.amberjack.EIAJCommandGroupSearchByNamePrevious;
 import com.io7m.eigion.protocol.amberjack.EIAJCommandLogin;
 import com.io7m.eigion.protocol.amberjack.EIAJCommandType;
 import com.io7m.eigion.protocol.amberjack.EIAJMessageType;
+import com.io7m.eigion.protocol.amberjack.EIAJResponseAuditExport;
+import com.io7m.eigion.protocol.amberjack.EIAJResponseAuditExportEnd;
+import com.io7m.eigion.protocol.amberjack.EIAJResponseAuditFollow;
 import com.io7m.eigion.protocol.amberjack.EIAJResponseAuditSearch;
 import com.io7m.eigion.protocol.amberjack.EIAJResponseError;
 import com.io7m.eigion.protocol.amberjack.EIAJResponseGroupCreate;
@@ -103,6 +109,15 @@ public final class EIAJCB1Validation
     if (r instanceof EIAJResponseGroupSearch rr) {
       return toWireResponseGroupSearch(rr);
     }
+    if (r instanceof EIAJResponseAuditExport rr) {
+      return toWireResponseAuditExport(rr);
+    }
+    if (r instanceof EIAJResponseAuditExportEnd rr) {
+      return toWireResponseAuditExportEnd(rr);
+    }
+    if (r instanceof EIAJResponseAuditFollow rr) {
+      return toWireResponseAuditFollow(rr);
+    }
 
     throw new EIProtocolException(
       PROTOCOL_ERROR,
@@ -128,6 +143,43 @@ public final class EIAJCB1Validation
     );
   }
 
+  private static ProtocolAmberjackv1Type toWireResponseAuditExport(
+    final EIAJResponseAuditExport rr)
+  {
+    return new EIAJ1ResponseAuditExport(
+      toWireUUID(rr.requestId()),
+      new CBList<>(
+        rr.events()
+          .stream()
+          .map(EIAJCB1ValidationGeneral::toWireAuditEvent)
+          .toList()
+      )
+    );
+  }
+
+  private static ProtocolAmberjackv1Type toWireResponseAuditExportEnd(
+    final EIAJResponseAuditExportEnd rr)
+  {
+    return new EIAJ1ResponseAuditExportEnd(
+      toWireUUID(rr.requestId()),
+      new CBIntegerUnsigned64(rr.count())
+    );
+  }
+
+  private static ProtocolAmberjackv1Type toWireResponseAuditFollow(
+    final EIAJResponseAuditFollow rr)
+  {
+    return new EIAJ1ResponseAuditFollow(
+      toWireUUID(rr.requestId()),
+      new CBList<>(
+        rr.events()
+          .stream()
+          .map(EIAJCB1ValidationGeneral::toWireAuditEvent)
+          .toList()
+      )
+    );
+  }
+
   private static ProtocolAmberjackv1Type toWireResponseGroupCreate(
     final EIAJResponseGroupCreate rr)
   {
@@ -246,6 +298,12 @@ public final class EIAJCB1Validation
     if (c instanceof EIAJCommandGroupSearchByNamePrevious cc) {
       return toWireCommandGroupSearchByNamePrevious(cc);
     }
+    if (c instanceof EIAJCommandAuditExport cc) {
+      return toWireCommandAuditExport(cc);
+    }
+    if (c instanceof EIAJCommandAuditFollow cc) {
+      return toWireCommandAuditFollow(cc);
+    }
 
     throw new EIProtocolException(
       PROTOCOL_ERROR,
@@ -302,6 +360,22 @@ public final class EIAJCB1Validation
     );
   }
 
+  private static ProtocolAmberjackv1Type toWireCommandAuditExport(
+    final EIAJCommandAuditExport cc)
+  {
+    return new EIAJ1CommandAuditExport(
+      toWireAuditSearchParameters(cc.parameters())
+    );
+  }
+
+  private static ProtocolAmberjackv1Type toWireCommandAuditFollow(
+    final EIAJCommandAuditFollow cc)
+  {
+    return new EIAJ1CommandAuditFollow(
+      toWireAuditSearchParameters(cc.parameters())
+    );
+  }
+
   private static EIAJ1AuditSearchParameters toWireAuditSearchParameters(
     final EIAuditSearchParameters parameters)
   {
@@ -485,6 +559,22 @@ public final class EIAJCB1Validation
     );
   }
 
+  private static EIAJMessageType fromWireCommandAuditExport(
+    final EIAJ1CommandAuditExport c)
+  {
+    return new EIAJCommandAuditExport(
+      fromWireAuditSearchParameters(c.fieldParameters())
+    );
+  }
+
+  private static EIAJMessageType fromWireCommandAuditFollow(
+    final EIAJ1CommandAuditFollow c)
+  {
+    return new EIAJCommandAuditFollow(
+      fromWireAuditSearchParameters(c.fieldParameters())
+    );
+  }
+
   private static EIAuditSearchParameters fromWireAuditSearchParameters(
     final EIAJ1AuditSearchParameters fieldParameters)
   {
@@ -550,6 +640,41 @@ public final class EIAJCB1Validation
     );
   }
 
+  private static EIAJMessageType fromWireResponseAuditExport(
+    final EIAJ1ResponseAuditExport c)
+  {
+    return new EIAJResponseAuditExport(
+      fromWireUUID(c.fieldRequestId()),
+      c.fieldEvents()
+        .values()
+        .stream()
+        .map(EIAJCB1ValidationGeneral::fromWireAuditEvent)
+        .toList()
+    );
+  }
+
+  private static EIAJMessageType fromWireResponseAuditExportEnd(
+    final EIAJ1ResponseAuditExportEnd c)
+  {
+    return new EIAJResponseAuditExportEnd(
+      fromWireUUID(c.fieldRequestId()),
+      c.fieldCount().value()
+    );
+  }
+
+  private static EIAJMessageType fromWireResponseAuditFollow(
+    final EIAJ1ResponseAuditFollow c)
+  {
+    return new EIAJResponseAuditFollow(
+      fromWireUUID(c.fieldRequestId()),
+      c.fieldEvents()
+        .values()
+        .stream()
+        .map(EIAJCB1ValidationGeneral::fromWireAuditEvent)
+        .toList()
+    );
+  }
+
   @Override
   public ProtocolAmberjackv1Type convertToWire(
     final EIAJMessageType message)
@@ -602,6 +727,12 @@ public final class EIAJCB1Validation
       if (message instanceof EIAJ1CommandGroupSearchByNamePrevious c) {
         return fromWireCommandGroupSearchByNamePrevious(c);
       }
+      if (message instanceof EIAJ1CommandAuditExport c) {
+        return fromWireCommandAuditExport(c);
+      }
+      if (message instanceof EIAJ1CommandAuditFollow c) {
+        return fromWireCommandAuditFollow(c);
+      }
       if (message instanceof EIAJ1ResponseLogin c) {
         return fromWireResponseLogin(c);
       }
@@ -617,6 +748,15 @@ public final class EIAJCB1Validation
       if (message instanceof EIAJ1ResponseGroupSearch c) {
         return fromWireResponseGroupSearch(c);
       }
+      if (message instanceof EIAJ1ResponseAuditExport c) {
+        return fromWireResponseAuditExport(c);
+      }
+      if (message instanceof EIAJ1ResponseAuditExportEnd c) {
+        return fromWireResponseAuditExportEnd(c);
+      }
+      if (message instanceof EIAJ1ResponseAuditFollow c) {
+        return fromWireResponseAuditFollow(c);
+      }
     } catch (final Exception e) {
       throw new EIProtocolException(PROTOCOL_ERROR, e.getMessage(), e);
     }
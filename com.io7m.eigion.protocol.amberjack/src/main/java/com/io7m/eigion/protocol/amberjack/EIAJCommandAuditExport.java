@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.protocol.amberjack;
+
+import com.io7m.eigion.model.EIAuditSearchParameters;
+
+import java.util.Objects;
+
+/**
+ * Export all audit events matching the given parameters. The server responds
+ * with a stream of {@link EIAJResponseAuditExport} batches terminated by a
+ * single {@link EIAJResponseAuditExportEnd}. The parameter limit is used as
+ * the batch size.
+ *
+ * @param parameters The search parameters
+ */
+
+public record EIAJCommandAuditExport(
+  EIAuditSearchParameters parameters)
+  implements EIAJCommandType<EIAJResponseAuditExportEnd>
+{
+  /**
+   * Export all audit events matching the given parameters.
+   *
+   * @param parameters The search parameters
+   */
+
+  public EIAJCommandAuditExport
+  {
+    Objects.requireNonNull(parameters, "parameters");
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.protocol.amberjack;
+
+import com.io7m.eigion.model.EIAuditSearchParameters;
+
+import java.util.Objects;
+
+/**
+ * Follow the audit log, receiving new events matching the given parameters
+ * as they are created. The server responds with an open-ended stream of
+ * {@link EIAJResponseAuditFollow} batches. Batches may be empty; empty
+ * batches are sent periodically so that the connection remains active. The
+ * stream ends with an {@link EIAJResponseError} if the client fails to
+ * consume events quickly enough. The parameter limit is used as the maximum
+ * batch size.
+ *
+ * @param parameters The search parameters
+ */
+
+public record EIAJCommandAuditFollow(
+  EIAuditSearchParameters parameters)
+  implements EIAJCommandType<EIAJResponseAuditFollow>
+{
+  /**
+   * Follow the audit log.
+   *
+   * @param parameters The search parameters
+   */
+
+  public EIAJCommandAuditFollow
+  {
+    Objects.requireNonNull(parameters, "parameters");
+  }
+}
@@ -25,7 +25,9 @@ package com.io7m.eigion.protocol.amberjack;
 
 public sealed interface EIAJCommandType<R extends EIAJResponseType>
   extends EIAJMessageType
-  permits EIAJCommandAuditSearchBegin,
+  permits EIAJCommandAuditExport,
+  EIAJCommandAuditFollow,
+  EIAJCommandAuditSearchBegin,
   EIAJCommandAuditSearchNext,
   EIAJCommandAuditSearchPrevious,
   EIAJCommandGroupCreate,
@@ -0,0 +1,52 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.protocol.amberjack;
+
+import com.io7m.eigion.model.EIAuditEvent;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * A single batch of events produced in response to
+ * {@link EIAJCommandAuditExport}.
+ *
+ * @param requestId The request that prompted this response
+ * @param events    The events in this batch
+ */
+
+public record EIAJResponseAuditExport(
+  UUID requestId,
+  List<EIAuditEvent> events)
+  implements EIAJResponseType
+{
+  /**
+   * A single batch of events produced in response to
+   * {@link EIAJCommandAuditExport}.
+   *
+   * @param requestId The request that prompted this response
+   * @param events    The events in this batch
+   */
+
+  public EIAJResponseAuditExport
+  {
+    Objects.requireNonNull(requestId, "requestId");
+    Objects.requireNonNull(events, "events");
+  }
+}
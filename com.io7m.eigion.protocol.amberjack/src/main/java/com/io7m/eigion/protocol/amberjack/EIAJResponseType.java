@@ -24,7 +24,10 @@ import java.util.UUID;
  */
 
 public sealed interface EIAJResponseType extends EIAJMessageType
-  permits EIAJResponseAuditSearch,
+  permits EIAJResponseAuditExport,
+  EIAJResponseAuditExportEnd,
+  EIAJResponseAuditFollow,
+  EIAJResponseAuditSearch,
   EIAJResponseError,
   EIAJResponseGroupCreate,
   EIAJResponseGroupSearch,
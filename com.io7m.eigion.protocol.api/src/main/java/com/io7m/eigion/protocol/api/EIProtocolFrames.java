@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.protocol.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.IO_ERROR;
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.PROTOCOL_ERROR;
+
+/**
+ * Functions to write and read sequences of messages over a single stream.
+ * Each message is preceded by its size in octets as a big-endian unsigned
+ * 32-bit integer.
+ */
+
+public final class EIProtocolFrames
+{
+  /**
+   * The default maximum size of a single frame.
+   */
+
+  public static final int FRAME_SIZE_MAXIMUM = 16 * 1048576;
+
+  private EIProtocolFrames()
+  {
+
+  }
+
+  /**
+   * Write a single framed message. The stream is neither flushed nor closed.
+   *
+   * @param messages The message codec
+   * @param message  The message
+   * @param output   The output stream
+   * @param <T>      The type of messages
+   *
+   * @throws EIProtocolException On errors
+   */
+
+  public static <T extends EIProtocolMessageType> void writeFrame(
+    final EIProtocolMessagesType<T> messages,
+    final T message,
+    final OutputStream output)
+    throws EIProtocolException
+  {
+    Objects.requireNonNull(messages, "messages");
+    Objects.requireNonNull(message, "message");
+    Objects.requireNonNull(output, "output");
+
+    final var data = messages.serialize(message);
+    final var size = data.length;
+    try {
+      output.write((size >>> 24) & 0xff);
+      output.write((size >>> 16) & 0xff);
+      output.write((size >>> 8) & 0xff);
+      output.write(size & 0xff);
+      output.write(data);
+    } catch (final IOException e) {
+      throw new EIProtocolException(IO_ERROR, e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Read a single framed message.
+   *
+   * @param messages The message codec
+   * @param input    The input stream
+   * @param maximum  The maximum size of a frame
+   * @param <T>      The type of messages
+   *
+   * @return A message, or nothing if the stream ended cleanly before a frame
+   *
+   * @throws EIProtocolException On errors, or if the stream ended mid-frame
+   */
+
+  public static <T extends EIProtocolMessageType> Optional<T> readFrame(
+    final EIProtocolMessagesType<T> messages,
+    final InputStream input,
+    final int maximum)
+    throws EIProtocolException
+  {
+    Objects.requireNonNull(messages, "messages");
+    Objects.requireNonNull(input, "input");
+
+    try {
+      final var header = input.readNBytes(4);
+      if (header.length == 0) {
+        return Optional.empty();
+      }
+      if (header.length != 4) {
+        throw truncated();
+      }
+
+      final long size =
+        ((long) (header[0] & 0xff) << 24)
+        | ((header[1] & 0xff) << 16)
+        | ((header[2] & 0xff) << 8)
+        | (header[3] & 0xff);
+
+      if (size > Integer.toUnsignedLong(maximum)) {
+        throw new EIProtocolException(
+          PROTOCOL_ERROR,
+          "Frame size %d exceeds the maximum %d"
+            .formatted(Long.valueOf(size), Integer.valueOf(maximum))
+        );
+      }
+
+      final var data = input.readNBytes((int) size);
+      if (data.length != size) {
+        throw truncated();
+      }
+      return Optional.of(messages.parse(data));
+    } catch (final IOException e) {
+      throw new EIProtocolException(IO_ERROR, e.getMessage(), e);
+    }
+  }
+
+  private static EIProtocolException truncated()
+  {
+    return new EIProtocolException(
+      PROTOCOL_ERROR,
+      "The stream ended in the middle of a frame."
+    );
+  }
+}
@@ -17,6 +17,12 @@
 
 package com.io7m.eigion.protocol.api;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.IO_ERROR;
+
 /**
  * The interface exposed by protocol message handlers.
  *
@@ -50,4 +56,51 @@ public interface EIProtocolMessagesType<T extends EIProtocolMessageType>
 
   byte[] serialize(T message)
     throws EIProtocolException;
+
+  /**
+   * Parse a message from the given stream. The stream is read until a
+   * complete message has been parsed; callers are responsible for bounding
+   * the size of the stream. The default implementation reads the entire
+   * stream and calls {@link #parse(byte[])}.
+   *
+   * @param stream The input stream
+   *
+   * @return A parsed message
+   *
+   * @throws EIProtocolException If parsing fails
+   */
+
+  default T parse(
+    final InputStream stream)
+    throws EIProtocolException
+  {
+    try {
+      return this.parse(stream.readAllBytes());
+    } catch (final IOException e) {
+      throw new EIProtocolException(IO_ERROR, e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Serialize the given message to the given stream. The stream is not
+   * closed. The default implementation calls {@link #serialize(Object)} and
+   * writes the resulting bytes.
+   *
+   * @param message The message
+   * @param stream  The output stream
+   *
+   * @throws EIProtocolException If serialization fails
+   */
+
+  default void serialize(
+    final T message,
+    final OutputStream stream)
+    throws EIProtocolException
+  {
+    try {
+      stream.write(this.serialize(message));
+    } catch (final IOException e) {
+      throw new EIProtocolException(IO_ERROR, e.getMessage(), e);
+    }
+  }
 }
@@ -30,6 +30,8 @@ import com.io7m.jbssio.vanilla.BSSWriters;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -124,18 +126,46 @@ public final class EIPCB1Messages
     }
   }
 
+  @Override
+  public EIPMessageType parse(
+    final InputStream stream)
+    throws EIProtocolException
+  {
+    try {
+      final var context =
+        CBSerializationContextBSSIO.createFromInputStream(
+          this.readers,
+          stream);
+      return this.validator.convertFromWire(
+        (ProtocolPikev1Type) this.serializer.deserialize(context)
+      );
+    } catch (final IOException e) {
+      throw new EIProtocolException(IO_ERROR, e.getMessage(), e);
+    }
+  }
+
   @Override
   public byte[] serialize(
     final EIPMessageType message)
     throws EIProtocolException
   {
-    try (var output = new ByteArrayOutputStream()) {
+    final var output = new ByteArrayOutputStream();
+    this.serialize(message, output);
+    return output.toByteArray();
+  }
+
+  @Override
+  public void serialize(
+    final EIPMessageType message,
+    final OutputStream stream)
+    throws EIProtocolException
+  {
+    try {
       final var context =
         CBSerializationContextBSSIO.createFromOutputStream(
           this.writers,
-          output);
+          stream);
       this.serializer.serialize(context, this.validator.convertToWire(message));
-      return output.toByteArray();
     } catch (final IOException e) {
       throw new EIProtocolException(IO_ERROR, e.getMessage(), e);
     }
@@ -17,6 +17,7 @@
 package com.io7m.eigion.protocol.pike.cb;
 
 import com.io7m.cedarbridge.runtime.api.CBCore;
+import com.io7m.cedarbridge.runtime.api.CBIntegerUnsigned32;
 import com.io7m.cedarbridge.runtime.api.CBList;
 import com.io7m.cedarbridge.runtime.api.CBOptionType;
 import com.io7m.cedarbridge.runtime.api.CBString;
@@ -40,6 +41,7 @@ import com.io7m.eigion.protocol.pike.EIPCommandGroupCreateReady;
 import com.io7m.eigion.protocol.pike.EIPCommandGroupCreateRequestsBegin;
 import com.io7m.eigion.protocol.pike.EIPCommandGroupCreateRequestsNext;
 import com.io7m.eigion.protocol.pike.EIPCommandGroupCreateRequestsPrevious;
+import com.io7m.eigion.protocol.pike.EIPCommandGroupCreateRequestsWait;
 import com.io7m.eigion.protocol.pike.EIPCommandGroupsBegin;
 import com.io7m.eigion.protocol.pike.EIPCommandGroupsNext;
 import com.io7m.eigion.protocol.pike.EIPCommandGroupsPrevious;
@@ -51,6 +53,7 @@ import com.io7m.eigion.protocol.pike.EIPResponseGroupCreateBegin;
 import com.io7m.eigion.protocol.pike.EIPResponseGroupCreateCancel;
 import com.io7m.eigion.protocol.pike.EIPResponseGroupCreateReady;
 import com.io7m.eigion.protocol.pike.EIPResponseGroupCreateRequests;
+import com.io7m.eigion.protocol.pike.EIPResponseGroupCreateRequestsChanged;
 import com.io7m.eigion.protocol.pike.EIPResponseGroups;
 import com.io7m.eigion.protocol.pike.EIPResponseLogin;
 import com.io7m.eigion.protocol.pike.EIPResponseType;
@@ -114,6 +117,9 @@ public final class EIPCB1Validation
     if (r instanceof EIPResponseGroupCreateRequests rr) {
       return toWireResponseGroupCreateRequests(rr);
     }
+    if (r instanceof EIPResponseGroupCreateRequestsChanged rr) {
+      return toWireResponseGroupCreateRequestsChanged(rr);
+    }
 
     throw new EIProtocolException(
       PROTOCOL_ERROR,
@@ -130,6 +136,20 @@ public final class EIPCB1Validation
     );
   }
 
+  private static ProtocolPikev1Type toWireResponseGroupCreateRequestsChanged(
+    final EIPResponseGroupCreateRequestsChanged rr)
+  {
+    return new EIP1ResponseGroupCreateRequestsChanged(
+      toWireUUID(rr.requestId()),
+      new CBList<>(
+        rr.requests()
+          .stream()
+          .map(EIPCB1Validation::toWireGroupCreationRequest)
+          .toList()
+      )
+    );
+  }
+
   private static EIP1GroupCreationRequest toWireGroupCreationRequest(
     final EIGroupCreationRequest r)
   {
@@ -321,6 +341,9 @@ public final class EIPCB1Validation
     if (c instanceof EIPCommandGroupCreateRequestsPrevious cc) {
       return toWireCommandGroupCreateRequestsPrevious(cc);
     }
+    if (c instanceof EIPCommandGroupCreateRequestsWait cc) {
+      return toWireCommandGroupCreateRequestsWait(cc);
+    }
 
     throw new EIProtocolException(
       PROTOCOL_ERROR,
@@ -346,6 +369,14 @@ public final class EIPCB1Validation
     return new EIP1CommandGroupCreateRequestsPrevious();
   }
 
+  private static ProtocolPikev1Type toWireCommandGroupCreateRequestsWait(
+    final EIPCommandGroupCreateRequestsWait cc)
+  {
+    return new EIP1CommandGroupCreateRequestsWait(
+      new CBIntegerUnsigned32(cc.timeoutSeconds())
+    );
+  }
+
   private static ProtocolPikev1Type toWireCommandGroupsBegin(
     final EIPCommandGroupsBegin cc)
   {
@@ -569,6 +600,9 @@ public final class EIPCB1Validation
       if (message instanceof EIP1CommandGroupCreateRequestsPrevious c) {
         return fromWireCommandGroupCreateRequestsPrevious(c);
       }
+      if (message instanceof EIP1CommandGroupCreateRequestsWait c) {
+        return fromWireCommandGroupCreateRequestsWait(c);
+      }
 
       if (message instanceof EIP1ResponseLogin c) {
         return fromWireResponseLogin(c);
@@ -591,6 +625,9 @@ public final class EIPCB1Validation
       if (message instanceof EIP1ResponseGroupCreateRequests c) {
         return fromWireResponseGroupCreateRequests(c);
       }
+      if (message instanceof EIP1ResponseGroupCreateRequestsChanged c) {
+        return fromWireResponseGroupCreateRequestsChanged(c);
+      }
     } catch (final Exception e) {
       throw new EIProtocolException(PROTOCOL_ERROR, e.getMessage(), e);
     }
@@ -621,6 +658,27 @@ public final class EIPCB1Validation
     return new EIPCommandGroupCreateRequestsPrevious();
   }
 
+  private static EIPMessageType fromWireCommandGroupCreateRequestsWait(
+    final EIP1CommandGroupCreateRequestsWait c)
+  {
+    return new EIPCommandGroupCreateRequestsWait(
+      c.fieldTimeoutSeconds().value()
+    );
+  }
+
+  private static EIPMessageType fromWireResponseGroupCreateRequestsChanged(
+    final EIP1ResponseGroupCreateRequestsChanged c)
+  {
+    return new EIPResponseGroupCreateRequestsChanged(
+      fromWireUUID(c.fieldRequestId()),
+      c.fieldRequests()
+        .values()
+        .stream()
+        .map(EIPCB1Validation::fromWireGroupCreationRequest)
+        .toList()
+    );
+  }
+
   private static EIPMessageType fromWireCommandGroupsBegin(
     final EIP1CommandGroupsBegin c)
   {
@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.protocol.pike;
+
+/**
+ * The command to wait for changes to the status of any of the user's group
+ * creation requests. The server responds as soon as at least one change is
+ * available, or with an empty response when the timeout elapses.
+ *
+ * @param timeoutSeconds The maximum time to wait, in seconds
+ */
+
+public record EIPCommandGroupCreateRequestsWait(
+  long timeoutSeconds)
+  implements EIPCommandType<EIPResponseGroupCreateRequestsChanged>
+{
+  /**
+   * The largest permitted timeout.
+   */
+
+  public static final long TIMEOUT_SECONDS_MAXIMUM = 60L;
+
+  /**
+   * @return The maximum time to wait, in seconds
+   */
+
+  @Override
+  public long timeoutSeconds()
+  {
+    return Math.min(TIMEOUT_SECONDS_MAXIMUM, Math.max(1L, this.timeoutSeconds));
+  }
+}
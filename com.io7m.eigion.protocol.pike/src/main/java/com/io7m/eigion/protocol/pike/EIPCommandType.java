@@ -31,6 +31,7 @@ public sealed interface EIPCommandType<R extends EIPResponseType>
   EIPCommandGroupCreateRequestsBegin,
   EIPCommandGroupCreateRequestsNext,
   EIPCommandGroupCreateRequestsPrevious,
+  EIPCommandGroupCreateRequestsWait,
   EIPCommandGroupsBegin,
   EIPCommandGroupsNext,
   EIPCommandGroupsPrevious,
@@ -29,6 +29,7 @@ public sealed interface EIPResponseType extends EIPMessageType
   EIPResponseGroupCreateCancel,
   EIPResponseGroupCreateReady,
   EIPResponseGroupCreateRequests,
+  EIPResponseGroupCreateRequestsChanged,
   EIPResponseGroups,
   EIPResponseLogin
 {
@@ -40,6 +40,9 @@ import java.util.function.Supplier;
  * @param pikeApiAddress        The pike API address
  * @param idstoreConfiguration  The idstore configuration
  * @param openTelemetry         The OpenTelemetry configuration
+ * @param metrics               The metrics service configuration
+ * @param flightRecorder        The flight recorder configuration
+ * @param rateLimits            The rate limit configuration
  */
 
 public record EIServerConfiguration(
@@ -51,7 +54,10 @@ public record EIServerConfiguration(
   EIServerHTTPServiceConfiguration pikeApiAddress,
   EIServerHTTPServiceConfiguration amberjackApiAddress,
   EIServerIdstoreConfiguration idstoreConfiguration,
-  Optional<EIServerOpenTelemetryConfiguration> openTelemetry)
+  Optional<EIServerOpenTelemetryConfiguration> openTelemetry,
+  Optional<EIServerMetricsConfiguration> metrics,
+  Optional<EIServerFlightRecorderConfiguration> flightRecorder,
+  EIServerRateLimitConfiguration rateLimits)
 {
   /**
    * The configuration for a server.
@@ -66,6 +72,9 @@ public record EIServerConfiguration(
    * @param pikeApiAddress        The pike API address
    * @param idstoreConfiguration  The idstore configuration
    * @param openTelemetry         The OpenTelemetry configuration
+   * @param metrics               The metrics service configuration
+   * @param flightRecorder        The flight recorder configuration
+   * @param rateLimits            The rate limit configuration
    */
 
   public EIServerConfiguration
@@ -75,10 +84,13 @@ public record EIServerConfiguration(
     Objects.requireNonNull(httpClients, "httpClients");
     Objects.requireNonNull(databaseConfiguration, "databaseConfiguration");
     Objects.requireNonNull(databases, "databases");
+    Objects.requireNonNull(flightRecorder, "flightRecorder");
     Objects.requireNonNull(idstoreConfiguration, "idstoreConfiguration");
     Objects.requireNonNull(locale, "locale");
+    Objects.requireNonNull(metrics, "metrics");
     Objects.requireNonNull(openTelemetry, "openTelemetry");
     Objects.requireNonNull(pikeApiAddress, "pikeApiAddress");
+    Objects.requireNonNull(rateLimits, "rateLimits");
   }
 
   /**
@@ -26,13 +26,19 @@ import java.util.Optional;
  * @param databaseConfiguration The database configuration
  * @param idstoreConfiguration  The idstore server configuration
  * @param openTelemetry         The OpenTelemetry configuration
+ * @param metrics               The metrics service configuration
+ * @param flightRecorder        The flight recorder configuration
+ * @param rateLimits            The rate limit configuration
  */
 
 public record EIServerConfigurationFile(
   EIServerHTTPConfiguration httpConfiguration,
   EIServerDatabaseConfiguration databaseConfiguration,
   EIServerIdstoreConfiguration idstoreConfiguration,
-  Optional<EIServerOpenTelemetryConfiguration> openTelemetry)
+  Optional<EIServerOpenTelemetryConfiguration> openTelemetry,
+  Optional<EIServerMetricsConfiguration> metrics,
+  Optional<EIServerFlightRecorderConfiguration> flightRecorder,
+  EIServerRateLimitConfiguration rateLimits)
 {
   /**
    * The server configuration file.
@@ -41,6 +47,9 @@ public record EIServerConfigurationFile(
    * @param databaseConfiguration The database configuration
    * @param idstoreConfiguration  The idstore server configuration
    * @param openTelemetry         The OpenTelemetry configuration
+   * @param metrics               The metrics service configuration
+   * @param flightRecorder        The flight recorder configuration
+   * @param rateLimits            The rate limit configuration
    */
 
   public EIServerConfigurationFile
@@ -49,5 +58,8 @@ public record EIServerConfigurationFile(
     Objects.requireNonNull(databaseConfiguration, "databaseConfiguration");
     Objects.requireNonNull(idstoreConfiguration, "idstoreConfiguration");
     Objects.requireNonNull(openTelemetry, "openTelemetry");
+    Objects.requireNonNull(metrics, "metrics");
+    Objects.requireNonNull(flightRecorder, "flightRecorder");
+    Objects.requireNonNull(rateLimits, "rateLimits");
   }
 }
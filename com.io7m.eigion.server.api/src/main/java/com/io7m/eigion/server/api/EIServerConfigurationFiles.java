@@ -19,9 +19,18 @@ package com.io7m.eigion.server.api;
 import com.io7m.eigion.server.api.xml.Configuration;
 import com.io7m.eigion.server.api.xml.Database;
 import com.io7m.eigion.server.api.xml.DatabaseKind;
+import com.io7m.eigion.server.api.xml.DatabaseSlowQueries;
+import com.io7m.eigion.server.api.xml.DatabaseTuning;
+import com.io7m.eigion.server.api.xml.FlightRecorder;
 import com.io7m.eigion.server.api.xml.HTTPService;
 import com.io7m.eigion.server.api.xml.IdStore;
+import com.io7m.eigion.server.api.xml.MetricsService;
 import com.io7m.eigion.server.api.xml.OpenTelemetry;
+import com.io7m.eigion.server.api.xml.RateLimits;
+import com.io7m.eigion.server.api.xml.TokenBucket;
+import com.io7m.eigion.server.database.api.EISDatabaseReplicaConfiguration;
+import com.io7m.eigion.server.database.api.EISDatabaseSlowQueryConfiguration;
+import com.io7m.eigion.server.database.api.EISDatabaseTuning;
 import com.io7m.eigion.services.api.EIServiceType;
 import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
@@ -30,11 +39,14 @@ import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
 
 import javax.xml.XMLConstants;
+import javax.xml.datatype.DatatypeConstants;
 import javax.xml.datatype.Duration;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.SchemaFactory;
 import java.io.IOException;
 import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
@@ -124,7 +136,79 @@ public final class EIServerConfigurationFiles
       ),
       processDatabase(configuration.getDatabase()),
       processIdstore(configuration.getIdStore()),
-      processOpenTelemetry(configuration.getOpenTelemetry())
+      processOpenTelemetry(configuration.getOpenTelemetry()),
+      processMetrics(configuration.getMetricsService()),
+      processFlightRecorder(configuration.getFlightRecorder()),
+      processRateLimits(configuration.getRateLimits())
+    );
+  }
+
+  private static EIServerRateLimitConfiguration processRateLimits(
+    final RateLimits rateLimits)
+  {
+    if (rateLimits == null) {
+      return EIServerRateLimitConfiguration.defaults();
+    }
+
+    return new EIServerRateLimitConfiguration(
+      Optional.ofNullable(rateLimits.isShared())
+        .orElse(Boolean.FALSE)
+        .booleanValue(),
+      processTokenBucket(rateLimits.getGroupCreateBeginPerUser())
+        .orElse(EIServerRateLimitConfiguration.DEFAULT_GROUP_CREATE_BEGIN_PER_USER),
+      processTokenBucket(rateLimits.getGroupCreateBeginPerAddress())
+        .orElse(EIServerRateLimitConfiguration.DEFAULT_GROUP_CREATE_BEGIN_PER_ADDRESS)
+    );
+  }
+
+  private static Optional<EIServerTokenBucketConfiguration> processTokenBucket(
+    final TokenBucket tokenBucket)
+  {
+    if (tokenBucket == null) {
+      return Optional.empty();
+    }
+
+    return Optional.of(
+      new EIServerTokenBucketConfiguration(
+        tokenBucket.getCapacity().longValueExact(),
+        processDuration(tokenBucket.getRefillPeriod())
+          .orElseThrow()
+      )
+    );
+  }
+
+  private static Optional<EIServerFlightRecorderConfiguration> processFlightRecorder(
+    final FlightRecorder flightRecorder)
+  {
+    if (flightRecorder == null) {
+      return Optional.empty();
+    }
+
+    return Optional.of(
+      new EIServerFlightRecorderConfiguration(
+        Path.of(flightRecorder.getDumpDirectory()),
+        processDuration(flightRecorder.getLatencyThreshold())
+          .orElseThrow(),
+        processDuration(flightRecorder.getMaximumAge())
+          .orElse(EIServerFlightRecorderConfiguration.DEFAULT_MAXIMUM_AGE),
+        processDuration(flightRecorder.getMinimumDumpInterval())
+          .orElse(EIServerFlightRecorderConfiguration.DEFAULT_MINIMUM_DUMP_INTERVAL)
+      )
+    );
+  }
+
+  private static Optional<EIServerMetricsConfiguration> processMetrics(
+    final MetricsService metrics)
+  {
+    if (metrics == null) {
+      return Optional.empty();
+    }
+
+    return Optional.of(
+      new EIServerMetricsConfiguration(
+        metrics.getListenAddress(),
+        metrics.getListenPort().intValue()
+      )
     );
   }
 
@@ -139,7 +223,14 @@ public final class EIServerConfigurationFiles
     return Optional.of(
       new EIServerOpenTelemetryConfiguration(
         openTelemetry.getLogicalServiceName(),
-        new URI(openTelemetry.getCollectorAddress())
+        new URI(openTelemetry.getCollectorAddress()),
+        Optional.ofNullable(openTelemetry.getTraceSampleRatio())
+          .orElse(Double.valueOf(1.0))
+          .doubleValue(),
+        Optional.ofNullable(openTelemetry.isTraceParentBased())
+          .orElse(Boolean.TRUE)
+          .booleanValue(),
+        processDuration(openTelemetry.getTraceSlowThreshold())
       )
     );
   }
@@ -148,9 +239,26 @@ public final class EIServerConfigurationFiles
     final IdStore idStore)
     throws URISyntaxException
   {
+    final var maximumConcurrentRequests =
+      Optional.ofNullable(idStore.getMaximumConcurrentRequests())
+        .map(BigInteger::intValueExact)
+        .orElse(EIServerIdstoreConfiguration.DEFAULT_MAXIMUM_CONCURRENT_REQUESTS);
+
+    final var circuitBreakerFailureThreshold =
+      Optional.ofNullable(idStore.getCircuitBreakerFailureThreshold())
+        .map(BigInteger::intValueExact)
+        .orElse(EIServerIdstoreConfiguration.DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD);
+
+    final var circuitBreakerResetDuration =
+      processDuration(idStore.getCircuitBreakerResetDuration())
+        .orElse(EIServerIdstoreConfiguration.DEFAULT_CIRCUIT_BREAKER_RESET_DURATION);
+
     return new EIServerIdstoreConfiguration(
       new URI(idStore.getBaseURI()),
-      new URI(idStore.getPasswordResetURI())
+      new URI(idStore.getPasswordResetURI()),
+      maximumConcurrentRequests.intValue(),
+      circuitBreakerFailureThreshold.intValue(),
+      circuitBreakerResetDuration
     );
   }
 
@@ -165,7 +273,75 @@ public final class EIServerConfigurationFiles
       database.getDatabasePort().intValue(),
       database.getDatabaseName(),
       database.isCreate(),
-      database.isUpgrade()
+      database.isUpgrade(),
+      database.getDatabaseReplica()
+        .stream()
+        .map(r -> {
+          return new EISDatabaseReplicaConfiguration(
+            r.getDatabaseAddress(),
+            r.getDatabasePort().intValue()
+          );
+        })
+        .toList(),
+      processDatabaseTuning(database.getDatabaseTuning()),
+      processDatabaseSlowQueries(database.getDatabaseSlowQueries())
+    );
+  }
+
+  private static Optional<EISDatabaseSlowQueryConfiguration> processDatabaseSlowQueries(
+    final DatabaseSlowQueries slowQueries)
+  {
+    if (slowQueries == null) {
+      return Optional.empty();
+    }
+
+    return Optional.of(
+      new EISDatabaseSlowQueryConfiguration(
+        processDuration(slowQueries.getThreshold())
+          .orElseThrow(),
+        processDuration(slowQueries.getMinimumInterval())
+          .orElse(EISDatabaseSlowQueryConfiguration.DEFAULT_MINIMUM_INTERVAL)
+      )
+    );
+  }
+
+  private static EISDatabaseTuning processDatabaseTuning(
+    final DatabaseTuning tuning)
+  {
+    if (tuning == null) {
+      return EISDatabaseTuning.defaults();
+    }
+
+    return new EISDatabaseTuning(
+      Optional.ofNullable(tuning.getMaximumPoolSize())
+        .map(BigInteger::intValueExact)
+        .orElse(EISDatabaseTuning.DEFAULT_MAXIMUM_POOL_SIZE)
+        .intValue(),
+      Optional.ofNullable(tuning.getMinimumIdle())
+        .map(BigInteger::intValueExact)
+        .orElse(EISDatabaseTuning.DEFAULT_MINIMUM_IDLE)
+        .intValue(),
+      processDuration(tuning.getConnectionTimeout())
+        .orElse(EISDatabaseTuning.DEFAULT_CONNECTION_TIMEOUT),
+      processDuration(tuning.getIdleTimeout())
+        .orElse(EISDatabaseTuning.DEFAULT_IDLE_TIMEOUT),
+      processDuration(tuning.getMaximumLifetime())
+        .orElse(EISDatabaseTuning.DEFAULT_MAXIMUM_LIFETIME),
+      Optional.ofNullable(tuning.getPrepareThreshold())
+        .map(BigInteger::intValueExact)
+        .orElse(EISDatabaseTuning.DEFAULT_PREPARE_THRESHOLD)
+        .intValue(),
+      Optional.ofNullable(tuning.getPreparedStatementCacheQueries())
+        .map(BigInteger::intValueExact)
+        .orElse(EISDatabaseTuning.DEFAULT_PREPARED_STATEMENT_CACHE_QUERIES)
+        .intValue(),
+      Optional.ofNullable(tuning.getPreparedStatementCacheSizeMiB())
+        .map(BigInteger::intValueExact)
+        .orElse(EISDatabaseTuning.DEFAULT_PREPARED_STATEMENT_CACHE_SIZE_MIB)
+        .intValue(),
+      Optional.ofNullable(tuning.isRewriteBatchedInserts())
+        .orElse(Boolean.TRUE)
+        .booleanValue()
     );
   }
 
@@ -213,6 +389,20 @@ public final class EIServerConfigurationFiles
     base = base.plusHours((long) d.getHours());
     base = base.plusMinutes((long) d.getMinutes());
     base = base.plusSeconds((long) d.getSeconds());
+
+    /*
+     * Fractional seconds (such as "PT0.25S") are not included in the
+     * value returned by getSeconds().
+     */
+
+    final var seconds = (BigDecimal) d.getField(DatatypeConstants.SECONDS);
+    if (seconds != null) {
+      base = base.plusNanos(
+        seconds.remainder(BigDecimal.ONE)
+          .movePointRight(9)
+          .longValue()
+      );
+    }
     return Optional.of(base);
   }
 
@@ -114,7 +114,10 @@ public final class EIServerConfigurations
         fileDbConfig.databaseName(),
         fileDbConfig.create() ? CREATE_DATABASE : DO_NOT_CREATE_DATABASE,
         fileDbConfig.upgrade() ? UPGRADE_DATABASE : DO_NOT_UPGRADE_DATABASE,
-        clock
+        clock,
+        fileDbConfig.replicas(),
+        fileDbConfig.tuning(),
+        fileDbConfig.slowQueries()
       );
 
     final var databaseFactories =
@@ -133,7 +136,10 @@ public final class EIServerConfigurations
       file.httpConfiguration().pikeService(),
       file.httpConfiguration().amberjackService(),
       file.idstoreConfiguration(),
-      file.openTelemetry()
+      file.openTelemetry(),
+      file.metrics(),
+      file.flightRecorder(),
+      file.rateLimits()
     );
   }
 
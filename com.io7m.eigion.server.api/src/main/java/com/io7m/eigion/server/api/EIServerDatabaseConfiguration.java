@@ -16,7 +16,13 @@
 
 package com.io7m.eigion.server.api;
 
+import com.io7m.eigion.server.database.api.EISDatabaseReplicaConfiguration;
+import com.io7m.eigion.server.database.api.EISDatabaseSlowQueryConfiguration;
+import com.io7m.eigion.server.database.api.EISDatabaseTuning;
+
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * Configuration for the database.
@@ -29,6 +35,9 @@ import java.util.Objects;
  * @param kind         The underlying SQL database kind
  * @param port         The database port
  * @param upgrade      {@code true} if the database schema should be upgraded
+ * @param replicas     The read-only replicas
+ * @param tuning       The connection pool and driver tuning parameters
+ * @param slowQueries  The slow query capture configuration
  */
 
 public record EIServerDatabaseConfiguration(
@@ -39,7 +48,10 @@ public record EIServerDatabaseConfiguration(
   int port,
   String databaseName,
   boolean create,
-  boolean upgrade)
+  boolean upgrade,
+  List<EISDatabaseReplicaConfiguration> replicas,
+  EISDatabaseTuning tuning,
+  Optional<EISDatabaseSlowQueryConfiguration> slowQueries)
 {
   /**
    * Configuration for the database.
@@ -52,6 +64,9 @@ public record EIServerDatabaseConfiguration(
    * @param kind         The underlying SQL database kind
    * @param port         The database port
    * @param upgrade      {@code true} if the database schema should be upgraded
+   * @param replicas     The read-only replicas
+   * @param tuning       The connection pool and driver tuning parameters
+   * @param slowQueries  The slow query capture configuration
    */
 
   public EIServerDatabaseConfiguration
@@ -61,5 +76,8 @@ public record EIServerDatabaseConfiguration(
     Objects.requireNonNull(password, "password");
     Objects.requireNonNull(address, "address");
     Objects.requireNonNull(databaseName, "databaseName");
+    Objects.requireNonNull(tuning, "tuning");
+    Objects.requireNonNull(slowQueries, "slowQueries");
+    replicas = List.copyOf(replicas);
   }
 }
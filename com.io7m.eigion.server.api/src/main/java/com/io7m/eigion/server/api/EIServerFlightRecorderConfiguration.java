@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.api;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Configuration information for continuous flight recording.
+ *
+ * @param dumpDirectory       The directory into which recordings are dumped
+ * @param latencyThreshold    The request latency that causes a dump
+ * @param maximumAge          The maximum age of retained recording data
+ * @param minimumDumpInterval The minimum time between dumps
+ */
+
+public record EIServerFlightRecorderConfiguration(
+  Path dumpDirectory,
+  Duration latencyThreshold,
+  Duration maximumAge,
+  Duration minimumDumpInterval)
+{
+  /**
+   * The default maximum age of retained recording data.
+   */
+
+  public static final Duration DEFAULT_MAXIMUM_AGE =
+    Duration.ofMinutes(10L);
+
+  /**
+   * The default minimum time between dumps.
+   */
+
+  public static final Duration DEFAULT_MINIMUM_DUMP_INTERVAL =
+    Duration.ofMinutes(1L);
+
+  /**
+   * Configuration information for continuous flight recording.
+   *
+   * @param dumpDirectory       The directory into which recordings are dumped
+   * @param latencyThreshold    The request latency that causes a dump
+   * @param maximumAge          The maximum age of retained recording data
+   * @param minimumDumpInterval The minimum time between dumps
+   */
+
+  public EIServerFlightRecorderConfiguration
+  {
+    Objects.requireNonNull(dumpDirectory, "dumpDirectory");
+    Objects.requireNonNull(latencyThreshold, "latencyThreshold");
+    Objects.requireNonNull(maximumAge, "maximumAge");
+    Objects.requireNonNull(minimumDumpInterval, "minimumDumpInterval");
+  }
+}
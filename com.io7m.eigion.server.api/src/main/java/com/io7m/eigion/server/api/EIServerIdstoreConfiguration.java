@@ -14,32 +14,108 @@
  * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
  */
 
+
 package com.io7m.eigion.server.api;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.Objects;
 
 /**
  * Configuration information for {@code idstore}.
  *
- * @param baseURI          The server base URI
- * @param passwordResetURI The password reset URI
+ * @param baseURI                        The server base URI
+ * @param passwordResetURI               The password reset URI
+ * @param maximumConcurrentRequests      The maximum number of requests that
+ *                                       may be made to the idstore server
+ *                                       concurrently
+ * @param circuitBreakerFailureThreshold The number of consecutive failures
+ *                                       that will cause the server to stop
+ *                                       making requests to the idstore server
+ * @param circuitBreakerResetDuration    The amount of time that the server
+ *                                       will wait after the failure threshold
+ *                                       is reached before trying the idstore
+ *                                       server again
  */
 
 public record EIServerIdstoreConfiguration(
   URI baseURI,
-  URI passwordResetURI)
+  URI passwordResetURI,
+  int maximumConcurrentRequests,
+  int circuitBreakerFailureThreshold,
+  Duration circuitBreakerResetDuration)
 {
+  /**
+   * The default maximum number of concurrent requests.
+   */
+
+  public static final int DEFAULT_MAXIMUM_CONCURRENT_REQUESTS = 32;
+
+  /**
+   * The default circuit breaker failure threshold.
+   */
+
+  public static final int DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD = 5;
+
+  /**
+   * The default circuit breaker reset duration.
+   */
+
+  public static final Duration DEFAULT_CIRCUIT_BREAKER_RESET_DURATION =
+    Duration.ofSeconds(30L);
+
   /**
    * Configuration information for {@code idstore}.
    *
-   * @param baseURI          The server base URI
-   * @param passwordResetURI The password reset URI
+   * @param baseURI                        The server base URI
+   * @param passwordResetURI               The password reset URI
+   * @param maximumConcurrentRequests      The maximum number of requests that
+   *                                       may be made to the idstore server
+   *                                       concurrently
+   * @param circuitBreakerFailureThreshold The number of consecutive failures
+   *                                       that will cause the server to stop
+   *                                       making requests to the idstore server
+   * @param circuitBreakerResetDuration    The amount of time that the server
+   *                                       will wait after the failure threshold
+   *                                       is reached before trying the idstore
+   *                                       server again
    */
 
   public EIServerIdstoreConfiguration
   {
     Objects.requireNonNull(baseURI, "baseURI");
     Objects.requireNonNull(passwordResetURI, "passwordResetURI");
+    Objects.requireNonNull(
+      circuitBreakerResetDuration, "circuitBreakerResetDuration");
+
+    if (maximumConcurrentRequests < 1) {
+      throw new IllegalArgumentException(
+        "Maximum concurrent requests must be positive.");
+    }
+    if (circuitBreakerFailureThreshold < 1) {
+      throw new IllegalArgumentException(
+        "Circuit breaker failure threshold must be positive.");
+    }
+  }
+
+  /**
+   * Configuration information for {@code idstore}, using default values
+   * for the connection limits.
+   *
+   * @param baseURI          The server base URI
+   * @param passwordResetURI The password reset URI
+   */
+
+  public EIServerIdstoreConfiguration(
+    final URI baseURI,
+    final URI passwordResetURI)
+  {
+    this(
+      baseURI,
+      passwordResetURI,
+      DEFAULT_MAXIMUM_CONCURRENT_REQUESTS,
+      DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD,
+      DEFAULT_CIRCUIT_BREAKER_RESET_DURATION
+    );
   }
 }
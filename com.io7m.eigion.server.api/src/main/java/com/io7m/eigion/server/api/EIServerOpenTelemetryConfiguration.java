@@ -14,32 +14,74 @@
  * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
  */
 
+
 package com.io7m.eigion.server.api;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * Configuration information for OpenTelemetry.
  *
  * @param logicalServiceName The logical service name
  * @param collectorAddress   The address of the OTEL collector
+ * @param traceSampleRatio   The fraction of traces that will be sampled
+ * @param traceParentBased   {@code true} if sampling decisions propagated by
+ *                           callers should be respected
+ * @param traceSlowThreshold The duration beyond which unsampled spans will
+ *                           be exported anyway
  */
 
 public record EIServerOpenTelemetryConfiguration(
   String logicalServiceName,
-  URI collectorAddress)
+  URI collectorAddress,
+  double traceSampleRatio,
+  boolean traceParentBased,
+  Optional<Duration> traceSlowThreshold)
 {
   /**
    * Configuration information for OpenTelemetry.
    *
    * @param collectorAddress   The address of the OTEL collector
    * @param logicalServiceName The logical service name
+   * @param traceSampleRatio   The fraction of traces that will be sampled
+   * @param traceParentBased   {@code true} if sampling decisions propagated
+   *                           by callers should be respected
+   * @param traceSlowThreshold The duration beyond which unsampled spans will
+   *                           be exported anyway
    */
 
   public EIServerOpenTelemetryConfiguration
   {
     Objects.requireNonNull(logicalServiceName, "logicalServiceName");
     Objects.requireNonNull(collectorAddress, "collectorAddress");
+    Objects.requireNonNull(traceSlowThreshold, "traceSlowThreshold");
+
+    if (!(traceSampleRatio >= 0.0 && traceSampleRatio <= 1.0)) {
+      throw new IllegalArgumentException(
+        "Trace sample ratio must be in the range [0, 1].");
+    }
+  }
+
+  /**
+   * Configuration information for OpenTelemetry. All traces are sampled.
+   *
+   * @param collectorAddress   The address of the OTEL collector
+   * @param logicalServiceName The logical service name
+   */
+
+  public EIServerOpenTelemetryConfiguration(
+    final String logicalServiceName,
+    final URI collectorAddress)
+  {
+    this(
+      logicalServiceName,
+      collectorAddress,
+      1.0,
+      true,
+      Optional.empty()
+    );
   }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.api;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Configuration information for rate limiting.
+ *
+ * @param shared                     {@code true} if token buckets are held in
+ *                                   the database and are therefore shared
+ *                                   between all server nodes
+ * @param groupCreateBeginPerUser    The limit on group creation requests
+ *                                   made by each user
+ * @param groupCreateBeginPerAddress The limit on group creation requests
+ *                                   made from each remote address
+ */
+
+public record EIServerRateLimitConfiguration(
+  boolean shared,
+  EIServerTokenBucketConfiguration groupCreateBeginPerUser,
+  EIServerTokenBucketConfiguration groupCreateBeginPerAddress)
+{
+  /**
+   * The default limit on group creation requests made by each user: a burst
+   * of five requests, refilled at five requests per hour.
+   */
+
+  public static final EIServerTokenBucketConfiguration DEFAULT_GROUP_CREATE_BEGIN_PER_USER =
+    new EIServerTokenBucketConfiguration(5L, Duration.ofMinutes(12L));
+
+  /**
+   * The default limit on group creation requests made from each remote
+   * address: a burst of twenty requests, refilled at twenty requests per
+   * hour.
+   */
+
+  public static final EIServerTokenBucketConfiguration DEFAULT_GROUP_CREATE_BEGIN_PER_ADDRESS =
+    new EIServerTokenBucketConfiguration(20L, Duration.ofMinutes(3L));
+
+  /**
+   * Configuration information for rate limiting.
+   *
+   * @param shared                     {@code true} if token buckets are held
+   *                                   in the database and are therefore
+   *                                   shared between all server nodes
+   * @param groupCreateBeginPerUser    The limit on group creation requests
+   *                                   made by each user
+   * @param groupCreateBeginPerAddress The limit on group creation requests
+   *                                   made from each remote address
+   */
+
+  public EIServerRateLimitConfiguration
+  {
+    Objects.requireNonNull(
+      groupCreateBeginPerUser, "groupCreateBeginPerUser");
+    Objects.requireNonNull(
+      groupCreateBeginPerAddress, "groupCreateBeginPerAddress");
+  }
+
+  /**
+   * @return The default rate limits, held separately by each server node
+   */
+
+  public static EIServerRateLimitConfiguration defaults()
+  {
+    return new EIServerRateLimitConfiguration(
+      false,
+      DEFAULT_GROUP_CREATE_BEGIN_PER_USER,
+      DEFAULT_GROUP_CREATE_BEGIN_PER_ADDRESS
+    );
+  }
+}
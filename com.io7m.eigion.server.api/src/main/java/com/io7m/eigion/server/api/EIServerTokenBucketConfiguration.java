@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.api;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Configuration information for a token bucket. A bucket holds at most
+ * {@code capacity} tokens, and is refilled at a rate of one token per
+ * {@code refillPeriod}. Each rate-limited operation takes one token.
+ *
+ * @param capacity     The maximum number of tokens in the bucket
+ * @param refillPeriod The time taken to refill a single token
+ */
+
+public record EIServerTokenBucketConfiguration(
+  long capacity,
+  Duration refillPeriod)
+{
+  /**
+   * Configuration information for a token bucket. A bucket holds at most
+   * {@code capacity} tokens, and is refilled at a rate of one token per
+   * {@code refillPeriod}. Each rate-limited operation takes one token.
+   *
+   * @param capacity     The maximum number of tokens in the bucket
+   * @param refillPeriod The time taken to refill a single token
+   */
+
+  public EIServerTokenBucketConfiguration
+  {
+    Objects.requireNonNull(refillPeriod, "refillPeriod");
+
+    if (capacity < 1L) {
+      throw new IllegalArgumentException(
+        "Bucket capacity must be positive.");
+    }
+    if (refillPeriod.isNegative() || refillPeriod.isZero()) {
+      throw new IllegalArgumentException(
+        "Bucket refill period must be positive.");
+    }
+  }
+}
@@ -16,9 +16,12 @@
 
 package com.io7m.eigion.server.database.api;
 
+import com.io7m.eigion.model.EIAuditEvent;
 import com.io7m.eigion.model.EIAuditSearchParameters;
 
+import java.io.IOException;
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -42,6 +45,53 @@ public non-sealed interface EISDatabaseAuditQueriesType
     EIAuditSearchParameters parameters)
     throws EISDatabaseException;
 
+  /**
+   * Export all audit events from the database matching the given parameters.
+   * Events are read through a single cursor in ascending ID order and are
+   * passed to the receiver in batches of at most {@code parameters.limit()}
+   * events, so memory use does not depend on the number of matching events.
+   *
+   * @param parameters The search parameters
+   * @param receiver   The receiver of event batches
+   *
+   * @return The total number of exported events
+   *
+   * @throws EISDatabaseException On errors
+   * @throws IOException          If the receiver raises an exception
+   */
+
+  long auditEventsExport(
+    EIAuditSearchParameters parameters,
+    EISDatabaseAuditEventsReceiverType receiver)
+    throws EISDatabaseException, IOException;
+
+  /**
+   * Retrieve at most {@code limit} audit events with IDs strictly greater
+   * than {@code id}, in ascending ID order. No search conditions are applied.
+   *
+   * @param id    The exclusive lower bound on event IDs
+   * @param limit The maximum number of events to return
+   *
+   * @return The events
+   *
+   * @throws EISDatabaseException On errors
+   */
+
+  List<EIAuditEvent> auditEventsAfter(
+    long id,
+    int limit)
+    throws EISDatabaseException;
+
+  /**
+   * @return The ID of the most recently created audit event, or {@code 0} if
+   * no events exist
+   *
+   * @throws EISDatabaseException On errors
+   */
+
+  long auditEventIdLatest()
+    throws EISDatabaseException;
+
   /**
    * Create an audit event.
    *
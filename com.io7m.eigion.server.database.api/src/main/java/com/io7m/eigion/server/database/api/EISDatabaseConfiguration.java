@@ -17,7 +17,9 @@
 package com.io7m.eigion.server.database.api;
 
 import java.time.Clock;
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * The server database configuration.
@@ -30,6 +32,9 @@ import java.util.Objects;
  * @param address       The database address
  * @param databaseName  The database name
  * @param clock         A clock for time retrievals
+ * @param replicas      The read-only replicas used for read-only transactions
+ * @param tuning        The connection pool and driver tuning parameters
+ * @param slowQueries   The slow query capture configuration
  */
 
 public record EISDatabaseConfiguration(
@@ -40,7 +45,10 @@ public record EISDatabaseConfiguration(
   String databaseName,
   EISDatabaseCreate create,
   EISDatabaseUpgrade upgrade,
-  Clock clock)
+  Clock clock,
+  List<EISDatabaseReplicaConfiguration> replicas,
+  EISDatabaseTuning tuning,
+  Optional<EISDatabaseSlowQueryConfiguration> slowQueries)
 {
   /**
    * The server database configuration.
@@ -53,6 +61,10 @@ public record EISDatabaseConfiguration(
    * @param address       The database address
    * @param databaseName  The database name
    * @param clock         A clock for time retrievals
+   * @param replicas      The read-only replicas used for read-only
+   *                      transactions
+   * @param tuning        The connection pool and driver tuning parameters
+   * @param slowQueries   The slow query capture configuration
    */
 
   public EISDatabaseConfiguration
@@ -64,5 +76,47 @@ public record EISDatabaseConfiguration(
     Objects.requireNonNull(create, "create");
     Objects.requireNonNull(upgrade, "upgrade");
     Objects.requireNonNull(clock, "clock");
+    Objects.requireNonNull(tuning, "tuning");
+    Objects.requireNonNull(slowQueries, "slowQueries");
+    replicas = List.copyOf(replicas);
+  }
+
+  /**
+   * The server database configuration, without any replicas, with
+   * default tuning parameters, and without slow query capture.
+   *
+   * @param user          The username with which to connect
+   * @param password      The password with which to connect
+   * @param port          The database TCP/IP port
+   * @param upgrade       The upgrade specification
+   * @param create        The creation specification
+   * @param address       The database address
+   * @param databaseName  The database name
+   * @param clock         A clock for time retrievals
+   */
+
+  public EISDatabaseConfiguration(
+    final String user,
+    final String password,
+    final String address,
+    final int port,
+    final String databaseName,
+    final EISDatabaseCreate create,
+    final EISDatabaseUpgrade upgrade,
+    final Clock clock)
+  {
+    this(
+      user,
+      password,
+      address,
+      port,
+      databaseName,
+      create,
+      upgrade,
+      clock,
+      List.of(),
+      EISDatabaseTuning.defaults(),
+      Optional.empty()
+    );
   }
 }
@@ -26,6 +26,7 @@ import com.io7m.eigion.model.EIGroupRole;
 import com.io7m.eigion.model.EIGroupSearchByNameParameters;
 import com.io7m.eigion.model.EIToken;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -114,6 +115,41 @@ public non-sealed interface EISDatabaseGroupsQueriesType
     EIGroupSearchByNameParameters parameters)
     throws EISDatabaseException;
 
+  /**
+   * @param name The group name
+   *
+   * @return {@code true} if a group with the given name exists
+   *
+   * @throws EISDatabaseException On errors
+   */
+
+  boolean groupExists(EIGroupName name)
+    throws EISDatabaseException;
+
+  /**
+   * @return The number of groups that exist
+   *
+   * @throws EISDatabaseException On errors
+   */
+
+  long groupCount()
+    throws EISDatabaseException;
+
+  /**
+   * Read the names of all groups. Names are read through a single cursor and
+   * are passed to the receiver in batches, so memory use does not depend on
+   * the number of groups.
+   *
+   * @param receiver The receiver of name batches
+   *
+   * @return The total number of names read
+   *
+   * @throws EISDatabaseException On errors
+   */
+
+  long groupNamesEach(EISDatabaseGroupNamesReceiverType receiver)
+    throws EISDatabaseException;
+
   /**
    * Start a group creation request.
    *
@@ -142,6 +178,42 @@ public non-sealed interface EISDatabaseGroupsQueriesType
     UUID userId)
     throws EISDatabaseException;
 
+  /**
+   * Count the group creation requests started by the given user strictly
+   * after the given time.
+   *
+   * @param userId The user ID
+   * @param since  The time
+   *
+   * @return The number of requests
+   *
+   * @throws EISDatabaseException On errors
+   */
+
+  long groupCreationRequestsCountSince(
+    UUID userId,
+    OffsetDateTime since)
+    throws EISDatabaseException;
+
+  /**
+   * Retrieve the group creation requests started by the given user that are
+   * either still in progress, or that completed strictly after the given
+   * time. Unlike {@link #groupCreationRequestsForUser(UUID)}, the size of the
+   * result does not grow with the user's request history.
+   *
+   * @param userId The user ID
+   * @param since  The time
+   *
+   * @return The matching group creation requests
+   *
+   * @throws EISDatabaseException On errors
+   */
+
+  List<EIGroupCreationRequest> groupCreationRequestsChangedSince(
+    UUID userId,
+    OffsetDateTime since)
+    throws EISDatabaseException;
+
   /**
    * @param parameters The parameters
    *
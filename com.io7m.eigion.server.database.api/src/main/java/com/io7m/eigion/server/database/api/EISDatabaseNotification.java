@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.database.api;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A notification received from the database.
+ *
+ * @param channel  The channel upon which the notification was published
+ * @param timeSent The time the notification was published
+ * @param payload  The notification payload
+ */
+
+public record EISDatabaseNotification(
+  EISDatabaseNotificationChannel channel,
+  Instant timeSent,
+  String payload)
+{
+  /**
+   * A notification received from the database.
+   *
+   * @param channel  The channel upon which the notification was published
+   * @param timeSent The time the notification was published
+   * @param payload  The notification payload
+   */
+
+  public EISDatabaseNotification
+  {
+    Objects.requireNonNull(channel, "channel");
+    Objects.requireNonNull(timeSent, "timeSent");
+    Objects.requireNonNull(payload, "payload");
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.database.api;
+
+/**
+ * The notification channels used by the database. Notifications published
+ * on a channel are delivered to every server node that has subscribed to
+ * the channel.
+ */
+
+public enum EISDatabaseNotificationChannel
+{
+  /**
+   * A user was created or updated. The notification payload is the user ID.
+   */
+
+  USERS("eigion_users"),
+
+  /**
+   * A group creation request was created or changed status. The
+   * notification payload is the ID of the user that made the request and
+   * the request token, separated by {@code |}.
+   */
+
+  GROUP_CREATION_REQUESTS("eigion_group_creation_requests"),
+
+  /**
+   * A group was created. The notification payload is the name of the group.
+   */
+
+  GROUPS_CREATED("eigion_groups_created");
+
+  private final String channelName;
+
+  EISDatabaseNotificationChannel(
+    final String inChannelName)
+  {
+    this.channelName = inChannelName;
+  }
+
+  /**
+   * @return The name of the channel in the database
+   */
+
+  public String channelName()
+  {
+    return this.channelName;
+  }
+}
@@ -68,4 +68,15 @@ public interface EISDatabasePagedQueryType<Q extends EISDatabaseQueriesType, T>
 
   EIPage<T> pagePrevious(Q queries)
     throws EISDatabaseException;
+
+  /**
+   * Create a new query over the same pages as this query, positioned at the
+   * first page. The new query shares no mutable state with this query, and
+   * so a query may be retained and used as a template for queries executed
+   * concurrently by other sessions.
+   *
+   * @return A new query
+   */
+
+  EISDatabasePagedQueryType<Q, T> copyAtFirstPage();
 }
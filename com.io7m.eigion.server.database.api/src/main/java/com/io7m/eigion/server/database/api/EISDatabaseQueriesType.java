@@ -29,6 +29,7 @@ public sealed interface EISDatabaseQueriesType
   permits EISDatabaseAuditQueriesType,
   EISDatabaseGroupsQueriesType,
   EISDatabaseMaintenanceQueriesType,
+  EISDatabaseRateLimitQueriesType,
   EISDatabaseUsersQueriesType
 {
   /**
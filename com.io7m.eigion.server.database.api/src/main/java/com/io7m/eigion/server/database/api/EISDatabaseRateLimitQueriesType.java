@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.database.api;
+
+import java.time.Duration;
+
+/**
+ * The database queries involving rate limiting.
+ */
+
+public non-sealed interface EISDatabaseRateLimitQueriesType
+  extends EISDatabaseQueriesType
+{
+  /**
+   * Take a token from the token bucket with the given name, creating a full
+   * bucket if one does not exist. Buckets are refilled at a rate of one token
+   * per {@code refillPeriod}, up to {@code capacity} tokens. The database
+   * server's clock is used, so that buckets shared between server nodes are
+   * refilled consistently.
+   *
+   * @param bucket       The bucket name
+   * @param capacity     The maximum number of tokens in the bucket
+   * @param refillPeriod The time taken to refill a single token
+   *
+   * @return {@code true} if a token was taken
+   *
+   * @throws EISDatabaseException On errors
+   */
+
+  boolean rateLimitTake(
+    String bucket,
+    long capacity,
+    Duration refillPeriod)
+    throws EISDatabaseException;
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.database.api;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Configuration for slow query capture.
+ *
+ * @param threshold       Queries that take at least this long are captured
+ * @param minimumInterval The minimum time between captures of the same
+ *                        named query
+ */
+
+public record EISDatabaseSlowQueryConfiguration(
+  Duration threshold,
+  Duration minimumInterval)
+{
+  /**
+   * The default minimum time between captures of the same named query.
+   */
+
+  public static final Duration DEFAULT_MINIMUM_INTERVAL =
+    Duration.ofMinutes(10L);
+
+  /**
+   * Configuration for slow query capture.
+   *
+   * @param threshold       Queries that take at least this long are captured
+   * @param minimumInterval The minimum time between captures of the same
+   *                        named query
+   */
+
+  public EISDatabaseSlowQueryConfiguration
+  {
+    Objects.requireNonNull(threshold, "threshold");
+    Objects.requireNonNull(minimumInterval, "minimumInterval");
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.database.api;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Connection pool and JDBC driver tuning parameters.
+ *
+ * @param maximumPoolSize               The maximum number of connections in
+ *                                      each connection pool
+ * @param minimumIdle                   The minimum number of idle connections
+ *                                      kept in each connection pool
+ * @param connectionTimeout             The maximum amount of time to wait for
+ *                                      a connection from a pool
+ * @param idleTimeout                   The amount of time after which idle
+ *                                      connections are retired
+ * @param maximumLifetime               The maximum lifetime of a connection
+ * @param prepareThreshold              The number of executions of a
+ *                                      statement after which the driver will
+ *                                      switch to server-side prepared
+ *                                      statements ({@code 0} disables
+ *                                      server-side preparation)
+ * @param preparedStatementCacheQueries The number of prepared statements
+ *                                      cached per connection
+ * @param preparedStatementCacheSizeMiB The maximum size of the per-connection
+ *                                      prepared statement cache
+ * @param rewriteBatchedInserts         {@code true} if batched inserts should
+ *                                      be rewritten into multi-row inserts
+ */
+
+public record EISDatabaseTuning(
+  int maximumPoolSize,
+  int minimumIdle,
+  Duration connectionTimeout,
+  Duration idleTimeout,
+  Duration maximumLifetime,
+  int prepareThreshold,
+  int preparedStatementCacheQueries,
+  int preparedStatementCacheSizeMiB,
+  boolean rewriteBatchedInserts)
+{
+  /**
+   * The default maximum pool size.
+   */
+
+  public static final int DEFAULT_MAXIMUM_POOL_SIZE = 10;
+
+  /**
+   * The default minimum number of idle connections.
+   */
+
+  public static final int DEFAULT_MINIMUM_IDLE = 10;
+
+  /**
+   * The default connection timeout.
+   */
+
+  public static final Duration DEFAULT_CONNECTION_TIMEOUT =
+    Duration.ofSeconds(30L);
+
+  /**
+   * The default idle timeout.
+   */
+
+  public static final Duration DEFAULT_IDLE_TIMEOUT =
+    Duration.ofMinutes(10L);
+
+  /**
+   * The default maximum connection lifetime.
+   */
+
+  public static final Duration DEFAULT_MAXIMUM_LIFETIME =
+    Duration.ofMinutes(30L);
+
+  /**
+   * The default prepare threshold.
+   */
+
+  public static final int DEFAULT_PREPARE_THRESHOLD = 1;
+
+  /**
+   * The default number of cached prepared statements.
+   */
+
+  public static final int DEFAULT_PREPARED_STATEMENT_CACHE_QUERIES = 256;
+
+  /**
+   * The default prepared statement cache size.
+   */
+
+  public static final int DEFAULT_PREPARED_STATEMENT_CACHE_SIZE_MIB = 5;
+
+  /**
+   * Connection pool and JDBC driver tuning parameters.
+   *
+   * @param maximumPoolSize               The maximum number of connections in
+   *                                      each connection pool
+   * @param minimumIdle                   The minimum number of idle
+   *                                      connections kept in each connection
+   *                                      pool
+   * @param connectionTimeout             The maximum amount of time to wait
+   *                                      for a connection from a pool
+   * @param idleTimeout                   The amount of time after which idle
+   *                                      connections are retired
+   * @param maximumLifetime               The maximum lifetime of a connection
+   * @param prepareThreshold              The number of executions of a
+   *                                      statement after which the driver
+   *                                      will switch to server-side prepared
+   *                                      statements ({@code 0} disables
+   *                                      server-side preparation)
+   * @param preparedStatementCacheQueries The number of prepared statements
+   *                                      cached per connection
+   * @param preparedStatementCacheSizeMiB The maximum size of the
+   *                                      per-connection prepared statement
+   *                                      cache
+   * @param rewriteBatchedInserts         {@code true} if batched inserts
+   *                                      should be rewritten into multi-row
+   *                                      inserts
+   */
+
+  public EISDatabaseTuning
+  {
+    Objects.requireNonNull(connectionTimeout, "connectionTimeout");
+    Objects.requireNonNull(idleTimeout, "idleTimeout");
+    Objects.requireNonNull(maximumLifetime, "maximumLifetime");
+
+    /*
+     * The primary pool permanently holds one connection for receiving
+     * notifications, so there must be at least one more for everything else.
+     */
+
+    if (maximumPoolSize < 2) {
+      throw new IllegalArgumentException(
+        "Maximum pool size must be at least 2.");
+    }
+    if (minimumIdle < 0 || minimumIdle > maximumPoolSize) {
+      throw new IllegalArgumentException(
+        "Minimum idle connections must be in the range [0, %d]."
+          .formatted(Integer.valueOf(maximumPoolSize)));
+    }
+    if (prepareThreshold < 0) {
+      throw new IllegalArgumentException(
+        "Prepare threshold must be non-negative.");
+    }
+    if (preparedStatementCacheQueries < 0) {
+      throw new IllegalArgumentException(
+        "Prepared statement cache queries must be non-negative.");
+    }
+    if (preparedStatementCacheSizeMiB < 0) {
+      throw new IllegalArgumentException(
+        "Prepared statement cache size must be non-negative.");
+    }
+  }
+
+  /**
+   * @return The default tuning parameters
+   */
+
+  public static EISDatabaseTuning defaults()
+  {
+    return new EISDatabaseTuning(
+      DEFAULT_MAXIMUM_POOL_SIZE,
+      DEFAULT_MINIMUM_IDLE,
+      DEFAULT_CONNECTION_TIMEOUT,
+      DEFAULT_IDLE_TIMEOUT,
+      DEFAULT_MAXIMUM_LIFETIME,
+      DEFAULT_PREPARE_THRESHOLD,
+      DEFAULT_PREPARED_STATEMENT_CACHE_QUERIES,
+      DEFAULT_PREPARED_STATEMENT_CACHE_SIZE_MIB,
+      true
+    );
+  }
+}
@@ -41,4 +41,39 @@ public interface EISDatabaseType extends AutoCloseable, EIServiceType
   EISDatabaseConnectionType openConnection(
     EISDatabaseRole role)
     throws EISDatabaseException;
+
+  /**
+   * Open a database connection for read-only work using the given role.
+   * All transactions on the connection are read-only. If read-only replicas
+   * are configured, the connection is obtained from one of the replicas;
+   * otherwise it is obtained from the primary database. Data read from a
+   * replica may lag slightly behind the primary database.
+   *
+   * @param role The role
+   *
+   * @return A read-only database connection
+   *
+   * @throws EISDatabaseException On errors
+   */
+
+  EISDatabaseConnectionType openConnectionReadOnly(
+    EISDatabaseRole role)
+    throws EISDatabaseException;
+
+  /**
+   * Subscribe to notifications published on the given channel. Notifications
+   * are delivered on a dedicated thread, and receivers should not block.
+   *
+   * @param channel  The channel
+   * @param receiver The receiver
+   *
+   * @return A subscription
+   *
+   * @throws EISDatabaseException On errors
+   */
+
+  EISDatabaseSubscriptionType subscribe(
+    EISDatabaseNotificationChannel channel,
+    EISDatabaseNotificationReceiverType receiver)
+    throws EISDatabaseException;
 }
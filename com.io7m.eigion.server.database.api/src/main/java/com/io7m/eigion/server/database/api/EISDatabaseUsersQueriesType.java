@@ -30,7 +30,9 @@ public non-sealed interface EISDatabaseUsersQueriesType
   extends EISDatabaseQueriesType
 {
   /**
-   * Update the given user.
+   * Update the given user. A notification containing the user ID is
+   * published on the {@link EISDatabaseNotificationChannel#USERS} channel
+   * when the transaction commits.
    *
    * @param user The user
    *
@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.database.postgres;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The result of checking the plan of a single query.
+ *
+ * @param query           The query name
+ * @param statement       The statement that was explained
+ * @param totalCost       The total estimated cost of the plan
+ * @param sequentialScans The tables read with sequential scans
+ * @param violations      The ways in which the plan violated the check
+ *                        configuration
+ */
+
+public record EISDatabaseQueryPlanCheck(
+  String query,
+  String statement,
+  double totalCost,
+  List<String> sequentialScans,
+  List<String> violations)
+{
+  /**
+   * The result of checking the plan of a single query.
+   *
+   * @param query           The query name
+   * @param statement       The statement that was explained
+   * @param totalCost       The total estimated cost of the plan
+   * @param sequentialScans The tables read with sequential scans
+   * @param violations      The ways in which the plan violated the check
+   *                        configuration
+   */
+
+  public EISDatabaseQueryPlanCheck
+  {
+    Objects.requireNonNull(query, "query");
+    Objects.requireNonNull(statement, "statement");
+    sequentialScans = List.copyOf(sequentialScans);
+    violations = List.copyOf(violations);
+  }
+
+  /**
+   * @return {@code true} if the plan did not violate the configuration
+   */
+
+  public boolean passed()
+  {
+    return this.violations.isEmpty();
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.database.postgres;
+
+/**
+ * Configuration for query plan checks.
+ *
+ * @param maximumCost    The maximum permitted total plan cost of any query
+ * @param largeTableRows The estimated number of rows at which a table is
+ *                       considered large; sequential scans of large tables
+ *                       are violations
+ * @param generateRows   The number of rows of representative data to
+ *                       generate before checking plans, or {@code 0} to use
+ *                       the existing data. The generated rows are rolled
+ *                       back, but the tables that receive them are analyzed
+ *                       and keep the resulting statistics, so this should
+ *                       only be used against a scratch database.
+ */
+
+public record EISDatabaseQueryPlanCheckConfiguration(
+  double maximumCost,
+  long largeTableRows,
+  int generateRows)
+{
+  /**
+   * Configuration for query plan checks.
+   *
+   * @param maximumCost    The maximum permitted total plan cost of any query
+   * @param largeTableRows The estimated number of rows at which a table is
+   *                       considered large; sequential scans of large tables
+   *                       are violations
+   * @param generateRows   The number of rows of representative data to
+   *                       generate before checking plans, or {@code 0} to
+   *                       use the existing data. The generated rows are
+   *                       rolled back, but the tables that receive them are
+   *                       analyzed and keep the resulting statistics
+   */
+
+  public EISDatabaseQueryPlanCheckConfiguration
+  {
+    if (maximumCost <= 0.0) {
+      throw new IllegalArgumentException(
+        "Maximum cost %f must be positive".formatted(
+          Double.valueOf(maximumCost)));
+    }
+    if (generateRows < 0) {
+      throw new IllegalArgumentException(
+        "Generated rows %d must be non-negative".formatted(
+          Integer.valueOf(generateRows)));
+    }
+  }
+}
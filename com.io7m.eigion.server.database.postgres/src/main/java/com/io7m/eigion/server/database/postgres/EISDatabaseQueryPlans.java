@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.database.postgres;
+
+import com.io7m.eigion.server.database.api.EISDatabaseException;
+import com.io7m.eigion.server.database.api.EISDatabaseType;
+import com.io7m.eigion.server.database.postgres.internal.EISDatabase;
+import com.io7m.eigion.server.database.postgres.internal.EISDatabaseQueryPlanChecker;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Functions to check the plans of the queries executed by the server.
+ */
+
+public final class EISDatabaseQueryPlans
+{
+  private EISDatabaseQueryPlans()
+  {
+
+  }
+
+  /**
+   * Execute every frequently-used query against the given database, and
+   * check the plan of each statement executed. All work is performed in a
+   * single transaction that is rolled back, so no rows are left behind.
+   * However, if data is generated, the tables that receive it are analyzed,
+   * and ANALYZE updates planner statistics in place: those statistics are
+   * not rolled back, and reflect the generated rows until the tables are
+   * next analyzed. Generate data only against a scratch database.
+   *
+   * @param database      The database
+   * @param configuration The check configuration
+   *
+   * @return The results, one per distinct statement
+   *
+   * @throws EISDatabaseException On errors
+   */
+
+  public static List<EISDatabaseQueryPlanCheck> check(
+    final EISDatabaseType database,
+    final EISDatabaseQueryPlanCheckConfiguration configuration)
+    throws EISDatabaseException
+  {
+    Objects.requireNonNull(database, "database");
+    Objects.requireNonNull(configuration, "configuration");
+
+    if (database instanceof EISDatabase postgres) {
+      return EISDatabaseQueryPlanChecker.check(postgres, configuration);
+    }
+
+    throw new IllegalArgumentException(
+      "Unsupported database type: %s".formatted(database.getClass())
+    );
+  }
+}
@@ -22,6 +22,7 @@ import com.io7m.eigion.server.database.api.EISDatabaseException;
 import com.io7m.eigion.server.database.api.EISDatabaseFactoryType;
 import com.io7m.eigion.server.database.api.EISDatabaseType;
 import com.io7m.eigion.server.database.postgres.internal.EISDatabase;
+import com.io7m.eigion.server.database.postgres.internal.EISDatabasePoolMetrics;
 import com.io7m.trasco.api.TrEventExecutingSQL;
 import com.io7m.trasco.api.TrEventType;
 import com.io7m.trasco.api.TrEventUpgrading;
@@ -42,6 +43,7 @@ import java.math.BigInteger;
 import java.net.URI;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Consumer;
@@ -141,21 +143,16 @@ public final class EISDatabases implements EISDatabaseFactoryType
     Objects.requireNonNull(startupMessages, "startupMessages");
 
     try {
-      final var url = new StringBuilder(128);
-      url.append("jdbc:postgresql://");
-      url.append(configuration.address());
-      url.append(":");
-      url.append(configuration.port());
-      url.append("/");
-      url.append(configuration.databaseName());
-
-      final var config = new HikariConfig();
-      config.setJdbcUrl(url.toString());
-      config.setUsername(configuration.user());
-      config.setPassword(configuration.password());
-      config.setAutoCommit(false);
-
-      final var dataSource = new HikariDataSource(config);
+      final var dataSource =
+        createDataSource(
+          configuration,
+          openTelemetry,
+          "primary",
+          configuration.address(),
+          configuration.port(),
+          false
+        );
+
       final var parsers = new TrSchemaRevisionSetParsers();
 
       final TrSchemaRevisionSet revisions;
@@ -183,10 +180,35 @@ public final class EISDatabases implements EISDatabaseFactoryType
         connection.commit();
       }
 
+      final var replicas = new ArrayList<HikariDataSource>();
+      final var replicaConfigurations = configuration.replicas();
+      for (int index = 0; index < replicaConfigurations.size(); ++index) {
+        final var replica = replicaConfigurations.get(index);
+        publishEvent(
+          startupMessages,
+          String.format(
+            "Using read-only replica %s:%d",
+            replica.address(),
+            Integer.valueOf(replica.port()))
+        );
+        replicas.add(
+          createDataSource(
+            configuration,
+            openTelemetry,
+            "replica-%d".formatted(Integer.valueOf(index)),
+            replica.address(),
+            replica.port(),
+            true
+          )
+        );
+      }
+
       return new EISDatabase(
         openTelemetry,
         configuration.clock(),
-        dataSource
+        dataSource,
+        replicas,
+        configuration.slowQueries()
       );
     } catch (final IOException e) {
       throw new EISDatabaseException(e.getMessage(), e, IO_ERROR);
@@ -199,6 +221,61 @@ public final class EISDatabases implements EISDatabaseFactoryType
     }
   }
 
+  private static HikariDataSource createDataSource(
+    final EISDatabaseConfiguration configuration,
+    final OpenTelemetry openTelemetry,
+    final String sourceName,
+    final String address,
+    final int port,
+    final boolean readOnly)
+  {
+    final var url = new StringBuilder(128);
+    url.append("jdbc:postgresql://");
+    url.append(address);
+    url.append(":");
+    url.append(port);
+    url.append("/");
+    url.append(configuration.databaseName());
+
+    final var config = new HikariConfig();
+    config.setJdbcUrl(url.toString());
+    config.setUsername(configuration.user());
+    config.setPassword(configuration.password());
+    config.setAutoCommit(false);
+    config.setReadOnly(readOnly);
+    config.setPoolName("eigion-" + sourceName);
+    config.setMetricsTrackerFactory(
+      new EISDatabasePoolMetrics(openTelemetry, sourceName));
+
+    final var tuning = configuration.tuning();
+    config.setMaximumPoolSize(tuning.maximumPoolSize());
+    config.setMinimumIdle(tuning.minimumIdle());
+    config.setConnectionTimeout(tuning.connectionTimeout().toMillis());
+    config.setIdleTimeout(tuning.idleTimeout().toMillis());
+    config.setMaxLifetime(tuning.maximumLifetime().toMillis());
+
+    /*
+     * Have the driver switch to named server-side prepared statements, and
+     * keep them cached per connection. jOOQ renders the same SQL text for
+     * each execution of a given query, so the statements are reused across
+     * transactions for as long as the pooled connection lives.
+     */
+
+    config.addDataSourceProperty(
+      "prepareThreshold",
+      Integer.toString(tuning.prepareThreshold()));
+    config.addDataSourceProperty(
+      "preparedStatementCacheQueries",
+      Integer.toString(tuning.preparedStatementCacheQueries()));
+    config.addDataSourceProperty(
+      "preparedStatementCacheSizeMiB",
+      Integer.toString(tuning.preparedStatementCacheSizeMiB()));
+    config.addDataSourceProperty(
+      "reWriteBatchedInserts",
+      Boolean.toString(tuning.rewriteBatchedInserts()));
+    return new HikariDataSource(config);
+  }
+
   private static void publishEvent(
     final Consumer<String> startupMessages,
     final String message)
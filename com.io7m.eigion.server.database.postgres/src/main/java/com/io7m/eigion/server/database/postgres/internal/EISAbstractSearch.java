@@ -74,9 +74,7 @@ public abstract class EISAbstractSearch<R extends Q, Q extends EISDatabaseQuerie
     final Q queries)
     throws EISDatabaseException
   {
-    final var nextIndex = this.pageIndex + 1;
-    final var maxIndex = Math.max(0, this.pages.size() - 1);
-    this.pageIndex = Math.min(nextIndex, maxIndex);
+    this.pageIndex = nextIndex(this.pageIndex, this.pages.size());
     return this.pageCurrent(queries);
   }
 
@@ -85,8 +83,85 @@ public abstract class EISAbstractSearch<R extends Q, Q extends EISDatabaseQuerie
     final Q queries)
     throws EISDatabaseException
   {
-    final var prevIndex = this.pageIndex - 1;
-    this.pageIndex = Math.max(0, prevIndex);
+    this.pageIndex = previousIndex(this.pageIndex);
     return this.pageCurrent(queries);
   }
+
+  @Override
+  public final EISDatabasePagedQueryType<Q, T> copyAtFirstPage()
+  {
+    return new Copy<>(this);
+  }
+
+  private static int nextIndex(
+    final int pageIndex,
+    final int pageCount)
+  {
+    final var nextIndex = pageIndex + 1;
+    final var maxIndex = Math.max(0, pageCount - 1);
+    return Math.min(nextIndex, maxIndex);
+  }
+
+  private static int previousIndex(
+    final int pageIndex)
+  {
+    return Math.max(0, pageIndex - 1);
+  }
+
+  /*
+   * A copy of a search. The page definitions and the means of fetching a
+   * page are shared with the original search, neither of which are mutable;
+   * only the current page index belongs to the copy.
+   */
+
+  private static final class Copy<R extends Q, Q extends EISDatabaseQueriesType, T>
+    implements EISDatabasePagedQueryType<Q, T>
+  {
+    private final EISAbstractSearch<R, Q, T> original;
+    private int pageIndex;
+
+    Copy(
+      final EISAbstractSearch<R, Q, T> inOriginal)
+    {
+      this.original =
+        Objects.requireNonNull(inOriginal, "original");
+      this.pageIndex = 0;
+    }
+
+    @Override
+    public EIPage<T> pageCurrent(
+      final Q queries)
+      throws EISDatabaseException
+    {
+      return this.original.page(
+        (R) queries,
+        this.original.pages.get(this.pageIndex)
+      );
+    }
+
+    @Override
+    public EIPage<T> pageNext(
+      final Q queries)
+      throws EISDatabaseException
+    {
+      this.pageIndex =
+        nextIndex(this.pageIndex, this.original.pages.size());
+      return this.pageCurrent(queries);
+    }
+
+    @Override
+    public EIPage<T> pagePrevious(
+      final Q queries)
+      throws EISDatabaseException
+    {
+      this.pageIndex = previousIndex(this.pageIndex);
+      return this.pageCurrent(queries);
+    }
+
+    @Override
+    public EISDatabasePagedQueryType<Q, T> copyAtFirstPage()
+    {
+      return new Copy<>(this.original);
+    }
+  }
 }
@@ -18,23 +18,38 @@ package com.io7m.eigion.server.database.postgres.internal;
 
 import com.io7m.eigion.server.database.api.EISDatabaseConnectionType;
 import com.io7m.eigion.server.database.api.EISDatabaseException;
+import com.io7m.eigion.server.database.api.EISDatabaseNotificationChannel;
+import com.io7m.eigion.server.database.api.EISDatabaseNotificationReceiverType;
 import com.io7m.eigion.server.database.api.EISDatabaseRole;
+import com.io7m.eigion.server.database.api.EISDatabaseSlowQueryConfiguration;
+import com.io7m.eigion.server.database.api.EISDatabaseSubscriptionType;
 import com.io7m.eigion.server.database.api.EISDatabaseType;
 import com.zaxxer.hikari.HikariDataSource;
 import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.metrics.DoubleHistogram;
 import io.opentelemetry.api.metrics.LongCounter;
 import io.opentelemetry.api.trace.SpanKind;
 import io.opentelemetry.api.trace.Tracer;
+import org.jooq.DSLContext;
+import org.jooq.ExecuteListener;
 import org.jooq.conf.RenderNameCase;
 import org.jooq.conf.Settings;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConfiguration;
+import org.jooq.impl.DefaultExecuteListenerProvider;
 
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.Clock;
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.io7m.eigion.error_codes.EIStandardErrorCodes.SQL_ERROR;
 import static io.opentelemetry.semconv.trace.attributes.SemanticAttributes.DB_SYSTEM;
 import static io.opentelemetry.semconv.trace.attributes.SemanticAttributes.DbSystemValues.POSTGRESQL;
+import static org.jooq.SQLDialect.POSTGRES;
 
 /**
  * The default postgres server database implementation.
@@ -45,11 +60,16 @@ public final class EISDatabase implements EISDatabaseType
   private final OpenTelemetry telemetry;
   private final Clock clock;
   private final HikariDataSource dataSource;
+  private final List<HikariDataSource> replicas;
+  private final AtomicInteger replicaIndex;
   private final Settings settings;
   private final Tracer tracer;
   private final LongCounter transactions;
   private final LongCounter transactionCommits;
   private final LongCounter transactionRollbacks;
+  private final DoubleHistogram queryTime;
+  private final EISDatabaseNotifications notifications;
+  private final Optional<EISDatabaseSlowQueries> slowQueries;
 
   /**
    * The default postgres server database implementation.
@@ -57,12 +77,16 @@ public final class EISDatabase implements EISDatabaseType
    * @param inOpenTelemetry A telemetry interface
    * @param inClock         The clock
    * @param inDataSource    A pooled data source
+   * @param inReplicas      Pooled data sources for read-only replicas
+   * @param inSlowQueries   The slow query capture configuration
    */
 
   public EISDatabase(
     final OpenTelemetry inOpenTelemetry,
     final Clock inClock,
-    final HikariDataSource inDataSource)
+    final HikariDataSource inDataSource,
+    final List<HikariDataSource> inReplicas,
+    final Optional<EISDatabaseSlowQueryConfiguration> inSlowQueries)
   {
     this.telemetry =
       Objects.requireNonNull(inOpenTelemetry, "inOpenTelemetry");
@@ -73,8 +97,14 @@ public final class EISDatabase implements EISDatabaseType
       Objects.requireNonNull(inClock, "clock");
     this.dataSource =
       Objects.requireNonNull(inDataSource, "dataSource");
+    this.replicas =
+      List.copyOf(inReplicas);
+    this.replicaIndex =
+      new AtomicInteger(0);
     this.settings =
       new Settings().withRenderNameCase(RenderNameCase.LOWER);
+    this.notifications =
+      new EISDatabaseNotifications(inDataSource);
 
     final var meters =
       this.telemetry.meterBuilder(
@@ -88,8 +118,15 @@ public final class EISDatabase implements EISDatabaseType
       meters.counterBuilder("EISDatabase.commits")
         .build();
     this.transactionRollbacks =
-      meters.counterBuilder("EISDatabase.commits")
+      meters.counterBuilder("EISDatabase.rollbacks")
+        .build();
+    this.queryTime =
+      meters.histogramBuilder("eigion.db.queryTime")
+        .setDescription("The time taken to execute database queries.")
+        .setUnit("ms")
         .build();
+    this.slowQueries =
+      inSlowQueries.map(c -> new EISDatabaseSlowQueries(c, meters));
   }
 
   private static String version()
@@ -120,10 +157,26 @@ public final class EISDatabase implements EISDatabaseType
     return this.transactionRollbacks;
   }
 
+  DoubleHistogram histogramQueryTime()
+  {
+    return this.queryTime;
+  }
+
   @Override
   public void close()
   {
-    this.dataSource.close();
+    try {
+      this.notifications.close();
+      this.slowQueries.ifPresent(EISDatabaseSlowQueries::close);
+    } finally {
+      try {
+        for (final var replica : this.replicas) {
+          replica.close();
+        }
+      } finally {
+        this.dataSource.close();
+      }
+    }
   }
 
   /**
@@ -148,9 +201,16 @@ public final class EISDatabase implements EISDatabaseType
         .startSpan();
 
     try {
-      final var conn = this.dataSource.getConnection();
+      final var conn =
+        acquireConnection(this.dataSource, "primary", false, role);
       conn.setAutoCommit(false);
-      return new EISDatabaseConnection(this, conn, role, span);
+      return new EISDatabaseConnection(
+        this,
+        conn,
+        this.createContext(conn, this.dataSource),
+        role,
+        span
+      );
     } catch (final SQLException e) {
       span.recordException(e);
       span.end();
@@ -158,6 +218,160 @@ public final class EISDatabase implements EISDatabaseType
     }
   }
 
+  /**
+   * Open a connection to the primary database whose jOOQ context notifies
+   * the given listener of every statement executed.
+   *
+   * @param role     The role
+   * @param listener The listener
+   *
+   * @return A connection
+   *
+   * @throws EISDatabaseException On errors
+   */
+
+  EISDatabaseConnection openConnectionWithListener(
+    final EISDatabaseRole role,
+    final ExecuteListener listener)
+    throws EISDatabaseException
+  {
+    final var span =
+      this.tracer
+        .spanBuilder("EISDatabaseConnection")
+        .setSpanKind(SpanKind.SERVER)
+        .setAttribute(DB_SYSTEM, POSTGRESQL)
+        .startSpan();
+
+    try {
+      final var conn =
+        acquireConnection(this.dataSource, "primary", false, role);
+      conn.setAutoCommit(false);
+      return new EISDatabaseConnection(
+        this,
+        conn,
+        DSL.using(
+          new DefaultConfiguration()
+            .set(conn)
+            .set(POSTGRES)
+            .set(this.settings)
+            .set(new DefaultExecuteListenerProvider(listener))
+        ),
+        role,
+        span
+      );
+    } catch (final SQLException e) {
+      span.recordException(e);
+      span.end();
+      throw new EISDatabaseException(e.getMessage(), e, SQL_ERROR);
+    }
+  }
+
+  private DSLContext createContext(
+    final Connection connection,
+    final HikariDataSource source)
+  {
+    if (this.slowQueries.isEmpty()) {
+      return DSL.using(connection, POSTGRES, this.settings);
+    }
+
+    final var listener =
+      new EISDatabaseSlowQueryListener(this.slowQueries.get(), source);
+
+    return DSL.using(
+      new DefaultConfiguration()
+        .set(connection)
+        .set(POSTGRES)
+        .set(this.settings)
+        .set(new DefaultExecuteListenerProvider(listener))
+    );
+  }
+
+  private static Connection acquireConnection(
+    final HikariDataSource source,
+    final String sourceName,
+    final boolean readOnly,
+    final EISDatabaseRole role)
+    throws SQLException
+  {
+    final var event = new EISDatabaseConnectionEvent();
+    event.begin();
+
+    try {
+      return source.getConnection();
+    } catch (final SQLException e) {
+      event.failed = true;
+      throw e;
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event.source = sourceName;
+        event.readOnly = readOnly;
+        event.role = role.name();
+        event.commit();
+      }
+    }
+  }
+
+  @Override
+  public EISDatabaseConnectionType openConnectionReadOnly(
+    final EISDatabaseRole role)
+    throws EISDatabaseException
+  {
+    final HikariDataSource source;
+    final String sourceName;
+    if (this.replicas.isEmpty()) {
+      source = this.dataSource;
+      sourceName = "primary";
+    } else {
+      final var index =
+        Math.floorMod(this.replicaIndex.getAndIncrement(), this.replicas.size());
+      source = this.replicas.get(index);
+      sourceName = "replica-%d".formatted(Integer.valueOf(index));
+    }
+
+    final var span =
+      this.tracer
+        .spanBuilder("EISDatabaseConnection")
+        .setSpanKind(SpanKind.SERVER)
+        .setAttribute(DB_SYSTEM, POSTGRESQL)
+        .setAttribute("eigion.db.source", sourceName)
+        .setAttribute("eigion.db.readOnly", true)
+        .startSpan();
+
+    try {
+      final var conn =
+        acquireConnection(source, sourceName, true, role);
+      conn.setAutoCommit(false);
+
+      /*
+       * The PostgreSQL JDBC driver begins every transaction on a read-only
+       * connection with BEGIN READ ONLY, so this applies to all transactions
+       * opened on the connection, including those following a commit.
+       */
+
+      conn.setReadOnly(true);
+      return new EISDatabaseConnection(
+        this,
+        conn,
+        this.createContext(conn, source),
+        role,
+        span
+      );
+    } catch (final SQLException e) {
+      span.recordException(e);
+      span.end();
+      throw new EISDatabaseException(e.getMessage(), e, SQL_ERROR);
+    }
+  }
+
+  @Override
+  public EISDatabaseSubscriptionType subscribe(
+    final EISDatabaseNotificationChannel channel,
+    final EISDatabaseNotificationReceiverType receiver)
+  {
+    return this.notifications.subscribe(channel, receiver);
+  }
+
   /**
    * @return The jooq SQL settings
    */
@@ -19,6 +19,7 @@ package com.io7m.eigion.server.database.postgres.internal;
 import com.io7m.eigion.model.EIAuditEvent;
 import com.io7m.eigion.model.EIAuditSearchParameters;
 import com.io7m.eigion.model.EIPage;
+import com.io7m.eigion.server.database.api.EISDatabaseAuditEventsReceiverType;
 import com.io7m.eigion.server.database.api.EISDatabaseAuditEventsSearchType;
 import com.io7m.eigion.server.database.api.EISDatabaseAuditQueriesType;
 import com.io7m.eigion.server.database.api.EISDatabaseException;
@@ -33,6 +34,7 @@ import org.jooq.Table;
 import org.jooq.exception.DataAccessException;
 import org.jooq.impl.DSL;
 
+import java.io.IOException;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Objects;
@@ -53,6 +55,61 @@ final class EISDatabaseAuditQueries
     super(inTransaction);
   }
 
+  private static Condition searchConditions(
+    final EIAuditSearchParameters parameters)
+  {
+    /*
+     * The events must lie within the given time ranges.
+     */
+
+    final var timeCreatedCondition =
+      DSL.condition(
+        AUDIT.TIME.ge(parameters.timeRange().timeLower())
+          .and(AUDIT.TIME.le(parameters.timeRange().timeUpper()))
+      );
+
+    /*
+     * Search queries might be present.
+     */
+
+    Condition searchCondition = DSL.trueCondition();
+
+    final var typeOpt = parameters.type();
+    if (typeOpt.isPresent()) {
+      final var q = "%%%s%%".formatted(typeOpt.get());
+      searchCondition =
+        searchCondition.and(DSL.condition(AUDIT.TYPE.likeIgnoreCase(q)));
+    }
+
+    final var ownerOpt = parameters.owner();
+    if (ownerOpt.isPresent()) {
+      final var q = "%%%s%%".formatted(ownerOpt.get());
+      searchCondition =
+        searchCondition.and(DSL.condition(AUDIT.USER_ID.likeIgnoreCase(q)));
+    }
+
+    final var msgOpt = parameters.message();
+    if (msgOpt.isPresent()) {
+      final var q = "%%%s%%".formatted(msgOpt.get());
+      searchCondition =
+        searchCondition.and(DSL.condition(AUDIT.MESSAGE.likeIgnoreCase(q)));
+    }
+
+    return timeCreatedCondition.and(searchCondition);
+  }
+
+  private static EIAuditEvent toAuditEvent(
+    final AuditRecord record)
+  {
+    return new EIAuditEvent(
+      record.getValue(AUDIT.ID).longValue(),
+      record.getValue(AUDIT.USER_ID),
+      record.getValue(AUDIT.TIME),
+      record.getValue(AUDIT.TYPE),
+      record.getValue(AUDIT.MESSAGE)
+    );
+  }
+
   @Override
   public EISDatabaseAuditEventsSearchType auditEventsSearch(
     final EIAuditSearchParameters parameters)
@@ -69,45 +126,8 @@ final class EISDatabaseAuditQueries
         "EISDatabaseAuditQueries.auditEventsSearch.create");
 
     try {
-      /*
-       * The events must lie within the given time ranges.
-       */
-
-      final var timeCreatedCondition =
-        DSL.condition(
-          AUDIT.TIME.ge(parameters.timeRange().timeLower())
-            .and(AUDIT.TIME.le(parameters.timeRange().timeUpper()))
-        );
-
-      /*
-       * Search queries might be present.
-       */
-
-      Condition searchCondition = DSL.trueCondition();
-
-      final var typeOpt = parameters.type();
-      if (typeOpt.isPresent()) {
-        final var q = "%%%s%%".formatted(typeOpt.get());
-        searchCondition =
-          searchCondition.and(DSL.condition(AUDIT.TYPE.likeIgnoreCase(q)));
-      }
-
-      final var ownerOpt = parameters.owner();
-      if (ownerOpt.isPresent()) {
-        final var q = "%%%s%%".formatted(ownerOpt.get());
-        searchCondition =
-          searchCondition.and(DSL.condition(AUDIT.USER_ID.likeIgnoreCase(q)));
-      }
-
-      final var msgOpt = parameters.message();
-      if (msgOpt.isPresent()) {
-        final var q = "%%%s%%".formatted(msgOpt.get());
-        searchCondition =
-          searchCondition.and(DSL.condition(AUDIT.MESSAGE.likeIgnoreCase(q)));
-      }
-
       final var allConditions =
-        timeCreatedCondition.and(searchCondition);
+        searchConditions(parameters);
 
       final var baseTable =
         AUDIT.where(allConditions);
@@ -121,7 +141,9 @@ final class EISDatabaseAuditQueries
           List.of(),
           parameters.limit(),
           statement -> {
-            querySpan.setAttribute(DB_STATEMENT, statement.toString());
+            if (querySpan.isRecording()) {
+              querySpan.setAttribute(DB_STATEMENT, statement.toString());
+            }
           }
         );
 
@@ -134,6 +156,121 @@ final class EISDatabaseAuditQueries
     }
   }
 
+  @Override
+  public long auditEventsExport(
+    final EIAuditSearchParameters parameters,
+    final EISDatabaseAuditEventsReceiverType receiver)
+    throws EISDatabaseException, IOException
+  {
+    Objects.requireNonNull(parameters, "parameters");
+    Objects.requireNonNull(receiver, "receiver");
+
+    final var transaction =
+      this.transaction();
+    final var context =
+      transaction.createContext();
+    final var querySpan =
+      transaction.createQuerySpan(
+        "EISDatabaseAuditQueries.auditEventsExport");
+
+    /*
+     * The batch size doubles as the JDBC fetch size, so the driver holds
+     * at most one batch of rows in memory at any given time.
+     */
+
+    final var batchSize = (int) parameters.limit();
+
+    try {
+      final var query =
+        context.selectFrom(AUDIT)
+          .where(searchConditions(parameters))
+          .orderBy(AUDIT.ID.asc())
+          .fetchSize(batchSize);
+
+      if (querySpan.isRecording()) {
+        querySpan.setAttribute(DB_STATEMENT, query.toString());
+      }
+
+      long count = 0L;
+      try (var cursor = query.fetchLazy()) {
+        while (cursor.hasNext()) {
+          final var batch =
+            cursor.fetchNext(batchSize)
+              .map(EISDatabaseAuditQueries::toAuditEvent);
+          receiver.receive(batch);
+          count += batch.size();
+        }
+      }
+      return count;
+    } catch (final DataAccessException e) {
+      querySpan.recordException(e);
+      throw handleDatabaseException(transaction, e, DEFAULT_HANDLER);
+    } finally {
+      querySpan.end();
+    }
+  }
+
+  @Override
+  public List<EIAuditEvent> auditEventsAfter(
+    final long id,
+    final int limit)
+    throws EISDatabaseException
+  {
+    final var transaction =
+      this.transaction();
+    final var context =
+      transaction.createContext();
+    final var querySpan =
+      transaction.createQuerySpan(
+        "EISDatabaseAuditQueries.auditEventsAfter");
+
+    try {
+      final var query =
+        context.selectFrom(AUDIT)
+          .where(AUDIT.ID.gt(Long.valueOf(id)))
+          .orderBy(AUDIT.ID.asc())
+          .limit(Integer.valueOf(limit));
+
+      if (querySpan.isRecording()) {
+        querySpan.setAttribute(DB_STATEMENT, query.toString());
+      }
+
+      return query.fetch().map(EISDatabaseAuditQueries::toAuditEvent);
+    } catch (final DataAccessException e) {
+      querySpan.recordException(e);
+      throw handleDatabaseException(transaction, e, DEFAULT_HANDLER);
+    } finally {
+      querySpan.end();
+    }
+  }
+
+  @Override
+  public long auditEventIdLatest()
+    throws EISDatabaseException
+  {
+    final var transaction =
+      this.transaction();
+    final var context =
+      transaction.createContext();
+    final var querySpan =
+      transaction.createQuerySpan(
+        "EISDatabaseAuditQueries.auditEventIdLatest");
+
+    try {
+      final var id =
+        context.select(DSL.max(AUDIT.ID))
+          .from(AUDIT)
+          .fetchOne(0, Long.class);
+
+      return id == null ? 0L : id.longValue();
+    } catch (final DataAccessException e) {
+      querySpan.recordException(e);
+      throw handleDatabaseException(transaction, e, DEFAULT_HANDLER);
+    } finally {
+      querySpan.end();
+    }
+  }
+
   @Override
   public void auditPut(
     final UUID userEIS,
@@ -210,18 +347,12 @@ final class EISDatabaseAuditQueries
           select = query.limit(Long.valueOf(page.limit()));
         }
 
-        querySpan.setAttribute(DB_STATEMENT, query.toString());
+        if (querySpan.isRecording()) {
+          querySpan.setAttribute(DB_STATEMENT, query.toString());
+        }
 
         final var items =
-          select.fetch().map(record -> {
-            return new EIAuditEvent(
-              record.getValue(AUDIT.ID).longValue(),
-              record.getValue(AUDIT.USER_ID),
-              record.getValue(AUDIT.TIME),
-              record.getValue(AUDIT.TYPE),
-              record.getValue(AUDIT.MESSAGE)
-            );
-          });
+          select.fetch().map(EISDatabaseAuditQueries::toAuditEvent);
 
         return new EIPage<>(
           items,
@@ -22,15 +22,28 @@ import com.io7m.eigion.server.database.api.EISDatabaseRole;
 import com.io7m.eigion.server.database.api.EISDatabaseTransactionType;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.context.Context;
+import org.jooq.DSLContext;
 
 import java.sql.Connection;
 import java.sql.SQLException;
 
 import static com.io7m.eigion.error_codes.EIStandardErrorCodes.SQL_ERROR;
 
+/**
+ * A database connection.
+ *
+ * @param database       The owning database
+ * @param connection     The underlying JDBC connection
+ * @param context        The jOOQ context bound to the JDBC connection, reused
+ *                       by all transactions on the connection
+ * @param role           The role assumed by transactions
+ * @param connectionSpan The connection span
+ */
+
 record EISDatabaseConnection(
   EISDatabase database,
   Connection connection,
+  DSLContext context,
   EISDatabaseRole role,
   Span connectionSpan)
   implements EISDatabaseConnectionType
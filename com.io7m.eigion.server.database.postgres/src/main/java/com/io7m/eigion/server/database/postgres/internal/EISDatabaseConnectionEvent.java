@@ -0,0 +1,55 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.database.postgres.internal;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event covering the acquisition of a database connection
+ * from a connection pool.
+ */
+
+@Name("com.io7m.eigion.database.ConnectionAcquire")
+@Label("Connection Acquire")
+@Category({"Eigion", "Database"})
+@Description("A database connection was acquired from a pool.")
+@StackTrace(false)
+final class EISDatabaseConnectionEvent extends jdk.jfr.Event
+{
+  @Label("Source")
+  @Description("The pool from which the connection was acquired.")
+  String source;
+
+  @Label("Read Only")
+  boolean readOnly;
+
+  @Label("Role")
+  String role;
+
+  @Label("Failed")
+  boolean failed;
+
+  EISDatabaseConnectionEvent()
+  {
+
+  }
+}
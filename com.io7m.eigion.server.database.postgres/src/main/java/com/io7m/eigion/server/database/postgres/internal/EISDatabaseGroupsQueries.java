@@ -27,6 +27,7 @@ import com.io7m.eigion.model.EIGroupRole;
 import com.io7m.eigion.model.EIGroupSearchByNameParameters;
 import com.io7m.eigion.model.EIToken;
 import com.io7m.eigion.server.database.api.EISDatabaseException;
+import com.io7m.eigion.server.database.api.EISDatabaseGroupNamesReceiverType;
 import com.io7m.eigion.server.database.api.EISDatabaseGroupsPagedQueryType;
 import com.io7m.eigion.server.database.api.EISDatabaseGroupsQueriesType;
 import com.io7m.eigion.server.database.postgres.internal.tables.records.GroupsCreationRequestsRecord;
@@ -38,6 +39,7 @@ import org.jooq.Record;
 import org.jooq.exception.DataAccessException;
 import org.jooq.impl.DSL;
 
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
@@ -59,6 +61,8 @@ import static com.io7m.eigion.model.EIGroupCreationRequestStatusType.NAME_FAILED
 import static com.io7m.eigion.model.EIGroupCreationRequestStatusType.NAME_IN_PROGRESS;
 import static com.io7m.eigion.model.EIGroupCreationRequestStatusType.NAME_SUCCEEDED;
 import static com.io7m.eigion.model.EIGroupCreationRequestStatusType.Succeeded;
+import static com.io7m.eigion.server.database.api.EISDatabaseNotificationChannel.GROUP_CREATION_REQUESTS;
+import static com.io7m.eigion.server.database.api.EISDatabaseNotificationChannel.GROUPS_CREATED;
 import static com.io7m.eigion.server.database.postgres.internal.EISDatabaseExceptions.DEFAULT_HANDLER;
 import static com.io7m.eigion.server.database.postgres.internal.EISDatabaseExceptions.handleDatabaseException;
 import static com.io7m.eigion.server.database.postgres.internal.EISDatabaseUsersQueries.USER_DOES_NOT_EXIST;
@@ -164,6 +168,7 @@ final class EISDatabaseGroupsQueries
         .set(AUDIT.MESSAGE, name.value())
         .execute();
 
+      transaction.notify(GROUPS_CREATED, name.value());
     } catch (final DataAccessException e) {
       querySpan.recordException(e);
       throw handleDatabaseException(
@@ -220,6 +225,7 @@ final class EISDatabaseGroupsQueries
         .set(AUDIT.MESSAGE, groupName.value())
         .execute();
 
+      transaction.notify(GROUPS_CREATED, groupName.value());
       return groupName;
     } catch (final DataAccessException e) {
       querySpan.recordException(e);
@@ -269,7 +275,9 @@ final class EISDatabaseGroupsQueries
           .onDuplicateKeyUpdate()
           .set(GROUP_ROLES.ROLES, roleIndices);
 
-      querySpan.setAttribute(DB_STATEMENT, insert.toString());
+      if (querySpan.isRecording()) {
+        querySpan.setAttribute(DB_STATEMENT, insert.toString());
+      }
 
       insert.execute();
     } catch (final DataAccessException e) {
@@ -319,7 +327,9 @@ final class EISDatabaseGroupsQueries
           List.of(),
           limit,
           statement -> {
-            querySpan.setAttribute(DB_STATEMENT, statement.toString());
+            if (querySpan.isRecording()) {
+              querySpan.setAttribute(DB_STATEMENT, statement.toString());
+            }
           }
         );
 
@@ -365,7 +375,9 @@ final class EISDatabaseGroupsQueries
           List.of(),
           parameters.limit(),
           statement -> {
-            querySpan.setAttribute(DB_STATEMENT, statement.toString());
+            if (querySpan.isRecording()) {
+              querySpan.setAttribute(DB_STATEMENT, statement.toString());
+            }
           }
         );
 
@@ -378,6 +390,104 @@ final class EISDatabaseGroupsQueries
     }
   }
 
+  @Override
+  public boolean groupExists(
+    final EIGroupName name)
+    throws EISDatabaseException
+  {
+    Objects.requireNonNull(name, "name");
+
+    final var transaction =
+      this.transaction();
+    final var context =
+      transaction.createContext();
+    final var querySpan =
+      transaction.createQuerySpan(
+        "EISDatabaseGroupsQueries.groupExists");
+
+    try {
+      return context.fetchExists(GROUPS, GROUPS.NAME.eq(name.value()));
+    } catch (final DataAccessException e) {
+      querySpan.recordException(e);
+      throw handleDatabaseException(transaction, e, DEFAULT_HANDLER);
+    } finally {
+      querySpan.end();
+    }
+  }
+
+  @Override
+  public long groupCount()
+    throws EISDatabaseException
+  {
+    final var transaction =
+      this.transaction();
+    final var context =
+      transaction.createContext();
+    final var querySpan =
+      transaction.createQuerySpan(
+        "EISDatabaseGroupsQueries.groupCount");
+
+    try {
+      return Integer.toUnsignedLong(context.fetchCount(GROUPS));
+    } catch (final DataAccessException e) {
+      querySpan.recordException(e);
+      throw handleDatabaseException(transaction, e, DEFAULT_HANDLER);
+    } finally {
+      querySpan.end();
+    }
+  }
+
+  @Override
+  public long groupNamesEach(
+    final EISDatabaseGroupNamesReceiverType receiver)
+    throws EISDatabaseException
+  {
+    Objects.requireNonNull(receiver, "receiver");
+
+    final var transaction =
+      this.transaction();
+    final var context =
+      transaction.createContext();
+    final var querySpan =
+      transaction.createQuerySpan(
+        "EISDatabaseGroupsQueries.groupNamesEach");
+
+    /*
+     * The batch size doubles as the JDBC fetch size, so the driver holds
+     * at most one batch of rows in memory at any given time.
+     */
+
+    final var batchSize = 1000;
+
+    try {
+      final var query =
+        context.select(GROUPS.NAME)
+          .from(GROUPS)
+          .fetchSize(batchSize);
+
+      if (querySpan.isRecording()) {
+        querySpan.setAttribute(DB_STATEMENT, query.toString());
+      }
+
+      long count = 0L;
+      try (var cursor = query.fetchLazy()) {
+        while (cursor.hasNext()) {
+          final var batch =
+            cursor.fetchNext(batchSize)
+              .map(r -> new EIGroupName(r.get(GROUPS.NAME)));
+          receiver.receive(batch);
+          count += batch.size();
+        }
+      }
+      return count;
+    } catch (final DataAccessException e) {
+      querySpan.recordException(e);
+      throw handleDatabaseException(transaction, e, DEFAULT_HANDLER);
+    } finally {
+      querySpan.end();
+    }
+  }
+
   @Override
   public void groupCreationRequestStart(
     final EIGroupCreationRequest request)
@@ -418,6 +528,10 @@ final class EISDatabaseGroupsQueries
         .set(AUDIT.MESSAGE, "%s|%s".formatted(groupName, token))
         .execute();
 
+      transaction.notify(
+        GROUP_CREATION_REQUESTS,
+        "%s|%s".formatted(userId, token)
+      );
     } catch (final DataAccessException e) {
       querySpan.recordException(e);
       throw handleDatabaseException(
@@ -483,6 +597,71 @@ final class EISDatabaseGroupsQueries
     }
   }
 
+  @Override
+  public long groupCreationRequestsCountSince(
+    final UUID userId,
+    final OffsetDateTime since)
+    throws EISDatabaseException
+  {
+    Objects.requireNonNull(userId, "userId");
+    Objects.requireNonNull(since, "since");
+
+    final var transaction =
+      this.transaction();
+    final var context =
+      transaction.createContext();
+    final var querySpan =
+      transaction.createQuerySpan(
+        "EISDatabaseGroupsQueries.groupCreationRequestsCountSince");
+
+    try {
+      return context.fetchCount(
+        GROUPS_CREATION_REQUESTS,
+        GROUPS_CREATION_REQUESTS.CREATOR_USER.eq(userId)
+          .and(GROUPS_CREATION_REQUESTS.CREATED.gt(since))
+      );
+    } catch (final DataAccessException e) {
+      querySpan.recordException(e);
+      throw handleDatabaseException(this.transaction(), e, DEFAULT_HANDLER);
+    } finally {
+      querySpan.end();
+    }
+  }
+
+  @Override
+  public List<EIGroupCreationRequest> groupCreationRequestsChangedSince(
+    final UUID userId,
+    final OffsetDateTime since)
+    throws EISDatabaseException
+  {
+    Objects.requireNonNull(userId, "userId");
+    Objects.requireNonNull(since, "since");
+
+    final var transaction =
+      this.transaction();
+    final var context =
+      transaction.createContext();
+    final var querySpan =
+      transaction.createQuerySpan(
+        "EISDatabaseGroupsQueries.groupCreationRequestsChangedSince");
+
+    try {
+      return context.selectFrom(GROUPS_CREATION_REQUESTS)
+        .where(GROUPS_CREATION_REQUESTS.CREATOR_USER.eq(userId))
+        .and(GROUPS_CREATION_REQUESTS.COMPLETED.isNull()
+               .or(GROUPS_CREATION_REQUESTS.COMPLETED.gt(since)))
+        .orderBy(GROUPS_CREATION_REQUESTS.CREATED)
+        .stream()
+        .map(EISDatabaseGroupsQueries::mapCreationRequestRecord)
+        .toList();
+    } catch (final DataAccessException e) {
+      querySpan.recordException(e);
+      throw handleDatabaseException(this.transaction(), e, DEFAULT_HANDLER);
+    } finally {
+      querySpan.end();
+    }
+  }
+
   @Override
   public EISDatabaseGroupsPagedQueryType<EIGroupCreationRequest> groupCreationRequestsSearch(
     final EIGroupCreationRequestSearchParameters parameters)
@@ -513,7 +692,9 @@ final class EISDatabaseGroupsQueries
           List.of(),
           1000L,
           statement -> {
-            querySpan.setAttribute(DB_STATEMENT, statement.toString());
+            if (querySpan.isRecording()) {
+              querySpan.setAttribute(DB_STATEMENT, statement.toString());
+            }
           }
         );
 
@@ -706,6 +887,11 @@ final class EISDatabaseGroupsQueries
 
       checkUserForRequest(userId, existing);
 
+      transaction.notify(
+        GROUP_CREATION_REQUESTS,
+        "%s|%s".formatted(userId, token)
+      );
+
       final var status = request.status();
       if (status instanceof InProgress) {
         existing.set(
@@ -816,7 +1002,9 @@ final class EISDatabaseGroupsQueries
           List.of(),
           1000L,
           statement -> {
-            querySpan.setAttribute(DB_STATEMENT, statement.toString());
+            if (querySpan.isRecording()) {
+              querySpan.setAttribute(DB_STATEMENT, statement.toString());
+            }
           }
         );
 
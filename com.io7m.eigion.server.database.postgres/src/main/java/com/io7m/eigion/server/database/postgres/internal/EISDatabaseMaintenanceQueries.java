@@ -21,10 +21,12 @@ import com.io7m.eigion.server.database.api.EISDatabaseMaintenanceQueriesType;
 import com.io7m.jdeferthrow.core.ExceptionTracker;
 import org.jooq.exception.DataAccessException;
 import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
 
 import static com.io7m.eigion.server.database.postgres.internal.EISDatabaseExceptions.DEFAULT_HANDLER;
 import static com.io7m.eigion.server.database.postgres.internal.EISDatabaseExceptions.handleDatabaseException;
 import static com.io7m.eigion.server.database.postgres.internal.Tables.GROUPS_CREATION_REQUESTS;
+import static com.io7m.eigion.server.database.postgres.internal.Tables.RATE_LIMIT_BUCKETS;
 
 final class EISDatabaseMaintenanceQueries
   extends EISBaseQueries
@@ -49,6 +51,12 @@ final class EISDatabaseMaintenanceQueries
       exceptions.addException(e);
     }
 
+    try {
+      this.runExpireRateLimitBuckets();
+    } catch (final EISDatabaseException e) {
+      exceptions.addException(e);
+    }
+
     exceptions.throwIfNecessary();
   }
 
@@ -89,4 +97,45 @@ final class EISDatabaseMaintenanceQueries
       querySpan.end();
     }
   }
+
+  private void runExpireRateLimitBuckets()
+    throws EISDatabaseException
+  {
+    final var transaction =
+      this.transaction();
+    final var context =
+      transaction.createContext();
+    final var querySpan =
+      transaction.createQuerySpan(
+        "EISDatabaseMaintenanceQueries.runExpireRateLimitBuckets");
+
+    try {
+      /*
+       * Buckets that have not been consulted for a day have almost certainly
+       * refilled completely, and a missing bucket is equivalent to a full
+       * one.
+       */
+
+      final var dayAgo =
+        DSL.field(
+          "(extract(epoch from (clock_timestamp() - interval '1 day')) * 1000.0)",
+          SQLDataType.DOUBLE
+        );
+
+      final var deleted =
+        context.deleteFrom(RATE_LIMIT_BUCKETS)
+          .where(RATE_LIMIT_BUCKETS.UPDATED.lessThan(dayAgo))
+          .execute();
+
+      querySpan.setAttribute(
+        "eigion.maintenance.expiredRateLimitBuckets",
+        Integer.toUnsignedLong(deleted)
+      );
+    } catch (final DataAccessException e) {
+      querySpan.recordException(e);
+      throw handleDatabaseException(transaction, e, DEFAULT_HANDLER);
+    } finally {
+      querySpan.end();
+    }
+  }
 }
@@ -0,0 +1,276 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.database.postgres.internal;
+
+import com.io7m.eigion.server.database.api.EISDatabaseNotification;
+import com.io7m.eigion.server.database.api.EISDatabaseNotificationChannel;
+import com.io7m.eigion.server.database.api.EISDatabaseNotificationReceiverType;
+import com.io7m.eigion.server.database.api.EISDatabaseSubscriptionType;
+import com.zaxxer.hikari.HikariDataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A dispatcher for PostgreSQL {@code LISTEN/NOTIFY} notifications. A single
+ * connection is held open on a dedicated thread, and all subscribed
+ * channels are listened to on that connection.
+ */
+
+final class EISDatabaseNotifications implements AutoCloseable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(EISDatabaseNotifications.class);
+
+  private static final int POLL_TIMEOUT_MILLISECONDS = 250;
+  private static final long RECONNECT_DELAY_MILLISECONDS = 1_000L;
+
+  private final HikariDataSource dataSource;
+  private final EnumMap<EISDatabaseNotificationChannel, CopyOnWriteArrayList<Subscription>> subscriptions;
+  private final AtomicBoolean started;
+  private final AtomicBoolean closed;
+  private final Thread thread;
+
+  EISDatabaseNotifications(
+    final HikariDataSource inDataSource)
+  {
+    this.dataSource =
+      Objects.requireNonNull(inDataSource, "dataSource");
+    this.subscriptions =
+      new EnumMap<>(EISDatabaseNotificationChannel.class);
+
+    for (final var channel : EISDatabaseNotificationChannel.values()) {
+      this.subscriptions.put(channel, new CopyOnWriteArrayList<>());
+    }
+
+    this.started = new AtomicBoolean(false);
+    this.closed = new AtomicBoolean(false);
+    this.thread = new Thread(this::run);
+    this.thread.setDaemon(true);
+    this.thread.setName(
+      "com.io7m.eigion.server.database.postgres.internal.EISDatabaseNotifications[%d]"
+        .formatted(Long.valueOf(this.thread.getId()))
+    );
+  }
+
+  /**
+   * Format a payload for publication. The time of publication is prepended
+   * to the payload so that receivers can measure delivery latency.
+   *
+   * @param payload The payload
+   *
+   * @return The formatted payload
+   */
+
+  static String formatPayload(
+    final String payload)
+  {
+    return "%d:%s".formatted(
+      Long.valueOf(Instant.now().toEpochMilli()),
+      payload
+    );
+  }
+
+  private static EISDatabaseNotification parseNotification(
+    final EISDatabaseNotificationChannel channel,
+    final String text)
+  {
+    final var separator = text.indexOf(':');
+    if (separator > 0) {
+      try {
+        final var millis = Long.parseLong(text.substring(0, separator));
+        return new EISDatabaseNotification(
+          channel,
+          Instant.ofEpochMilli(millis),
+          text.substring(separator + 1)
+        );
+      } catch (final NumberFormatException e) {
+        // Fall through
+      }
+    }
+    return new EISDatabaseNotification(channel, Instant.now(), text);
+  }
+
+  private static EISDatabaseNotificationChannel channelOf(
+    final String name)
+  {
+    for (final var channel : EISDatabaseNotificationChannel.values()) {
+      if (Objects.equals(channel.channelName(), name)) {
+        return channel;
+      }
+    }
+    return null;
+  }
+
+  EISDatabaseSubscriptionType subscribe(
+    final EISDatabaseNotificationChannel channel,
+    final EISDatabaseNotificationReceiverType receiver)
+  {
+    Objects.requireNonNull(channel, "channel");
+    Objects.requireNonNull(receiver, "receiver");
+
+    if (this.closed.get()) {
+      throw new IllegalStateException("Notification service is closed.");
+    }
+
+    final var subscription = new Subscription(channel, receiver);
+    this.subscriptions.get(channel).add(subscription);
+
+    if (this.started.compareAndSet(false, true)) {
+      this.thread.start();
+    }
+    return subscription;
+  }
+
+  private void run()
+  {
+    var reconnected = false;
+
+    while (!this.closed.get()) {
+      try (var connection = this.dataSource.getConnection()) {
+        connection.setAutoCommit(true);
+
+        if (reconnected) {
+          this.publishResynchronize();
+        }
+        this.listen(connection);
+      } catch (final SQLException e) {
+        if (this.closed.get()) {
+          return;
+        }
+        LOG.error("notification connection failed: ", e);
+        reconnected = true;
+        try {
+          Thread.sleep(RECONNECT_DELAY_MILLISECONDS);
+        } catch (final InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  private void listen(
+    final Connection connection)
+    throws SQLException
+  {
+    final var pgConnection =
+      connection.unwrap(PGConnection.class);
+    final var listening =
+      EnumSet.noneOf(EISDatabaseNotificationChannel.class);
+
+    while (!this.closed.get()) {
+      for (final var entry : this.subscriptions.entrySet()) {
+        final var channel = entry.getKey();
+        if (!entry.getValue().isEmpty() && !listening.contains(channel)) {
+          try (var st = connection.createStatement()) {
+            st.execute("LISTEN " + channel.channelName());
+          }
+          listening.add(channel);
+        }
+      }
+
+      final PGNotification[] notifications =
+        pgConnection.getNotifications(POLL_TIMEOUT_MILLISECONDS);
+
+      if (notifications != null) {
+        for (final var notification : notifications) {
+          this.publish(notification);
+        }
+      }
+    }
+  }
+
+  private void publish(
+    final PGNotification notification)
+  {
+    final var channel = channelOf(notification.getName());
+    if (channel == null) {
+      return;
+    }
+
+    final var received =
+      parseNotification(channel, notification.getParameter());
+
+    for (final var subscription : this.subscriptions.get(channel)) {
+      try {
+        subscription.receiver.onNotification(received);
+      } catch (final Exception e) {
+        LOG.error("ignored receiver exception: ", e);
+      }
+    }
+  }
+
+  private void publishResynchronize()
+  {
+    for (final var channelSubscriptions : this.subscriptions.values()) {
+      for (final var subscription : channelSubscriptions) {
+        try {
+          subscription.receiver.onResynchronize();
+        } catch (final Exception e) {
+          LOG.error("ignored receiver exception: ", e);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void close()
+  {
+    if (this.closed.compareAndSet(false, true)) {
+      if (this.started.get()) {
+        try {
+          this.thread.join(POLL_TIMEOUT_MILLISECONDS * 4L);
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+
+  private final class Subscription implements EISDatabaseSubscriptionType
+  {
+    private final EISDatabaseNotificationChannel channel;
+    private final EISDatabaseNotificationReceiverType receiver;
+
+    Subscription(
+      final EISDatabaseNotificationChannel inChannel,
+      final EISDatabaseNotificationReceiverType inReceiver)
+    {
+      this.channel = inChannel;
+      this.receiver = inReceiver;
+    }
+
+    @Override
+    public void close()
+    {
+      EISDatabaseNotifications.this.subscriptions.get(this.channel)
+        .remove(this);
+    }
+  }
+}
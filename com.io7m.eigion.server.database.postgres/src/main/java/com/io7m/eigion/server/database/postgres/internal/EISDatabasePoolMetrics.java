@@ -0,0 +1,193 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.database.postgres.internal;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableLongGauge;
+
+import java.util.List;
+import java.util.Objects;
+
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+
+/**
+ * A Hikari metrics tracker factory that publishes connection pool metrics
+ * via OpenTelemetry. The pool gauges are observed from the statistics that
+ * Hikari maintains for each pool, and so cost nothing on the connection
+ * acquisition path. The gauges are closed when the pool closes its tracker,
+ * so that a closed pool is no longer observed.
+ */
+
+public final class EISDatabasePoolMetrics implements MetricsTrackerFactory
+{
+  private static final AttributeKey<String> SOURCE =
+    stringKey("source");
+
+  private final Meter meter;
+  private final String source;
+
+  /**
+   * A Hikari metrics tracker factory.
+   *
+   * @param inTelemetry The telemetry interface
+   * @param inSource    The name of the pool ("primary", "replica-0", ...)
+   */
+
+  public EISDatabasePoolMetrics(
+    final OpenTelemetry inTelemetry,
+    final String inSource)
+  {
+    Objects.requireNonNull(inTelemetry, "inTelemetry");
+
+    this.meter =
+      inTelemetry.meterBuilder("com.io7m.eigion.server.database.postgres")
+        .build();
+    this.source =
+      Objects.requireNonNull(inSource, "source");
+  }
+
+  @Override
+  public IMetricsTracker create(
+    final String poolName,
+    final PoolStats poolStats)
+  {
+    final var attributes =
+      Attributes.of(SOURCE, this.source);
+
+    final var active =
+      this.meter.gaugeBuilder("eigion.db.pool.active")
+        .setDescription("The number of connections in use.")
+        .ofLongs()
+        .buildWithCallback(m -> {
+          m.record(poolStats.getActiveConnections(), attributes);
+        });
+
+    final var idle =
+      this.meter.gaugeBuilder("eigion.db.pool.idle")
+        .setDescription("The number of idle connections.")
+        .ofLongs()
+        .buildWithCallback(m -> {
+          m.record(poolStats.getIdleConnections(), attributes);
+        });
+
+    final var pending =
+      this.meter.gaugeBuilder("eigion.db.pool.pending")
+        .setDescription("The number of threads waiting for a connection.")
+        .ofLongs()
+        .buildWithCallback(m -> {
+          m.record(poolStats.getPendingThreads(), attributes);
+        });
+
+    final var maximum =
+      this.meter.gaugeBuilder("eigion.db.pool.maximum")
+        .setDescription("The maximum number of connections.")
+        .ofLongs()
+        .buildWithCallback(m -> {
+          m.record(poolStats.getMaxConnections(), attributes);
+        });
+
+    return new Tracker(
+      attributes,
+      List.of(active, idle, pending, maximum),
+      this.meter.histogramBuilder("eigion.db.pool.acquireTime")
+        .setDescription("The time taken to acquire a connection.")
+        .setUnit("ms")
+        .build(),
+      this.meter.histogramBuilder("eigion.db.pool.usageTime")
+        .setDescription("The time for which connections were held.")
+        .setUnit("ms")
+        .build(),
+      this.meter.counterBuilder("eigion.db.pool.timeouts")
+        .setDescription("Connection acquisitions that timed out.")
+        .build()
+    );
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[EISDatabasePoolMetrics %s]".formatted(this.source);
+  }
+
+  private static final class Tracker implements IMetricsTracker
+  {
+    private final Attributes attributes;
+    private final List<ObservableLongGauge> gauges;
+    private final DoubleHistogram acquireTime;
+    private final DoubleHistogram usageTime;
+    private final LongCounter timeouts;
+
+    Tracker(
+      final Attributes inAttributes,
+      final List<ObservableLongGauge> inGauges,
+      final DoubleHistogram inAcquireTime,
+      final DoubleHistogram inUsageTime,
+      final LongCounter inTimeouts)
+    {
+      this.attributes =
+        Objects.requireNonNull(inAttributes, "attributes");
+      this.gauges =
+        Objects.requireNonNull(inGauges, "gauges");
+      this.acquireTime =
+        Objects.requireNonNull(inAcquireTime, "acquireTime");
+      this.usageTime =
+        Objects.requireNonNull(inUsageTime, "usageTime");
+      this.timeouts =
+        Objects.requireNonNull(inTimeouts, "timeouts");
+    }
+
+    @Override
+    public void recordConnectionAcquiredNanos(
+      final long elapsedAcquiredNanos)
+    {
+      this.acquireTime.record(
+        (double) elapsedAcquiredNanos / 1_000_000.0,
+        this.attributes
+      );
+    }
+
+    @Override
+    public void recordConnectionUsageMillis(
+      final long elapsedBorrowedMillis)
+    {
+      this.usageTime.record((double) elapsedBorrowedMillis, this.attributes);
+    }
+
+    @Override
+    public void recordConnectionTimeout()
+    {
+      this.timeouts.add(1L, this.attributes);
+    }
+
+    @Override
+    public void close()
+    {
+      for (final var gauge : this.gauges) {
+        gauge.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,396 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.database.postgres.internal;
+
+import com.io7m.eigion.model.EIAuditSearchParameters;
+import com.io7m.eigion.model.EIGroupCreationRequest;
+import com.io7m.eigion.model.EIGroupCreationRequestSearchParameters;
+import com.io7m.eigion.model.EIGroupCreationRequestStatusType.InProgress;
+import com.io7m.eigion.model.EIGroupName;
+import com.io7m.eigion.model.EIGroupSearchByNameParameters;
+import com.io7m.eigion.model.EITimeRange;
+import com.io7m.eigion.model.EIToken;
+import com.io7m.eigion.model.EIUser;
+import com.io7m.eigion.server.database.api.EISDatabaseAuditQueriesType;
+import com.io7m.eigion.server.database.api.EISDatabaseException;
+import com.io7m.eigion.server.database.api.EISDatabaseGroupsQueriesType;
+import com.io7m.eigion.server.database.api.EISDatabaseUsersQueriesType;
+import com.io7m.eigion.server.database.postgres.EISDatabaseQueryPlanCheck;
+import com.io7m.eigion.server.database.postgres.EISDatabaseQueryPlanCheckConfiguration;
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteListener;
+import org.jooq.ExecuteType;
+import org.jooq.exception.DataAccessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.SQL_ERROR;
+import static com.io7m.eigion.model.EIPermissionSet.empty;
+import static com.io7m.eigion.server.database.api.EISDatabaseRole.EIGION;
+
+/**
+ * The implementation of query plan checks. Every frequently-used query is
+ * executed with representative arguments, and each distinct read statement
+ * executed is captured and explained.
+ */
+
+public final class EISDatabaseQueryPlanChecker
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(EISDatabaseQueryPlanChecker.class);
+
+  private static final String GROUP_PREFIX = "com.io7m.eigion.plancheck";
+
+  private EISDatabaseQueryPlanChecker()
+  {
+
+  }
+
+  /**
+   * Check the plans of every frequently-used query.
+   *
+   * @param database      The database
+   * @param configuration The check configuration
+   *
+   * @return The results, one per distinct statement
+   *
+   * @throws EISDatabaseException On errors
+   */
+
+  public static List<EISDatabaseQueryPlanCheck> check(
+    final EISDatabase database,
+    final EISDatabaseQueryPlanCheckConfiguration configuration)
+    throws EISDatabaseException
+  {
+    final var capture = new Capture();
+
+    try (var connection =
+           database.openConnectionWithListener(EIGION, capture)) {
+      try (var transaction =
+             (EISDatabaseTransaction) connection.openTransaction()) {
+
+        final Subject subject;
+        if (configuration.generateRows() > 0) {
+          subject = generate(transaction, configuration.generateRows());
+          analyze(transaction);
+        } else {
+          subject = new Subject(
+            UUID.randomUUID(),
+            new EIGroupName(GROUP_PREFIX + ".g000000"),
+            EIToken.generate(new SecureRandom())
+          );
+        }
+
+        capture.capturing = true;
+        executeQueries(transaction, subject);
+        capture.capturing = false;
+
+        final var results = new ArrayList<EISDatabaseQueryPlanCheck>();
+        for (final var entry : capture.statements.entrySet()) {
+          results.add(
+            checkStatement(
+              transaction,
+              configuration,
+              entry.getValue(),
+              entry.getKey())
+          );
+        }
+        return List.copyOf(results);
+      }
+    }
+  }
+
+  private static Subject generate(
+    final EISDatabaseTransaction transaction,
+    final int rows)
+    throws EISDatabaseException
+  {
+    LOG.info("generating {} rows of data", Integer.valueOf(rows));
+
+    final var users =
+      transaction.queries(EISDatabaseUsersQueriesType.class);
+    final var groups =
+      transaction.queries(EISDatabaseGroupsQueriesType.class);
+    final var audit =
+      transaction.queries(EISDatabaseAuditQueriesType.class);
+    final var random =
+      new SecureRandom();
+    final var timeNow =
+      OffsetDateTime.now(transaction.clock());
+
+    Subject subject = null;
+    for (int index = 0; index < rows; ++index) {
+      final var user =
+        new EIUser(UUID.randomUUID(), empty());
+      final var groupName =
+        new EIGroupName("%s.g%06d".formatted(
+          GROUP_PREFIX, Integer.valueOf(index)));
+      final var token =
+        EIToken.generate(random);
+
+      users.userPut(user);
+      groups.groupCreate(user.id(), groupName);
+      groups.groupCreationRequestStart(
+        new EIGroupCreationRequest(
+          new EIGroupName("%s.r%06d".formatted(
+            GROUP_PREFIX, Integer.valueOf(index))),
+          user.id(),
+          token,
+          new InProgress(timeNow)
+        )
+      );
+      audit.auditPut(user.id(), timeNow, "PLAN_CHECK", groupName.value());
+
+      if (subject == null) {
+        subject = new Subject(user.id(), groupName, token);
+      }
+    }
+    return subject;
+  }
+
+  /**
+   * Update the planner statistics of the tables that received generated
+   * data, so that the data is taken into account. Statistics are updated by
+   * the session user (the owner of the tables) rather than the restricted
+   * role used for queries.
+   *
+   * Note that ANALYZE updates {@code pg_class} in place: rolling back the
+   * transaction discards the generated rows, but the statistics of these
+   * tables continue to reflect them until they are next analyzed.
+   */
+
+  private static void analyze(
+    final EISDatabaseTransaction transaction)
+    throws EISDatabaseException
+  {
+    final var context = transaction.createContext();
+    try {
+      context.execute("reset role");
+      context.execute("analyze users, groups, groups_creation_requests, audit");
+      transaction.setRole(EIGION);
+    } catch (final DataAccessException | SQLException e) {
+      throw new EISDatabaseException(e.getMessage(), e, SQL_ERROR);
+    }
+  }
+
+  private static void executeQueries(
+    final EISDatabaseTransaction transaction,
+    final Subject subject)
+    throws EISDatabaseException
+  {
+    final var users =
+      transaction.queries(EISDatabaseUsersQueriesType.class);
+    final var groups =
+      transaction.queries(EISDatabaseGroupsQueriesType.class);
+    final var audit =
+      transaction.queries(EISDatabaseAuditQueriesType.class);
+
+    users.userGet(subject.userId);
+
+    groups.groupSearchByName(
+      new EIGroupSearchByNameParameters(Optional.of(GROUP_PREFIX), 100L)
+    ).pageCurrent(groups);
+    groups.groupUserRoles(subject.userId)
+      .pageCurrent(groups);
+    groups.groupRoles(subject.groupName, 100L)
+      .pageCurrent(groups);
+    groups.groupCreationRequestsSearch(
+      new EIGroupCreationRequestSearchParameters(
+        Optional.of(subject.userId), 100L)
+    ).pageCurrent(groups);
+    groups.groupExists(subject.groupName);
+    groups.groupCreationRequest(subject.token);
+    groups.groupCreationRequestsChangedSince(
+      subject.userId, OffsetDateTime.now().minusHours(1L));
+    groups.groupCreationRequestsActive();
+    groups.groupCreationRequestsObsolete();
+
+    audit.auditEventsSearch(
+      new EIAuditSearchParameters(
+        EITimeRange.largest(),
+        Optional.of(subject.userId.toString()),
+        Optional.empty(),
+        Optional.empty(),
+        100L
+      )
+    ).pageCurrent(audit);
+    audit.auditEventsAfter(audit.auditEventIdLatest(), 100);
+  }
+
+  private static EISDatabaseQueryPlanCheck checkStatement(
+    final EISDatabaseTransaction transaction,
+    final EISDatabaseQueryPlanCheckConfiguration configuration,
+    final String query,
+    final String statement)
+    throws EISDatabaseException
+  {
+    try {
+      return transaction.createContext()
+        .connectionResult(connection -> {
+          return checkStatementWith(
+            connection, configuration, query, statement);
+        });
+    } catch (final DataAccessException e) {
+      throw new EISDatabaseException(e.getMessage(), e, SQL_ERROR);
+    }
+  }
+
+  private static EISDatabaseQueryPlanCheck checkStatementWith(
+    final Connection connection,
+    final EISDatabaseQueryPlanCheckConfiguration configuration,
+    final String query,
+    final String statement)
+    throws SQLException
+  {
+    final String plan;
+    try (var st = connection.createStatement()) {
+      try (var rs = st.executeQuery("EXPLAIN (FORMAT JSON) " + statement)) {
+        rs.next();
+        plan = rs.getString(1);
+      }
+    }
+
+    /*
+     * The database itself is used to interpret the JSON plan.
+     */
+
+    final double totalCost;
+    try (var st = connection.prepareStatement(
+      "select cast(cast(? as jsonb) -> 0 -> 'Plan' ->> 'Total Cost' as float8)")) {
+      st.setString(1, plan);
+      try (var rs = st.executeQuery()) {
+        rs.next();
+        totalCost = rs.getDouble(1);
+      }
+    }
+
+    final var scans = new ArrayList<String>();
+    try (var st = connection.prepareStatement("""
+      select distinct n ->> 'Relation Name'
+        from jsonb_path_query(cast(? as jsonb), 'strict $.**') as n
+          where jsonb_typeof(n) = 'object'
+            and n ->> 'Node Type' = 'Seq Scan'
+      """)) {
+      st.setString(1, plan);
+      try (var rs = st.executeQuery()) {
+        while (rs.next()) {
+          scans.add(rs.getString(1));
+        }
+      }
+    }
+
+    final var violations = new ArrayList<String>();
+    if (totalCost > configuration.maximumCost()) {
+      violations.add(
+        "Total cost %.2f exceeds the maximum cost %.2f".formatted(
+          Double.valueOf(totalCost),
+          Double.valueOf(configuration.maximumCost()))
+      );
+    }
+
+    for (final var table : scans) {
+      final var rows = estimatedRows(connection, table);
+      if (rows >= configuration.largeTableRows()) {
+        violations.add(
+          "Sequential scan of table %s (approximately %d rows)".formatted(
+            table, Long.valueOf(rows))
+        );
+      }
+    }
+
+    return new EISDatabaseQueryPlanCheck(
+      query,
+      statement,
+      totalCost,
+      scans,
+      violations
+    );
+  }
+
+  private static long estimatedRows(
+    final Connection connection,
+    final String table)
+    throws SQLException
+  {
+    try (var st = connection.prepareStatement(
+      "select max(reltuples) from pg_class where relname = ? and relkind = 'r'")) {
+      st.setString(1, table);
+      try (var rs = st.executeQuery()) {
+        rs.next();
+        return (long) rs.getDouble(1);
+      }
+    }
+  }
+
+  private record Subject(
+    UUID userId,
+    EIGroupName groupName,
+    EIToken token)
+  {
+
+  }
+
+  /**
+   * An execute listener that captures each distinct read statement executed
+   * while capturing is enabled, along with the name of the query that
+   * executed it.
+   */
+
+  private static final class Capture implements ExecuteListener
+  {
+    private final Map<String, String> statements;
+    private boolean capturing;
+
+    Capture()
+    {
+      this.statements = new LinkedHashMap<>();
+    }
+
+    @Override
+    public void end(
+      final ExecuteContext ctx)
+    {
+      if (!this.capturing || ctx.type() != ExecuteType.READ) {
+        return;
+      }
+
+      final var query = ctx.query();
+      if (query == null) {
+        return;
+      }
+
+      final var name =
+        ctx.configuration().data(EISDatabaseSlowQueries.QUERY_NAME);
+      final var queryName =
+        name instanceof String s ? s : "unnamed";
+
+      this.statements.putIfAbsent(ctx.dsl().renderInlined(query), queryName);
+    }
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.database.postgres.internal;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static io.opentelemetry.api.common.AttributeKey.booleanKey;
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+
+/**
+ * A query span that records the duration of the query in a histogram when
+ * the span ends. Durations are recorded regardless of whether the span
+ * itself is sampled. A flight recorder query event is also emitted.
+ */
+
+final class EISDatabaseQuerySpan implements Span
+{
+  private static final AttributeKey<String> QUERY =
+    stringKey("query");
+  private static final AttributeKey<Boolean> FAILED =
+    booleanKey("failed");
+
+  private final Span delegate;
+  private final String name;
+  private final DoubleHistogram histogram;
+  private final long timeStart;
+  private final EISDatabaseQueryEvent event;
+  private final Runnable onEnd;
+  private boolean failed;
+  private boolean ended;
+
+  EISDatabaseQuerySpan(
+    final Span inDelegate,
+    final String inName,
+    final DoubleHistogram inHistogram,
+    final Runnable inOnEnd)
+  {
+    this.delegate =
+      Objects.requireNonNull(inDelegate, "delegate");
+    this.name =
+      Objects.requireNonNull(inName, "name");
+    this.histogram =
+      Objects.requireNonNull(inHistogram, "histogram");
+    this.onEnd =
+      Objects.requireNonNull(inOnEnd, "onEnd");
+    this.timeStart =
+      System.nanoTime();
+    this.event =
+      new EISDatabaseQueryEvent();
+    this.event.begin();
+  }
+
+  @Override
+  public <T> Span setAttribute(
+    final AttributeKey<T> key,
+    final T value)
+  {
+    this.delegate.setAttribute(key, value);
+    return this;
+  }
+
+  @Override
+  public Span addEvent(
+    final String eventName,
+    final Attributes attributes)
+  {
+    this.delegate.addEvent(eventName, attributes);
+    return this;
+  }
+
+  @Override
+  public Span addEvent(
+    final String eventName,
+    final Attributes attributes,
+    final long timestamp,
+    final TimeUnit unit)
+  {
+    this.delegate.addEvent(eventName, attributes, timestamp, unit);
+    return this;
+  }
+
+  @Override
+  public Span setStatus(
+    final StatusCode statusCode,
+    final String description)
+  {
+    this.delegate.setStatus(statusCode, description);
+    return this;
+  }
+
+  @Override
+  public Span recordException(
+    final Throwable exception,
+    final Attributes additionalAttributes)
+  {
+    this.failed = true;
+    this.delegate.recordException(exception, additionalAttributes);
+    return this;
+  }
+
+  @Override
+  public Span updateName(
+    final String newName)
+  {
+    this.delegate.updateName(newName);
+    return this;
+  }
+
+  @Override
+  public void end()
+  {
+    this.record();
+    this.delegate.end();
+  }
+
+  @Override
+  public void end(
+    final long timestamp,
+    final TimeUnit unit)
+  {
+    this.record();
+    this.delegate.end(timestamp, unit);
+  }
+
+  private void record()
+  {
+    if (this.ended) {
+      return;
+    }
+    this.ended = true;
+    this.onEnd.run();
+
+    final var nanos = System.nanoTime() - this.timeStart;
+    this.histogram.record(
+      (double) nanos / 1_000_000.0,
+      Attributes.of(
+        QUERY, this.name,
+        FAILED, Boolean.valueOf(this.failed)
+      )
+    );
+
+    this.event.end();
+    if (this.event.shouldCommit()) {
+      this.event.query = this.name;
+      this.event.failed = this.failed;
+      this.event.commit();
+    }
+  }
+
+  @Override
+  public SpanContext getSpanContext()
+  {
+    return this.delegate.getSpanContext();
+  }
+
+  @Override
+  public boolean isRecording()
+  {
+    return this.delegate.isRecording();
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[EISDatabaseQuerySpan %s]".formatted(this.name);
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.database.postgres.internal;
+
+import com.io7m.eigion.server.database.api.EISDatabaseException;
+import com.io7m.eigion.server.database.api.EISDatabaseRateLimitQueriesType;
+import org.jooq.Field;
+import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+
+import java.time.Duration;
+import java.util.Objects;
+
+import static com.io7m.eigion.server.database.postgres.internal.EISDatabaseExceptions.DEFAULT_HANDLER;
+import static com.io7m.eigion.server.database.postgres.internal.EISDatabaseExceptions.handleDatabaseException;
+import static com.io7m.eigion.server.database.postgres.internal.Tables.RATE_LIMIT_BUCKETS;
+import static io.opentelemetry.semconv.trace.attributes.SemanticAttributes.DB_STATEMENT;
+
+final class EISDatabaseRateLimitQueries
+  extends EISBaseQueries
+  implements EISDatabaseRateLimitQueriesType
+{
+  private static final Field<Double> TIME_NOW =
+    DSL.field(
+      "(extract(epoch from clock_timestamp()) * 1000.0)",
+      SQLDataType.DOUBLE
+    );
+
+  EISDatabaseRateLimitQueries(
+    final EISDatabaseTransaction inTransaction)
+  {
+    super(inTransaction);
+  }
+
+  @Override
+  public boolean rateLimitTake(
+    final String bucket,
+    final long capacity,
+    final Duration refillPeriod)
+    throws EISDatabaseException
+  {
+    Objects.requireNonNull(bucket, "bucket");
+    Objects.requireNonNull(refillPeriod, "refillPeriod");
+
+    final var transaction =
+      this.transaction();
+    final var context =
+      transaction.createContext();
+    final var querySpan =
+      transaction.createQuerySpan(
+        "EISDatabaseRateLimitQueries.rateLimitTake");
+
+    try {
+      final var tokensPerMilli =
+        1.0 / (double) Math.max(1L, refillPeriod.toMillis());
+
+      /*
+       * The refill and the withdrawal happen in a single statement, so
+       * concurrent requests on different server nodes cannot both take the
+       * last token. If the bucket does not hold a whole token, the row is
+       * left untouched and no row is returned.
+       */
+
+      final var refilled =
+        DSL.least(
+          DSL.val(Double.valueOf((double) capacity)),
+          RATE_LIMIT_BUCKETS.TOKENS.plus(
+            TIME_NOW.minus(RATE_LIMIT_BUCKETS.UPDATED)
+              .times(DSL.val(Double.valueOf(tokensPerMilli)))
+          )
+        );
+
+      final var query =
+        context.insertInto(RATE_LIMIT_BUCKETS)
+          .set(RATE_LIMIT_BUCKETS.BUCKET, bucket)
+          .set(RATE_LIMIT_BUCKETS.TOKENS, Double.valueOf(capacity - 1.0))
+          .set(RATE_LIMIT_BUCKETS.UPDATED, TIME_NOW)
+          .onConflict(RATE_LIMIT_BUCKETS.BUCKET)
+          .doUpdate()
+          .set(RATE_LIMIT_BUCKETS.TOKENS, refilled.minus(DSL.val(1.0)))
+          .set(RATE_LIMIT_BUCKETS.UPDATED, TIME_NOW)
+          .where(refilled.ge(DSL.val(1.0)))
+          .returning(RATE_LIMIT_BUCKETS.TOKENS);
+
+      if (querySpan.isRecording()) {
+        querySpan.setAttribute(DB_STATEMENT, query.toString());
+      }
+
+      return query.fetchOptional().isPresent();
+    } catch (final DataAccessException e) {
+      querySpan.recordException(e);
+      throw handleDatabaseException(transaction, e, DEFAULT_HANDLER);
+    } finally {
+      querySpan.end();
+    }
+  }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.database.postgres.internal;
+
+import com.io7m.eigion.server.database.api.EISDatabaseSlowQueryConfiguration;
+import com.zaxxer.hikari.HikariDataSource;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+
+/**
+ * Slow query capture. Queries that take longer than a configured threshold
+ * are logged along with their parameterised statements and the plan produced
+ * by {@code EXPLAIN (FORMAT JSON)}. Plans are obtained asynchronously on a
+ * separate connection, and each named query is captured at most once per
+ * configured interval.
+ *
+ * <p>Bind values can include tokens, user IDs, and audit messages, so
+ * statements with inlined bind values are only ever passed to
+ * {@code EXPLAIN}, and are never logged.</p>
+ */
+
+final class EISDatabaseSlowQueries implements AutoCloseable
+{
+  /**
+   * The key used to store the current query name in jOOQ configuration
+   * data.
+   */
+
+  static final String QUERY_NAME =
+    "com.io7m.eigion.server.database.postgres.queryName";
+
+  private static final Logger LOG =
+    LoggerFactory.getLogger(EISDatabaseSlowQueries.class);
+
+  private static final AttributeKey<String> QUERY =
+    stringKey("query");
+
+  private final long thresholdNanos;
+  private final long intervalNanos;
+  private final ConcurrentHashMap<String, Long> lastCaptures;
+  private final ThreadPoolExecutor executor;
+  private final LongCounter slowQueries;
+
+  EISDatabaseSlowQueries(
+    final EISDatabaseSlowQueryConfiguration configuration,
+    final Meter meter)
+  {
+    Objects.requireNonNull(configuration, "configuration");
+    Objects.requireNonNull(meter, "meter");
+
+    this.thresholdNanos =
+      configuration.threshold().toNanos();
+    this.intervalNanos =
+      configuration.minimumInterval().toNanos();
+    this.lastCaptures =
+      new ConcurrentHashMap<>();
+
+    /*
+     * Plans are obtained on a single thread with a small queue. If the
+     * queue is full, captures are discarded rather than allowing a slow
+     * database to accumulate work (and connections) here.
+     */
+
+    this.executor =
+      new ThreadPoolExecutor(
+        1,
+        1,
+        0L,
+        TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(16),
+        r -> {
+          final var thread = new Thread(r);
+          thread.setDaemon(true);
+          thread.setName(
+            "com.io7m.eigion.server.database.postgres.internal.EISDatabaseSlowQueries[%d]"
+              .formatted(Long.valueOf(thread.getId())));
+          return thread;
+        },
+        new ThreadPoolExecutor.DiscardPolicy()
+      );
+
+    this.slowQueries =
+      meter.counterBuilder("eigion.db.slowQueries")
+        .setDescription("Queries that exceeded the slow query threshold.")
+        .build();
+  }
+
+  /**
+   * @return The slow query threshold in nanoseconds
+   */
+
+  long thresholdNanos()
+  {
+    return this.thresholdNanos;
+  }
+
+  /**
+   * Determine if the given slow query should be captured. This counts the
+   * slow query, and returns {@code true} if the named query has not been
+   * captured within the minimum interval.
+   *
+   * @param queryName The query name
+   *
+   * @return {@code true} if the query should be captured
+   */
+
+  boolean shouldCapture(
+    final String queryName)
+  {
+    this.slowQueries.add(1L, Attributes.of(QUERY, queryName));
+
+    final var timeNow = System.nanoTime();
+    final var previous = this.lastCaptures.get(queryName);
+    if (previous != null
+        && timeNow - previous.longValue() < this.intervalNanos) {
+      return false;
+    }
+
+    final var timeNowBoxed = Long.valueOf(timeNow);
+    if (previous == null) {
+      return this.lastCaptures.putIfAbsent(queryName, timeNowBoxed) == null;
+    }
+    return this.lastCaptures.replace(queryName, previous, timeNowBoxed);
+  }
+
+  /**
+   * Capture the plan for a slow query.
+   *
+   * @param source    The data source against which the query was executed
+   * @param queryName The query name
+   * @param duration  The query duration in nanoseconds
+   * @param statement The parameterised statement, which may be logged
+   * @param inlined   The statement with inlined bind values, which is used
+   *                  only to obtain the plan and must not be logged
+   */
+
+  void capture(
+    final HikariDataSource source,
+    final String queryName,
+    final long duration,
+    final String statement,
+    final String inlined)
+  {
+    this.executor.execute(() -> {
+      explain(source, queryName, duration, statement, inlined);
+    });
+  }
+
+  private static void explain(
+    final HikariDataSource source,
+    final String queryName,
+    final long duration,
+    final String statement,
+    final String inlined)
+  {
+    final var millis =
+      Long.valueOf(TimeUnit.NANOSECONDS.toMillis(duration));
+
+    try (var connection = source.getConnection()) {
+      connection.setReadOnly(true);
+      try (var st = connection.createStatement()) {
+        try (var rs = st.executeQuery("EXPLAIN (FORMAT JSON) " + inlined)) {
+          final var plan = new StringBuilder(256);
+          while (rs.next()) {
+            plan.append(rs.getString(1));
+          }
+          LOG.warn(
+            "slow query {} ({}ms): {}\nplan: {}",
+            queryName,
+            millis,
+            statement,
+            plan
+          );
+        }
+      }
+    } catch (final Exception e) {
+      LOG.warn(
+        "slow query {} ({}ms): {} (plan unavailable: {})",
+        queryName,
+        millis,
+        statement,
+        e.getMessage()
+      );
+    }
+  }
+
+  @Override
+  public void close()
+  {
+    this.executor.shutdownNow();
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[EISDatabaseSlowQueries 0x%s]"
+      .formatted(Long.toUnsignedString(this.hashCode(), 16));
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.database.postgres.internal;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteListener;
+import org.jooq.ExecuteType;
+
+import java.util.Objects;
+
+/**
+ * An execute listener that times each statement executed on a single
+ * connection, and passes statements that exceed the slow query threshold
+ * to {@link EISDatabaseSlowQueries}. Instances are not thread-safe, and
+ * must not be shared between connections.
+ */
+
+final class EISDatabaseSlowQueryListener implements ExecuteListener
+{
+  private final EISDatabaseSlowQueries slowQueries;
+  private final HikariDataSource source;
+  private long timeStart;
+
+  EISDatabaseSlowQueryListener(
+    final EISDatabaseSlowQueries inSlowQueries,
+    final HikariDataSource inSource)
+  {
+    this.slowQueries =
+      Objects.requireNonNull(inSlowQueries, "slowQueries");
+    this.source =
+      Objects.requireNonNull(inSource, "source");
+  }
+
+  @Override
+  public void executeStart(
+    final ExecuteContext ctx)
+  {
+    this.timeStart = System.nanoTime();
+  }
+
+  @Override
+  public void end(
+    final ExecuteContext ctx)
+  {
+    final var duration = System.nanoTime() - this.timeStart;
+    if (duration < this.slowQueries.thresholdNanos()) {
+      return;
+    }
+
+    /*
+     * Only statements that EXPLAIN accepts are captured.
+     */
+
+    final var type = ctx.type();
+    if (type != ExecuteType.READ && type != ExecuteType.WRITE) {
+      return;
+    }
+
+    final var query = ctx.query();
+    if (query == null) {
+      return;
+    }
+
+    final var name =
+      ctx.configuration().data(EISDatabaseSlowQueries.QUERY_NAME);
+    final var queryName =
+      name instanceof String s ? s : "unnamed";
+
+    if (!this.slowQueries.shouldCapture(queryName)) {
+      return;
+    }
+
+    this.slowQueries.capture(
+      this.source,
+      queryName,
+      duration,
+      query.getSQL(),
+      ctx.dsl().renderInlined(query)
+    );
+  }
+}
@@ -20,7 +20,9 @@ import com.io7m.eigion.server.database.api.EISDatabaseAuditQueriesType;
 import com.io7m.eigion.server.database.api.EISDatabaseException;
 import com.io7m.eigion.server.database.api.EISDatabaseGroupsQueriesType;
 import com.io7m.eigion.server.database.api.EISDatabaseMaintenanceQueriesType;
+import com.io7m.eigion.server.database.api.EISDatabaseNotificationChannel;
 import com.io7m.eigion.server.database.api.EISDatabaseQueriesType;
+import com.io7m.eigion.server.database.api.EISDatabaseRateLimitQueriesType;
 import com.io7m.eigion.server.database.api.EISDatabaseRole;
 import com.io7m.eigion.server.database.api.EISDatabaseTransactionType;
 import com.io7m.eigion.server.database.api.EISDatabaseUsersQueriesType;
@@ -39,13 +41,13 @@ import static com.io7m.eigion.error_codes.EIStandardErrorCodes.SQL_ERROR_UNSUPPO
 import static io.opentelemetry.api.trace.SpanKind.INTERNAL;
 import static io.opentelemetry.semconv.trace.attributes.SemanticAttributes.DB_SYSTEM;
 import static io.opentelemetry.semconv.trace.attributes.SemanticAttributes.DbSystemValues.POSTGRESQL;
-import static org.jooq.SQLDialect.POSTGRES;
 
 final class EISDatabaseTransaction
   implements EISDatabaseTransactionType
 {
   private final EISDatabaseConnection connection;
   private final Span transactionSpan;
+  private EISDatabaseTransactionEvent event;
 
   /**
    * @return The transaction span for metrics
@@ -57,7 +59,8 @@ final class EISDatabaseTransaction
   }
 
   /**
-   * Create a new query span for measuring query times.
+   * Create a new query span for measuring query times. The duration of the
+   * query is recorded in the query time histogram when the span ends.
    *
    * @param name The query name
    *
@@ -67,12 +70,29 @@ final class EISDatabaseTransaction
   public Span createQuerySpan(
     final String name)
   {
-    return this.tracer()
-      .spanBuilder(name)
-      .setParent(Context.current().with(this.transactionSpan))
-      .setAttribute(DB_SYSTEM, POSTGRESQL)
-      .setSpanKind(INTERNAL)
-      .startSpan();
+    final var span =
+      this.tracer()
+        .spanBuilder(name)
+        .setParent(Context.current().with(this.transactionSpan))
+        .setAttribute(DB_SYSTEM, POSTGRESQL)
+        .setSpanKind(INTERNAL)
+        .startSpan();
+
+    /*
+     * The query name is made available to the slow query listener, if
+     * any, for the lifetime of the query span.
+     */
+
+    final var data =
+      this.connection.context().configuration().data();
+    data.put(EISDatabaseSlowQueries.QUERY_NAME, name);
+
+    return new EISDatabaseQuerySpan(
+      span,
+      name,
+      this.connection.database().histogramQueryTime(),
+      () -> data.remove(EISDatabaseSlowQueries.QUERY_NAME)
+    );
   }
 
   EISDatabaseTransaction(
@@ -83,6 +103,29 @@ final class EISDatabaseTransaction
       Objects.requireNonNull(inConnection, "connection");
     this.transactionSpan =
       Objects.requireNonNull(inTransactionScope, "inMetricsScope");
+    this.event =
+      new EISDatabaseTransactionEvent();
+    this.event.begin();
+  }
+
+  /**
+   * Commit the current flight recorder event with the given outcome, and
+   * begin a new event for the work that follows.
+   */
+
+  private void recordEvent(
+    final String outcome)
+  {
+    final var current = this.event;
+    current.end();
+    if (current.shouldCommit()) {
+      current.outcome = outcome;
+      current.role = this.connection.role().name();
+      current.commit();
+    }
+
+    this.event = new EISDatabaseTransactionEvent();
+    this.event.begin();
   }
 
   void setRole(
@@ -124,6 +167,9 @@ final class EISDatabaseTransaction
     if (Objects.equals(qClass, EISDatabaseGroupsQueriesType.class)) {
       return qClass.cast(new EISDatabaseGroupsQueries(this));
     }
+    if (Objects.equals(qClass, EISDatabaseRateLimitQueriesType.class)) {
+      return qClass.cast(new EISDatabaseRateLimitQueries(this));
+    }
 
     throw new EISDatabaseException(
       "Unsupported query type: %s".formatted(qClass),
@@ -131,13 +177,34 @@ final class EISDatabaseTransaction
     );
   }
 
+  /**
+   * @return The jOOQ context for the connection underlying this transaction
+   */
+
   public DSLContext createContext()
   {
-    final var sqlConnection =
-      this.connection.connection();
-    final var settings =
-      this.connection.database().settings();
-    return DSL.using(sqlConnection, POSTGRES, settings);
+    return this.connection.context();
+  }
+
+  /**
+   * Publish a notification on the given channel. The notification is
+   * delivered to subscribers when (and if) the transaction commits.
+   *
+   * @param channel The channel
+   * @param payload The payload
+   */
+
+  void notify(
+    final EISDatabaseNotificationChannel channel,
+    final String payload)
+  {
+    this.createContext()
+      .select(DSL.field(
+        "pg_notify({0}, {1})",
+        DSL.val(channel.channelName()),
+        DSL.val(EISDatabaseNotifications.formatPayload(payload))
+      ))
+      .fetch();
   }
 
   public Clock clock()
@@ -154,6 +221,7 @@ final class EISDatabaseTransaction
       this.connection.database()
         .counterTransactionRollbacks()
         .add(1L);
+      this.recordEvent("rollback");
     } catch (final SQLException e) {
       throw new EISDatabaseException(e.getMessage(), e, SQL_ERROR);
     }
@@ -168,6 +236,7 @@ final class EISDatabaseTransaction
       this.connection.database()
         .counterTransactionCommits()
         .add(1L);
+      this.recordEvent("commit");
     } catch (final SQLException e) {
       throw new EISDatabaseException(e.getMessage(), e, SQL_ERROR);
     }
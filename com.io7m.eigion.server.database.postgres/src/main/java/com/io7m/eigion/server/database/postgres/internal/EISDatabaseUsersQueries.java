@@ -21,6 +21,7 @@ import com.io7m.eigion.model.EIPermissionSet;
 import com.io7m.eigion.model.EIUser;
 import com.io7m.eigion.model.EIUserLogin;
 import com.io7m.eigion.server.database.api.EISDatabaseException;
+import com.io7m.eigion.server.database.api.EISDatabaseNotificationChannel;
 import com.io7m.eigion.server.database.api.EISDatabaseUsersQueriesType;
 import org.jooq.exception.DataAccessException;
 
@@ -75,6 +76,11 @@ final class EISDatabaseUsersQueries
       }
       userRec.set(USERS.PERMISSIONS, user.permissions().asIntegers());
       userRec.store();
+
+      transaction.notify(
+        EISDatabaseNotificationChannel.USERS,
+        user.id().toString()
+      );
     } catch (final DataAccessException e) {
       querySpan.recordException(e);
       throw handleDatabaseException(transaction, e, DEFAULT_HANDLER);
@@ -62,7 +62,9 @@ final class EISGroupByNameSearch
       final var select =
         page.queryFields(context, List.of(GROUPS.NAME));
 
-      querySpan.setAttribute(DB_STATEMENT, select.toString());
+      if (querySpan.isRecording()) {
+        querySpan.setAttribute(DB_STATEMENT, select.toString());
+      }
 
       final var items =
         select.fetch().map(record -> {
@@ -63,7 +63,9 @@ final class EISGroupCreationRequestsForUserSearch
       final var select =
         page.query(context);
 
-      querySpan.setAttribute(DB_STATEMENT, select.toString());
+      if (querySpan.isRecording()) {
+        querySpan.setAttribute(DB_STATEMENT, select.toString());
+      }
 
       final var items =
         select.fetch().map(record -> {
@@ -80,7 +80,9 @@ final class EISGroupRolesSearch
           GROUP_ROLES.USER_ID
         ));
 
-      querySpan.setAttribute(DB_STATEMENT, select.toString());
+      if (querySpan.isRecording()) {
+        querySpan.setAttribute(DB_STATEMENT, select.toString());
+      }
 
       final var items =
         select.fetch().map(record -> {
@@ -79,7 +79,9 @@ final class EISGroupUserRolesSearch
           GROUP_ROLES.ROLES
         ));
 
-      querySpan.setAttribute(DB_STATEMENT, select.toString());
+      if (querySpan.isRecording()) {
+        querySpan.setAttribute(DB_STATEMENT, select.toString());
+      }
 
       final var items =
         select.fetch().map(record -> {
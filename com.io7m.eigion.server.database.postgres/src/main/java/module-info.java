@@ -40,6 +40,7 @@ module com.io7m.eigion.server.database.postgres
   requires com.zaxxer.hikari;
   requires io.opentelemetry.context;
   requires io.opentelemetry.semconv;
+  requires jdk.jfr;
   requires org.jooq;
   requires org.postgresql.jdbc;
   requires org.slf4j;
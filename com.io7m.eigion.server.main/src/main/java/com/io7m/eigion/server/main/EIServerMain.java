@@ -21,6 +21,7 @@ import com.io7m.claypot.core.CLPCommandConstructorType;
 import com.io7m.claypot.core.CLPCommandType;
 import com.io7m.claypot.core.Claypot;
 import com.io7m.claypot.core.ClaypotType;
+import com.io7m.eigion.server.main.internal.EISMCmdCheckQueryPlans;
 import com.io7m.eigion.server.main.internal.EISMCmdServer;
 import com.io7m.eigion.server.main.internal.EISMCmdVersion;
 import org.slf4j.Logger;
@@ -60,7 +61,8 @@ public final class EIServerMain implements Runnable
     final List<CLPCommandConstructorType> commands =
       List.of(
         EISMCmdVersion::new,
-        EISMCmdServer::new
+        EISMCmdServer::new,
+        EISMCmdCheckQueryPlans::new
       );
 
     final var configuration =
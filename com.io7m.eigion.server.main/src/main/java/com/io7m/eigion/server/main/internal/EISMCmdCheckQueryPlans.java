@@ -0,0 +1,146 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.main.internal;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import com.io7m.claypot.core.CLPAbstractCommand;
+import com.io7m.claypot.core.CLPCommandContextType;
+import com.io7m.eigion.server.api.EIServerConfigurations;
+import com.io7m.eigion.server.database.postgres.EISDatabaseQueryPlanCheckConfiguration;
+import com.io7m.eigion.server.database.postgres.EISDatabaseQueryPlans;
+import io.opentelemetry.api.OpenTelemetry;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.Locale;
+
+import static com.io7m.claypot.core.CLPCommandType.Status.FAILURE;
+import static com.io7m.claypot.core.CLPCommandType.Status.SUCCESS;
+
+/**
+ * The "check-query-plans" command.
+ */
+
+@Parameters(commandDescription = "Check the plans of frequently-used database queries.")
+public final class EISMCmdCheckQueryPlans extends CLPAbstractCommand
+{
+  @Parameter(
+    names = "--configuration",
+    description = "The configuration file",
+    required = true
+  )
+  private Path configurationFile;
+
+  @Parameter(
+    names = "--generate-rows",
+    description = "The number of rows of representative data to generate (0 to use the existing data). Generated rows are rolled back, but the tables that receive them are analyzed, and their planner statistics continue to reflect the generated rows until next analyzed. Only use this against a scratch database."
+  )
+  private int generateRows;
+
+  @Parameter(
+    names = "--maximum-cost",
+    description = "The maximum permitted total cost of any query plan"
+  )
+  private double maximumCost = 10_000.0;
+
+  @Parameter(
+    names = "--large-table-rows",
+    description = "The number of rows at which sequential scans of a table are considered a failure"
+  )
+  private long largeTableRows = 1_000L;
+
+  /**
+   * Construct a command.
+   *
+   * @param inContext The command context
+   */
+
+  public EISMCmdCheckQueryPlans(
+    final CLPCommandContextType inContext)
+  {
+    super(inContext);
+  }
+
+  @Override
+  protected Status executeActual()
+    throws Exception
+  {
+    System.setProperty("org.jooq.no-tips", "true");
+    System.setProperty("org.jooq.no-logo", "true");
+
+    final var configuration =
+      EIServerConfigurations.ofFile(
+        Locale.getDefault(),
+        Clock.systemUTC(),
+        HttpClient::newHttpClient,
+        this.configurationFile
+      );
+
+    final var checkConfiguration =
+      new EISDatabaseQueryPlanCheckConfiguration(
+        this.maximumCost,
+        this.largeTableRows,
+        this.generateRows
+      );
+
+    try (var database =
+           configuration.databases()
+             .open(
+               configuration.databaseConfiguration(),
+               OpenTelemetry.noop(),
+               statement -> {
+
+               })) {
+
+      final var results =
+        EISDatabaseQueryPlans.check(database, checkConfiguration);
+
+      var failed = false;
+      for (final var result : results) {
+        if (result.passed()) {
+          System.out.printf(
+            "PASS %s (cost %.2f)%n",
+            result.query(),
+            Double.valueOf(result.totalCost())
+          );
+        } else {
+          failed = true;
+          System.out.printf(
+            "FAIL %s (cost %.2f)%n",
+            result.query(),
+            Double.valueOf(result.totalCost())
+          );
+          for (final var violation : result.violations()) {
+            System.out.printf("  %s%n", violation);
+          }
+          System.out.printf("  %s%n", result.statement());
+        }
+      }
+
+      return failed ? FAILURE : SUCCESS;
+    }
+  }
+
+  @Override
+  public String name()
+  {
+    return "check-query-plans";
+  }
+}
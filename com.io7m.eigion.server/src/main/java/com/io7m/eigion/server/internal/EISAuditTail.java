@@ -0,0 +1,340 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.internal;
+
+import com.io7m.eigion.model.EIAuditSearchParameters;
+import com.io7m.eigion.server.database.api.EISDatabaseAuditQueriesType;
+import com.io7m.eigion.server.database.api.EISDatabaseException;
+import com.io7m.eigion.server.database.api.EISDatabaseType;
+import com.io7m.eigion.services.api.EIServiceType;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.ObservableLongGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.io7m.eigion.server.database.api.EISDatabaseRole.EIGION;
+
+/**
+ * A service that follows the audit log on behalf of any number of
+ * subscribers.
+ *
+ * <p>While at least one subscription exists, the service periodically reads
+ * audit events with IDs greater than the most recent ID it has seen, and
+ * offers each new event to every subscription. The database is therefore
+ * queried once per interval regardless of the number of subscribers, and the
+ * query is a range scan over the primary key rather than a search over the
+ * full time range. Subscriptions that fail to keep up are dropped.</p>
+ *
+ * <p>At most {@link #MAXIMUM_SUBSCRIPTIONS} subscriptions may exist at any
+ * one time. Subscription listeners are called on the service's thread after
+ * every batch of events read, and after every poll, and so receive a
+ * regular tick even when no events arrive. Each subscription can buffer
+ * several batches, so a burst of events larger than a single batch does
+ * not overflow subscriptions whose listeners keep up.</p>
+ */
+
+public final class EISAuditTail
+  implements EIServiceType, AutoCloseable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(EISAuditTail.class);
+
+  private static final int BATCH_SIZE = 1000;
+
+  /**
+   * The maximum number of events buffered for each subscription.
+   */
+
+  public static final int SUBSCRIPTION_CAPACITY = BATCH_SIZE * 4;
+
+  /**
+   * The maximum number of subscriptions that may exist at any one time.
+   */
+
+  public static final int MAXIMUM_SUBSCRIPTIONS = 32;
+
+  private static final Duration POLL_INTERVAL =
+    Duration.ofMillis(500L);
+
+  /*
+   * Audit event IDs are allocated when rows are inserted, not when
+   * transactions commit, so an event might become visible after events with
+   * greater IDs have already been read. Each poll re-reads this many IDs
+   * below the most recent ID seen so that such events are still delivered.
+   */
+
+  private static final long LOOKBACK = 100L;
+
+  private final EISDatabaseType database;
+  private final ScheduledExecutorService executor;
+  private final CopyOnWriteArraySet<EISAuditTailSubscription> subscriptions;
+  private final TreeSet<Long> recent;
+  private final LongCounter delivered;
+  private final LongCounter overflows;
+  private final ObservableLongGauge subscriptionsGauge;
+  private long idFloor;
+  private long idLastSeen;
+
+  private EISAuditTail(
+    final EISTelemetryService inTelemetry,
+    final EISDatabaseType inDatabase)
+  {
+    this.database =
+      Objects.requireNonNull(inDatabase, "database");
+    this.subscriptions =
+      new CopyOnWriteArraySet<>();
+    this.recent =
+      new TreeSet<>();
+    this.idLastSeen =
+      -1L;
+
+    this.executor =
+      Executors.newSingleThreadScheduledExecutor(r -> {
+        final var thread = new Thread(r);
+        thread.setDaemon(true);
+        thread.setName(
+          "com.io7m.eigion.server.internal.EISAuditTail[%d]"
+            .formatted(Long.valueOf(thread.getId())));
+        return thread;
+      });
+
+    final var meter =
+      inTelemetry.openTelemetry()
+        .meterBuilder(EISAuditTail.class.getCanonicalName())
+        .build();
+
+    this.delivered =
+      meter.counterBuilder("eigion.auditTail.events")
+        .setDescription("New audit events read on behalf of subscriptions.")
+        .build();
+    this.overflows =
+      meter.counterBuilder("eigion.auditTail.overflows")
+        .setDescription("Subscriptions dropped for failing to keep up.")
+        .build();
+    this.subscriptionsGauge =
+      meter.gaugeBuilder("eigion.auditTail.subscriptions")
+        .setDescription("The number of audit log subscriptions.")
+        .ofLongs()
+        .buildWithCallback(m -> {
+          m.record(Integer.toUnsignedLong(this.subscriptions.size()));
+        });
+  }
+
+  /**
+   * Create an audit tail service.
+   *
+   * @param telemetry The telemetry service
+   * @param database  The database
+   *
+   * @return A service
+   */
+
+  public static EISAuditTail create(
+    final EISTelemetryService telemetry,
+    final EISDatabaseType database)
+  {
+    Objects.requireNonNull(telemetry, "telemetry");
+    Objects.requireNonNull(database, "database");
+
+    final var tail = new EISAuditTail(telemetry, database);
+    tail.executor.scheduleWithFixedDelay(
+      tail::poll,
+      0L,
+      POLL_INTERVAL.toMillis(),
+      TimeUnit.MILLISECONDS
+    );
+    return tail;
+  }
+
+  /**
+   * Subscribe to new audit events matching the given parameters. Every
+   * matching event created after this method returns is delivered. Events
+   * created very shortly before this method returns might also be delivered.
+   *
+   * @param parameters The search parameters
+   *
+   * @return A subscription, or nothing if {@link #MAXIMUM_SUBSCRIPTIONS}
+   * subscriptions already exist
+   *
+   * @throws InterruptedException On interruption
+   */
+
+  public Optional<EISAuditTailSubscription> subscribe(
+    final EIAuditSearchParameters parameters)
+    throws InterruptedException
+  {
+    Objects.requireNonNull(parameters, "parameters");
+
+    final var subscription =
+      new EISAuditTailSubscription(this, parameters, SUBSCRIPTION_CAPACITY);
+
+    synchronized (this.subscriptions) {
+      if (this.subscriptions.size() >= MAXIMUM_SUBSCRIPTIONS) {
+        return Optional.empty();
+      }
+      this.subscriptions.add(subscription);
+    }
+
+    /*
+     * Poll immediately and wait for the poll to complete. If the service was
+     * previously idle, this locates the current end of the log, and so no
+     * event created after this point can be missed.
+     */
+
+    try {
+      this.executor.submit(this::poll).get();
+    } catch (final ExecutionException e) {
+      throw new IllegalStateException(e);
+    } catch (final InterruptedException e) {
+      subscription.close();
+      throw e;
+    }
+    return Optional.of(subscription);
+  }
+
+  void unsubscribe(
+    final EISAuditTailSubscription subscription)
+  {
+    this.subscriptions.remove(subscription);
+  }
+
+  private void poll()
+  {
+    /*
+     * Nothing is read while there are no subscribers; the next subscriber
+     * starts from the end of the log.
+     */
+
+    if (this.subscriptions.isEmpty()) {
+      this.idLastSeen = -1L;
+      this.recent.clear();
+      return;
+    }
+
+    try (var connection = this.database.openConnectionReadOnly(EIGION)) {
+      try (var transaction = connection.openTransaction()) {
+        final var audit =
+          transaction.queries(EISDatabaseAuditQueriesType.class);
+
+        if (this.idLastSeen < 0L) {
+          this.idLastSeen = audit.auditEventIdLatest();
+          this.idFloor = this.idLastSeen;
+        }
+
+        /*
+         * Subscriptions are woken after each full batch so that they can
+         * drain their buffers while the service catches up.
+         */
+
+        while (this.pollBatch(audit)) {
+          this.wakeAll();
+        }
+      }
+    } catch (final Exception e) {
+      LOG.error("failed to read audit events: ", e);
+    }
+
+    this.wakeAll();
+  }
+
+  private void wakeAll()
+  {
+    for (final var subscription : this.subscriptions) {
+      wake(subscription);
+    }
+  }
+
+  private static void wake(
+    final EISAuditTailSubscription subscription)
+  {
+    try {
+      subscription.wake();
+    } catch (final Exception e) {
+      LOG.error("subscription {} listener failed: ", subscription, e);
+    }
+  }
+
+  private boolean pollBatch(
+    final EISDatabaseAuditQueriesType audit)
+    throws EISDatabaseException
+  {
+    final var events =
+      audit.auditEventsAfter(
+        Math.max(this.idFloor, this.idLastSeen - LOOKBACK),
+        BATCH_SIZE
+      );
+
+    for (final var event : events) {
+      final var id = Long.valueOf(event.id());
+      if (!this.recent.add(id)) {
+        continue;
+      }
+
+      for (final var subscription : this.subscriptions) {
+        if (subscription.offer(event)) {
+          continue;
+        }
+        LOG.debug("dropping subscription {}: buffer full", subscription);
+        this.subscriptions.remove(subscription);
+        this.overflows.add(1L);
+        wake(subscription);
+      }
+      this.delivered.add(1L);
+      this.idLastSeen = Math.max(this.idLastSeen, event.id());
+    }
+
+    this.recent.headSet(Long.valueOf(this.idLastSeen - LOOKBACK), true)
+      .clear();
+    return events.size() == BATCH_SIZE;
+  }
+
+  @Override
+  public void close()
+  {
+    for (final var subscription : this.subscriptions) {
+      subscription.markClosed();
+      wake(subscription);
+    }
+    this.subscriptions.clear();
+    this.subscriptionsGauge.close();
+    this.executor.shutdown();
+  }
+
+  @Override
+  public String description()
+  {
+    return "Audit log tail service.";
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[EISAuditTail 0x%s]"
+      .formatted(Long.toUnsignedString(this.hashCode(), 16));
+  }
+}
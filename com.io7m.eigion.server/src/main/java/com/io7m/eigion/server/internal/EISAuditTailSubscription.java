@@ -0,0 +1,194 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.internal;
+
+import com.io7m.eigion.model.EIAuditEvent;
+import com.io7m.eigion.model.EIAuditSearchParameters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A subscription to the audit log. New events matching the subscription's
+ * parameters are placed into a bounded buffer; if the buffer is full when
+ * an event arrives, the subscription is marked as overflowed and receives
+ * no further events.
+ *
+ * <p>Subscriptions do not block. The subscription's listener is called
+ * by the audit tail service after each poll of the audit log (whether or
+ * not new events arrived), after the subscription overflows, and when the
+ * service is closed. Listeners are expected to take any available events
+ * with {@link #poll()}.</p>
+ */
+
+public final class EISAuditTailSubscription implements AutoCloseable
+{
+  private final EISAuditTail tail;
+  private final EIAuditSearchParameters parameters;
+  private final ArrayBlockingQueue<EIAuditEvent> buffer;
+  private volatile Runnable listener;
+  private volatile boolean overflowed;
+  private volatile boolean closed;
+
+  EISAuditTailSubscription(
+    final EISAuditTail inTail,
+    final EIAuditSearchParameters inParameters,
+    final int capacity)
+  {
+    this.tail =
+      Objects.requireNonNull(inTail, "tail");
+    this.parameters =
+      Objects.requireNonNull(inParameters, "parameters");
+    this.buffer =
+      new ArrayBlockingQueue<>(capacity);
+    this.listener =
+      () -> {
+      };
+  }
+
+  /**
+   * Set the listener called when the subscription might have changed. The
+   * listener is called on the audit tail service's thread, and must not
+   * block.
+   *
+   * @param inListener The listener
+   */
+
+  public void setListener(
+    final Runnable inListener)
+  {
+    this.listener = Objects.requireNonNull(inListener, "listener");
+  }
+
+  void wake()
+  {
+    this.listener.run();
+  }
+
+  /**
+   * Offer an event to the subscription.
+   *
+   * @param event The event
+   *
+   * @return {@code false} if the event matched but the buffer was full
+   */
+
+  boolean offer(
+    final EIAuditEvent event)
+  {
+    if (!this.matches(event)) {
+      return true;
+    }
+    if (!this.buffer.offer(event)) {
+      this.overflowed = true;
+      return false;
+    }
+    return true;
+  }
+
+  private boolean matches(
+    final EIAuditEvent event)
+  {
+    final var timeRange = this.parameters.timeRange();
+    final var time = event.time();
+    if (time.isBefore(timeRange.timeLower())
+        || time.isAfter(timeRange.timeUpper())) {
+      return false;
+    }
+
+    return containsIgnoreCase(this.parameters.type(), event.type())
+      && containsIgnoreCase(this.parameters.owner(), event.owner().toString())
+      && containsIgnoreCase(this.parameters.message(), event.message());
+  }
+
+  /*
+   * The same semantics as the case-insensitive LIKE conditions used by
+   * audit searches.
+   */
+
+  private static boolean containsIgnoreCase(
+    final Optional<String> query,
+    final String text)
+  {
+    return query.map(q -> {
+      return text.toLowerCase(Locale.ROOT)
+        .contains(q.toLowerCase(Locale.ROOT));
+    }).orElse(Boolean.TRUE).booleanValue();
+  }
+
+  /**
+   * Take at most {@code parameters.limit()} available events without
+   * waiting.
+   *
+   * @return The events, or an empty list if no events are available
+   */
+
+  public List<EIAuditEvent> poll()
+  {
+    if (this.buffer.isEmpty()) {
+      return List.of();
+    }
+
+    final var results = new ArrayList<EIAuditEvent>();
+    this.buffer.drainTo(results, (int) this.parameters.limit());
+    return List.copyOf(results);
+  }
+
+  /**
+   * @return {@code true} if an event was discarded because the buffer was
+   * full
+   */
+
+  public boolean isOverflowed()
+  {
+    return this.overflowed;
+  }
+
+  /**
+   * @return {@code true} if the subscription has been closed, either
+   * explicitly or because the audit tail service was closed
+   */
+
+  public boolean isClosed()
+  {
+    return this.closed;
+  }
+
+  void markClosed()
+  {
+    this.closed = true;
+  }
+
+  @Override
+  public void close()
+  {
+    this.closed = true;
+    this.tail.unsubscribe(this);
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[EISAuditTailSubscription 0x%s]"
+      .formatted(Long.toUnsignedString(this.hashCode(), 16));
+  }
+}
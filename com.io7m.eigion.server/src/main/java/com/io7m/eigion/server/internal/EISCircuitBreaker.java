@@ -0,0 +1,166 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.internal;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * A simple circuit breaker. After a given number of consecutive failures,
+ * the breaker opens and rejects all calls until a reset duration has
+ * elapsed. After the reset duration, a single trial call is permitted; if
+ * the trial call succeeds, the breaker closes again, and otherwise it
+ * reopens for another reset duration.
+ */
+
+public final class EISCircuitBreaker
+{
+  private final int failureThreshold;
+  private final long resetNanos;
+  private final LongSupplier nanoTime;
+  private EISCircuitBreakerState state;
+  private int failures;
+  private long openedAt;
+
+  /**
+   * The state of a circuit breaker.
+   */
+
+  public enum EISCircuitBreakerState
+  {
+    /**
+     * Calls are permitted.
+     */
+
+    CLOSED,
+
+    /**
+     * Calls are rejected.
+     */
+
+    OPEN,
+
+    /**
+     * A single trial call is in progress.
+     */
+
+    HALF_OPEN
+  }
+
+  /**
+   * A simple circuit breaker.
+   *
+   * @param inFailureThreshold The number of consecutive failures that will
+   *                           open the breaker
+   * @param inResetDuration    The amount of time the breaker remains open
+   * @param inNanoTime         A source of monotonic time in nanoseconds
+   */
+
+  public EISCircuitBreaker(
+    final int inFailureThreshold,
+    final Duration inResetDuration,
+    final LongSupplier inNanoTime)
+  {
+    Objects.requireNonNull(inResetDuration, "resetDuration");
+
+    this.failureThreshold = inFailureThreshold;
+    this.resetNanos = inResetDuration.toNanos();
+    this.nanoTime = Objects.requireNonNull(inNanoTime, "nanoTime");
+    this.state = EISCircuitBreakerState.CLOSED;
+    this.failures = 0;
+    this.openedAt = 0L;
+  }
+
+  /**
+   * A simple circuit breaker using {@link System#nanoTime()}.
+   *
+   * @param inFailureThreshold The number of consecutive failures that will
+   *                           open the breaker
+   * @param inResetDuration    The amount of time the breaker remains open
+   */
+
+  public EISCircuitBreaker(
+    final int inFailureThreshold,
+    final Duration inResetDuration)
+  {
+    this(inFailureThreshold, inResetDuration, System::nanoTime);
+  }
+
+  /**
+   * Determine if a call may proceed. If this method returns {@code true},
+   * the caller must subsequently call exactly one of {@link #onSuccess()}
+   * or {@link #onFailure()}, typically from a {@code finally} block. A
+   * permitted trial call that never reports an outcome leaves the breaker
+   * half-open, rejecting all calls.
+   *
+   * @return {@code true} if the call is permitted
+   */
+
+  public synchronized boolean tryAcquire()
+  {
+    return switch (this.state) {
+      case CLOSED -> true;
+      case HALF_OPEN -> false;
+      case OPEN -> {
+        final var elapsed = this.nanoTime.getAsLong() - this.openedAt;
+        if (elapsed >= this.resetNanos) {
+          this.state = EISCircuitBreakerState.HALF_OPEN;
+          yield true;
+        }
+        yield false;
+      }
+    };
+  }
+
+  /**
+   * Indicate that a permitted call succeeded.
+   */
+
+  public synchronized void onSuccess()
+  {
+    this.failures = 0;
+    this.state = EISCircuitBreakerState.CLOSED;
+  }
+
+  /**
+   * Indicate that a permitted call failed.
+   */
+
+  public synchronized void onFailure()
+  {
+    if (this.failures < Integer.MAX_VALUE) {
+      ++this.failures;
+    }
+
+    if (this.state == EISCircuitBreakerState.HALF_OPEN
+        || this.failures >= this.failureThreshold) {
+      this.state = EISCircuitBreakerState.OPEN;
+      this.openedAt = this.nanoTime.getAsLong();
+    }
+  }
+
+  /**
+   * @return The current state of the breaker
+   */
+
+  public synchronized EISCircuitBreakerState state()
+  {
+    return this.state;
+  }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.internal;
+
+import com.io7m.eigion.server.api.EIServerConfiguration;
+import com.io7m.eigion.server.api.EIServerFlightRecorderConfiguration;
+import com.io7m.eigion.services.api.EIServiceType;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.text.ParseException;
+import java.time.Clock;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A service that maintains a continuous flight recording, and dumps the
+ * recording to disk when a request exceeds a configured latency threshold.
+ * If flight recording is not configured, the service does nothing.
+ */
+
+public final class EISFlightRecorderService
+  implements EIServiceType, AutoCloseable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(EISFlightRecorderService.class);
+
+  private final Optional<Active> active;
+
+  private EISFlightRecorderService(
+    final Optional<Active> inActive)
+  {
+    this.active = Objects.requireNonNull(inActive, "active");
+  }
+
+  /**
+   * Create a flight recorder service.
+   *
+   * @param configuration The server configuration
+   *
+   * @return The service
+   *
+   * @throws IOException On errors creating the dump directory or starting
+   *                     the recording
+   */
+
+  public static EISFlightRecorderService create(
+    final EIServerConfiguration configuration)
+    throws IOException
+  {
+    Objects.requireNonNull(configuration, "configuration");
+
+    final var recorderOpt = configuration.flightRecorder();
+    if (recorderOpt.isEmpty()) {
+      return new EISFlightRecorderService(Optional.empty());
+    }
+
+    final var recorderConfiguration = recorderOpt.get();
+    Files.createDirectories(recorderConfiguration.dumpDirectory());
+
+    final Recording recording;
+    try {
+      recording = new Recording(Configuration.getConfiguration("default"));
+    } catch (final ParseException e) {
+      throw new IOException(e);
+    }
+
+    recording.setName("eigion");
+    recording.setToDisk(true);
+    recording.setMaxAge(recorderConfiguration.maximumAge());
+    recording.start();
+
+    LOG.info(
+      "continuous flight recording started (dumps to {})",
+      recorderConfiguration.dumpDirectory()
+    );
+
+    final var executor =
+      Executors.newSingleThreadExecutor(r -> {
+        final var thread = new Thread(r);
+        thread.setDaemon(true);
+        thread.setName(
+          "com.io7m.eigion.server.internal.EISFlightRecorderService[%d]".formatted(
+            thread.getId()));
+        return thread;
+      });
+
+    return new EISFlightRecorderService(
+      Optional.of(
+        new Active(
+          recorderConfiguration,
+          configuration.clock(),
+          recording,
+          executor
+        )
+      )
+    );
+  }
+
+  /**
+   * Indicate that a request has completed. If the request took at least as
+   * long as the latency threshold, and no dump has occurred within the
+   * minimum dump interval, the recording is dumped asynchronously.
+   *
+   * @param path     The request path
+   * @param duration The request duration in nanoseconds
+   */
+
+  public void requestCompleted(
+    final String path,
+    final long duration)
+  {
+    if (this.active.isPresent()) {
+      this.active.get().requestCompleted(path, duration);
+    }
+  }
+
+  @Override
+  public String description()
+  {
+    return "Flight recorder service.";
+  }
+
+  @Override
+  public void close()
+  {
+    if (this.active.isPresent()) {
+      this.active.get().close();
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[EISFlightRecorderService 0x%s]"
+      .formatted(Long.toUnsignedString(this.hashCode(), 16));
+  }
+
+  private static final class Active
+  {
+    private final EIServerFlightRecorderConfiguration configuration;
+    private final Clock clock;
+    private final Recording recording;
+    private final ExecutorService executor;
+    private final long thresholdNanos;
+    private final long intervalNanos;
+    private final AtomicLong lastDump;
+    private final AtomicBoolean dumped;
+    private final AtomicBoolean closed;
+
+    Active(
+      final EIServerFlightRecorderConfiguration inConfiguration,
+      final Clock inClock,
+      final Recording inRecording,
+      final ExecutorService inExecutor)
+    {
+      this.configuration =
+        Objects.requireNonNull(inConfiguration, "configuration");
+      this.clock =
+        Objects.requireNonNull(inClock, "clock");
+      this.recording =
+        Objects.requireNonNull(inRecording, "recording");
+      this.executor =
+        Objects.requireNonNull(inExecutor, "executor");
+      this.thresholdNanos =
+        inConfiguration.latencyThreshold().toNanos();
+      this.intervalNanos =
+        inConfiguration.minimumDumpInterval().toNanos();
+      this.lastDump =
+        new AtomicLong(0L);
+      this.dumped =
+        new AtomicBoolean(false);
+      this.closed =
+        new AtomicBoolean(false);
+    }
+
+    void requestCompleted(
+      final String path,
+      final long duration)
+    {
+      if (duration < this.thresholdNanos) {
+        return;
+      }
+
+      final var timeNow = System.nanoTime();
+      final var timeLast = this.lastDump.get();
+      if (this.dumped.get() && timeNow - timeLast < this.intervalNanos) {
+        return;
+      }
+      if (!this.lastDump.compareAndSet(timeLast, timeNow)) {
+        return;
+      }
+      this.dumped.set(true);
+
+      try {
+        this.executor.execute(() -> this.dump(path, duration));
+      } catch (final Exception e) {
+        LOG.debug("unable to schedule recording dump: ", e);
+      }
+    }
+
+    private void dump(
+      final String path,
+      final long duration)
+    {
+      final var file =
+        this.configuration.dumpDirectory()
+          .resolve("eigion-%d.jfr".formatted(
+            Long.valueOf(this.clock.millis())));
+
+      try {
+        this.recording.dump(file);
+        LOG.warn(
+          "request {} took {}ms; flight recording dumped to {}",
+          path,
+          Long.valueOf(TimeUnit.NANOSECONDS.toMillis(duration)),
+          file
+        );
+      } catch (final Exception e) {
+        LOG.error("unable to dump flight recording to {}: ", file, e);
+      }
+    }
+
+    void close()
+    {
+      if (this.closed.compareAndSet(false, true)) {
+        this.executor.shutdown();
+        try {
+          this.executor.awaitTermination(30L, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        this.recording.close();
+      }
+    }
+  }
+}
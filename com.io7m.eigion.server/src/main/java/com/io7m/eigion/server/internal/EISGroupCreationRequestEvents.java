@@ -0,0 +1,269 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.internal;
+
+import com.io7m.eigion.model.EIGroupCreationRequest;
+import com.io7m.eigion.model.EIToken;
+import com.io7m.eigion.server.database.api.EISDatabaseException;
+import com.io7m.eigion.server.database.api.EISDatabaseGroupsQueriesType;
+import com.io7m.eigion.server.database.api.EISDatabaseNotification;
+import com.io7m.eigion.server.database.api.EISDatabaseNotificationChannel;
+import com.io7m.eigion.server.database.api.EISDatabaseNotificationReceiverType;
+import com.io7m.eigion.server.database.api.EISDatabaseSubscriptionType;
+import com.io7m.eigion.server.database.api.EISDatabaseType;
+import com.io7m.eigion.server.internal.sessions.EISUserSessionService;
+import com.io7m.eigion.services.api.EIServiceType;
+import io.opentelemetry.api.metrics.LongCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.io7m.eigion.server.database.api.EISDatabaseRole.EIGION;
+
+/**
+ * A service that delivers changes to group creation requests to the
+ * mailboxes of the sessions belonging to the requesting users. Changes are
+ * received as database notifications, and so changes made on any server node
+ * are delivered to sessions on every node.
+ *
+ * When notifications may have been lost, the service redelivers the
+ * requests that are still in progress, and the requests that completed
+ * after the most recent notification that was received. Requests that
+ * completed before that time cannot have had their notifications lost.
+ */
+
+public final class EISGroupCreationRequestEvents
+  implements EIServiceType, AutoCloseable, EISDatabaseNotificationReceiverType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(EISGroupCreationRequestEvents.class);
+
+  /**
+   * The margin subtracted from the time of the most recent notification when
+   * resynchronizing. A request can complete shortly before the notification
+   * of an unrelated request is received, but commit after it.
+   */
+
+  private static final Duration RESYNCHRONIZE_MARGIN =
+    Duration.ofMinutes(5L);
+
+  private final EISClock clock;
+  private final EISDatabaseType database;
+  private final EISUserSessionService sessions;
+  private final ExecutorService loader;
+  private final LongCounter delivered;
+  private EISDatabaseSubscriptionType subscription;
+  private volatile OffsetDateTime synchronizedAt;
+
+  private EISGroupCreationRequestEvents(
+    final EISClock inClock,
+    final EISTelemetryService inTelemetry,
+    final EISDatabaseType inDatabase,
+    final EISUserSessionService inSessions)
+  {
+    this.clock =
+      Objects.requireNonNull(inClock, "clock");
+    this.synchronizedAt =
+      inClock.nowPrecise();
+    this.database =
+      Objects.requireNonNull(inDatabase, "database");
+    this.sessions =
+      Objects.requireNonNull(inSessions, "sessions");
+
+    this.loader =
+      Executors.newSingleThreadExecutor(r -> {
+        final var thread = new Thread(r);
+        thread.setDaemon(true);
+        thread.setName(
+          "com.io7m.eigion.server.internal.EISGroupCreationRequestEvents[%d]"
+            .formatted(Long.valueOf(thread.getId())));
+        return thread;
+      });
+
+    final var meter =
+      inTelemetry.openTelemetry()
+        .meterBuilder(EISGroupCreationRequestEvents.class.getCanonicalName())
+        .build();
+
+    this.delivered =
+      meter.counterBuilder("eigion.groupCreationRequestEvents.delivered")
+        .setDescription(
+          "Group creation request changes delivered to user sessions.")
+        .build();
+  }
+
+  /**
+   * Create a group creation request event service.
+   *
+   * @param clock     The clock
+   * @param telemetry The telemetry service
+   * @param database  The database
+   * @param sessions  The user sessions
+   *
+   * @return A service
+   *
+   * @throws EISDatabaseException On errors
+   */
+
+  public static EISGroupCreationRequestEvents create(
+    final EISClock clock,
+    final EISTelemetryService telemetry,
+    final EISDatabaseType database,
+    final EISUserSessionService sessions)
+    throws EISDatabaseException
+  {
+    Objects.requireNonNull(clock, "clock");
+    Objects.requireNonNull(telemetry, "telemetry");
+    Objects.requireNonNull(database, "database");
+    Objects.requireNonNull(sessions, "sessions");
+
+    final var events =
+      new EISGroupCreationRequestEvents(clock, telemetry, database, sessions);
+    events.subscription =
+      database.subscribe(
+        EISDatabaseNotificationChannel.GROUP_CREATION_REQUESTS,
+        events
+      );
+    return events;
+  }
+
+  @Override
+  public void onNotification(
+    final EISDatabaseNotification notification)
+  {
+    this.synchronizedAt = this.clock.nowPrecise();
+
+    final var payload = notification.payload();
+    final var separator = payload.indexOf('|');
+
+    final UUID userId;
+    final EIToken token;
+    try {
+      userId = UUID.fromString(payload.substring(0, separator));
+      token = new EIToken(payload.substring(separator + 1));
+    } catch (final RuntimeException e) {
+      LOG.warn("malformed group creation request notification: {}", payload);
+      return;
+    }
+
+    if (this.sessions.hasSessionsForUser(userId)) {
+      this.loader.execute(() -> this.loadRequest(userId, token));
+    }
+  }
+
+  @Override
+  public void onResynchronize()
+  {
+    /*
+     * Notifications may have been lost since the most recent notification
+     * was received. Deliver the current state of every request belonging to
+     * users with sessions on this node that might have changed in that time;
+     * consumers only ever see the most recent state of each request, so
+     * redelivering unchanged requests is harmless.
+     */
+
+    final var since =
+      this.synchronizedAt.minus(RESYNCHRONIZE_MARGIN);
+    this.synchronizedAt =
+      this.clock.nowPrecise();
+
+    for (final var userId : this.sessions.activeUsers()) {
+      this.loader.execute(() -> this.loadRequestsForUser(userId, since));
+    }
+  }
+
+  /*
+   * Requests are read from the primary rather than a replica, as a replica
+   * might not yet have applied the transaction that published the
+   * notification.
+   */
+
+  private void loadRequest(
+    final UUID userId,
+    final EIToken token)
+  {
+    try (var connection = this.database.openConnection(EIGION)) {
+      try (var transaction = connection.openTransaction()) {
+        final var groups =
+          transaction.queries(EISDatabaseGroupsQueriesType.class);
+        groups.groupCreationRequest(token)
+          .ifPresent(request -> this.deliver(userId, request));
+      }
+    } catch (final Exception e) {
+      LOG.error("failed to load group creation request {}: ", token, e);
+    }
+  }
+
+  private void loadRequestsForUser(
+    final UUID userId,
+    final OffsetDateTime since)
+  {
+    try (var connection = this.database.openConnection(EIGION)) {
+      try (var transaction = connection.openTransaction()) {
+        final var groups =
+          transaction.queries(EISDatabaseGroupsQueriesType.class);
+        final var requests =
+          groups.groupCreationRequestsChangedSince(userId, since);
+        for (final var request : requests) {
+          this.deliver(userId, request);
+        }
+      }
+    } catch (final Exception e) {
+      LOG.error(
+        "failed to load group creation requests for user {}: ", userId, e);
+    }
+  }
+
+  private void deliver(
+    final UUID userId,
+    final EIGroupCreationRequest request)
+  {
+    for (final var session : this.sessions.sessionsForUser(userId)) {
+      session.groupCreationRequestMailbox().offer(request);
+      this.delivered.add(1L);
+    }
+  }
+
+  @Override
+  public void close()
+  {
+    if (this.subscription != null) {
+      this.subscription.close();
+    }
+    this.loader.shutdown();
+  }
+
+  @Override
+  public String description()
+  {
+    return "Group creation request event service.";
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[EISGroupCreationRequestEvents 0x%s]"
+      .formatted(Long.toUnsignedString(this.hashCode(), 16));
+  }
+}
@@ -0,0 +1,414 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.internal;
+
+import com.io7m.eigion.model.EIGroupName;
+import com.io7m.eigion.server.database.api.EISDatabaseException;
+import com.io7m.eigion.server.database.api.EISDatabaseGroupsQueriesType;
+import com.io7m.eigion.server.database.api.EISDatabaseNotification;
+import com.io7m.eigion.server.database.api.EISDatabaseNotificationChannel;
+import com.io7m.eigion.server.database.api.EISDatabaseNotificationReceiverType;
+import com.io7m.eigion.server.database.api.EISDatabaseSubscriptionType;
+import com.io7m.eigion.server.database.api.EISDatabaseType;
+import com.io7m.eigion.services.api.EIServiceType;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.ObservableDoubleGauge;
+import io.opentelemetry.api.metrics.ObservableLongGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.io7m.eigion.server.database.api.EISDatabaseRole.EIGION;
+
+/**
+ * A Bloom filter over the names of all existing groups. The filter is loaded
+ * at startup and is kept current by the notifications published whenever any
+ * server node creates a group. A name that is not in the filter might still
+ * exist (if a notification has not yet arrived), and a name that is in the
+ * filter might not exist (a false positive), so the filter is only used to
+ * decide whether it is worth asking the database if a name is taken.
+ */
+
+public final class EISGroupNameFilter
+  implements EIServiceType, AutoCloseable, EISDatabaseNotificationReceiverType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(EISGroupNameFilter.class);
+
+  private static final long MINIMUM_CAPACITY = 100_000L;
+
+  private static final double FALSE_POSITIVE_RATE = 0.01;
+
+  private final EISDatabaseType database;
+  private final ExecutorService loader;
+  private final AtomicBoolean loading;
+  private final LongCounter positives;
+  private final LongCounter negatives;
+  private final LongCounter falsePositives;
+  private final ObservableLongGauge sizeGauge;
+  private final ObservableLongGauge memoryGauge;
+  private final ObservableDoubleGauge rateGauge;
+  private volatile Filter filter;
+  private EISDatabaseSubscriptionType subscription;
+
+  private EISGroupNameFilter(
+    final EISTelemetryService inTelemetry,
+    final EISDatabaseType inDatabase)
+  {
+    this.database =
+      Objects.requireNonNull(inDatabase, "database");
+    this.loading =
+      new AtomicBoolean(false);
+    this.filter =
+      Filter.create(MINIMUM_CAPACITY);
+
+    this.loader =
+      Executors.newSingleThreadExecutor(r -> {
+        final var thread = new Thread(r);
+        thread.setDaemon(true);
+        thread.setName(
+          "com.io7m.eigion.server.internal.EISGroupNameFilter[%d]"
+            .formatted(Long.valueOf(thread.getId())));
+        return thread;
+      });
+
+    final var meter =
+      inTelemetry.openTelemetry()
+        .meterBuilder(EISGroupNameFilter.class.getCanonicalName())
+        .build();
+
+    this.positives =
+      meter.counterBuilder("eigion.groupNameFilter.positives")
+        .setDescription(
+          "Group names that the filter reported as possibly existing.")
+        .build();
+    this.negatives =
+      meter.counterBuilder("eigion.groupNameFilter.negatives")
+        .setDescription(
+          "Group names that the filter reported as definitely not existing.")
+        .build();
+    this.falsePositives =
+      meter.counterBuilder("eigion.groupNameFilter.falsePositives")
+        .setDescription(
+          "Group names reported as possibly existing that did not exist.")
+        .build();
+    this.sizeGauge =
+      meter.gaugeBuilder("eigion.groupNameFilter.size")
+        .setDescription("The number of names added to the filter.")
+        .ofLongs()
+        .buildWithCallback(m -> {
+          m.record(this.filter.count());
+        });
+    this.memoryGauge =
+      meter.gaugeBuilder("eigion.groupNameFilter.memory")
+        .setDescription("The size of the filter.")
+        .setUnit("By")
+        .ofLongs()
+        .buildWithCallback(m -> {
+          m.record(this.filter.sizeBytes());
+        });
+    this.rateGauge =
+      meter.gaugeBuilder("eigion.groupNameFilter.falsePositiveRate")
+        .setDescription(
+          "The expected false positive rate of the filter at its current size.")
+        .buildWithCallback(m -> {
+          m.record(this.filter.falsePositiveRate());
+        });
+  }
+
+  /**
+   * Create a group name filter, loading all existing group names.
+   *
+   * @param telemetry The telemetry service
+   * @param database  The database
+   *
+   * @return A group name filter
+   *
+   * @throws EISDatabaseException On errors
+   */
+
+  public static EISGroupNameFilter create(
+    final EISTelemetryService telemetry,
+    final EISDatabaseType database)
+    throws EISDatabaseException
+  {
+    Objects.requireNonNull(telemetry, "telemetry");
+    Objects.requireNonNull(database, "database");
+
+    final var filter = new EISGroupNameFilter(telemetry, database);
+    filter.subscription =
+      database.subscribe(EISDatabaseNotificationChannel.GROUPS_CREATED, filter);
+    filter.loading.set(true);
+    filter.load();
+    return filter;
+  }
+
+  /**
+   * Determine if a group with the given name exists. The database is only
+   * consulted if the filter reports that the name possibly exists.
+   *
+   * @param queries The group queries used to confirm possible matches
+   * @param name    The group name
+   *
+   * @return {@code true} if the group definitely exists
+   *
+   * @throws EISDatabaseException On errors
+   */
+
+  public boolean exists(
+    final EISDatabaseGroupsQueriesType queries,
+    final EIGroupName name)
+    throws EISDatabaseException
+  {
+    Objects.requireNonNull(queries, "queries");
+    Objects.requireNonNull(name, "name");
+
+    if (!this.filter.mightContain(name.value())) {
+      this.negatives.add(1L);
+      return false;
+    }
+
+    this.positives.add(1L);
+    if (queries.groupExists(name)) {
+      return true;
+    }
+
+    this.falsePositives.add(1L);
+    return false;
+  }
+
+  private void load()
+    throws EISDatabaseException
+  {
+    try (var connection = this.database.openConnectionReadOnly(EIGION)) {
+      try (var transaction = connection.openTransaction()) {
+        final var queries =
+          transaction.queries(EISDatabaseGroupsQueriesType.class);
+
+        /*
+         * The new filter is installed before it is populated so that names
+         * announced by notifications during loading are not lost. Lookups
+         * during loading merely see fewer names than actually exist.
+         */
+
+        final var newFilter =
+          Filter.create(Math.max(MINIMUM_CAPACITY, queries.groupCount() * 2L));
+        this.filter = newFilter;
+
+        final var count =
+          queries.groupNamesEach(names -> {
+            for (final var name : names) {
+              newFilter.add(name.value());
+            }
+          });
+
+        LOG.debug(
+          "loaded {} group names ({} bytes)",
+          Long.valueOf(count),
+          Long.valueOf(newFilter.sizeBytes()));
+      }
+    } finally {
+      this.loading.set(false);
+    }
+  }
+
+  private void reload()
+  {
+    if (this.loading.compareAndSet(false, true)) {
+      this.loader.execute(() -> {
+        try {
+          this.load();
+        } catch (final Exception e) {
+          LOG.error("failed to load group names: ", e);
+        }
+      });
+    }
+  }
+
+  @Override
+  public void onNotification(
+    final EISDatabaseNotification notification)
+  {
+    final var current = this.filter;
+    current.add(notification.payload());
+
+    /*
+     * The false positive rate rises quickly once a filter holds more names
+     * than it was sized for, so build a larger filter.
+     */
+
+    if (current.count() > current.capacity()) {
+      this.reload();
+    }
+  }
+
+  @Override
+  public void onResynchronize()
+  {
+    this.reload();
+  }
+
+  @Override
+  public void close()
+  {
+    if (this.subscription != null) {
+      this.subscription.close();
+    }
+    this.sizeGauge.close();
+    this.memoryGauge.close();
+    this.rateGauge.close();
+    this.loader.shutdown();
+  }
+
+  @Override
+  public String description()
+  {
+    return "Group name filter service.";
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[EISGroupNameFilter 0x%s]"
+      .formatted(Long.toUnsignedString(this.hashCode(), 16));
+  }
+
+  /*
+   * A Bloom filter using double hashing over a 64-bit hash of each name.
+   * Bits may be set concurrently from any thread.
+   */
+
+  private static final class Filter
+  {
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    private final long capacity;
+    private final AtomicLong count;
+
+    private Filter(
+      final long inCapacity,
+      final long inBits,
+      final int inHashes)
+    {
+      this.capacity = inCapacity;
+      this.bits = inBits;
+      this.hashes = inHashes;
+      this.words = new AtomicLongArray(Math.toIntExact((inBits + 63L) / 64L));
+      this.count = new AtomicLong(0L);
+    }
+
+    static Filter create(
+      final long capacity)
+    {
+      final var ln2 = Math.log(2.0);
+      final var bits =
+        (long) Math.ceil(
+          -((double) capacity * Math.log(FALSE_POSITIVE_RATE)) / (ln2 * ln2));
+      final var hashes =
+        (int) Math.max(1L, Math.round((double) bits / capacity * ln2));
+      return new Filter(capacity, bits, hashes);
+    }
+
+    long capacity()
+    {
+      return this.capacity;
+    }
+
+    long count()
+    {
+      return this.count.get();
+    }
+
+    long sizeBytes()
+    {
+      return (long) this.words.length() * 8L;
+    }
+
+    double falsePositiveRate()
+    {
+      final var exponent =
+        -((double) this.hashes * this.count.get()) / (double) this.bits;
+      return Math.pow(1.0 - Math.exp(exponent), this.hashes);
+    }
+
+    void add(
+      final String name)
+    {
+      final var hash = hash(name);
+      final var h1 = (int) hash;
+      final var h2 = (int) (hash >>> 32);
+      for (int index = 0; index < this.hashes; ++index) {
+        final var bit = this.bitOf(h1, h2, index);
+        final var mask = 1L << (bit & 63L);
+        this.words.getAndAccumulate((int) (bit >>> 6), mask, (x, y) -> x | y);
+      }
+      this.count.incrementAndGet();
+    }
+
+    boolean mightContain(
+      final String name)
+    {
+      final var hash = hash(name);
+      final var h1 = (int) hash;
+      final var h2 = (int) (hash >>> 32);
+      for (int index = 0; index < this.hashes; ++index) {
+        final var bit = this.bitOf(h1, h2, index);
+        final var mask = 1L << (bit & 63L);
+        if ((this.words.get((int) (bit >>> 6)) & mask) == 0L) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private long bitOf(
+      final int h1,
+      final int h2,
+      final int index)
+    {
+      final var combined =
+        Integer.toUnsignedLong(h1) + (long) index * Integer.toUnsignedLong(h2);
+      return Long.remainderUnsigned(combined, this.bits);
+    }
+
+    /*
+     * FNV-1a over the characters of the name, followed by the SplitMix64
+     * finalizer to spread the bits across both halves of the result.
+     */
+
+    private static long hash(
+      final String name)
+    {
+      var h = 0xcbf29ce484222325L;
+      for (int index = 0; index < name.length(); ++index) {
+        h ^= name.charAt(index);
+        h *= 0x100000001b3L;
+      }
+      h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+      h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+      return h ^ (h >>> 31);
+    }
+  }
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.internal;
+
+import com.io7m.eigion.model.EIGroupName;
+import com.io7m.eigion.model.EIGroupSearchByNameParameters;
+import com.io7m.eigion.model.EIPage;
+import com.io7m.eigion.server.database.api.EISDatabaseException;
+import com.io7m.eigion.server.database.api.EISDatabaseGroupsQueriesType;
+import com.io7m.eigion.server.database.api.EISDatabaseNotification;
+import com.io7m.eigion.server.database.api.EISDatabaseNotificationChannel;
+import com.io7m.eigion.server.database.api.EISDatabaseNotificationReceiverType;
+import com.io7m.eigion.server.database.api.EISDatabasePagedQueryType;
+import com.io7m.eigion.server.database.api.EISDatabaseSubscriptionType;
+import com.io7m.eigion.server.database.api.EISDatabaseType;
+import com.io7m.eigion.services.api.EIServiceType;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.ObservableLongGauge;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
+
+/**
+ * A cache of the first pages of group searches by name. Concurrent identical
+ * searches are coalesced such that only one of them queries the database.
+ * Entries are invalidated when any server node creates a group with a name
+ * that matches the search, and otherwise expire after a short time in order
+ * to bound the staleness introduced by replica lag.
+ */
+
+public final class EISGroupSearchCache
+  implements EIServiceType, AutoCloseable, EISDatabaseNotificationReceiverType
+{
+  private static final int MAXIMUM_SIZE = 1_000;
+
+  private static final Duration EXPIRY = Duration.ofSeconds(30L);
+
+  private final ConcurrentHashMap<Key, CompletableFuture<Entry>> entries;
+  private final LongCounter hits;
+  private final LongCounter misses;
+  private final LongCounter coalesced;
+  private final LongCounter invalidations;
+  private final ObservableLongGauge sizeGauge;
+  private EISDatabaseSubscriptionType subscription;
+
+  private EISGroupSearchCache(
+    final EISTelemetryService inTelemetry)
+  {
+    this.entries =
+      new ConcurrentHashMap<>();
+
+    final var meter =
+      inTelemetry.openTelemetry()
+        .meterBuilder(EISGroupSearchCache.class.getCanonicalName())
+        .build();
+
+    this.hits =
+      meter.counterBuilder("eigion.groupSearchCache.hits")
+        .setDescription("Group searches served from the cache.")
+        .build();
+    this.misses =
+      meter.counterBuilder("eigion.groupSearchCache.misses")
+        .setDescription("Group searches that required a database query.")
+        .build();
+    this.coalesced =
+      meter.counterBuilder("eigion.groupSearchCache.coalesced")
+        .setDescription(
+          "Group searches that waited for an identical search in progress.")
+        .build();
+    this.invalidations =
+      meter.counterBuilder("eigion.groupSearchCache.invalidations")
+        .setDescription("Group search cache entries invalidated.")
+        .build();
+    this.sizeGauge =
+      meter.gaugeBuilder("eigion.groupSearchCache.size")
+        .setDescription("The number of cached group searches.")
+        .ofLongs()
+        .buildWithCallback(m -> {
+          m.record(Integer.toUnsignedLong(this.entries.size()));
+        });
+  }
+
+  /**
+   * Create a group search cache.
+   *
+   * @param telemetry The telemetry service
+   * @param database  The database
+   *
+   * @return A group search cache
+   *
+   * @throws EISDatabaseException On errors
+   */
+
+  public static EISGroupSearchCache create(
+    final EISTelemetryService telemetry,
+    final EISDatabaseType database)
+    throws EISDatabaseException
+  {
+    Objects.requireNonNull(telemetry, "telemetry");
+    Objects.requireNonNull(database, "database");
+
+    final var cache = new EISGroupSearchCache(telemetry);
+    cache.subscription =
+      database.subscribe(EISDatabaseNotificationChannel.GROUPS_CREATED, cache);
+    return cache;
+  }
+
+  /**
+   * Search for groups by name, consulting the cache first.
+   *
+   * @param queries    The group queries used on a cache miss
+   * @param parameters The search parameters
+   *
+   * @return A new search positioned at the first page, and the first page
+   *
+   * @throws EISDatabaseException On errors
+   */
+
+  public EISGroupSearchCacheResult groupSearchByName(
+    final EISDatabaseGroupsQueriesType queries,
+    final EIGroupSearchByNameParameters parameters)
+    throws EISDatabaseException
+  {
+    Objects.requireNonNull(queries, "queries");
+    Objects.requireNonNull(parameters, "parameters");
+
+    final var key = Key.of(parameters);
+
+    while (true) {
+      final var existing = this.entries.get(key);
+      if (existing != null) {
+        final var entry = this.awaitEntry(existing);
+        if (entry.isPresent() && !entry.get().isExpired(Instant.now())) {
+          this.hits.add(1L);
+          return entry.get().result();
+        }
+
+        /*
+         * The entry either expired, or the search that would have
+         * produced it failed. Remove it and try again.
+         */
+
+        this.entries.remove(key, existing);
+        continue;
+      }
+
+      if (this.entries.size() >= MAXIMUM_SIZE) {
+        this.evictExpired();
+        if (this.entries.size() >= MAXIMUM_SIZE) {
+          this.misses.add(1L);
+          return search(queries, parameters).result();
+        }
+      }
+
+      final var future = new CompletableFuture<Entry>();
+      if (this.entries.putIfAbsent(key, future) != null) {
+        continue;
+      }
+
+      this.misses.add(1L);
+      try {
+        final var entry = search(queries, parameters);
+        future.complete(entry);
+        return entry.result();
+      } catch (final EISDatabaseException | RuntimeException e) {
+        this.entries.remove(key, future);
+        future.completeExceptionally(e);
+        throw e;
+      }
+    }
+  }
+
+  private Optional<Entry> awaitEntry(
+    final CompletableFuture<Entry> future)
+  {
+    if (!future.isDone()) {
+      this.coalesced.add(1L);
+    }
+
+    try {
+      return Optional.of(future.get());
+    } catch (final ExecutionException e) {
+      return Optional.empty();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return Optional.empty();
+    }
+  }
+
+  private void evictExpired()
+  {
+    final var now = Instant.now();
+    this.entries.values().removeIf(future -> {
+      return future.isDone()
+             && !future.isCompletedExceptionally()
+             && future.join().isExpired(now);
+    });
+  }
+
+  private static Entry search(
+    final EISDatabaseGroupsQueriesType queries,
+    final EIGroupSearchByNameParameters parameters)
+    throws EISDatabaseException
+  {
+    final var search =
+      queries.groupSearchByName(parameters);
+    final var page =
+      search.pageCurrent(queries);
+
+    return new Entry(search, page, Instant.now());
+  }
+
+  @Override
+  public void onNotification(
+    final EISDatabaseNotification notification)
+  {
+    final var name = notification.payload();
+    for (final var key : this.entries.keySet()) {
+      if (key.matches(name)) {
+        if (this.entries.remove(key) != null) {
+          this.invalidations.add(1L);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void onResynchronize()
+  {
+    this.invalidations.add(Integer.toUnsignedLong(this.entries.size()));
+    this.entries.clear();
+  }
+
+  @Override
+  public void close()
+  {
+    if (this.subscription != null) {
+      this.subscription.close();
+    }
+    this.sizeGauge.close();
+  }
+
+  @Override
+  public String description()
+  {
+    return "Group search cache service.";
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[EISGroupSearchCache 0x%s]"
+      .formatted(Long.toUnsignedString(this.hashCode(), 16));
+  }
+
+  /*
+   * The normalized form of the search parameters. The database lowercases
+   * name queries and clamps limits, and so parameters that differ only in
+   * those respects describe the same search.
+   */
+
+  private record Key(
+    Optional<String> name,
+    long limit)
+  {
+    static Key of(
+      final EIGroupSearchByNameParameters parameters)
+    {
+      return new Key(
+        parameters.name().map(n -> n.toLowerCase(Locale.ROOT)),
+        parameters.limit()
+      );
+    }
+
+    boolean matches(
+      final String groupName)
+    {
+      return this.name
+        .map(n -> likePattern(n).matcher(groupName).matches())
+        .orElse(Boolean.TRUE)
+        .booleanValue();
+    }
+  }
+
+  /*
+   * Translate an SQL LIKE pattern into a regular expression. As in
+   * PostgreSQL, a backslash escapes the following character.
+   */
+
+  private static Pattern likePattern(
+    final String like)
+  {
+    final var regex = new StringBuilder(like.length() * 2);
+    final var literal = new StringBuilder();
+    var index = 0;
+    while (index < like.length()) {
+      final var c = like.charAt(index);
+      switch (c) {
+        case '\\' -> {
+          if (index + 1 < like.length()) {
+            literal.append(like.charAt(index + 1));
+            ++index;
+          }
+        }
+        case '%' -> {
+          flushLiteral(regex, literal);
+          regex.append(".*");
+        }
+        case '_' -> {
+          flushLiteral(regex, literal);
+          regex.append('.');
+        }
+        default -> literal.append(c);
+      }
+      ++index;
+    }
+    flushLiteral(regex, literal);
+    return Pattern.compile(regex.toString(), Pattern.DOTALL);
+  }
+
+  private static void flushLiteral(
+    final StringBuilder regex,
+    final StringBuilder literal)
+  {
+    if (!literal.isEmpty()) {
+      regex.append(Pattern.quote(literal.toString()));
+      literal.setLength(0);
+    }
+  }
+
+  /*
+   * A cached search. The search itself is never handed out, as searches
+   * carry a mutable current page; callers receive copies.
+   */
+
+  private record Entry(
+    EISDatabasePagedQueryType<EISDatabaseGroupsQueriesType, EIGroupName> search,
+    EIPage<EIGroupName> page,
+    Instant created)
+  {
+    boolean isExpired(
+      final Instant now)
+    {
+      return this.created.plus(EXPIRY).isBefore(now);
+    }
+
+    EISGroupSearchCacheResult result()
+    {
+      return new EISGroupSearchCacheResult(
+        this.search.copyAtFirstPage(),
+        this.page
+      );
+    }
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.internal;
+
+import com.io7m.eigion.model.EIGroupName;
+import com.io7m.eigion.model.EIPage;
+import com.io7m.eigion.server.database.api.EISDatabaseGroupsQueriesType;
+import com.io7m.eigion.server.database.api.EISDatabasePagedQueryType;
+
+import java.util.Objects;
+
+/**
+ * The result of a cached search for groups by name.
+ *
+ * @param search The search, positioned at the first page
+ * @param page   The first page of results
+ */
+
+public record EISGroupSearchCacheResult(
+  EISDatabasePagedQueryType<EISDatabaseGroupsQueriesType, EIGroupName> search,
+  EIPage<EIGroupName> page)
+{
+  /**
+   * The result of a cached search for groups by name.
+   *
+   * @param search The search, positioned at the first page
+   * @param page   The first page of results
+   */
+
+  public EISGroupSearchCacheResult
+  {
+    Objects.requireNonNull(search, "search");
+    Objects.requireNonNull(page, "page");
+  }
+}
@@ -15,80 +15,368 @@
  */
 
 
+
 package com.io7m.eigion.server.internal;
 
 import com.io7m.eigion.server.api.EIServerIdstoreConfiguration;
 import com.io7m.eigion.services.api.EIServiceType;
+import com.io7m.idstore.model.IdUser;
 import com.io7m.idstore.user_client.IdUClients;
 import com.io7m.idstore.user_client.api.IdUClientException;
 import com.io7m.idstore.user_client.api.IdUClientFactoryType;
 import com.io7m.idstore.user_client.api.IdUClientType;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.ObservableLongGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.IDSTORE_UNAVAILABLE;
+import static com.io7m.idstore.error_codes.IdStandardErrorCodes.AUTHENTICATION_ERROR;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.eclipse.jetty.http.HttpStatus.SERVICE_UNAVAILABLE_503;
 
 /**
- * Idstore clients.
+ * Idstore clients. Clients are pooled and shared between logins, the number
+ * of concurrent calls to the idstore server is bounded, and a circuit breaker
+ * rejects logins immediately when the idstore server appears to be down.
  */
 
-public final class EISIdstoreClients implements EIServiceType
+public final class EISIdstoreClients implements EIServiceType, AutoCloseable
 {
+  private static final Logger LOG =
+    LoggerFactory.getLogger(EISIdstoreClients.class);
+
+  private static final Duration ACQUIRE_TIMEOUT = Duration.ofSeconds(10L);
+
+  private static final AttributeKey<String> OUTCOME =
+    AttributeKey.stringKey("outcome");
+  private static final AttributeKey<String> REASON =
+    AttributeKey.stringKey("reason");
+
+  private static final Attributes OUTCOME_SUCCESS =
+    Attributes.of(OUTCOME, "success");
+  private static final Attributes OUTCOME_REJECTED =
+    Attributes.of(OUTCOME, "rejected");
+  private static final Attributes OUTCOME_FAILURE =
+    Attributes.of(OUTCOME, "failure");
+  private static final Attributes REASON_CIRCUIT_OPEN =
+    Attributes.of(REASON, "circuitOpen");
+  private static final Attributes REASON_CONCURRENCY =
+    Attributes.of(REASON, "concurrencyLimit");
+
   private final EIServerIdstoreConfiguration idstore;
   private final IdUClientFactoryType clients;
+  private final Duration acquireTimeout;
   private final Locale locale;
+  private final EISStrings strings;
+  private final LinkedBlockingDeque<IdUClientType> idle;
+  private final Semaphore permits;
+  private final EISCircuitBreaker breaker;
+  private final DoubleHistogram callLatency;
+  private final LongCounter callFailures;
+  private final LongCounter callsRejected;
+  private final ObservableLongGauge idleGauge;
 
   private EISIdstoreClients(
     final Locale inLocale,
+    final EISStrings inStrings,
+    final EISTelemetryService inTelemetry,
     final EIServerIdstoreConfiguration inIdstore,
-    final IdUClientFactoryType inClients)
+    final IdUClientFactoryType inClients,
+    final Duration inAcquireTimeout)
   {
     this.locale =
       Objects.requireNonNull(inLocale, "locale");
+    this.strings =
+      Objects.requireNonNull(inStrings, "strings");
     this.idstore =
       Objects.requireNonNull(inIdstore, "idstore");
     this.clients =
       Objects.requireNonNull(inClients, "clients");
+    this.acquireTimeout =
+      Objects.requireNonNull(inAcquireTimeout, "acquireTimeout");
+
+    this.idle =
+      new LinkedBlockingDeque<>(inIdstore.maximumConcurrentRequests());
+    this.permits =
+      new Semaphore(inIdstore.maximumConcurrentRequests(), true);
+    this.breaker =
+      new EISCircuitBreaker(
+        inIdstore.circuitBreakerFailureThreshold(),
+        inIdstore.circuitBreakerResetDuration()
+      );
+
+    final var meter =
+      inTelemetry.openTelemetry()
+        .meterBuilder(EISIdstoreClients.class.getCanonicalName())
+        .build();
+
+    this.callLatency =
+      meter.histogramBuilder("eigion.idstore.callLatency")
+        .setDescription("The time taken for calls to the idstore server.")
+        .setUnit("ms")
+        .build();
+    this.callFailures =
+      meter.counterBuilder("eigion.idstore.callFailures")
+        .setDescription("Calls to the idstore server that failed.")
+        .build();
+    this.callsRejected =
+      meter.counterBuilder("eigion.idstore.callsRejected")
+        .setDescription("Calls to the idstore server that were not attempted.")
+        .build();
+    this.idleGauge =
+      meter.gaugeBuilder("eigion.idstore.idleClients")
+        .setDescription("Idle idstore clients held in the pool.")
+        .ofLongs()
+        .buildWithCallback(m -> {
+          m.record(Integer.toUnsignedLong(this.idle.size()));
+        });
   }
 
   /**
    * Create an idstore client service.
    *
-   * @param inLocale The locale
-   * @param idstore  The idstore server configuration
+   * @param inLocale    The locale
+   * @param inStrings   The string resources
+   * @param inTelemetry The telemetry service
+   * @param idstore     The idstore server configuration
    *
    * @return A client service
    */
 
   public static EISIdstoreClients create(
     final Locale inLocale,
+    final EISStrings inStrings,
+    final EISTelemetryService inTelemetry,
     final EIServerIdstoreConfiguration idstore)
   {
     Objects.requireNonNull(inLocale, "inLocale");
+    Objects.requireNonNull(inStrings, "inStrings");
+    Objects.requireNonNull(inTelemetry, "inTelemetry");
     Objects.requireNonNull(idstore, "idstore");
 
+    return create(
+      inLocale,
+      inStrings,
+      inTelemetry,
+      idstore,
+      new IdUClients(),
+      ACQUIRE_TIMEOUT
+    );
+  }
+
+  /**
+   * Create an idstore client service.
+   *
+   * @param inLocale         The locale
+   * @param inStrings        The string resources
+   * @param inTelemetry      The telemetry service
+   * @param idstore          The idstore server configuration
+   * @param inClients        The factory used to create idstore clients
+   * @param inAcquireTimeout The maximum time a login will wait for one of
+   *                         the concurrent calls to the idstore server to
+   *                         complete
+   *
+   * @return A client service
+   */
+
+  public static EISIdstoreClients create(
+    final Locale inLocale,
+    final EISStrings inStrings,
+    final EISTelemetryService inTelemetry,
+    final EIServerIdstoreConfiguration idstore,
+    final IdUClientFactoryType inClients,
+    final Duration inAcquireTimeout)
+  {
+    Objects.requireNonNull(inLocale, "inLocale");
+    Objects.requireNonNull(inStrings, "inStrings");
+    Objects.requireNonNull(inTelemetry, "inTelemetry");
+    Objects.requireNonNull(idstore, "idstore");
+    Objects.requireNonNull(inClients, "inClients");
+    Objects.requireNonNull(inAcquireTimeout, "inAcquireTimeout");
+
     return new EISIdstoreClients(
       inLocale,
+      inStrings,
+      inTelemetry,
       idstore,
-      new IdUClients()
+      inClients,
+      inAcquireTimeout
     );
   }
 
   /**
-   * Create a new client.
+   * Authenticate a user against the idstore server using a pooled client.
    *
-   * @return A new client
+   * @param userName The user name
+   * @param password The password
+   * @param metadata The login metadata
    *
-   * @throws IdUClientException   On client errors
-   * @throws InterruptedException On interruption
+   * @return The authenticated idstore user
+   *
+   * @throws IdUClientException          On client errors
+   * @throws InterruptedException        On interruption
+   * @throws EIHTTPErrorStatusException If the idstore server is unavailable
    */
 
-  public IdUClientType createClient()
+  public IdUser login(
+    final String userName,
+    final String password,
+    final Map<String, String> metadata)
+    throws IdUClientException, InterruptedException, EIHTTPErrorStatusException
+  {
+    Objects.requireNonNull(userName, "userName");
+    Objects.requireNonNull(password, "password");
+    Objects.requireNonNull(metadata, "metadata");
+
+    final var timeout = this.acquireTimeout.toNanos();
+    if (!this.permits.tryAcquire(timeout, NANOSECONDS)) {
+      this.callsRejected.add(1L, REASON_CONCURRENCY);
+      throw this.unavailable();
+    }
+
+    try {
+      if (!this.breaker.tryAcquire()) {
+        this.callsRejected.add(1L, REASON_CIRCUIT_OPEN);
+        throw this.unavailable();
+      }
+      return this.loginWithPermit(userName, password, metadata);
+    } finally {
+      this.permits.release();
+    }
+  }
+
+  private IdUser loginWithPermit(
+    final String userName,
+    final String password,
+    final Map<String, String> metadata)
     throws IdUClientException, InterruptedException
   {
+    final var timeThen = System.nanoTime();
+    IdUClientType client = null;
+    var healthy = false;
+    var reusable = false;
+
+    try {
+      client = this.borrowClient();
+
+      final var user =
+        client.login(userName, password, this.idstore.baseURI(), metadata);
+
+      healthy = true;
+      this.callLatency.record(millisSince(timeThen), OUTCOME_SUCCESS);
+      reusable = true;
+      return user;
+    } catch (final IdUClientException e) {
+
+      /*
+       * An authentication failure means that the idstore server is working
+       * correctly; it does not count towards opening the circuit breaker.
+       */
+
+      if (Objects.equals(e.errorCode().id(), AUTHENTICATION_ERROR.id())) {
+        healthy = true;
+        this.callLatency.record(millisSince(timeThen), OUTCOME_REJECTED);
+        reusable = true;
+      } else {
+        this.callLatency.record(millisSince(timeThen), OUTCOME_FAILURE);
+        this.callFailures.add(
+          1L, Attributes.of(REASON, e.errorCode().id()));
+      }
+      throw e;
+    } catch (final RuntimeException e) {
+      this.callFailures.add(
+        1L, Attributes.of(REASON, e.getClass().getSimpleName()));
+      throw e;
+    } finally {
+
+      /*
+       * Every permitted call must report exactly one outcome to the breaker,
+       * whatever is thrown. A call that ends in anything other than an
+       * explicit success (including an Error) is a failure; otherwise a
+       * failed half-open trial would leave the breaker rejecting all calls
+       * forever.
+       */
+
+      if (healthy) {
+        this.breaker.onSuccess();
+      } else {
+        this.breaker.onFailure();
+      }
+
+      if (client != null) {
+        if (reusable) {
+          this.returnClient(client);
+        } else {
+          closeClient(client);
+        }
+      }
+    }
+  }
+
+  private static double millisSince(
+    final long timeThen)
+  {
+    return (double) (System.nanoTime() - timeThen) / 1_000_000.0;
+  }
+
+  private IdUClientType borrowClient()
+    throws IdUClientException, InterruptedException
+  {
+    final var existing = this.idle.pollFirst();
+    if (existing != null) {
+      return existing;
+    }
     return this.clients.create(this.locale);
   }
 
+  private void returnClient(
+    final IdUClientType client)
+  {
+    if (!this.idle.offerFirst(client)) {
+      closeClient(client);
+    }
+  }
+
+  private static void closeClient(
+    final IdUClientType client)
+  {
+    try {
+      client.close();
+    } catch (final Exception e) {
+      LOG.debug("could not close idstore client: ", e);
+    }
+  }
+
+  private EIHTTPErrorStatusException unavailable()
+  {
+    return new EIHTTPErrorStatusException(
+      SERVICE_UNAVAILABLE_503,
+      IDSTORE_UNAVAILABLE,
+      this.strings.format("errorIdentityServerUnavailable")
+    );
+  }
+
+  /**
+   * @return The state of the circuit breaker guarding the idstore server
+   */
+
+  public EISCircuitBreaker.EISCircuitBreakerState circuitBreakerState()
+  {
+    return this.breaker.state();
+  }
+
   /**
    * @return The base URI of the idstore server
    */
@@ -119,4 +407,18 @@ public final class EISIdstoreClients implements EIServiceType
   {
     return this.idstore.passwordResetURI();
   }
+
+  @Override
+  public void close()
+  {
+    this.idleGauge.close();
+
+    while (true) {
+      final var client = this.idle.pollFirst();
+      if (client == null) {
+        break;
+      }
+      closeClient(client);
+    }
+  }
 }
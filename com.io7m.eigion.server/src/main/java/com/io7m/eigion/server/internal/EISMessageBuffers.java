@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.internal;
+
+import com.io7m.eigion.services.api.EIServiceType;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A pool of reusable buffers into which response messages are serialized.
+ * A buffer is serialized into once, its size is used as the response
+ * Content-Length, and its contents are then written directly to the
+ * response without an intermediate copy.
+ */
+
+public final class EISMessageBuffers implements EIServiceType
+{
+  private static final int POOL_SIZE = 64;
+  private static final int INITIAL_CAPACITY = 4096;
+  private static final int RETAINED_CAPACITY_MAXIMUM = 1048576;
+
+  private final ArrayBlockingQueue<Buffer> pool;
+
+  /**
+   * A pool of reusable buffers.
+   */
+
+  public EISMessageBuffers()
+  {
+    this.pool = new ArrayBlockingQueue<>(POOL_SIZE);
+  }
+
+  /**
+   * Take a buffer from the pool, creating one if the pool is empty. The
+   * buffer must be returned with {@link #release(ByteArrayOutputStream)}.
+   *
+   * @return An empty buffer
+   */
+
+  public ByteArrayOutputStream acquire()
+  {
+    final var buffer = this.pool.poll();
+    if (buffer != null) {
+      return buffer;
+    }
+    return new Buffer();
+  }
+
+  /**
+   * Return a buffer to the pool. Buffers that have grown very large are
+   * discarded rather than retained.
+   *
+   * @param buffer The buffer
+   */
+
+  public void release(
+    final ByteArrayOutputStream buffer)
+  {
+    if (buffer instanceof Buffer b) {
+      if (b.capacity() > RETAINED_CAPACITY_MAXIMUM) {
+        return;
+      }
+      b.reset();
+      this.pool.offer(b);
+    }
+  }
+
+  @Override
+  public String description()
+  {
+    return "Message buffer pool service.";
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[EISMessageBuffers 0x%s]"
+      .formatted(Long.toUnsignedString(this.hashCode(), 16));
+  }
+
+  private static final class Buffer extends ByteArrayOutputStream
+  {
+    Buffer()
+    {
+      super(INITIAL_CAPACITY);
+    }
+
+    int capacity()
+    {
+      return this.buf.length;
+    }
+  }
+}
@@ -0,0 +1,380 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.internal;
+
+import com.io7m.eigion.server.api.EIServerRateLimitConfiguration;
+import com.io7m.eigion.server.api.EIServerTokenBucketConfiguration;
+import com.io7m.eigion.server.database.api.EISDatabaseException;
+import com.io7m.eigion.server.database.api.EISDatabaseRateLimitQueriesType;
+import com.io7m.eigion.server.database.api.EISDatabaseType;
+import com.io7m.eigion.services.api.EIServiceType;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.ObservableLongGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import static com.io7m.eigion.server.database.api.EISDatabaseRole.EIGION;
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+
+/**
+ * A token-bucket rate limiter. Buckets are held in memory, striped across a
+ * fixed number of independently locked maps so that unrelated keys do not
+ * contend. If rate limits are configured to be shared, then an operation
+ * permitted by the local buckets must also be permitted by buckets held in
+ * the database, so that the limits apply across all server nodes; the local
+ * buckets ensure that clients that have already exhausted their limits on
+ * this node cannot cause any database work.
+ *
+ * <p>An operation takes a token from every bucket that applies to it, or
+ * from none. If any bucket refuses, the tokens already taken from the other
+ * buckets are returned, whether those buckets are local or shared; shared
+ * tokens are returned by rolling back the transaction that took them. The
+ * same applies if the shared buckets cannot be consulted. Consequently, a
+ * client refused only by a shared bucket keeps its local tokens, and each of
+ * its further attempts consults the shared buckets again until its local
+ * buckets are exhausted.</p>
+ *
+ * <p>Shared buckets are consulted using a connection of their own, and so
+ * the limiter must not be called by code that already holds a database
+ * connection. If the shared buckets cannot be consulted, the operation is
+ * refused with an exception rather than permitted.</p>
+ */
+
+public final class EISRateLimiter implements EIServiceType, AutoCloseable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(EISRateLimiter.class);
+
+  private static final AttributeKey<String> LIMIT =
+    stringKey("limit");
+  private static final AttributeKey<String> SCOPE =
+    stringKey("scope");
+
+  private static final String GROUP_CREATE_BEGIN_PER_USER =
+    "groupCreateBeginPerUser";
+  private static final String GROUP_CREATE_BEGIN_PER_ADDRESS =
+    "groupCreateBeginPerAddress";
+
+  private static final int STRIPES = 64;
+  private static final int MAXIMUM_STRIPE_SIZE = 10_000;
+
+  private final EISDatabaseType database;
+  private final EIServerRateLimitConfiguration configuration;
+  private final Stripe[] stripes;
+  private final LongCounter permitted;
+  private final LongCounter throttled;
+  private final LongCounter sharedErrors;
+  private final ObservableLongGauge bucketsGauge;
+
+  private EISRateLimiter(
+    final EISTelemetryService inTelemetry,
+    final EISDatabaseType inDatabase,
+    final EIServerRateLimitConfiguration inConfiguration)
+  {
+    this.database =
+      Objects.requireNonNull(inDatabase, "database");
+    this.configuration =
+      Objects.requireNonNull(inConfiguration, "configuration");
+
+    this.stripes = new Stripe[STRIPES];
+    for (int index = 0; index < STRIPES; ++index) {
+      this.stripes[index] = new Stripe();
+    }
+
+    final var meter =
+      inTelemetry.openTelemetry()
+        .meterBuilder(EISRateLimiter.class.getCanonicalName())
+        .build();
+
+    this.permitted =
+      meter.counterBuilder("eigion.rateLimits.permitted")
+        .setDescription("Rate-limited operations that were permitted.")
+        .build();
+    this.throttled =
+      meter.counterBuilder("eigion.rateLimits.throttled")
+        .setDescription("Rate-limited operations that were refused.")
+        .build();
+    this.sharedErrors =
+      meter.counterBuilder("eigion.rateLimits.sharedErrors")
+        .setDescription(
+          "Shared rate limit checks that failed, refusing the operation.")
+        .build();
+    this.bucketsGauge =
+      meter.gaugeBuilder("eigion.rateLimits.buckets")
+        .setDescription("The number of token buckets held in memory.")
+        .ofLongs()
+        .buildWithCallback(m -> {
+          long size = 0L;
+          for (final var stripe : this.stripes) {
+            size += stripe.size();
+          }
+          m.record(size);
+        });
+  }
+
+  /**
+   * Create a rate limiter.
+   *
+   * @param telemetry     The telemetry service
+   * @param database      The database
+   * @param configuration The rate limit configuration
+   *
+   * @return A rate limiter
+   */
+
+  public static EISRateLimiter create(
+    final EISTelemetryService telemetry,
+    final EISDatabaseType database,
+    final EIServerRateLimitConfiguration configuration)
+  {
+    Objects.requireNonNull(telemetry, "telemetry");
+    Objects.requireNonNull(database, "database");
+    Objects.requireNonNull(configuration, "configuration");
+
+    return new EISRateLimiter(telemetry, database, configuration);
+  }
+
+  /**
+   * Determine if a user may begin a group creation request. A token is taken
+   * from both the user's buckets and the remote address's buckets if, and
+   * only if, all of the buckets hold a token.
+   *
+   * @param userId        The user
+   * @param remoteAddress The remote address of the request
+   *
+   * @return {@code true} if the operation is permitted
+   *
+   * @throws EISDatabaseException If shared rate limits could not be checked
+   */
+
+  public boolean tryGroupCreateBegin(
+    final UUID userId,
+    final String remoteAddress)
+    throws EISDatabaseException
+  {
+    Objects.requireNonNull(userId, "userId");
+    Objects.requireNonNull(remoteAddress, "remoteAddress");
+
+    final var userLimit =
+      this.configuration.groupCreateBeginPerUser();
+    final var addressLimit =
+      this.configuration.groupCreateBeginPerAddress();
+    final var userKey =
+      GROUP_CREATE_BEGIN_PER_USER + "/" + userId;
+    final var addressKey =
+      GROUP_CREATE_BEGIN_PER_ADDRESS + "/" + remoteAddress;
+
+    if (!this.stripeFor(userKey).take(userKey, userLimit)) {
+      this.recordThrottled(GROUP_CREATE_BEGIN_PER_USER, "local");
+      return false;
+    }
+    if (!this.stripeFor(addressKey).take(addressKey, addressLimit)) {
+      this.stripeFor(userKey).refund(userKey);
+      this.recordThrottled(GROUP_CREATE_BEGIN_PER_ADDRESS, "local");
+      return false;
+    }
+
+    if (this.configuration.shared()) {
+      var taken = false;
+      try {
+        taken = this.takeShared(userKey, userLimit, addressKey, addressLimit);
+      } finally {
+        if (!taken) {
+          this.stripeFor(addressKey).refund(addressKey);
+          this.stripeFor(userKey).refund(userKey);
+        }
+      }
+      if (!taken) {
+        return false;
+      }
+    }
+
+    this.permitted.add(1L);
+    return true;
+  }
+
+  private void recordThrottled(
+    final String limit,
+    final String scope)
+  {
+    this.throttled.add(1L, Attributes.of(LIMIT, limit, SCOPE, scope));
+  }
+
+  /*
+   * The shared buckets are updated in their own transaction: the tokens must
+   * stay taken even if the operation being limited later fails and rolls
+   * back, otherwise failing requests would never be limited. The transaction
+   * is only committed if both buckets hold a token, so a refusal by the
+   * second bucket returns the token taken from the first. A database failure
+   * here (including a timeout waiting for a pooled connection) is logged and
+   * propagated, refusing the operation.
+   */
+
+  private boolean takeShared(
+    final String userKey,
+    final EIServerTokenBucketConfiguration userLimit,
+    final String addressKey,
+    final EIServerTokenBucketConfiguration addressLimit)
+    throws EISDatabaseException
+  {
+    try (var connection = this.database.openConnection(EIGION)) {
+      try (var transaction = connection.openTransaction()) {
+        final var queries =
+          transaction.queries(EISDatabaseRateLimitQueriesType.class);
+
+        if (!queries.rateLimitTake(
+          userKey, userLimit.capacity(), userLimit.refillPeriod())) {
+          this.recordThrottled(GROUP_CREATE_BEGIN_PER_USER, "shared");
+          return false;
+        }
+        if (!queries.rateLimitTake(
+          addressKey, addressLimit.capacity(), addressLimit.refillPeriod())) {
+          this.recordThrottled(GROUP_CREATE_BEGIN_PER_ADDRESS, "shared");
+          return false;
+        }
+
+        transaction.commit();
+        return true;
+      }
+    } catch (final EISDatabaseException e) {
+      LOG.error("failed to check shared rate limits: ", e);
+      this.sharedErrors.add(1L);
+      throw e;
+    }
+  }
+
+  private Stripe stripeFor(
+    final String key)
+  {
+    return this.stripes[Math.floorMod(key.hashCode(), STRIPES)];
+  }
+
+  @Override
+  public void close()
+  {
+    this.bucketsGauge.close();
+  }
+
+  @Override
+  public String description()
+  {
+    return "Rate limiting service.";
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[EISRateLimiter 0x%s]"
+      .formatted(Long.toUnsignedString(this.hashCode(), 16));
+  }
+
+  /*
+   * A set of buckets guarded by a single lock. Buckets are kept in access
+   * order so that, when a stripe is full, the bucket that has gone
+   * unconsulted for longest (and is therefore the most likely to have
+   * refilled completely) is discarded. A discarded bucket is equivalent to
+   * a full one.
+   */
+
+  private static final class Stripe
+  {
+    private final LinkedHashMap<String, Bucket> buckets;
+
+    Stripe()
+    {
+      this.buckets = new LinkedHashMap<>(16, 0.75f, true)
+      {
+        @Override
+        protected boolean removeEldestEntry(
+          final Map.Entry<String, Bucket> eldest)
+        {
+          return this.size() > MAXIMUM_STRIPE_SIZE;
+        }
+      };
+    }
+
+    synchronized int size()
+    {
+      return this.buckets.size();
+    }
+
+    synchronized boolean take(
+      final String key,
+      final EIServerTokenBucketConfiguration limit)
+    {
+      final var timeNow = System.nanoTime();
+      final var bucket =
+        this.buckets.computeIfAbsent(key, k -> new Bucket(limit, timeNow));
+      return bucket.take(timeNow);
+    }
+
+    synchronized void refund(
+      final String key)
+    {
+      final var bucket = this.buckets.get(key);
+      if (bucket != null) {
+        bucket.refund();
+      }
+    }
+  }
+
+  private static final class Bucket
+  {
+    private final double capacity;
+    private final double refillNanos;
+    private double tokens;
+    private long updated;
+
+    Bucket(
+      final EIServerTokenBucketConfiguration limit,
+      final long timeNow)
+    {
+      this.capacity = (double) limit.capacity();
+      this.refillNanos = (double) limit.refillPeriod().toNanos();
+      this.tokens = this.capacity;
+      this.updated = timeNow;
+    }
+
+    boolean take(
+      final long timeNow)
+    {
+      final var elapsed = (double) (timeNow - this.updated);
+      this.tokens =
+        Math.min(this.capacity, this.tokens + (elapsed / this.refillNanos));
+      this.updated = timeNow;
+
+      if (this.tokens >= 1.0) {
+        this.tokens -= 1.0;
+        return true;
+      }
+      return false;
+    }
+
+    void refund()
+    {
+      this.tokens = Math.min(this.capacity, this.tokens + 1.0);
+    }
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.internal;
+
+import com.io7m.eigion.server.internal.common.EICommonInstrumentedServlet;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static io.opentelemetry.api.trace.StatusCode.ERROR;
+
+/**
+ * A span processor that exports spans that were recorded but not sampled,
+ * if they took longer than a given threshold or recorded an exception.
+ * Sampled spans are ignored, as they are exported by the usual batch span
+ * processor. Spans marked as {@link EICommonInstrumentedServlet#LONG_LIVED}
+ * are never considered slow.
+ */
+
+final class EISSlowSpanProcessor implements SpanProcessor
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(EISSlowSpanProcessor.class);
+
+  private static final int QUEUE_SIZE = 2048;
+
+  private final SpanExporter exporter;
+  private final long thresholdNanos;
+  private final ArrayBlockingQueue<SpanData> queue;
+  private final ScheduledExecutorService executor;
+
+  /**
+   * A span processor that exports slow or failed spans.
+   *
+   * @param inExporter  The span exporter (not owned by this processor)
+   * @param inThreshold The duration beyond which spans will be exported
+   */
+
+  EISSlowSpanProcessor(
+    final SpanExporter inExporter,
+    final Duration inThreshold)
+  {
+    this.exporter =
+      Objects.requireNonNull(inExporter, "exporter");
+    this.thresholdNanos =
+      inThreshold.toNanos();
+    this.queue =
+      new ArrayBlockingQueue<>(QUEUE_SIZE);
+    this.executor =
+      Executors.newSingleThreadScheduledExecutor(r -> {
+        final var thread = new Thread(r);
+        thread.setDaemon(true);
+        thread.setName("com.io7m.eigion.server.slowSpans");
+        return thread;
+      });
+
+    this.executor.scheduleWithFixedDelay(
+      this::exportQueued, 1L, 1L, TimeUnit.SECONDS);
+  }
+
+  @Override
+  public void onStart(
+    final Context parentContext,
+    final ReadWriteSpan span)
+  {
+
+  }
+
+  @Override
+  public boolean isStartRequired()
+  {
+    return false;
+  }
+
+  @Override
+  public void onEnd(
+    final ReadableSpan span)
+  {
+    if (span.getSpanContext().isSampled()) {
+      return;
+    }
+
+    final var data = span.toSpanData();
+    final var slow =
+      span.getLatencyNanos() >= this.thresholdNanos
+      && !Boolean.TRUE.equals(
+        data.getAttributes().get(EICommonInstrumentedServlet.LONG_LIVED));
+    final var failed =
+      data.getStatus().getStatusCode() == ERROR
+      || data.getEvents()
+        .stream()
+        .anyMatch(e -> Objects.equals(e.getName(), "exception"));
+
+    if (slow || failed) {
+      if (!this.queue.offer(data)) {
+        LOG.trace("slow span queue is full; dropping span");
+      }
+    }
+  }
+
+  @Override
+  public boolean isEndRequired()
+  {
+    return true;
+  }
+
+  private CompletableResultCode exportQueued()
+  {
+    final var spans = new ArrayList<SpanData>(this.queue.size());
+    this.queue.drainTo(spans);
+    if (spans.isEmpty()) {
+      return CompletableResultCode.ofSuccess();
+    }
+
+    try {
+      return this.exporter.export(spans);
+    } catch (final Exception e) {
+      LOG.debug("failed to export spans: ", e);
+      return CompletableResultCode.ofFailure();
+    }
+  }
+
+  @Override
+  public CompletableResultCode forceFlush()
+  {
+    return this.exportQueued();
+  }
+
+  @Override
+  public CompletableResultCode shutdown()
+  {
+    this.executor.shutdown();
+    return this.exportQueued();
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[EISSlowSpanProcessor 0x%s]"
+      .formatted(Long.toUnsignedString(this.hashCode(), 16));
+  }
+}
@@ -18,6 +18,7 @@
 package com.io7m.eigion.server.internal;
 
 import com.io7m.eigion.server.api.EIServerConfiguration;
+import com.io7m.eigion.server.api.EIServerOpenTelemetryConfiguration;
 import com.io7m.eigion.services.api.EIServiceType;
 import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.api.common.Attributes;
@@ -26,16 +27,19 @@ import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
 import io.opentelemetry.context.propagation.ContextPropagators;
 import io.opentelemetry.exporter.otlp.metrics.OtlpGrpcMetricExporter;
 import io.opentelemetry.exporter.otlp.trace.OtlpGrpcSpanExporter;
+import io.opentelemetry.exporter.prometheus.PrometheusHttpServer;
 import io.opentelemetry.sdk.OpenTelemetrySdk;
 import io.opentelemetry.sdk.metrics.SdkMeterProvider;
 import io.opentelemetry.sdk.metrics.export.PeriodicMetricReader;
 import io.opentelemetry.sdk.resources.Resource;
 import io.opentelemetry.sdk.trace.SdkTracerProvider;
 import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static io.opentelemetry.semconv.resource.attributes.ResourceAttributes.SERVICE_NAME;
 
@@ -44,22 +48,29 @@ import static io.opentelemetry.semconv.resource.attributes.ResourceAttributes.SE
  */
 
 public final class EISTelemetryService
-  implements EIServiceType
+  implements EIServiceType, AutoCloseable
 {
   private static final Logger LOG =
     LoggerFactory.getLogger(EISTelemetryService.class);
 
   private final OpenTelemetry openTelemetry;
   private final Tracer tracer;
+  private final Runnable onClose;
+  private final AtomicBoolean closed;
 
   private EISTelemetryService(
     final OpenTelemetry inOpenTelemetry,
-    final Tracer inTracer)
+    final Tracer inTracer,
+    final Runnable inOnClose)
   {
     this.openTelemetry =
       Objects.requireNonNull(inOpenTelemetry, "openTelemetry");
     this.tracer =
       Objects.requireNonNull(inTracer, "tracer");
+    this.onClose =
+      Objects.requireNonNull(inOnClose, "onClose");
+    this.closed =
+      new AtomicBoolean(false);
   }
 
   /**
@@ -71,7 +82,10 @@ public final class EISTelemetryService
     final var noop = OpenTelemetry.noop();
     return new EISTelemetryService(
       noop,
-      noop.getTracer("noop")
+      noop.getTracer("noop"),
+      () -> {
+
+      }
     );
   }
 
@@ -108,62 +122,126 @@ public final class EISTelemetryService
 
     final var scopeName = "com.io7m.idstore";
 
-    final var telemetryConfigurationOpt = configuration.openTelemetry();
-    if (telemetryConfigurationOpt.isEmpty()) {
+    final var telemetryConfigurationOpt =
+      configuration.openTelemetry();
+    final var metricsConfigurationOpt =
+      configuration.metrics();
+
+    if (telemetryConfigurationOpt.isEmpty()
+        && metricsConfigurationOpt.isEmpty()) {
       LOG.debug("OpenTelemetry not configured; telemetry disabled.");
       final var openTelemetry =
         OpenTelemetry.noop();
       final var tracer =
         openTelemetry.getTracer(scopeName, version());
 
-      return new EISTelemetryService(openTelemetry, tracer);
-    }
-
-    final var telemetryConfiguration =
-      telemetryConfigurationOpt.get();
+      return new EISTelemetryService(openTelemetry, tracer, () -> {
 
-    final var telemetryEndpoint =
-      telemetryConfiguration.collectorAddress().toString();
+      });
+    }
 
-    LOG.debug("sending telemetry to {}", telemetryEndpoint);
+    final var logicalServiceName =
+      telemetryConfigurationOpt
+        .map(EIServerOpenTelemetryConfiguration::logicalServiceName)
+        .orElse("eigion");
 
     final var resource =
       Resource.getDefault()
         .merge(Resource.create(
-          Attributes.of(
-            SERVICE_NAME,
-            telemetryConfiguration.logicalServiceName()))
+          Attributes.of(SERVICE_NAME, logicalServiceName))
         );
 
-    final var spanExporter =
-      OtlpGrpcSpanExporter.builder()
-        .setEndpoint(telemetryEndpoint)
-        .build();
+    final var tracerProviderBuilder =
+      SdkTracerProvider.builder()
+        .setResource(resource);
+    final var meterProviderBuilder =
+      SdkMeterProvider.builder()
+        .setResource(resource);
+
+    if (telemetryConfigurationOpt.isPresent()) {
+      final var telemetryConfiguration =
+        telemetryConfigurationOpt.get();
+      final var telemetryEndpoint =
+        telemetryConfiguration.collectorAddress().toString();
+
+      LOG.debug("sending telemetry to {}", telemetryEndpoint);
+
+      final var spanExporter =
+        OtlpGrpcSpanExporter.builder()
+          .setEndpoint(telemetryEndpoint)
+          .build();
+
+      final var batchSpanProcessor =
+        BatchSpanProcessor.builder(spanExporter)
+          .build();
+
+      var sampler =
+        Sampler.traceIdRatioBased(telemetryConfiguration.traceSampleRatio());
+      if (telemetryConfiguration.traceParentBased()) {
+        sampler = Sampler.parentBased(sampler);
+      }
+
+      /*
+       * Capturing slow or failed spans that weren't sampled requires that
+       * all spans be recorded. The slow span processor must be added before
+       * the batch span processor, because processors are shut down in
+       * order, and the batch span processor shuts down the exporter.
+       */
+
+      final var slowThresholdOpt =
+        telemetryConfiguration.traceSlowThreshold();
+      if (slowThresholdOpt.isPresent()) {
+        sampler = new EISRecordOnlySampler(sampler);
+        tracerProviderBuilder.addSpanProcessor(
+          new EISSlowSpanProcessor(spanExporter, slowThresholdOpt.get())
+        );
+      }
 
-    final var batchSpanProcessor =
-      BatchSpanProcessor.builder(spanExporter)
-        .build();
+      LOG.debug("trace sampler: {}", sampler.getDescription());
+      tracerProviderBuilder.setSampler(sampler);
+      tracerProviderBuilder.addSpanProcessor(batchSpanProcessor);
 
-    final var sdkTracerProvider =
-      SdkTracerProvider.builder()
-        .addSpanProcessor(batchSpanProcessor)
-        .setResource(resource)
-        .build();
+      final var metricExporter =
+        OtlpGrpcMetricExporter.builder()
+          .setEndpoint(telemetryEndpoint)
+          .build();
+
+      final var periodicMetricReader =
+        PeriodicMetricReader.builder(metricExporter)
+          .build();
 
-    final var metricExporter =
-      OtlpGrpcMetricExporter.builder()
-        .setEndpoint(telemetryEndpoint)
-        .build();
+      meterProviderBuilder.registerMetricReader(periodicMetricReader);
+    } else {
 
-    final var periodicMetricReader =
-      PeriodicMetricReader.builder(metricExporter)
-        .build();
+      /*
+       * Spans have nowhere to go without a collector, so don't sample any.
+       */
 
+      tracerProviderBuilder.setSampler(Sampler.alwaysOff());
+    }
+
+    if (metricsConfigurationOpt.isPresent()) {
+      final var metricsConfiguration =
+        metricsConfigurationOpt.get();
+
+      LOG.debug(
+        "serving metrics on {}:{}",
+        metricsConfiguration.listenAddress(),
+        Integer.valueOf(metricsConfiguration.listenPort())
+      );
+
+      meterProviderBuilder.registerMetricReader(
+        PrometheusHttpServer.builder()
+          .setHost(metricsConfiguration.listenAddress())
+          .setPort(metricsConfiguration.listenPort())
+          .build()
+      );
+    }
+
+    final var sdkTracerProvider =
+      tracerProviderBuilder.build();
     final var sdkMeterProvider =
-      SdkMeterProvider.builder()
-        .registerMetricReader(periodicMetricReader)
-        .setResource(resource)
-        .build();
+      meterProviderBuilder.build();
 
     final var contextPropagators =
       ContextPropagators.create(W3CTraceContextPropagator.getInstance());
@@ -180,7 +258,14 @@ public final class EISTelemetryService
 
     return new EISTelemetryService(
       openTelemetry,
-      tracer
+      tracer,
+      () -> {
+        try {
+          sdkMeterProvider.close();
+        } finally {
+          sdkTracerProvider.close();
+        }
+      }
     );
   }
 
@@ -209,4 +294,12 @@ public final class EISTelemetryService
   {
     return "Server OpenTelemetry service.";
   }
+
+  @Override
+  public void close()
+  {
+    if (this.closed.compareAndSet(false, true)) {
+      this.onClose.run();
+    }
+  }
 }
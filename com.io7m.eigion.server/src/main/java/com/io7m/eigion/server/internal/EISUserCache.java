@@ -0,0 +1,324 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.internal;
+
+import com.io7m.eigion.model.EIUser;
+import com.io7m.eigion.server.database.api.EISDatabaseException;
+import com.io7m.eigion.server.database.api.EISDatabaseNotification;
+import com.io7m.eigion.server.database.api.EISDatabaseNotificationChannel;
+import com.io7m.eigion.server.database.api.EISDatabaseNotificationReceiverType;
+import com.io7m.eigion.server.database.api.EISDatabaseSubscriptionType;
+import com.io7m.eigion.server.database.api.EISDatabaseType;
+import com.io7m.eigion.server.database.api.EISDatabaseUsersQueriesType;
+import com.io7m.eigion.server.internal.sessions.EISUserSessionService;
+import com.io7m.eigion.services.api.EIServiceType;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.ObservableLongGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.io7m.eigion.server.database.api.EISDatabaseRole.EIGION;
+
+/**
+ * A cache of users and their permissions. Entries are invalidated when any
+ * server node updates a user, and the users held in active sessions are
+ * refreshed accordingly.
+ *
+ * <p>As a backstop against missed notifications, entries expire after
+ * {@link #EXPIRY}. When the cache is full, a batch of arbitrary entries is
+ * evicted to make room; as user IDs are random, the map's iteration order
+ * makes this effectively random eviction.</p>
+ */
+
+public final class EISUserCache
+  implements EIServiceType, AutoCloseable, EISDatabaseNotificationReceiverType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(EISUserCache.class);
+
+  private static final int MAXIMUM_SIZE = 100_000;
+  private static final int EVICTION_BATCH = MAXIMUM_SIZE / 100;
+
+  /**
+   * The maximum time for which a cached user is used.
+   */
+
+  public static final Duration EXPIRY = Duration.ofMinutes(5L);
+
+  private final EISDatabaseType database;
+  private final EISUserSessionService sessions;
+  private final ConcurrentHashMap<UUID, Entry> users;
+  private final AtomicLong generation;
+  private final ExecutorService refresher;
+  private final LongCounter hits;
+  private final LongCounter misses;
+  private final LongCounter invalidations;
+  private final LongCounter evictions;
+  private final DoubleHistogram invalidationLag;
+  private final ObservableLongGauge sizeGauge;
+  private EISDatabaseSubscriptionType subscription;
+
+  private EISUserCache(
+    final EISTelemetryService inTelemetry,
+    final EISDatabaseType inDatabase,
+    final EISUserSessionService inSessions)
+  {
+    this.database =
+      Objects.requireNonNull(inDatabase, "database");
+    this.sessions =
+      Objects.requireNonNull(inSessions, "sessions");
+    this.users =
+      new ConcurrentHashMap<>();
+    this.generation =
+      new AtomicLong(0L);
+
+    this.refresher =
+      Executors.newSingleThreadExecutor(r -> {
+        final var thread = new Thread(r);
+        thread.setDaemon(true);
+        thread.setName(
+          "com.io7m.eigion.server.internal.EISUserCache[%d]"
+            .formatted(Long.valueOf(thread.getId())));
+        return thread;
+      });
+
+    final var meter =
+      inTelemetry.openTelemetry()
+        .meterBuilder(EISUserCache.class.getCanonicalName())
+        .build();
+
+    this.hits =
+      meter.counterBuilder("eigion.userCache.hits")
+        .setDescription("User lookups served from the cache.")
+        .build();
+    this.misses =
+      meter.counterBuilder("eigion.userCache.misses")
+        .setDescription("User lookups that required a database query.")
+        .build();
+    this.invalidations =
+      meter.counterBuilder("eigion.userCache.invalidations")
+        .setDescription("User cache invalidations received.")
+        .build();
+    this.evictions =
+      meter.counterBuilder("eigion.userCache.evictions")
+        .setDescription("Users evicted to make room in a full cache.")
+        .build();
+    this.invalidationLag =
+      meter.histogramBuilder("eigion.userCache.invalidationLag")
+        .setDescription(
+          "The time between a user being updated and the cache being invalidated.")
+        .setUnit("ms")
+        .build();
+    this.sizeGauge =
+      meter.gaugeBuilder("eigion.userCache.size")
+        .setDescription("The number of cached users.")
+        .ofLongs()
+        .buildWithCallback(m -> {
+          m.record(Integer.toUnsignedLong(this.users.size()));
+        });
+  }
+
+  /**
+   * Create a user cache.
+   *
+   * @param telemetry The telemetry service
+   * @param database  The database
+   * @param sessions  The user sessions
+   *
+   * @return A user cache
+   *
+   * @throws EISDatabaseException On errors
+   */
+
+  public static EISUserCache create(
+    final EISTelemetryService telemetry,
+    final EISDatabaseType database,
+    final EISUserSessionService sessions)
+    throws EISDatabaseException
+  {
+    Objects.requireNonNull(telemetry, "telemetry");
+    Objects.requireNonNull(database, "database");
+    Objects.requireNonNull(sessions, "sessions");
+
+    final var cache = new EISUserCache(telemetry, database, sessions);
+    cache.subscription =
+      database.subscribe(EISDatabaseNotificationChannel.USERS, cache);
+    return cache;
+  }
+
+  /**
+   * Retrieve a user, consulting the cache first.
+   *
+   * @param queries The user queries used on a cache miss
+   * @param id      The user ID
+   *
+   * @return The user, if one exists
+   *
+   * @throws EISDatabaseException On errors
+   */
+
+  public Optional<EIUser> userGet(
+    final EISDatabaseUsersQueriesType queries,
+    final UUID id)
+    throws EISDatabaseException
+  {
+    Objects.requireNonNull(queries, "queries");
+    Objects.requireNonNull(id, "id");
+
+    final var existing = this.users.get(id);
+    if (existing != null) {
+      if (System.nanoTime() - existing.timeLoaded() < EXPIRY.toNanos()) {
+        this.hits.add(1L);
+        return Optional.of(existing.user());
+      }
+      this.users.remove(id, existing);
+    }
+
+    this.misses.add(1L);
+
+    /*
+     * Only cache the result if no invalidations arrived while the
+     * database was being queried; otherwise, the result might be stale.
+     * Invalidations increment the generation before removing the entry, so
+     * an invalidation racing with the put below is caught either by the
+     * generation check after the put, or by the invalidation's own removal.
+     */
+
+    final var generationThen = this.generation.get();
+    final var result = queries.userGet(id);
+    if (result.isPresent() && this.generation.get() == generationThen) {
+      final var entry = new Entry(result.get(), System.nanoTime());
+      this.evictIfFull();
+      this.users.put(id, entry);
+      if (this.generation.get() != generationThen) {
+        this.users.remove(id, entry);
+      }
+    }
+    return result;
+  }
+
+  private void evictIfFull()
+  {
+    if (this.users.size() < MAXIMUM_SIZE) {
+      return;
+    }
+
+    final var iterator = this.users.keySet().iterator();
+    for (int index = 0; index < EVICTION_BATCH && iterator.hasNext(); ++index) {
+      iterator.next();
+      iterator.remove();
+      this.evictions.add(1L);
+    }
+  }
+
+  @Override
+  public void onNotification(
+    final EISDatabaseNotification notification)
+  {
+    final UUID id;
+    try {
+      id = UUID.fromString(notification.payload());
+    } catch (final IllegalArgumentException e) {
+      LOG.warn("malformed user notification: {}", notification.payload());
+      return;
+    }
+
+    this.generation.incrementAndGet();
+    this.users.remove(id);
+    this.invalidations.add(1L);
+
+    final var lag =
+      Duration.between(notification.timeSent(), Instant.now());
+    this.invalidationLag.record(
+      Math.max(0.0, (double) lag.toNanos() / 1_000_000.0)
+    );
+
+    if (this.sessions.hasSessionsForUser(id)) {
+      this.refresher.execute(() -> this.refreshSessions(id));
+    }
+  }
+
+  @Override
+  public void onResynchronize()
+  {
+    this.generation.incrementAndGet();
+    this.users.clear();
+
+    for (final var id : this.sessions.activeUsers()) {
+      this.refresher.execute(() -> this.refreshSessions(id));
+    }
+  }
+
+  private void refreshSessions(
+    final UUID id)
+  {
+    try (var connection = this.database.openConnection(EIGION)) {
+      try (var transaction = connection.openTransaction()) {
+        final var queries =
+          transaction.queries(EISDatabaseUsersQueriesType.class);
+        final var userOpt =
+          this.userGet(queries, id);
+
+        userOpt.ifPresent(this.sessions::updateUser);
+      }
+    } catch (final Exception e) {
+      LOG.error("failed to refresh sessions for user {}: ", id, e);
+    }
+  }
+
+  @Override
+  public void close()
+  {
+    if (this.subscription != null) {
+      this.subscription.close();
+    }
+    this.sizeGauge.close();
+    this.refresher.shutdown();
+  }
+
+  @Override
+  public String description()
+  {
+    return "User cache service.";
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[EISUserCache 0x%s]"
+      .formatted(Long.toUnsignedString(this.hashCode(), 16));
+  }
+
+  private record Entry(
+    EIUser user,
+    long timeLoaded)
+  {
+
+  }
+}
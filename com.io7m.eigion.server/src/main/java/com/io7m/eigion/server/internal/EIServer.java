@@ -26,11 +26,14 @@ import com.io7m.eigion.server.api.EIServerException;
 import com.io7m.eigion.server.api.EIServerType;
 import com.io7m.eigion.server.database.api.EISDatabaseException;
 import com.io7m.eigion.server.database.api.EISDatabaseType;
+import com.io7m.eigion.server.internal.amberjack_v1.EISAJ1AuditExportServlet;
+import com.io7m.eigion.server.internal.amberjack_v1.EISAJ1AuditFollowServlet;
 import com.io7m.eigion.server.internal.amberjack_v1.EISAJ1CommandServlet;
 import com.io7m.eigion.server.internal.amberjack_v1.EISAJ1Login;
 import com.io7m.eigion.server.internal.amberjack_v1.EISAJ1Sends;
 import com.io7m.eigion.server.internal.amberjack_v1.EISAJ1Versions;
 import com.io7m.eigion.server.internal.pike_v1.EISP1CommandServlet;
+import com.io7m.eigion.server.internal.pike_v1.EISP1GroupCreateRequestsWaitServlet;
 import com.io7m.eigion.server.internal.pike_v1.EISP1Login;
 import com.io7m.eigion.server.internal.pike_v1.EISP1Sends;
 import com.io7m.eigion.server.internal.pike_v1.EISP1Versions;
@@ -65,6 +68,12 @@ public final class EIServer implements EIServerType
   private static final Logger LOG =
     LoggerFactory.getLogger(EIServer.class);
 
+  /**
+   * Responses smaller than this size (in bytes) are not compressed.
+   */
+
+  private static final int GZIP_MINIMUM_SIZE = 1024;
+
   private final EIServerConfiguration configuration;
   private CloseableCollectionType<EIServerException> resources;
   private EISTelemetryService telemetry;
@@ -113,6 +122,8 @@ public final class EIServer implements EIServerType
           );
         });
 
+      this.resources.add(this.telemetry);
+
       this.database =
         this.resources.add(
           this.configuration.databases()
@@ -180,6 +191,20 @@ public final class EIServer implements EIServerType
         EISAJ1CommandServlet::new),
       "/amberjack/1/0/command"
     );
+    servlets.addServlet(
+      servletHolders.create(
+        EISAJ1AuditExportServlet.class,
+        EISAJ1AuditExportServlet::new),
+      "/amberjack/1/0/audit-export"
+    );
+
+    final var followServlet =
+      servletHolders.create(
+        EISAJ1AuditFollowServlet.class,
+        EISAJ1AuditFollowServlet::new);
+
+    followServlet.setAsyncSupported(true);
+    servlets.addServlet(followServlet, "/amberjack/1/0/audit-follow");
 
     servlets.addEventListener(
       this.services.requireService(EISUserSessionService.class)
@@ -207,9 +232,16 @@ public final class EIServer implements EIServerType
      * Enable gzip.
      */
 
-    final var gzip = new GzipHandler();
+    final var gzip = createGzipHandler();
     gzip.setHandler(sessionHandler);
 
+    /*
+     * Compressed output is buffered by the deflater, which would delay
+     * followed audit events indefinitely.
+     */
+
+    gzip.addExcludedPaths("/amberjack/1/0/audit-follow");
+
     /*
      * Add a connector listener that adds unique identifiers to all requests.
      */
@@ -226,6 +258,21 @@ public final class EIServer implements EIServerType
   }
 
 
+  /**
+   * Create a gzip handler. Protocol responses are delivered in response to
+   * POST requests, and so POST must be explicitly included. Responses smaller
+   * than {@link #GZIP_MINIMUM_SIZE} are sent uncompressed, as the cost of
+   * compressing them outweighs any savings.
+   */
+
+  private static GzipHandler createGzipHandler()
+  {
+    final var gzip = new GzipHandler();
+    gzip.setIncludedMethods("GET", "POST");
+    gzip.setMinGzipSize(GZIP_MINIMUM_SIZE);
+    return gzip;
+  }
+
   private Server createPikeServer()
     throws Exception
   {
@@ -264,6 +311,14 @@ public final class EIServer implements EIServerType
       "/pike/1/0/command"
     );
 
+    final var waitServlet =
+      servletHolders.create(
+        EISP1GroupCreateRequestsWaitServlet.class,
+        EISP1GroupCreateRequestsWaitServlet::new);
+
+    waitServlet.setAsyncSupported(true);
+    servlets.addServlet(waitServlet, "/pike/1/0/group-create-requests-wait");
+
     servlets.addEventListener(
       this.services.requireService(EISUserSessionService.class)
     );
@@ -290,7 +345,7 @@ public final class EIServer implements EIServerType
      * Enable gzip.
      */
 
-    final var gzip = new GzipHandler();
+    final var gzip = createGzipHandler();
     gzip.setHandler(sessionHandler);
 
     /*
@@ -311,13 +366,17 @@ public final class EIServer implements EIServerType
 
   private EIServiceDirectory createServiceDirectory(
     final EISDatabaseType inDatabase)
-    throws IOException
+    throws IOException, EISDatabaseException
   {
     final var newServices = new EIServiceDirectory();
 
     newServices.register(EISTelemetryService.class, this.telemetry);
     newServices.register(EISDatabaseType.class, inDatabase);
 
+    final var flightRecorder =
+      EISFlightRecorderService.create(this.configuration);
+    newServices.register(EISFlightRecorderService.class, flightRecorder);
+
     final var strings = new EISStrings(this.configuration.locale());
     newServices.register(EISStrings.class, strings);
 
@@ -332,13 +391,48 @@ public final class EIServer implements EIServerType
     final var userSessions = new EISUserSessionService(this.telemetry);
     newServices.register(EISUserSessionService.class, userSessions);
 
+    final var userCache =
+      EISUserCache.create(this.telemetry, inDatabase, userSessions);
+    newServices.register(EISUserCache.class, userCache);
+
+    final var groupCreationRequestEvents =
+      EISGroupCreationRequestEvents.create(
+        clock, this.telemetry, inDatabase, userSessions);
+    newServices.register(
+      EISGroupCreationRequestEvents.class, groupCreationRequestEvents);
+
+    final var auditTail = EISAuditTail.create(this.telemetry, inDatabase);
+    newServices.register(EISAuditTail.class, auditTail);
+
+    final var groupSearchCache =
+      EISGroupSearchCache.create(this.telemetry, inDatabase);
+    newServices.register(EISGroupSearchCache.class, groupSearchCache);
+
+    final var groupNameFilter =
+      EISGroupNameFilter.create(this.telemetry, inDatabase);
+    newServices.register(EISGroupNameFilter.class, groupNameFilter);
+
+    final var rateLimiter =
+      EISRateLimiter.create(
+        this.telemetry, inDatabase, this.configuration.rateLimits());
+    newServices.register(EISRateLimiter.class, rateLimiter);
+
+    final var buffers = new EISMessageBuffers();
+    newServices.register(EISMessageBuffers.class, buffers);
+
     final var ajcb1Messages = new EIAJCB1Messages();
     newServices.register(EIAJCB1Messages.class, ajcb1Messages);
-    newServices.register(EISAJ1Sends.class, new EISAJ1Sends(ajcb1Messages));
+    newServices.register(
+      EISAJ1Sends.class,
+      new EISAJ1Sends(ajcb1Messages, buffers)
+    );
 
     final var pcb1Messages = new EIPCB1Messages();
     newServices.register(EIPCB1Messages.class, pcb1Messages);
-    newServices.register(EISP1Sends.class, new EISP1Sends(pcb1Messages));
+    newServices.register(
+      EISP1Sends.class,
+      new EISP1Sends(pcb1Messages, buffers)
+    );
 
     newServices.register(EISRequestLimits.class, new EISRequestLimits(strings));
 
@@ -356,6 +450,8 @@ public final class EIServer implements EIServerType
     final var idstoreClients =
       EISIdstoreClients.create(
         this.configuration.locale(),
+        strings,
+        this.telemetry,
         this.configuration.idstoreConfiguration()
       );
     newServices.register(EISIdstoreClients.class, idstoreClients);
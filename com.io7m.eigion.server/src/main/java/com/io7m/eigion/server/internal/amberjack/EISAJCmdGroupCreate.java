@@ -22,9 +22,12 @@ import com.io7m.eigion.protocol.amberjack.EIAJCommandGroupCreate;
 import com.io7m.eigion.protocol.amberjack.EIAJResponseGroupCreate;
 import com.io7m.eigion.protocol.amberjack.EIAJResponseType;
 import com.io7m.eigion.server.database.api.EISDatabaseGroupsQueriesType;
+import com.io7m.eigion.server.internal.EISGroupNameFilter;
 import com.io7m.eigion.server.internal.amberjack.security.EISecAJActionGroupCreate;
 import com.io7m.eigion.server.internal.amberjack.security.EISecAJPolicy;
 
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.GROUP_DUPLICATE;
+
 /**
  * EIAJCommandGroupCreate
  */
@@ -54,6 +57,17 @@ public final class EISAJCmdGroupCreate
     final var groups =
       transaction.queries(EISDatabaseGroupsQueriesType.class);
 
+    final var names =
+      context.services().requireService(EISGroupNameFilter.class);
+    if (names.exists(groups, command.name())) {
+      throw context.failFormatted(
+        400,
+        GROUP_DUPLICATE,
+        "errorGroupDuplicate",
+        command.name().value()
+      );
+    }
+
     groups.groupCreate(user.id(), command.name());
     return new EIAJResponseGroupCreate(context.requestId());
   }
@@ -21,6 +21,7 @@ import com.io7m.eigion.protocol.amberjack.EIAJCommandGroupSearchByNameBegin;
 import com.io7m.eigion.protocol.amberjack.EIAJResponseGroupSearch;
 import com.io7m.eigion.protocol.amberjack.EIAJResponseType;
 import com.io7m.eigion.server.database.api.EISDatabaseGroupsQueriesType;
+import com.io7m.eigion.server.internal.EISGroupSearchCache;
 import com.io7m.eigion.server.internal.amberjack.security.EISecAJActionGroupSearch;
 import com.io7m.eigion.server.internal.amberjack.security.EISecAJPolicy;
 
@@ -54,12 +55,12 @@ public final class EISAJCmdGroupSearchByNameBegin
       context.transaction();
     final var groups =
       transaction.queries(EISDatabaseGroupsQueriesType.class);
-    final var search =
-      groups.groupSearchByName(command.parameters());
-    final var page =
-      search.pageCurrent(groups);
+    final var cache =
+      context.services().requireService(EISGroupSearchCache.class);
+    final var result =
+      cache.groupSearchByName(groups, command.parameters());
 
-    session.setGroupSearchByName(search);
-    return new EIAJResponseGroupSearch(context.requestId(), page);
+    session.setGroupSearchByName(result.search());
+    return new EIAJResponseGroupSearch(context.requestId(), result.page());
   }
 }
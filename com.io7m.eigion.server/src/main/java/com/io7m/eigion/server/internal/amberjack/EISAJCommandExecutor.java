@@ -16,6 +16,8 @@
 
 package com.io7m.eigion.server.internal.amberjack;
 
+import com.io7m.eigion.protocol.amberjack.EIAJCommandAuditExport;
+import com.io7m.eigion.protocol.amberjack.EIAJCommandAuditFollow;
 import com.io7m.eigion.protocol.amberjack.EIAJCommandAuditSearchBegin;
 import com.io7m.eigion.protocol.amberjack.EIAJCommandAuditSearchNext;
 import com.io7m.eigion.protocol.amberjack.EIAJCommandAuditSearchPrevious;
@@ -24,12 +26,18 @@ import com.io7m.eigion.protocol.amberjack.EIAJCommandGroupSearchByNameBegin;
 import com.io7m.eigion.protocol.amberjack.EIAJCommandGroupSearchByNameNext;
 import com.io7m.eigion.protocol.amberjack.EIAJCommandGroupSearchByNamePrevious;
 import com.io7m.eigion.protocol.amberjack.EIAJCommandType;
+import com.io7m.eigion.protocol.amberjack.EIAJResponseError;
 import com.io7m.eigion.protocol.amberjack.EIAJResponseType;
+import com.io7m.eigion.server.internal.EISTelemetryService;
+import com.io7m.eigion.server.internal.command_exec.EISCommandEvent;
 import com.io7m.eigion.server.internal.command_exec.EISCommandExecutionFailure;
 import com.io7m.eigion.server.internal.command_exec.EISCommandExecutorType;
+import com.io7m.eigion.server.internal.command_exec.EISCommandMetrics;
 
 import java.io.IOException;
 
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.PROTOCOL_ERROR;
+
 /**
  * A command executor for Tickets commands.
  */
@@ -40,13 +48,39 @@ public final class EISAJCommandExecutor
     EIAJCommandType<? extends EIAJResponseType>,
     EIAJResponseType>
 {
+  private final EISCommandMetrics metrics;
+
   /**
    * A command executor for Tickets commands.
+   *
+   * @param telemetry The telemetry service
    */
 
-  public EISAJCommandExecutor()
+  public EISAJCommandExecutor(
+    final EISTelemetryService telemetry)
   {
+    this.metrics = new EISCommandMetrics(telemetry, "amberjack");
+  }
+
+  /**
+   * Determine if the given command is read-only. Read-only commands do not
+   * modify the database and may therefore be executed against a read-only
+   * replica.
+   *
+   * @param command The command
+   *
+   * @return {@code true} if the command is read-only
+   */
 
+  public boolean isReadOnly(
+    final EIAJCommandType<?> command)
+  {
+    return command instanceof EIAJCommandAuditSearchBegin
+      || command instanceof EIAJCommandAuditSearchNext
+      || command instanceof EIAJCommandAuditSearchPrevious
+      || command instanceof EIAJCommandGroupSearchByNameBegin
+      || command instanceof EIAJCommandGroupSearchByNameNext
+      || command instanceof EIAJCommandGroupSearchByNamePrevious;
   }
 
   @Override
@@ -60,9 +94,19 @@ public final class EISAJCommandExecutor
         .spanBuilder(command.getClass().getSimpleName())
         .startSpan();
 
+    final var event =
+      EISCommandEvent.start(context.userSession().user().id());
+
     try (var ignored = span.makeCurrent()) {
-      return this.executeCommand(context, command);
+      final var result = this.executeCommand(context, command);
+      if (result instanceof EIAJResponseError error) {
+        this.metrics.recordError(command, event, error.errorCode());
+      } else {
+        this.metrics.recordSuccess(command, event);
+      }
+      return result;
     } catch (final Throwable e) {
+      this.metrics.recordException(command, event, e);
       span.recordException(e);
       throw e;
     } finally {
@@ -96,6 +140,24 @@ public final class EISAJCommandExecutor
     if (command instanceof EIAJCommandGroupSearchByNamePrevious c) {
       return new EISAJCmdGroupSearchByNamePrevious().execute(context, c);
     }
+    if (command instanceof EIAJCommandAuditExport) {
+      throw context.failFormatted(
+        400,
+        PROTOCOL_ERROR,
+        "errorStreamedCommand",
+        "EIAJCommandAuditExport",
+        "audit-export"
+      );
+    }
+    if (command instanceof EIAJCommandAuditFollow) {
+      throw context.failFormatted(
+        400,
+        PROTOCOL_ERROR,
+        "errorStreamedCommand",
+        "EIAJCommandAuditFollow",
+        "audit-follow"
+      );
+    }
 
     throw new IllegalStateException(
       "Unrecognized command: %s".formatted(command.getClass())
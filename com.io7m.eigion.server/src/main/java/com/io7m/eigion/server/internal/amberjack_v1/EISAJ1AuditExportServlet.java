@@ -0,0 +1,213 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.internal.amberjack_v1;
+
+import com.io7m.eigion.protocol.amberjack.EIAJCommandAuditExport;
+import com.io7m.eigion.protocol.amberjack.EIAJResponseAuditExport;
+import com.io7m.eigion.protocol.amberjack.EIAJResponseAuditExportEnd;
+import com.io7m.eigion.protocol.amberjack.EIAJMessageType;
+import com.io7m.eigion.protocol.amberjack.EIAJResponseError;
+import com.io7m.eigion.protocol.amberjack.cb.EIAJCB1Messages;
+import com.io7m.eigion.protocol.api.EIProtocolException;
+import com.io7m.eigion.protocol.api.EIProtocolFrames;
+import com.io7m.eigion.server.database.api.EISDatabaseAuditQueriesType;
+import com.io7m.eigion.server.database.api.EISDatabaseException;
+import com.io7m.eigion.server.database.api.EISDatabaseType;
+import com.io7m.eigion.server.internal.EIHTTPErrorStatusException;
+import com.io7m.eigion.server.internal.EISRequestDecoration;
+import com.io7m.eigion.server.internal.EISRequestLimits;
+import com.io7m.eigion.server.internal.amberjack.security.EISecAJActionAuditRead;
+import com.io7m.eigion.server.internal.amberjack.security.EISecAJPolicy;
+import com.io7m.eigion.server.internal.security.EISecurityException;
+import com.io7m.eigion.services.api.EIServiceDirectoryType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.UUID;
+
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.PROTOCOL_ERROR;
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.SECURITY_POLICY_DENIED;
+import static com.io7m.eigion.server.database.api.EISDatabaseRole.EIGION;
+import static org.eclipse.jetty.http.HttpStatus.BAD_REQUEST_400;
+import static org.eclipse.jetty.http.HttpStatus.FORBIDDEN_403;
+
+/**
+ * A servlet that exports audit events as a stream of framed messages.
+ *
+ * <p>The response consists of zero or more {@link EIAJResponseAuditExport}
+ * frames followed by exactly one {@link EIAJResponseAuditExportEnd} frame. If
+ * the export fails after the response has been committed, a single
+ * {@link EIAJResponseError} frame is written in place of the end frame.
+ * Events are read through a single database cursor and are written as they
+ * arrive, so the memory used is bounded by the batch size rather than the
+ * number of events.</p>
+ */
+
+public final class EISAJ1AuditExportServlet extends EISAJ1AuthenticatedServlet
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(EISAJ1AuditExportServlet.class);
+
+  private final EISDatabaseType database;
+  private final EISRequestLimits limits;
+  private final EIAJCB1Messages messages;
+
+  /**
+   * A servlet that exports audit events as a stream of framed messages.
+   *
+   * @param inServices The service directory
+   */
+
+  public EISAJ1AuditExportServlet(
+    final EIServiceDirectoryType inServices)
+  {
+    super(inServices);
+
+    this.database =
+      inServices.requireService(EISDatabaseType.class);
+    this.limits =
+      inServices.requireService(EISRequestLimits.class);
+    this.messages =
+      inServices.requireService(EIAJCB1Messages.class);
+  }
+
+  @Override
+  protected boolean isLongLived()
+  {
+    return true;
+  }
+
+  @Override
+  protected Logger logger()
+  {
+    return LOG;
+  }
+
+  @Override
+  protected void serviceAuthenticated(
+    final HttpServletRequest request,
+    final HttpServletResponse servletResponse,
+    final HttpSession session)
+    throws Exception
+  {
+    final var requestId =
+      EISRequestDecoration.requestIdFor(request);
+    final var command =
+      this.readCommand(request);
+
+    try {
+      EISecAJPolicy.policy()
+        .check(new EISecAJActionAuditRead(this.userSession().user()));
+    } catch (final EISecurityException e) {
+      throw new EIHTTPErrorStatusException(
+        FORBIDDEN_403,
+        SECURITY_POLICY_DENIED,
+        e.getMessage(),
+        e
+      );
+    }
+
+    try (var connection =
+           this.database.openConnectionReadOnly(EIGION)) {
+      try (var transaction = connection.openTransaction()) {
+        final var audit =
+          transaction.queries(EISDatabaseAuditQueriesType.class);
+
+        servletResponse.setStatus(200);
+        servletResponse.setContentType(EIAJCB1Messages.contentType());
+
+        try (var output = servletResponse.getOutputStream()) {
+          this.export(requestId, command, audit, output);
+        }
+      }
+    }
+  }
+
+  private void export(
+    final UUID requestId,
+    final EIAJCommandAuditExport command,
+    final EISDatabaseAuditQueriesType audit,
+    final OutputStream output)
+    throws IOException
+  {
+    try {
+      final var count =
+        audit.auditEventsExport(command.parameters(), events -> {
+          this.writeFrame(
+            output,
+            new EIAJResponseAuditExport(requestId, events)
+          );
+          output.flush();
+        });
+
+      this.writeFrame(
+        output,
+        new EIAJResponseAuditExportEnd(requestId, count)
+      );
+    } catch (final EISDatabaseException e) {
+      LOG.error("audit export failed: ", e);
+      this.writeFrame(
+        output,
+        new EIAJResponseError(requestId, e.errorCode(), e.getMessage())
+      );
+    }
+  }
+
+  private void writeFrame(
+    final OutputStream output,
+    final EIAJMessageType message)
+    throws IOException
+  {
+    try {
+      EIProtocolFrames.writeFrame(this.messages, message, output);
+    } catch (final EIProtocolException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private EIAJCommandAuditExport readCommand(
+    final HttpServletRequest request)
+    throws IOException, EIHTTPErrorStatusException
+  {
+    try (var input = this.limits.boundedMaximumInput(request, 1048576)) {
+      final var message = this.messages.parse(input);
+      if (message instanceof EIAJCommandAuditExport command) {
+        return command;
+      }
+    } catch (final EIProtocolException e) {
+      throw new EIHTTPErrorStatusException(
+        BAD_REQUEST_400,
+        PROTOCOL_ERROR,
+        e.getMessage(),
+        e
+      );
+    }
+
+    throw new EIHTTPErrorStatusException(
+      BAD_REQUEST_400,
+      PROTOCOL_ERROR,
+      this.strings().format("expectedCommand", "EIAJCommandAuditExport")
+    );
+  }
+}
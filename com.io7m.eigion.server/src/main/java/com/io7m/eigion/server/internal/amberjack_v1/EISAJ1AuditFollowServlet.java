@@ -0,0 +1,400 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.internal.amberjack_v1;
+
+import com.io7m.eigion.error_codes.EIErrorCode;
+import com.io7m.eigion.protocol.amberjack.EIAJCommandAuditFollow;
+import com.io7m.eigion.protocol.amberjack.EIAJMessageType;
+import com.io7m.eigion.protocol.amberjack.EIAJResponseAuditFollow;
+import com.io7m.eigion.protocol.amberjack.EIAJResponseError;
+import com.io7m.eigion.protocol.amberjack.cb.EIAJCB1Messages;
+import com.io7m.eigion.protocol.api.EIProtocolException;
+import com.io7m.eigion.protocol.api.EIProtocolFrames;
+import com.io7m.eigion.server.internal.EIHTTPErrorStatusException;
+import com.io7m.eigion.server.internal.EISAuditTail;
+import com.io7m.eigion.server.internal.EISAuditTailSubscription;
+import com.io7m.eigion.server.internal.EISRequestDecoration;
+import com.io7m.eigion.server.internal.EISRequestLimits;
+import com.io7m.eigion.server.internal.amberjack.security.EISecAJActionAuditRead;
+import com.io7m.eigion.server.internal.amberjack.security.EISecAJPolicy;
+import com.io7m.eigion.server.internal.security.EISecurityException;
+import com.io7m.eigion.server.internal.sessions.EISUserSessionService;
+import com.io7m.eigion.services.api.EIServiceDirectoryType;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.AUDIT_FOLLOW_OVERFLOW;
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.AUTHENTICATION_ERROR;
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.PROTOCOL_ERROR;
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.RATE_LIMITED;
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.SECURITY_POLICY_DENIED;
+import static com.io7m.eigion.server.internal.EISAuditTail.MAXIMUM_SUBSCRIPTIONS;
+import static org.eclipse.jetty.http.HttpStatus.BAD_REQUEST_400;
+import static org.eclipse.jetty.http.HttpStatus.FORBIDDEN_403;
+import static org.eclipse.jetty.http.HttpStatus.TOO_MANY_REQUESTS_429;
+
+/**
+ * A servlet that follows the audit log, streaming new events as framed
+ * messages.
+ *
+ * <p>The response consists of an open-ended series of
+ * {@link EIAJResponseAuditFollow} frames. An empty frame is written
+ * immediately once the subscription is established, and whenever no events
+ * have arrived for {@link #HEARTBEAT_INTERVAL}, so that disconnected clients
+ * are noticed. If the client fails to consume events quickly enough, an
+ * {@link EIAJResponseError} frame is written and the response ends.</p>
+ *
+ * <p>The response is written with non-blocking I/O, and no container thread
+ * is held while following. The follower is driven by the audit tail
+ * service's regular tick and by the container when the output becomes
+ * writable. At least once every {@link #HEARTBEAT_INTERVAL}, the follower
+ * checks that the user's session still exists and that the (possibly
+ * updated) user is still permitted to read the audit log; if not, an
+ * {@link EIAJResponseError} frame is written and the response ends. At most
+ * {@link EISAuditTail#MAXIMUM_SUBSCRIPTIONS} followers may exist at any one
+ * time.</p>
+ */
+
+public final class EISAJ1AuditFollowServlet extends EISAJ1AuthenticatedServlet
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(EISAJ1AuditFollowServlet.class);
+
+  private static final Duration HEARTBEAT_INTERVAL =
+    Duration.ofSeconds(5L);
+
+  private final EISAuditTail tail;
+  private final EISRequestLimits limits;
+  private final EIAJCB1Messages messages;
+  private final EISUserSessionService userSessions;
+
+  /**
+   * A servlet that follows the audit log.
+   *
+   * @param inServices The service directory
+   */
+
+  public EISAJ1AuditFollowServlet(
+    final EIServiceDirectoryType inServices)
+  {
+    super(inServices);
+
+    this.tail =
+      inServices.requireService(EISAuditTail.class);
+    this.limits =
+      inServices.requireService(EISRequestLimits.class);
+    this.messages =
+      inServices.requireService(EIAJCB1Messages.class);
+    this.userSessions =
+      inServices.requireService(EISUserSessionService.class);
+  }
+
+  @Override
+  protected boolean isLongLived()
+  {
+    return true;
+  }
+
+  @Override
+  protected Logger logger()
+  {
+    return LOG;
+  }
+
+  @Override
+  protected void serviceAuthenticated(
+    final HttpServletRequest request,
+    final HttpServletResponse servletResponse,
+    final HttpSession session)
+    throws Exception
+  {
+    final var requestId =
+      EISRequestDecoration.requestIdFor(request);
+    final var command =
+      this.readCommand(request);
+
+    final var user = this.userSession().user();
+    try {
+      EISecAJPolicy.policy().check(new EISecAJActionAuditRead(user));
+    } catch (final EISecurityException e) {
+      throw new EIHTTPErrorStatusException(
+        FORBIDDEN_403,
+        SECURITY_POLICY_DENIED,
+        e.getMessage(),
+        e
+      );
+    }
+
+    final var subscriptionOpt =
+      this.tail.subscribe(command.parameters());
+
+    if (subscriptionOpt.isEmpty()) {
+      throw new EIHTTPErrorStatusException(
+        TOO_MANY_REQUESTS_429,
+        RATE_LIMITED,
+        this.strings().format(
+          "errorTooManyFollowers", Integer.valueOf(MAXIMUM_SUBSCRIPTIONS))
+      );
+    }
+
+    final var subscription = subscriptionOpt.get();
+    servletResponse.setStatus(200);
+    servletResponse.setContentType(EIAJCB1Messages.contentType());
+
+    final var context = request.startAsync();
+    context.setTimeout(0L);
+
+    final var follower =
+      new Follower(
+        requestId,
+        user.id(),
+        session.getId(),
+        context,
+        servletResponse.getOutputStream(),
+        subscription
+      );
+
+    subscription.setListener(follower::step);
+    follower.output.setWriteListener(follower);
+  }
+
+  /**
+   * A single follower. All work is performed in {@link #step()}, which is
+   * called both by the audit tail and by the container, and is serialized.
+   */
+
+  private final class Follower implements WriteListener
+  {
+    private final UUID requestId;
+    private final UUID userId;
+    private final String sessionId;
+    private final AsyncContext context;
+    private final ServletOutputStream output;
+    private final EISAuditTailSubscription subscription;
+    private boolean started;
+    private boolean finished;
+    private long timeLastWrite;
+    private long timeLastCheck;
+
+    Follower(
+      final UUID inRequestId,
+      final UUID inUserId,
+      final String inSessionId,
+      final AsyncContext inContext,
+      final ServletOutputStream inOutput,
+      final EISAuditTailSubscription inSubscription)
+    {
+      this.requestId =
+        Objects.requireNonNull(inRequestId, "requestId");
+      this.userId =
+        Objects.requireNonNull(inUserId, "userId");
+      this.sessionId =
+        Objects.requireNonNull(inSessionId, "sessionId");
+      this.context =
+        Objects.requireNonNull(inContext, "context");
+      this.output =
+        Objects.requireNonNull(inOutput, "output");
+      this.subscription =
+        Objects.requireNonNull(inSubscription, "subscription");
+      this.timeLastWrite =
+        System.nanoTime();
+      this.timeLastCheck =
+        this.timeLastWrite;
+    }
+
+    synchronized void step()
+    {
+      if (this.finished) {
+        return;
+      }
+
+      /*
+       * Frames are written for as long as the output reports that it is
+       * ready and events are available, checking readiness before every
+       * write. The container calls onWritePossible() when an output that
+       * was not ready becomes ready.
+       */
+
+      try {
+        while (this.output.isReady()) {
+          if (!this.started) {
+            this.started = true;
+            this.writeFrame(
+              new EIAJResponseAuditFollow(this.requestId, List.of()));
+            continue;
+          }
+
+          if (this.subscription.isOverflowed()) {
+            this.writeFinalError(
+              AUDIT_FOLLOW_OVERFLOW,
+              EISAJ1AuditFollowServlet.this.strings()
+                .format("errorAuditFollowOverflow")
+            );
+            return;
+          }
+
+          if (this.subscription.isClosed()) {
+            this.finish();
+            return;
+          }
+
+          final var timeNow = System.nanoTime();
+          final var heartbeat = HEARTBEAT_INTERVAL.toNanos();
+          if (timeNow - this.timeLastCheck >= heartbeat) {
+            this.timeLastCheck = timeNow;
+            if (!this.checkAuthorized()) {
+              return;
+            }
+          }
+
+          final var events = this.subscription.poll();
+          if (!events.isEmpty()) {
+            this.writeFrame(
+              new EIAJResponseAuditFollow(this.requestId, events));
+            continue;
+          }
+
+          if (timeNow - this.timeLastWrite >= heartbeat) {
+            this.writeFrame(
+              new EIAJResponseAuditFollow(this.requestId, List.of()));
+          }
+          return;
+        }
+      } catch (final IOException e) {
+        LOG.debug("audit follower disconnected: ", e);
+        this.finish();
+      }
+    }
+
+    private boolean checkAuthorized()
+      throws IOException
+    {
+      final var userSessionOpt =
+        EISAJ1AuditFollowServlet.this.userSessions.find(
+          this.userId, this.sessionId);
+
+      if (userSessionOpt.isEmpty()) {
+        this.writeFinalError(
+          AUTHENTICATION_ERROR,
+          EISAJ1AuditFollowServlet.this.strings().format("unauthorized")
+        );
+        return false;
+      }
+
+      try {
+        EISecAJPolicy.policy()
+          .check(new EISecAJActionAuditRead(userSessionOpt.get().user()));
+        return true;
+      } catch (final EISecurityException e) {
+        this.writeFinalError(SECURITY_POLICY_DENIED, e.getMessage());
+        return false;
+      }
+    }
+
+    private void writeFinalError(
+      final EIErrorCode errorCode,
+      final String message)
+      throws IOException
+    {
+      this.writeFrame(
+        new EIAJResponseError(this.requestId, errorCode, message));
+      this.finish();
+    }
+
+    private void writeFrame(
+      final EIAJMessageType message)
+      throws IOException
+    {
+      final var bytes = new ByteArrayOutputStream();
+      try {
+        EIProtocolFrames.writeFrame(
+          EISAJ1AuditFollowServlet.this.messages, message, bytes);
+      } catch (final EIProtocolException e) {
+        throw new IOException(e);
+      }
+
+      this.output.write(bytes.toByteArray());
+      if (this.output.isReady()) {
+        this.output.flush();
+      }
+      this.timeLastWrite = System.nanoTime();
+    }
+
+    private void finish()
+    {
+      if (this.finished) {
+        return;
+      }
+      this.finished = true;
+      this.subscription.close();
+      this.context.complete();
+    }
+
+    @Override
+    public void onWritePossible()
+    {
+      this.step();
+    }
+
+    @Override
+    public synchronized void onError(
+      final Throwable e)
+    {
+      LOG.debug("audit follower failed: ", e);
+      this.finish();
+    }
+  }
+
+  private EIAJCommandAuditFollow readCommand(
+    final HttpServletRequest request)
+    throws IOException, EIHTTPErrorStatusException
+  {
+    try (var input = this.limits.boundedMaximumInput(request, 1048576)) {
+      final var message = this.messages.parse(input);
+      if (message instanceof EIAJCommandAuditFollow command) {
+        return command;
+      }
+    } catch (final EIProtocolException e) {
+      throw new EIHTTPErrorStatusException(
+        BAD_REQUEST_400,
+        PROTOCOL_ERROR,
+        e.getMessage(),
+        e
+      );
+    }
+
+    throw new EIHTTPErrorStatusException(
+      BAD_REQUEST_400,
+      PROTOCOL_ERROR,
+      this.strings().format("expectedCommand", "EIAJCommandAuditFollow")
+    );
+  }
+}
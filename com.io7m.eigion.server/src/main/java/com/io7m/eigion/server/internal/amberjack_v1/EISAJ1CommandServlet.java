@@ -21,12 +21,14 @@ import com.io7m.eigion.protocol.amberjack.EIAJResponseError;
 import com.io7m.eigion.protocol.amberjack.EIAJResponseType;
 import com.io7m.eigion.protocol.amberjack.cb.EIAJCB1Messages;
 import com.io7m.eigion.protocol.api.EIProtocolException;
+import com.io7m.eigion.server.database.api.EISDatabaseConnectionType;
 import com.io7m.eigion.server.database.api.EISDatabaseException;
 import com.io7m.eigion.server.database.api.EISDatabaseTransactionType;
 import com.io7m.eigion.server.database.api.EISDatabaseType;
 import com.io7m.eigion.server.internal.EIHTTPErrorStatusException;
 import com.io7m.eigion.server.internal.EISRequestDecoration;
 import com.io7m.eigion.server.internal.EISRequestLimits;
+import com.io7m.eigion.server.internal.EISTelemetryService;
 import com.io7m.eigion.server.internal.amberjack.EISAJCommandContext;
 import com.io7m.eigion.server.internal.amberjack.EISAJCommandExecutor;
 import com.io7m.eigion.server.internal.command_exec.EISCommandExecutionFailure;
@@ -82,7 +84,8 @@ public final class EISAJ1CommandServlet extends EISAJ1AuthenticatedServlet
     this.messages =
       inServices.requireService(EIAJCB1Messages.class);
     this.executor =
-      new EISAJCommandExecutor();
+      new EISAJCommandExecutor(
+        inServices.requireService(EISTelemetryService.class));
   }
 
   @Override
@@ -102,8 +105,7 @@ public final class EISAJ1CommandServlet extends EISAJ1AuthenticatedServlet
       EISRequestDecoration.requestIdFor(request);
 
     try (var input = this.limits.boundedMaximumInput(request, 1048576)) {
-      final var data = input.readAllBytes();
-      final var message = this.messages.parse(data);
+      final var message = this.messages.parse(input);
       if (message instanceof EIAJCommandType<?> command) {
         this.executeCommand(request, servletResponse, command);
         return;
@@ -130,7 +132,7 @@ public final class EISAJ1CommandServlet extends EISAJ1AuthenticatedServlet
     final EIAJCommandType<?> command)
     throws EISDatabaseException, IOException, InterruptedException
   {
-    try (var connection = this.database.openConnection(EIGION)) {
+    try (var connection = this.openConnectionFor(command)) {
       try (var transaction = connection.openTransaction()) {
         this.executeCommandInTransaction(
           request,
@@ -142,6 +144,16 @@ public final class EISAJ1CommandServlet extends EISAJ1AuthenticatedServlet
     }
   }
 
+  private EISDatabaseConnectionType openConnectionFor(
+    final EIAJCommandType<?> command)
+    throws EISDatabaseException
+  {
+    if (this.executor.isReadOnly(command)) {
+      return this.database.openConnectionReadOnly(EIGION);
+    }
+    return this.database.openConnection(EIGION);
+  }
+
   private void executeCommandInTransaction(
     final HttpServletRequest request,
     final HttpServletResponse servletResponse,
@@ -35,6 +35,7 @@ import com.io7m.eigion.server.internal.EISRequestDecoration;
 import com.io7m.eigion.server.internal.EISRequestLimits;
 import com.io7m.eigion.server.internal.EISRequests;
 import com.io7m.eigion.server.internal.EISStrings;
+import com.io7m.eigion.server.internal.EISUserCache;
 import com.io7m.eigion.server.internal.common.EICommonInstrumentedServlet;
 import com.io7m.eigion.server.internal.sessions.EISUserSessionService;
 import com.io7m.eigion.services.api.EIServiceDirectoryType;
@@ -70,6 +71,7 @@ public final class EISAJ1Login extends EICommonInstrumentedServlet
   private final EISAJ1Sends sends;
   private final EISIdstoreClients idClients;
   private final EISClock clock;
+  private final EISUserCache userCache;
 
   /**
    * A servlet that handles user logins.
@@ -98,6 +100,8 @@ public final class EISAJ1Login extends EICommonInstrumentedServlet
       inServices.requireService(EISDatabaseType.class);
     this.clock =
       inServices.requireService(EISClock.class);
+    this.userCache =
+      inServices.requireService(EISUserCache.class);
   }
 
   @Override
@@ -118,14 +122,10 @@ public final class EISAJ1Login extends EICommonInstrumentedServlet
       final var login =
         this.readLoginCommand(request);
 
-      final var client =
-        this.idClients.createClient();
-
       final var idUser =
-        client.login(
+        this.idClients.login(
           login.userName(),
           login.password(),
-          this.idClients.baseURI(),
           Map.ofEntries(
             Map.entry(
               IdLoginMetadataStandard.remoteHostProxied(),
@@ -142,7 +142,7 @@ public final class EISAJ1Login extends EICommonInstrumentedServlet
         );
 
       final var httpSession = request.getSession(true);
-      this.sessions.create(eiUser, httpSession, client);
+      this.sessions.create(eiUser, httpSession);
       httpSession.setAttribute("UserID", idUser.id());
       this.sendLoginResponse(request, response, eiUser);
 
@@ -192,7 +192,7 @@ public final class EISAJ1Login extends EICommonInstrumentedServlet
         final var users =
           transaction.queries(EISDatabaseUsersQueriesType.class);
         final var userOpt =
-          users.userGet(userId);
+          this.userCache.userGet(users, userId);
 
         if (userOpt.isEmpty()) {
           throw this.operationNotPermitted();
@@ -237,21 +237,11 @@ public final class EISAJ1Login extends EICommonInstrumentedServlet
     final EIUser user)
     throws IOException
   {
-    response.setStatus(200);
-    response.setContentType(EIAJCB1Messages.contentType());
-
-    try {
-      final var data =
-        this.messages.serialize(
-          new EIAJResponseLogin(EISRequestDecoration.requestIdFor(request), user)
-        );
-      response.setContentLength(data.length);
-      try (var output = response.getOutputStream()) {
-        output.write(data);
-      }
-    } catch (final EIProtocolException e) {
-      throw new IOException(e);
-    }
+    this.sends.send(
+      response,
+      200,
+      new EIAJResponseLogin(EISRequestDecoration.requestIdFor(request), user)
+    );
   }
 
   private EIAJCommandLogin readLoginCommand(
@@ -259,8 +249,7 @@ public final class EISAJ1Login extends EICommonInstrumentedServlet
     throws EIHTTPErrorStatusException, IOException
   {
     try (var input = this.limits.boundedMaximumInput(request, 1024)) {
-      final var data = input.readAllBytes();
-      final var message = this.messages.parse(data);
+      final var message = this.messages.parse(input);
       if (message instanceof EIAJCommandLogin login) {
         return login;
       }
@@ -22,6 +22,7 @@ import com.io7m.eigion.protocol.amberjack.EIAJMessageType;
 import com.io7m.eigion.protocol.amberjack.EIAJResponseError;
 import com.io7m.eigion.protocol.amberjack.cb.EIAJCB1Messages;
 import com.io7m.eigion.protocol.api.EIProtocolException;
+import com.io7m.eigion.server.internal.EISMessageBuffers;
 import com.io7m.eigion.services.api.EIServiceType;
 import jakarta.servlet.http.HttpServletResponse;
 
@@ -36,17 +37,23 @@ import java.util.UUID;
 public final class EISAJ1Sends implements EIServiceType
 {
   private final EIAJCB1Messages messages;
+  private final EISMessageBuffers buffers;
 
   /**
    * Convenient functions to send messages.
    *
    * @param inMessages A message codec
+   * @param inBuffers  A pool of message buffers
    */
 
   public EISAJ1Sends(
-    final EIAJCB1Messages inMessages)
+    final EIAJCB1Messages inMessages,
+    final EISMessageBuffers inBuffers)
   {
-    this.messages = Objects.requireNonNull(inMessages, "messages");
+    this.messages =
+      Objects.requireNonNull(inMessages, "messages");
+    this.buffers =
+      Objects.requireNonNull(inBuffers, "buffers");
   }
 
   /**
@@ -95,14 +102,17 @@ public final class EISAJ1Sends implements EIServiceType
     response.setStatus(statusCode);
     response.setContentType(EIAJCB1Messages.contentType());
 
+    final var buffer = this.buffers.acquire();
     try {
-      final var data = this.messages.serialize(message);
-      response.setContentLength(data.length);
+      this.messages.serialize(message, buffer);
+      response.setContentLength(buffer.size());
       try (var output = response.getOutputStream()) {
-        output.write(data);
+        buffer.writeTo(output);
       }
     } catch (final EIProtocolException e) {
       throw new IOException(e);
+    } finally {
+      this.buffers.release(buffer);
     }
   }
 
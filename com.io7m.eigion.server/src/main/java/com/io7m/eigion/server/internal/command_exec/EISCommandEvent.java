@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.internal.command_exec;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * A flight recorder event covering the execution of a single command.
+ * Events are started with {@link #start(UUID)} and are completed by
+ * {@link EISCommandMetrics}.
+ */
+
+@Name("com.io7m.eigion.server.Command")
+@Label("Command")
+@Category({"Eigion", "Commands"})
+@Description("A protocol command was executed.")
+@StackTrace(false)
+public final class EISCommandEvent extends jdk.jfr.Event
+{
+  @Label("Protocol")
+  String protocol;
+
+  @Label("Command")
+  String command;
+
+  @Label("User")
+  @Description("The ID of the user executing the command.")
+  String user;
+
+  @Label("Outcome")
+  @Description("The command outcome (success, or an error code).")
+  String outcome;
+
+  private final transient UUID userId;
+  private final transient long timeStart;
+
+  private EISCommandEvent(
+    final UUID inUserId)
+  {
+    this.userId =
+      Objects.requireNonNull(inUserId, "userId");
+    this.timeStart =
+      System.nanoTime();
+  }
+
+  /**
+   * Start a new command event.
+   *
+   * @param userId The ID of the user executing the command
+   *
+   * @return A started event
+   */
+
+  public static EISCommandEvent start(
+    final UUID userId)
+  {
+    final var event = new EISCommandEvent(userId);
+    event.begin();
+    return event;
+  }
+
+  /**
+   * @return The time the command started, as per {@link System#nanoTime()}
+   */
+
+  public long timeStart()
+  {
+    return this.timeStart;
+  }
+
+  void finish(
+    final String inProtocol,
+    final String inCommand,
+    final String inOutcome)
+  {
+    this.end();
+    if (this.shouldCommit()) {
+      this.protocol = inProtocol;
+      this.command = inCommand;
+      this.user = this.userId.toString();
+      this.outcome = inOutcome;
+      this.commit();
+    }
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.internal.command_exec;
+
+import com.io7m.eigion.error_codes.EIErrorCode;
+import com.io7m.eigion.error_codes.EIException;
+import com.io7m.eigion.server.internal.EISTelemetryService;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+
+import java.util.Objects;
+
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+
+/**
+ * Per-command latency and error metrics. Each recorded command also
+ * completes the corresponding flight recorder {@link EISCommandEvent}.
+ */
+
+public final class EISCommandMetrics
+{
+  private static final AttributeKey<String> PROTOCOL =
+    stringKey("protocol");
+  private static final AttributeKey<String> COMMAND =
+    stringKey("command");
+  private static final AttributeKey<String> OUTCOME =
+    stringKey("outcome");
+
+  private static final String OUTCOME_SUCCESS = "success";
+  private static final String OUTCOME_EXCEPTION = "exception";
+
+  private final String protocol;
+  private final DoubleHistogram commandTime;
+  private final LongCounter commandErrors;
+
+  /**
+   * Per-command latency and error metrics.
+   *
+   * @param inTelemetry The telemetry service
+   * @param inProtocol  The protocol name (such as "pike")
+   */
+
+  public EISCommandMetrics(
+    final EISTelemetryService inTelemetry,
+    final String inProtocol)
+  {
+    Objects.requireNonNull(inTelemetry, "inTelemetry");
+
+    this.protocol =
+      Objects.requireNonNull(inProtocol, "protocol");
+
+    final var meter =
+      inTelemetry.openTelemetry()
+        .meterBuilder(EISCommandMetrics.class.getCanonicalName())
+        .build();
+
+    this.commandTime =
+      meter.histogramBuilder("eigion.commands.time")
+        .setDescription("The time taken to execute commands.")
+        .setUnit("ms")
+        .build();
+
+    this.commandErrors =
+      meter.counterBuilder("eigion.commands.errors")
+        .setDescription("Commands that failed.")
+        .build();
+  }
+
+  /**
+   * Record a command that completed successfully.
+   *
+   * @param command   The command
+   * @param event     The event started when the command started
+   */
+
+  public void recordSuccess(
+    final Object command,
+    final EISCommandEvent event)
+  {
+    this.record(command, event, OUTCOME_SUCCESS, false);
+  }
+
+  /**
+   * Record a command that returned an error response.
+   *
+   * @param command   The command
+   * @param event     The event started when the command started
+   * @param errorCode The error code
+   */
+
+  public void recordError(
+    final Object command,
+    final EISCommandEvent event,
+    final EIErrorCode errorCode)
+  {
+    this.record(command, event, errorCode.id(), true);
+  }
+
+  /**
+   * Record a command that raised an exception. Exceptions that carry an
+   * error code (such as {@link EISCommandExecutionFailure}) are recorded
+   * with that error code as the outcome.
+   *
+   * @param command   The command
+   * @param event     The event started when the command started
+   * @param exception The exception
+   */
+
+  public void recordException(
+    final Object command,
+    final EISCommandEvent event,
+    final Throwable exception)
+  {
+    if (exception instanceof EIException e) {
+      this.record(command, event, e.errorCode().id(), true);
+    } else {
+      this.record(command, event, OUTCOME_EXCEPTION, true);
+    }
+  }
+
+  private void record(
+    final Object command,
+    final EISCommandEvent event,
+    final String outcome,
+    final boolean failed)
+  {
+    final var commandName =
+      command.getClass().getSimpleName();
+    final var attributes =
+      Attributes.of(
+        PROTOCOL, this.protocol,
+        COMMAND, commandName,
+        OUTCOME, outcome
+      );
+
+    final var nanos = System.nanoTime() - event.timeStart();
+    this.commandTime.record((double) nanos / 1_000_000.0, attributes);
+    if (failed) {
+      this.commandErrors.add(1L, attributes);
+    }
+    event.finish(this.protocol, commandName, outcome);
+  }
+
+  @Override
+  public String toString()
+  {
+    return "[EISCommandMetrics %s]".formatted(this.protocol);
+  }
+}
@@ -17,10 +17,12 @@
 
 package com.io7m.eigion.server.internal.common;
 
+import com.io7m.eigion.server.internal.EISFlightRecorderService;
 import com.io7m.eigion.server.internal.EISRequestDecoration;
 import com.io7m.eigion.server.internal.EISRequests;
 import com.io7m.eigion.server.internal.EISTelemetryService;
 import com.io7m.eigion.services.api.EIServiceDirectoryType;
+import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.trace.SpanKind;
 import io.opentelemetry.api.trace.Tracer;
 import jakarta.servlet.ServletException;
@@ -31,7 +33,6 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
-import java.time.Instant;
 
 import static io.opentelemetry.semconv.trace.attributes.SemanticAttributes.HTTP_CLIENT_IP;
 import static io.opentelemetry.semconv.trace.attributes.SemanticAttributes.HTTP_METHOD;
@@ -48,13 +49,26 @@ import static io.opentelemetry.semconv.trace.attributes.SemanticAttributes.HTTP_
 
 public abstract class EICommonInstrumentedServlet extends HttpServlet
 {
+  /**
+   * The span attribute that marks requests that are expected to be held
+   * open for long periods.
+   *
+   * @see #isLongLived()
+   */
+
+  public static final AttributeKey<Boolean> LONG_LIVED =
+    AttributeKey.booleanKey("eigion.long_lived");
+
   private final EISTelemetryService telemetry;
+  private final EISFlightRecorderService flightRecorder;
 
   protected EICommonInstrumentedServlet(
     final EIServiceDirectoryType inServices)
   {
     this.telemetry =
       inServices.requireService(EISTelemetryService.class);
+    this.flightRecorder =
+      inServices.requireService(EISFlightRecorderService.class);
   }
 
   protected final Tracer tracer()
@@ -62,6 +76,20 @@ public abstract class EICommonInstrumentedServlet extends HttpServlet
     return this.telemetry.tracer();
   }
 
+  /**
+   * Streaming and long-polling servlets hold requests open by design, and
+   * so their request durations say nothing about server health. Such
+   * requests are not reported to the flight recorder, and their spans are
+   * not exported merely for being slow.
+   *
+   * @return {@code true} if requests to this servlet are long-lived
+   */
+
+  protected boolean isLongLived()
+  {
+    return false;
+  }
+
   @Override
   public final void service(
     final ServletRequest req,
@@ -73,28 +101,55 @@ public abstract class EICommonInstrumentedServlet extends HttpServlet
 
       final var tracer =
         this.tracer();
+      final var longLived =
+        this.isLongLived();
 
-      final var span =
+      final var spanBuilder =
         tracer.spanBuilder(sr.getServletPath())
-          .setStartTimestamp(Instant.now())
           .setSpanKind(SpanKind.SERVER)
-          .setAttribute(HTTP_CLIENT_IP, sr.getRemoteAddr())
           .setAttribute(HTTP_METHOD, sr.getMethod())
-          .setAttribute(HTTP_REQUEST_CONTENT_LENGTH, sr.getContentLengthLong())
-          .setAttribute(HTTP_USER_AGENT, EISRequests.requestUserAgent(sr))
-          .setAttribute(HTTP_URL, sr.getRequestURI())
-          .setAttribute("http.request_id", EISRequestDecoration.requestIdFor(sr).toString())
-          .startSpan();
+          .setAttribute(HTTP_URL, sr.getRequestURI());
+
+      if (longLived) {
+        spanBuilder.setAttribute(LONG_LIVED, Boolean.TRUE);
+      }
+
+      final var span = spanBuilder.startSpan();
+
+      /*
+       * The remaining attributes require header lookups and string
+       * conversions, so are only computed for spans that will be recorded.
+       */
+
+      final var recording = span.isRecording();
+      if (recording) {
+        span.setAttribute(HTTP_CLIENT_IP, sr.getRemoteAddr());
+        span.setAttribute(HTTP_REQUEST_CONTENT_LENGTH, sr.getContentLengthLong());
+        span.setAttribute(HTTP_USER_AGENT, EISRequests.requestUserAgent(sr));
+        span.setAttribute(
+          "http.request_id",
+          EISRequestDecoration.requestIdFor(sr).toString());
+      }
 
+      final var timeStart = System.nanoTime();
       try (var ignored = span.makeCurrent()) {
         this.service(sr, response);
-        span.setAttribute(HTTP_STATUS_CODE, response.getStatus());
-        span.setAttribute(HTTP_RESPONSE_CONTENT_LENGTH, contentLength(response));
+        if (recording) {
+          span.setAttribute(HTTP_STATUS_CODE, response.getStatus());
+          span.setAttribute(
+            HTTP_RESPONSE_CONTENT_LENGTH, contentLength(response));
+        }
       } catch (final Throwable e) {
         span.recordException(e);
         throw e;
       } finally {
         span.end();
+        if (!longLived) {
+          this.flightRecorder.requestCompleted(
+            sr.getServletPath(),
+            System.nanoTime() - timeStart
+          );
+        }
       }
       return;
     }
@@ -25,11 +25,14 @@ import com.io7m.eigion.protocol.pike.EIPCommandGroupCreateBegin;
 import com.io7m.eigion.protocol.pike.EIPResponseGroupCreateBegin;
 import com.io7m.eigion.protocol.pike.EIPResponseType;
 import com.io7m.eigion.server.database.api.EISDatabaseGroupsQueriesType;
+import com.io7m.eigion.server.internal.EISGroupNameFilter;
 import com.io7m.eigion.server.internal.pike.security.EISecPActionGroupCreateBegin;
 import com.io7m.eigion.server.internal.pike.security.EISecPPolicy;
 
 import java.util.Objects;
 
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.GROUP_DUPLICATE;
+
 /**
  * EIPCommandGroupCreateBegin
  */
@@ -55,23 +58,46 @@ public final class EISPCmdGroupCreateBegin
     Objects.requireNonNull(context, "context");
     Objects.requireNonNull(command, "command");
 
-    final var transaction =
-      context.transaction();
+    /*
+     * Rate limits have already been checked by the command servlet, before
+     * a database connection was opened for the command.
+     */
+
     final var user =
       context.user();
+    final var transaction =
+      context.transaction();
     final var groups =
       transaction.queries(EISDatabaseGroupsQueriesType.class);
-
-    final var existing =
-      groups.groupCreationRequestsForUser(user.id());
     final var groupName =
       command.groupName();
+
+    final var recentRequests =
+      groups.groupCreationRequestsCountSince(
+        user.id(), context.now().minusHours(1L));
     final var action =
       new EISecPActionGroupCreateBegin(
-        user, context.now(), existing, groupName);
+        user, context.now(), recentRequests, groupName);
 
     EISecPPolicy.policy().check(action);
 
+    /*
+     * The existence of the group is only checked once the policy has
+     * permitted the request, so that the command cannot be used to probe
+     * for the names of existing groups.
+     */
+
+    final var names =
+      context.services().requireService(EISGroupNameFilter.class);
+    if (names.exists(groups, groupName)) {
+      throw context.failFormatted(
+        400,
+        GROUP_DUPLICATE,
+        "errorGroupDuplicate",
+        groupName.value()
+      );
+    }
+
     final var request =
       new EIGroupCreationRequest(
         groupName,
@@ -22,15 +22,25 @@ import com.io7m.eigion.protocol.pike.EIPCommandGroupCreateReady;
 import com.io7m.eigion.protocol.pike.EIPCommandGroupCreateRequestsBegin;
 import com.io7m.eigion.protocol.pike.EIPCommandGroupCreateRequestsNext;
 import com.io7m.eigion.protocol.pike.EIPCommandGroupCreateRequestsPrevious;
+import com.io7m.eigion.protocol.pike.EIPCommandGroupCreateRequestsWait;
 import com.io7m.eigion.protocol.pike.EIPCommandGroupsBegin;
 import com.io7m.eigion.protocol.pike.EIPCommandGroupsNext;
 import com.io7m.eigion.protocol.pike.EIPCommandGroupsPrevious;
 import com.io7m.eigion.protocol.pike.EIPCommandType;
+import com.io7m.eigion.protocol.pike.EIPResponseError;
 import com.io7m.eigion.protocol.pike.EIPResponseType;
+import com.io7m.eigion.server.database.api.EISDatabaseException;
+import com.io7m.eigion.server.internal.EISRateLimiter;
+import com.io7m.eigion.server.internal.EISTelemetryService;
+import com.io7m.eigion.server.internal.command_exec.EISCommandEvent;
 import com.io7m.eigion.server.internal.command_exec.EISCommandExecutionFailure;
 import com.io7m.eigion.server.internal.command_exec.EISCommandExecutorType;
+import com.io7m.eigion.server.internal.command_exec.EISCommandMetrics;
 
 import java.io.IOException;
+import java.util.UUID;
+
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.PROTOCOL_ERROR;
 
 /**
  * A command executor for Tickets commands.
@@ -42,13 +52,70 @@ public final class EISPCommandExecutor
   EIPCommandType<? extends EIPResponseType>,
     EIPResponseType>
 {
+  private final EISCommandMetrics metrics;
+
   /**
    * A command executor for Tickets commands.
+   *
+   * @param telemetry The telemetry service
+   */
+
+  public EISPCommandExecutor(
+    final EISTelemetryService telemetry)
+  {
+    this.metrics = new EISCommandMetrics(telemetry, "pike");
+  }
+
+  /**
+   * Determine if the given command is read-only. Read-only commands do not
+   * modify the database and may therefore be executed against a read-only
+   * replica.
+   *
+   * Listing group creation requests is not treated as read-only: users
+   * list their requests immediately after beginning one on the primary, and
+   * a lagging replica would not yet show the new request.
+   *
+   * @param command The command
+   *
+   * @return {@code true} if the command is read-only
    */
 
-  public EISPCommandExecutor()
+  public boolean isReadOnly(
+    final EIPCommandType<?> command)
   {
+    return command instanceof EIPCommandGroupsBegin
+      || command instanceof EIPCommandGroupsNext
+      || command instanceof EIPCommandGroupsPrevious;
+  }
+
+  /**
+   * Determine if the given command is permitted by the server's rate limits.
+   * Rate limits must be checked before a database connection is opened for
+   * the command: checking shared rate limits requires a connection of its
+   * own, and a command holding one connection while waiting for another
+   * could exhaust the connection pool.
+   *
+   * @param limiter       The rate limiter
+   * @param userId        The user executing the command
+   * @param remoteAddress The remote address of the request
+   * @param command       The command
+   *
+   * @return {@code true} if the command is permitted
+   *
+   * @throws EISDatabaseException If shared rate limits could not be checked
+   */
 
+  public boolean isPermittedByRateLimits(
+    final EISRateLimiter limiter,
+    final UUID userId,
+    final String remoteAddress,
+    final EIPCommandType<?> command)
+    throws EISDatabaseException
+  {
+    if (command instanceof EIPCommandGroupCreateBegin) {
+      return limiter.tryGroupCreateBegin(userId, remoteAddress);
+    }
+    return true;
   }
 
   @Override
@@ -62,9 +129,19 @@ public final class EISPCommandExecutor
         .spanBuilder(command.getClass().getSimpleName())
         .startSpan();
 
+    final var event =
+      EISCommandEvent.start(context.userSession().user().id());
+
     try (var ignored = span.makeCurrent()) {
-      return executeCommand(context, command);
+      final var result = executeCommand(context, command);
+      if (result instanceof EIPResponseError error) {
+        this.metrics.recordError(command, event, error.errorCode());
+      } else {
+        this.metrics.recordSuccess(command, event);
+      }
+      return result;
     } catch (final Throwable e) {
+      this.metrics.recordException(command, event, e);
       span.recordException(e);
       throw e;
     } finally {
@@ -104,6 +181,15 @@ public final class EISPCommandExecutor
     if (command instanceof EIPCommandGroupCreateRequestsPrevious c) {
       return new EISPCmdGroupCreateRequestsPrevious().execute(context, c);
     }
+    if (command instanceof EIPCommandGroupCreateRequestsWait) {
+      throw context.failFormatted(
+        400,
+        PROTOCOL_ERROR,
+        "errorStreamedCommand",
+        "EIPCommandGroupCreateRequestsWait",
+        "group-create-requests-wait"
+      );
+    }
 
     throw new IllegalStateException(
       "Unrecognized command: %s".formatted(command.getClass())
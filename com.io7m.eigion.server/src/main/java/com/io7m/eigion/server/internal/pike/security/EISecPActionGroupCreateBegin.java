@@ -16,51 +16,50 @@
 
 package com.io7m.eigion.server.internal.pike.security;
 
-import com.io7m.eigion.model.EIGroupCreationRequest;
 import com.io7m.eigion.model.EIGroupName;
 import com.io7m.eigion.model.EIUser;
 import com.io7m.eigion.model.EIValidityException;
 
 import java.time.OffsetDateTime;
-import java.util.List;
 import java.util.Objects;
 
 /**
  * A user wants to create a group.
  *
- * @param user             The user
- * @param timeNow          The current time
- * @param groupName        The group name
- * @param existingRequests The user's existing group requests
+ * @param user           The user
+ * @param timeNow        The current time
+ * @param recentRequests The number of group requests the user started in the
+ *                       hour before {@code timeNow}
+ * @param groupName      The group name
  */
 
 public record EISecPActionGroupCreateBegin(
   EIUser user,
   OffsetDateTime timeNow,
-  List<EIGroupCreationRequest> existingRequests,
+  long recentRequests,
   EIGroupName groupName)
   implements EISecPActionType
 {
   /**
    * A user wants to create a group.
    *
-   * @param user             The user
-   * @param timeNow          The current time
-   * @param groupName        The group name
-   * @param existingRequests The user's existing group requests
+   * @param user           The user
+   * @param timeNow        The current time
+   * @param recentRequests The number of group requests the user started in
+   *                       the hour before {@code timeNow}
+   * @param groupName      The group name
    */
 
   public EISecPActionGroupCreateBegin
   {
     Objects.requireNonNull(user, "user");
     Objects.requireNonNull(timeNow, "timeNow");
-    Objects.requireNonNull(existingRequests, "existingRequests");
     Objects.requireNonNull(groupName, "groupName");
 
-    if (!existingRequests.stream()
-      .allMatch(r -> Objects.equals(r.userFounder(), user.id()))) {
+    if (recentRequests < 0L) {
       throw new EIValidityException(
-        "Group requests must belong to user %s".formatted(user.id())
+        "Recent request count %d must be non-negative"
+          .formatted(Long.valueOf(recentRequests))
       );
     }
   }
@@ -100,17 +100,7 @@ public final class EISecPPolicy implements EISecPolicyType<EISecPActionType>
      * Group creation requests are rate-limited.
      */
 
-    final var existingRequests =
-      c.existingRequests();
-    final var lastHour =
-      c.timeNow().minusHours(1L);
-
-    final var recentRequests =
-      existingRequests.stream()
-        .filter(r -> r.status().timeStarted().isAfter(lastHour))
-        .count();
-
-    if (recentRequests >= 5L) {
+    if (c.recentRequests() >= 5L) {
       final var nextHour =
         c.timeNow().plusHours(1L);
 
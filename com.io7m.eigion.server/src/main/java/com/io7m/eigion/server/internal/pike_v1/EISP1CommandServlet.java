@@ -21,12 +21,15 @@ import com.io7m.eigion.protocol.pike.EIPCommandType;
 import com.io7m.eigion.protocol.pike.EIPResponseError;
 import com.io7m.eigion.protocol.pike.EIPResponseType;
 import com.io7m.eigion.protocol.pike.cb.EIPCB1Messages;
+import com.io7m.eigion.server.database.api.EISDatabaseConnectionType;
 import com.io7m.eigion.server.database.api.EISDatabaseException;
 import com.io7m.eigion.server.database.api.EISDatabaseTransactionType;
 import com.io7m.eigion.server.database.api.EISDatabaseType;
 import com.io7m.eigion.server.internal.EIHTTPErrorStatusException;
+import com.io7m.eigion.server.internal.EISRateLimiter;
 import com.io7m.eigion.server.internal.EISRequestDecoration;
 import com.io7m.eigion.server.internal.EISRequestLimits;
+import com.io7m.eigion.server.internal.EISTelemetryService;
 import com.io7m.eigion.server.internal.command_exec.EISCommandExecutionFailure;
 import com.io7m.eigion.server.internal.pike.EISPCommandContext;
 import com.io7m.eigion.server.internal.pike.EISPCommandExecutor;
@@ -44,6 +47,7 @@ import java.util.Optional;
 
 import static com.io7m.eigion.error_codes.EIStandardErrorCodes.IO_ERROR;
 import static com.io7m.eigion.error_codes.EIStandardErrorCodes.PROTOCOL_ERROR;
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.RATE_LIMITED;
 import static com.io7m.eigion.server.database.api.EISDatabaseRole.EIGION;
 import static org.eclipse.jetty.http.HttpStatus.BAD_REQUEST_400;
 
@@ -60,6 +64,7 @@ public final class EISP1CommandServlet extends EISP1AuthenticatedServlet
   private final EISRequestLimits limits;
   private final EIPCB1Messages messages;
   private final EISPCommandExecutor executor;
+  private final EISRateLimiter rateLimiter;
   private final EIServiceDirectoryType services;
 
   /**
@@ -82,7 +87,10 @@ public final class EISP1CommandServlet extends EISP1AuthenticatedServlet
     this.messages =
       inServices.requireService(EIPCB1Messages.class);
     this.executor =
-      new EISPCommandExecutor();
+      new EISPCommandExecutor(
+        inServices.requireService(EISTelemetryService.class));
+    this.rateLimiter =
+      inServices.requireService(EISRateLimiter.class);
   }
 
   @Override
@@ -102,8 +110,7 @@ public final class EISP1CommandServlet extends EISP1AuthenticatedServlet
       EISRequestDecoration.requestIdFor(request);
 
     try (var input = this.limits.boundedMaximumInput(request, 1048576)) {
-      final var data = input.readAllBytes();
-      final var message = this.messages.parse(data);
+      final var message = this.messages.parse(input);
       if (message instanceof EIPCommandType<?> command) {
         this.executeCommand(request, servletResponse, command);
         return;
@@ -130,7 +137,28 @@ public final class EISP1CommandServlet extends EISP1AuthenticatedServlet
     final EIPCommandType<?> command)
     throws EISDatabaseException, IOException, InterruptedException
   {
-    try (var connection = this.database.openConnection(EIGION)) {
+    final var permitted =
+      this.executor.isPermittedByRateLimits(
+        this.rateLimiter,
+        this.userSession().user().id(),
+        request.getRemoteHost(),
+        command
+      );
+
+    if (!permitted) {
+      this.sends().send(
+        servletResponse,
+        429,
+        new EIPResponseError(
+          EISRequestDecoration.requestIdFor(request),
+          RATE_LIMITED,
+          this.strings().format("errorRateLimited")
+        )
+      );
+      return;
+    }
+
+    try (var connection = this.openConnectionFor(command)) {
       try (var transaction = connection.openTransaction()) {
         this.executeCommandInTransaction(
           request,
@@ -142,6 +170,16 @@ public final class EISP1CommandServlet extends EISP1AuthenticatedServlet
     }
   }
 
+  private EISDatabaseConnectionType openConnectionFor(
+    final EIPCommandType<?> command)
+    throws EISDatabaseException
+  {
+    if (this.executor.isReadOnly(command)) {
+      return this.database.openConnectionReadOnly(EIGION);
+    }
+    return this.database.openConnection(EIGION);
+  }
+
   private void executeCommandInTransaction(
     final HttpServletRequest request,
     final HttpServletResponse servletResponse,
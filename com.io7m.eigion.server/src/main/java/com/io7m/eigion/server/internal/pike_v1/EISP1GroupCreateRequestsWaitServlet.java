@@ -0,0 +1,268 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.internal.pike_v1;
+
+import com.io7m.eigion.model.EIGroupCreationRequest;
+import com.io7m.eigion.protocol.api.EIProtocolException;
+import com.io7m.eigion.protocol.pike.EIPCommandGroupCreateRequestsWait;
+import com.io7m.eigion.protocol.pike.EIPResponseGroupCreateRequestsChanged;
+import com.io7m.eigion.server.internal.EIHTTPErrorStatusException;
+import com.io7m.eigion.server.internal.EISRequestDecoration;
+import com.io7m.eigion.server.internal.EISRequestLimits;
+import com.io7m.eigion.server.internal.sessions.EISGroupCreationRequestMailbox;
+import com.io7m.eigion.server.internal.sessions.EISGroupCreationRequestWaiterType;
+import com.io7m.eigion.services.api.EIServiceDirectoryType;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.PROTOCOL_ERROR;
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.RATE_LIMITED;
+import static com.io7m.eigion.server.internal.sessions.EISGroupCreationRequestMailbox.MAXIMUM_WAITERS;
+import static org.eclipse.jetty.http.HttpStatus.BAD_REQUEST_400;
+import static org.eclipse.jetty.http.HttpStatus.TOO_MANY_REQUESTS_429;
+
+/**
+ * A servlet that waits for changes to the group creation requests of the
+ * current user.
+ *
+ * <p>The request is held open until at least one group creation request
+ * belonging to the user changes, or until the timeout given in the command
+ * elapses, whichever comes first. The response contains the current state of
+ * every request that changed, and is empty if the timeout elapsed. No database
+ * connection is held while waiting.</p>
+ *
+ * <p>Waiting is asynchronous: the request is suspended with
+ * {@link HttpServletRequest#startAsync()}, and no container thread is held
+ * while waiting. The mailbox (or the async timeout) completes the wait and
+ * dispatches the request back to this servlet, which then writes the
+ * response. Each session may have at most
+ * {@link EISGroupCreationRequestMailbox#MAXIMUM_WAITERS} waits in progress,
+ * and further waits are rejected.</p>
+ */
+
+public final class EISP1GroupCreateRequestsWaitServlet
+  extends EISP1AuthenticatedServlet
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(EISP1GroupCreateRequestsWaitServlet.class);
+
+  private static final String WAITER_ATTRIBUTE =
+    EISP1GroupCreateRequestsWaitServlet.class.getCanonicalName() + ".waiter";
+
+  private final EISRequestLimits limits;
+
+  /**
+   * A servlet that waits for changes to the group creation requests of the
+   * current user.
+   *
+   * @param inServices The service directory
+   */
+
+  public EISP1GroupCreateRequestsWaitServlet(
+    final EIServiceDirectoryType inServices)
+  {
+    super(inServices);
+
+    this.limits =
+      inServices.requireService(EISRequestLimits.class);
+  }
+
+  @Override
+  protected boolean isLongLived()
+  {
+    return true;
+  }
+
+  @Override
+  protected Logger logger()
+  {
+    return LOG;
+  }
+
+  @Override
+  protected void serviceAuthenticated(
+    final HttpServletRequest request,
+    final HttpServletResponse servletResponse,
+    final HttpSession session)
+    throws Exception
+  {
+    if (request.getDispatcherType() == DispatcherType.ASYNC) {
+      final var waiter = (Waiter) request.getAttribute(WAITER_ATTRIBUTE);
+      this.sends().send(
+        servletResponse,
+        200,
+        new EIPResponseGroupCreateRequestsChanged(
+          waiter.requestId, waiter.results())
+      );
+      return;
+    }
+
+    final var requestId =
+      EISRequestDecoration.requestIdFor(request);
+    final var command =
+      this.readCommand(request);
+    final var mailbox =
+      this.userSession().groupCreationRequestMailbox();
+
+    final var context = request.startAsync();
+    context.setTimeout(
+      Duration.ofSeconds(command.timeoutSeconds()).toMillis());
+
+    final var waiter = new Waiter(requestId, context, mailbox);
+    request.setAttribute(WAITER_ATTRIBUTE, waiter);
+    context.addListener(waiter);
+
+    if (!mailbox.await(waiter)) {
+      waiter.abandon();
+      this.sends().sendError(
+        servletResponse,
+        requestId,
+        TOO_MANY_REQUESTS_429,
+        RATE_LIMITED,
+        this.strings().format(
+          "errorTooManyWaiters", Integer.valueOf(MAXIMUM_WAITERS))
+      );
+      context.complete();
+    }
+  }
+
+  /**
+   * A wait in progress. The wait is completed exactly once, either by the
+   * mailbox or by the async timeout, and completion dispatches the request
+   * back to the servlet.
+   */
+
+  private static final class Waiter
+    implements EISGroupCreationRequestWaiterType, AsyncListener
+  {
+    private final UUID requestId;
+    private final AsyncContext context;
+    private final EISGroupCreationRequestMailbox mailbox;
+    private List<EIGroupCreationRequest> results;
+    private boolean completed;
+
+    Waiter(
+      final UUID inRequestId,
+      final AsyncContext inContext,
+      final EISGroupCreationRequestMailbox inMailbox)
+    {
+      this.requestId =
+        Objects.requireNonNull(inRequestId, "requestId");
+      this.context =
+        Objects.requireNonNull(inContext, "context");
+      this.mailbox =
+        Objects.requireNonNull(inMailbox, "mailbox");
+      this.results =
+        List.of();
+    }
+
+    @Override
+    public synchronized boolean complete(
+      final List<EIGroupCreationRequest> requests)
+    {
+      if (this.completed) {
+        return false;
+      }
+      this.completed = true;
+      this.results = Objects.requireNonNull(requests, "requests");
+      this.context.dispatch();
+      return true;
+    }
+
+    synchronized void abandon()
+    {
+      this.completed = true;
+    }
+
+    synchronized List<EIGroupCreationRequest> results()
+    {
+      return this.results;
+    }
+
+    @Override
+    public void onComplete(
+      final AsyncEvent event)
+    {
+      this.mailbox.cancel(this);
+    }
+
+    @Override
+    public void onTimeout(
+      final AsyncEvent event)
+    {
+      this.mailbox.cancel(this);
+      this.complete(List.of());
+    }
+
+    @Override
+    public void onError(
+      final AsyncEvent event)
+    {
+      LOG.debug("group creation request waiter failed: ", event.getThrowable());
+      this.mailbox.cancel(this);
+      this.abandon();
+    }
+
+    @Override
+    public void onStartAsync(
+      final AsyncEvent event)
+    {
+
+    }
+  }
+
+  private EIPCommandGroupCreateRequestsWait readCommand(
+    final HttpServletRequest request)
+    throws IOException, EIHTTPErrorStatusException
+  {
+    try (var input = this.limits.boundedMaximumInput(request, 1048576)) {
+      final var message = this.messages().parse(input);
+      if (message instanceof EIPCommandGroupCreateRequestsWait command) {
+        return command;
+      }
+    } catch (final EIProtocolException e) {
+      throw new EIHTTPErrorStatusException(
+        BAD_REQUEST_400,
+        PROTOCOL_ERROR,
+        e.getMessage(),
+        e
+      );
+    }
+
+    throw new EIHTTPErrorStatusException(
+      BAD_REQUEST_400,
+      PROTOCOL_ERROR,
+      this.strings().format(
+        "expectedCommand",
+        "EIPCommandGroupCreateRequestsWait")
+    );
+  }
+}
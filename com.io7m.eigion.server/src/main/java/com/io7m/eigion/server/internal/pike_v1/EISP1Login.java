@@ -35,6 +35,7 @@ import com.io7m.eigion.server.internal.EISRequestDecoration;
 import com.io7m.eigion.server.internal.EISRequestLimits;
 import com.io7m.eigion.server.internal.EISRequests;
 import com.io7m.eigion.server.internal.EISStrings;
+import com.io7m.eigion.server.internal.EISUserCache;
 import com.io7m.eigion.server.internal.common.EICommonInstrumentedServlet;
 import com.io7m.eigion.server.internal.sessions.EISUserSessionService;
 import com.io7m.eigion.services.api.EIServiceDirectoryType;
@@ -68,6 +69,7 @@ public final class EISP1Login extends EICommonInstrumentedServlet
   private final EISP1Sends sends;
   private final EISIdstoreClients idClients;
   private final EISClock clock;
+  private final EISUserCache userCache;
 
   /**
    * A servlet that handles user logins.
@@ -96,6 +98,8 @@ public final class EISP1Login extends EICommonInstrumentedServlet
       inServices.requireService(EISDatabaseType.class);
     this.clock =
       inServices.requireService(EISClock.class);
+    this.userCache =
+      inServices.requireService(EISUserCache.class);
   }
 
   @Override
@@ -116,14 +120,10 @@ public final class EISP1Login extends EICommonInstrumentedServlet
       final var login =
         this.readLoginCommand(request);
 
-      final var client =
-        this.idClients.createClient();
-
       final var idUser =
-        client.login(
+        this.idClients.login(
           login.userName(),
           login.password(),
-          this.idClients.baseURI(),
           Map.ofEntries(
             Map.entry(
               IdLoginMetadataStandard.remoteHostProxied(),
@@ -140,7 +140,7 @@ public final class EISP1Login extends EICommonInstrumentedServlet
         );
 
       final var httpSession = request.getSession(true);
-      this.sessions.create(eiUser, httpSession, client);
+      this.sessions.create(eiUser, httpSession);
       httpSession.setAttribute("UserID", idUser.id());
       this.sendLoginResponse(request, response, eiUser);
 
@@ -189,11 +189,17 @@ public final class EISP1Login extends EICommonInstrumentedServlet
       try (var transaction = connection.openTransaction()) {
         final var users =
           transaction.queries(EISDatabaseUsersQueriesType.class);
-        final var user =
-          users.userGet(userId)
-            .orElse(new EIUser(userId, EIPermissionSet.empty()));
+        final var existing =
+          this.userCache.userGet(users, userId);
+
+        final EIUser user;
+        if (existing.isPresent()) {
+          user = existing.get();
+        } else {
+          user = new EIUser(userId, EIPermissionSet.empty());
+          users.userPut(user);
+        }
 
-        users.userPut(user);
         users.userLogin(
           new EIUserLogin(
             userId,
@@ -215,21 +221,11 @@ public final class EISP1Login extends EICommonInstrumentedServlet
     final EIUser user)
     throws IOException
   {
-    response.setStatus(200);
-    response.setContentType(EIPCB1Messages.contentType());
-
-    try {
-      final var data =
-        this.messages.serialize(
-          new EIPResponseLogin(EISRequestDecoration.requestIdFor(request), user)
-        );
-      response.setContentLength(data.length);
-      try (var output = response.getOutputStream()) {
-        output.write(data);
-      }
-    } catch (final EIProtocolException e) {
-      throw new IOException(e);
-    }
+    this.sends.send(
+      response,
+      200,
+      new EIPResponseLogin(EISRequestDecoration.requestIdFor(request), user)
+    );
   }
 
   private EIPCommandLogin readLoginCommand(
@@ -237,8 +233,7 @@ public final class EISP1Login extends EICommonInstrumentedServlet
     throws EIHTTPErrorStatusException, IOException
   {
     try (var input = this.limits.boundedMaximumInput(request, 1024)) {
-      final var data = input.readAllBytes();
-      final var message = this.messages.parse(data);
+      final var message = this.messages.parse(input);
       if (message instanceof EIPCommandLogin login) {
         return login;
       }
@@ -21,6 +21,7 @@ import com.io7m.eigion.protocol.api.EIProtocolException;
 import com.io7m.eigion.protocol.pike.EIPMessageType;
 import com.io7m.eigion.protocol.pike.EIPResponseError;
 import com.io7m.eigion.protocol.pike.cb.EIPCB1Messages;
+import com.io7m.eigion.server.internal.EISMessageBuffers;
 import com.io7m.eigion.services.api.EIServiceType;
 import jakarta.servlet.http.HttpServletResponse;
 
@@ -35,17 +36,23 @@ import java.util.UUID;
 public final class EISP1Sends implements EIServiceType
 {
   private final EIPCB1Messages messages;
+  private final EISMessageBuffers buffers;
 
   /**
    * Convenient functions to send messages.
    *
    * @param inMessages A message codec
+   * @param inBuffers  A pool of message buffers
    */
 
   public EISP1Sends(
-    final EIPCB1Messages inMessages)
+    final EIPCB1Messages inMessages,
+    final EISMessageBuffers inBuffers)
   {
-    this.messages = Objects.requireNonNull(inMessages, "messages");
+    this.messages =
+      Objects.requireNonNull(inMessages, "messages");
+    this.buffers =
+      Objects.requireNonNull(inBuffers, "buffers");
   }
 
   /**
@@ -94,14 +101,17 @@ public final class EISP1Sends implements EIServiceType
     response.setStatus(statusCode);
     response.setContentType(EIPCB1Messages.contentType());
 
+    final var buffer = this.buffers.acquire();
     try {
-      final var data = this.messages.serialize(message);
-      response.setContentLength(data.length);
+      this.messages.serialize(message, buffer);
+      response.setContentLength(buffer.size());
       try (var output = response.getOutputStream()) {
-        output.write(data);
+        buffer.writeTo(output);
       }
     } catch (final EIProtocolException e) {
       throw new IOException(e);
+    } finally {
+      this.buffers.release(buffer);
     }
   }
 
@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.internal.sessions;
+
+import com.io7m.eigion.model.EIGroupCreationRequest;
+import com.io7m.eigion.model.EIToken;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded mailbox of group creation request changes delivered to a single
+ * user session. Only the most recent state of each request is retained, and
+ * the oldest changes are discarded when the mailbox is full.
+ *
+ * <p>Consumers do not block: a waiter is registered with
+ * {@link #await(EISGroupCreationRequestWaiterType)} and is completed with
+ * all available changes as soon as at least one change arrives. At most
+ * {@link #MAXIMUM_WAITERS} waiters may be registered at any one time.</p>
+ */
+
+public final class EISGroupCreationRequestMailbox implements AutoCloseable
+{
+  /**
+   * The maximum number of distinct requests held in a mailbox.
+   */
+
+  public static final int CAPACITY = 64;
+
+  /**
+   * The maximum number of waiters that may be registered at any one time.
+   */
+
+  public static final int MAXIMUM_WAITERS = 4;
+
+  private final ReentrantLock lock;
+  private final LinkedHashMap<EIToken, EIGroupCreationRequest> requests;
+  private final ArrayDeque<EISGroupCreationRequestWaiterType> waiters;
+  private boolean closed;
+
+  /**
+   * A bounded mailbox of group creation request changes.
+   */
+
+  public EISGroupCreationRequestMailbox()
+  {
+    this.lock =
+      new ReentrantLock();
+    this.requests =
+      new LinkedHashMap<>();
+    this.waiters =
+      new ArrayDeque<>();
+  }
+
+  /**
+   * Deliver a changed request, completing the oldest registered waiter.
+   *
+   * @param request The request
+   */
+
+  public void offer(
+    final EIGroupCreationRequest request)
+  {
+    Objects.requireNonNull(request, "request");
+
+    this.lock.lock();
+    try {
+      this.requests.remove(request.token());
+      this.requests.put(request.token(), request);
+
+      final var iterator = this.requests.keySet().iterator();
+      while (this.requests.size() > CAPACITY) {
+        iterator.next();
+        iterator.remove();
+      }
+
+      while (!this.waiters.isEmpty()) {
+        final var waiter = this.waiters.poll();
+        if (waiter.complete(List.copyOf(this.requests.values()))) {
+          this.requests.clear();
+          return;
+        }
+      }
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Register a waiter. If changes are already available, or the mailbox is
+   * closed, the waiter is completed immediately on the calling thread.
+   * Otherwise, the waiter is completed on the thread that next calls
+   * {@link #offer(EIGroupCreationRequest)} or {@link #close()}. A waiter
+   * that is completed elsewhere (such as by a timeout) should be removed
+   * with {@link #cancel(EISGroupCreationRequestWaiterType)}.
+   *
+   * @param waiter The waiter
+   *
+   * @return {@code false} if {@link #MAXIMUM_WAITERS} waiters are already
+   * registered, and the waiter was not registered
+   */
+
+  public boolean await(
+    final EISGroupCreationRequestWaiterType waiter)
+  {
+    Objects.requireNonNull(waiter, "waiter");
+
+    this.lock.lock();
+    try {
+      if (this.closed) {
+        waiter.complete(List.of());
+        return true;
+      }
+
+      if (!this.requests.isEmpty()) {
+        if (waiter.complete(List.copyOf(this.requests.values()))) {
+          this.requests.clear();
+        }
+        return true;
+      }
+
+      if (this.waiters.size() >= MAXIMUM_WAITERS) {
+        return false;
+      }
+
+      this.waiters.add(waiter);
+      return true;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Remove a registered waiter, if it is still registered.
+   *
+   * @param waiter The waiter
+   */
+
+  public void cancel(
+    final EISGroupCreationRequestWaiterType waiter)
+  {
+    Objects.requireNonNull(waiter, "waiter");
+
+    this.lock.lock();
+    try {
+      this.waiters.remove(waiter);
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public void close()
+  {
+    this.lock.lock();
+    try {
+      this.closed = true;
+      while (!this.waiters.isEmpty()) {
+        this.waiters.poll().complete(List.of());
+      }
+    } finally {
+      this.lock.unlock();
+    }
+  }
+}
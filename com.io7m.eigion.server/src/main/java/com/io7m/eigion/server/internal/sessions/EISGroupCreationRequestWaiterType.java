@@ -0,0 +1,45 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.server.internal.sessions;
+
+import com.io7m.eigion.model.EIGroupCreationRequest;
+
+import java.util.List;
+
+/**
+ * A consumer waiting for changes in a group creation request mailbox.
+ *
+ * @see EISGroupCreationRequestMailbox#await(EISGroupCreationRequestWaiterType)
+ */
+
+public interface EISGroupCreationRequestWaiterType
+{
+  /**
+   * Complete the wait. This method is called at most once by a mailbox, but
+   * may race with the waiter being completed elsewhere (such as by a
+   * timeout). Implementations must not block.
+   *
+   * @param requests The changed requests, oldest change first, or an empty
+   *                 list if the mailbox was closed
+   *
+   * @return {@code false} if the waiter had already been completed elsewhere
+   * and the requests were not consumed
+   */
+
+  boolean complete(List<EIGroupCreationRequest> requests);
+}
@@ -24,7 +24,6 @@ import com.io7m.eigion.server.database.api.EISDatabaseAuditEventsSearchType;
 import com.io7m.eigion.server.database.api.EISDatabaseGroupsPagedQueryType;
 import com.io7m.eigion.server.database.api.EISDatabaseGroupsQueriesType;
 import com.io7m.eigion.server.database.api.EISDatabasePagedQueryType;
-import com.io7m.idstore.user_client.api.IdUClientType;
 import com.io7m.jaffirm.core.Preconditions;
 import jakarta.servlet.http.HttpSession;
 
@@ -39,8 +38,8 @@ public final class EISUserSession
   implements AutoCloseable
 {
   private final HttpSession httpSession;
-  private final IdUClientType idClient;
-  private final EIUser user;
+  private final EISGroupCreationRequestMailbox groupCreationRequestMailbox;
+  private volatile EIUser user;
   private Optional<EISDatabaseAuditEventsSearchType> auditSearch;
   private Optional<EISDatabasePagedQueryType<EISDatabaseGroupsQueriesType, EIGroupName>> groupSearchByName;
   private Optional<EISDatabasePagedQueryType<EISDatabaseGroupsQueriesType, EIGroupMembership>> groupRolesOwnSearch;
@@ -51,20 +50,16 @@ public final class EISUserSession
    *
    * @param inUser        The user
    * @param inHttpSession The HTTP session
-   * @param inIdClient    The ID client
    */
 
   public EISUserSession(
     final EIUser inUser,
-    final HttpSession inHttpSession,
-    final IdUClientType inIdClient)
+    final HttpSession inHttpSession)
   {
     this.user =
       Objects.requireNonNull(inUser, "inUser");
     this.httpSession =
       Objects.requireNonNull(inHttpSession, "inHttpSession");
-    this.idClient =
-      Objects.requireNonNull(inIdClient, "inIdClient");
     this.auditSearch =
       Optional.empty();
     this.groupSearchByName =
@@ -73,13 +68,24 @@ public final class EISUserSession
       Optional.empty();
     this.groupCreationRequestsSearch =
       Optional.empty();
+    this.groupCreationRequestMailbox =
+      new EISGroupCreationRequestMailbox();
   }
 
   @Override
   public void close()
     throws Exception
   {
-    this.idClient.close();
+    this.groupCreationRequestMailbox.close();
+  }
+
+  /**
+   * @return The mailbox of group creation request changes for this session
+   */
+
+  public EISGroupCreationRequestMailbox groupCreationRequestMailbox()
+  {
+    return this.groupCreationRequestMailbox;
   }
 
   /**
@@ -104,6 +110,7 @@ public final class EISUserSession
       Objects.equals(this.user.id(), inUser.id()),
       "Session user ID must match."
     );
+    this.user = inUser;
   }
 
   /**
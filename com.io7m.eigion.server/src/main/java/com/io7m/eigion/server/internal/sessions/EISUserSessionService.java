@@ -19,7 +19,6 @@ package com.io7m.eigion.server.internal.sessions;
 import com.io7m.eigion.model.EIUser;
 import com.io7m.eigion.server.internal.EISTelemetryService;
 import com.io7m.eigion.services.api.EIServiceType;
-import com.io7m.idstore.user_client.api.IdUClientType;
 import io.opentelemetry.api.metrics.ObservableLongGauge;
 import jakarta.servlet.http.HttpSession;
 import jakarta.servlet.http.HttpSessionEvent;
@@ -27,8 +26,12 @@ import jakarta.servlet.http.HttpSessionListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -81,24 +84,21 @@ public final class EISUserSessionService
    *
    * @param user        The user
    * @param httpSession The session ID
-   * @param idClient    The ID client
    *
    * @return A user controller
    */
 
   public EISUserSession create(
     final EIUser user,
-    final HttpSession httpSession,
-    final IdUClientType idClient)
+    final HttpSession httpSession)
   {
     Objects.requireNonNull(user, "user");
     Objects.requireNonNull(httpSession, "session");
-    Objects.requireNonNull(idClient, "idClient");
 
     final var id =
       "%s:%s".formatted(user.id(), httpSession.getId());
     final var userSession =
-      new EISUserSession(user, httpSession, idClient);
+      new EISUserSession(user, httpSession);
 
     this.sessions.put(id, userSession);
     return userSession;
@@ -156,6 +156,78 @@ public final class EISUserSessionService
     }
   }
 
+  /**
+   * Determine if any sessions exist for the given user.
+   *
+   * @param userId The user ID
+   *
+   * @return {@code true} if at least one session exists
+   */
+
+  public boolean hasSessionsForUser(
+    final UUID userId)
+  {
+    Objects.requireNonNull(userId, "userId");
+
+    for (final var session : this.sessions.values()) {
+      if (Objects.equals(session.user().id(), userId)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @param userId The user ID
+   *
+   * @return All active sessions belonging to the given user
+   */
+
+  public List<EISUserSession> sessionsForUser(
+    final UUID userId)
+  {
+    Objects.requireNonNull(userId, "userId");
+
+    final var results = new ArrayList<EISUserSession>();
+    for (final var session : this.sessions.values()) {
+      if (Objects.equals(session.user().id(), userId)) {
+        results.add(session);
+      }
+    }
+    return results;
+  }
+
+  /**
+   * @return The IDs of all users with active sessions
+   */
+
+  public Set<UUID> activeUsers()
+  {
+    final var users = new HashSet<UUID>();
+    for (final var session : this.sessions.values()) {
+      users.add(session.user().id());
+    }
+    return users;
+  }
+
+  /**
+   * Replace the user held in every active session belonging to the user.
+   *
+   * @param user The updated user
+   */
+
+  public void updateUser(
+    final EIUser user)
+  {
+    Objects.requireNonNull(user, "user");
+
+    for (final var session : this.sessions.values()) {
+      if (Objects.equals(session.user().id(), user.id())) {
+        session.setUser(user);
+      }
+    }
+  }
+
   @Override
   public String toString()
   {
@@ -33,9 +33,12 @@ module com.io7m.eigion.server
   requires com.io7m.eigion.protocol.pike.cb;
   requires com.io7m.eigion.protocol.pike;
   requires java.net.http;
+  requires jdk.jfr;
 
   requires transitive com.io7m.eigion.server.api;
 
+  requires com.io7m.idstore.error_codes;
+  requires com.io7m.idstore.model;
   requires com.io7m.idstore.user_client.api;
   requires com.io7m.idstore.user_client;
   requires com.io7m.jaffirm.core;
@@ -45,6 +48,7 @@ module com.io7m.eigion.server
   requires com.io7m.verdant.core;
   requires io.opentelemetry.context;
   requires io.opentelemetry.exporter.otlp;
+  requires io.opentelemetry.exporter.prometheus;
   requires io.opentelemetry.sdk.common;
   requires io.opentelemetry.sdk.metrics;
   requires io.opentelemetry.sdk.trace;
@@ -66,6 +70,8 @@ module com.io7m.eigion.server
   opens com.io7m.eigion.server.internal.sessions
     to com.io7m.jxtrand.vanilla;
 
+  exports com.io7m.eigion.server.internal
+    to com.io7m.eigion.tests;
   exports com.io7m.eigion.server.internal.security
     to com.io7m.eigion.tests;
   exports com.io7m.eigion.server.internal.pike.security
@@ -24,6 +24,8 @@ import com.io7m.eigion.model.EIGroupSearchByNameParameters;
 import com.io7m.eigion.model.EIPage;
 import com.io7m.eigion.model.EITimeRange;
 import com.io7m.eigion.model.EIUser;
+import com.io7m.eigion.protocol.amberjack.EIAJCommandAuditExport;
+import com.io7m.eigion.protocol.amberjack.EIAJCommandAuditFollow;
 import com.io7m.eigion.protocol.amberjack.EIAJCommandAuditSearchBegin;
 import com.io7m.eigion.protocol.amberjack.EIAJCommandAuditSearchNext;
 import com.io7m.eigion.protocol.amberjack.EIAJCommandAuditSearchPrevious;
@@ -33,6 +35,9 @@ import com.io7m.eigion.protocol.amberjack.EIAJCommandGroupSearchByNameNext;
 import com.io7m.eigion.protocol.amberjack.EIAJCommandGroupSearchByNamePrevious;
 import com.io7m.eigion.protocol.amberjack.EIAJCommandLogin;
 import com.io7m.eigion.protocol.amberjack.EIAJMessageType;
+import com.io7m.eigion.protocol.amberjack.EIAJResponseAuditExport;
+import com.io7m.eigion.protocol.amberjack.EIAJResponseAuditExportEnd;
+import com.io7m.eigion.protocol.amberjack.EIAJResponseAuditFollow;
 import com.io7m.eigion.protocol.amberjack.EIAJResponseAuditSearch;
 import com.io7m.eigion.protocol.amberjack.EIAJResponseError;
 import com.io7m.eigion.protocol.amberjack.EIAJResponseGroupCreate;
@@ -82,14 +87,43 @@ public final class EIArbAmberjackMessageProvider extends EIArbAbstractProvider
       commandGroupSearchByNameBegin(),
       commandGroupSearchByNameNext(),
       commandGroupSearchByNamePrevious(),
+      commandAuditExport(),
+      commandAuditFollow(),
       responseLogin(),
       responseError(),
       responseGroupCreate(),
       responseAuditSearch(),
-      responseGroupSearch()
+      responseGroupSearch(),
+      responseAuditExport(),
+      responseAuditExportEnd(),
+      responseAuditFollow()
     );
   }
 
+  private static Arbitrary<EIAJResponseAuditExport> responseAuditExport()
+  {
+    return Combinators.combine(
+      Arbitraries.defaultFor(UUID.class),
+      Arbitraries.defaultFor(EIAuditEvent.class).list()
+    ).as(EIAJResponseAuditExport::new);
+  }
+
+  private static Arbitrary<EIAJResponseAuditExportEnd> responseAuditExportEnd()
+  {
+    return Combinators.combine(
+      Arbitraries.defaultFor(UUID.class),
+      Arbitraries.longs().between(0L, 1_000_000L)
+    ).as(EIAJResponseAuditExportEnd::new);
+  }
+
+  private static Arbitrary<EIAJResponseAuditFollow> responseAuditFollow()
+  {
+    return Combinators.combine(
+      Arbitraries.defaultFor(UUID.class),
+      Arbitraries.defaultFor(EIAuditEvent.class).list()
+    ).as(EIAJResponseAuditFollow::new);
+  }
+
   private static Arbitrary<EIAJResponseAuditSearch> responseAuditSearch()
   {
     final var events =
@@ -158,6 +192,34 @@ public final class EIArbAmberjackMessageProvider extends EIArbAbstractProvider
     return parameters.map(EIAJCommandAuditSearchBegin::new);
   }
 
+  private static Arbitrary<EIAJCommandAuditExport> commandAuditExport()
+  {
+    final var parameters =
+      Combinators.combine(
+        Arbitraries.defaultFor(EITimeRange.class),
+        Arbitraries.strings().optional(),
+        Arbitraries.strings().optional(),
+        Arbitraries.strings().optional(),
+        Arbitraries.longs().between(1L, 999L)
+      ).as(EIAuditSearchParameters::new);
+
+    return parameters.map(EIAJCommandAuditExport::new);
+  }
+
+  private static Arbitrary<EIAJCommandAuditFollow> commandAuditFollow()
+  {
+    final var parameters =
+      Combinators.combine(
+        Arbitraries.defaultFor(EITimeRange.class),
+        Arbitraries.strings().optional(),
+        Arbitraries.strings().optional(),
+        Arbitraries.strings().optional(),
+        Arbitraries.longs().between(1L, 999L)
+      ).as(EIAuditSearchParameters::new);
+
+    return parameters.map(EIAJCommandAuditFollow::new);
+  }
+
   private static Arbitrary<EIAJCommandGroupSearchByNameBegin> commandGroupSearchByNameBegin()
   {
     final var parameters =
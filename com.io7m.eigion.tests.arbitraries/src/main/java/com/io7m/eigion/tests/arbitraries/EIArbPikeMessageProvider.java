@@ -17,6 +17,7 @@
 package com.io7m.eigion.tests.arbitraries;
 
 import com.io7m.eigion.error_codes.EIErrorCode;
+import com.io7m.eigion.model.EIGroupCreationRequest;
 import com.io7m.eigion.model.EIGroupMembership;
 import com.io7m.eigion.model.EIGroupName;
 import com.io7m.eigion.model.EIPage;
@@ -25,6 +26,10 @@ import com.io7m.eigion.model.EIUser;
 import com.io7m.eigion.protocol.pike.EIPCommandGroupCreateBegin;
 import com.io7m.eigion.protocol.pike.EIPCommandGroupCreateCancel;
 import com.io7m.eigion.protocol.pike.EIPCommandGroupCreateReady;
+import com.io7m.eigion.protocol.pike.EIPCommandGroupCreateRequestsBegin;
+import com.io7m.eigion.protocol.pike.EIPCommandGroupCreateRequestsNext;
+import com.io7m.eigion.protocol.pike.EIPCommandGroupCreateRequestsPrevious;
+import com.io7m.eigion.protocol.pike.EIPCommandGroupCreateRequestsWait;
 import com.io7m.eigion.protocol.pike.EIPCommandGroupsBegin;
 import com.io7m.eigion.protocol.pike.EIPCommandGroupsNext;
 import com.io7m.eigion.protocol.pike.EIPCommandGroupsPrevious;
@@ -34,6 +39,8 @@ import com.io7m.eigion.protocol.pike.EIPResponseError;
 import com.io7m.eigion.protocol.pike.EIPResponseGroupCreateBegin;
 import com.io7m.eigion.protocol.pike.EIPResponseGroupCreateCancel;
 import com.io7m.eigion.protocol.pike.EIPResponseGroupCreateReady;
+import com.io7m.eigion.protocol.pike.EIPResponseGroupCreateRequests;
+import com.io7m.eigion.protocol.pike.EIPResponseGroupCreateRequestsChanged;
 import com.io7m.eigion.protocol.pike.EIPResponseGroups;
 import com.io7m.eigion.protocol.pike.EIPResponseLogin;
 import net.jqwik.api.Arbitraries;
@@ -76,6 +83,10 @@ public final class EIArbPikeMessageProvider extends EIArbAbstractProvider
       commandGroupCreateBegin(),
       commandGroupCreateCancel(),
       commandGroupCreateReady(),
+      commandGroupCreateRequestsBegin(),
+      commandGroupCreateRequestsNext(),
+      commandGroupCreateRequestsPrevious(),
+      commandGroupCreateRequestsWait(),
       commandGroupsBegin(),
       commandGroupsNext(),
       commandGroupsPrevious(),
@@ -84,6 +95,8 @@ public final class EIArbPikeMessageProvider extends EIArbAbstractProvider
       responseGroupCreateBegin(),
       responseGroupCreateCancel(),
       responseGroupCreateReady(),
+      responseGroupCreateRequests(),
+      responseGroupCreateRequestsChanged(),
       responseLogin(),
       responseGroups()
     );
@@ -127,6 +140,58 @@ public final class EIArbPikeMessageProvider extends EIArbAbstractProvider
     });
   }
 
+  private static Arbitrary<EIPCommandGroupCreateRequestsBegin> commandGroupCreateRequestsBegin()
+  {
+    return Arbitraries.longs().between(1L, 999L)
+      .map(i -> new EIPCommandGroupCreateRequestsBegin(i.longValue()));
+  }
+
+  private static Arbitrary<EIPCommandGroupCreateRequestsWait> commandGroupCreateRequestsWait()
+  {
+    return Arbitraries.longs().between(1L, 60L)
+      .map(i -> new EIPCommandGroupCreateRequestsWait(i.longValue()));
+  }
+
+  private static Arbitrary<EIPCommandGroupCreateRequestsNext> commandGroupCreateRequestsNext()
+  {
+    return Arbitraries.of(new EIPCommandGroupCreateRequestsNext());
+  }
+
+  private static Arbitrary<EIPCommandGroupCreateRequestsPrevious> commandGroupCreateRequestsPrevious()
+  {
+    return Arbitraries.of(new EIPCommandGroupCreateRequestsPrevious());
+  }
+
+  private static Arbitrary<EIPResponseGroupCreateRequests> responseGroupCreateRequests()
+  {
+    final var requests =
+      Arbitraries.defaultFor(EIGroupCreationRequest.class)
+        .list();
+
+    return Combinators.combine(
+      Arbitraries.defaultFor(UUID.class),
+      requests,
+      Arbitraries.integers().between(0, 100),
+      Arbitraries.integers().between(0, 100),
+      Arbitraries.integers().between(0, 100)
+    ).as((uuid, aRequests, index, count, offset) -> {
+      return new EIPResponseGroupCreateRequests(uuid, new EIPage<>(
+        aRequests,
+        index.intValue(),
+        count.intValue(),
+        offset.longValue()
+      ));
+    });
+  }
+
+  private static Arbitrary<EIPResponseGroupCreateRequestsChanged> responseGroupCreateRequestsChanged()
+  {
+    return Combinators.combine(
+      Arbitraries.defaultFor(UUID.class),
+      Arbitraries.defaultFor(EIGroupCreationRequest.class).list()
+    ).as(EIPResponseGroupCreateRequestsChanged::new);
+  }
+
   private static Arbitrary<EIPResponseGroupCreateBegin> responseGroupCreateBegin()
   {
     return Combinators.combine(
@@ -0,0 +1,233 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests.benchmarks;
+
+import com.io7m.eigion.protocol.amberjack.EIAJMessageType;
+import com.io7m.eigion.protocol.amberjack.cb.EIAJCB1Messages;
+import com.io7m.eigion.protocol.amberjack.cb.EIAJCB1Validation;
+import com.io7m.eigion.protocol.amberjack.cb.ProtocolAmberjackv1Type;
+import com.io7m.eigion.protocol.api.EIProtocolException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the Amberjack Cedarbridge codec. Each message type is
+ * measured separately, cycling through a fixed set of generated messages.
+ *
+ * @see EICodecBenchmarks
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EIAmberjackCodecBenchmark
+{
+  private static final int MESSAGE_COUNT = 64;
+
+  /**
+   * The simple name of the message type.
+   */
+
+  @Param({
+    "EIAJCommandAuditSearchBegin",
+    "EIAJCommandAuditSearchNext",
+    "EIAJCommandAuditSearchPrevious",
+    "EIAJCommandGroupCreate",
+    "EIAJCommandGroupSearchByNameBegin",
+    "EIAJCommandGroupSearchByNameNext",
+    "EIAJCommandGroupSearchByNamePrevious",
+    "EIAJCommandLogin",
+    "EIAJResponseAuditSearch",
+    "EIAJResponseError",
+    "EIAJResponseGroupCreate",
+    "EIAJResponseGroupSearch",
+    "EIAJResponseLogin"
+  })
+  public String messageType;
+
+  private EIAJCB1Messages messages;
+  private EIAJCB1Validation validation;
+  private EIAJMessageType[] values;
+  private ProtocolAmberjackv1Type[] wire;
+  private byte[][] data;
+  private ByteArrayOutputStream output;
+  private int index;
+
+  /**
+   * Benchmarks of the Amberjack Cedarbridge codec.
+   */
+
+  public EIAmberjackCodecBenchmark()
+  {
+
+  }
+
+  /**
+   * Generate messages, and their wire and serialized forms.
+   *
+   * @throws EIProtocolException On errors
+   */
+
+  @Setup(Level.Trial)
+  public void setup()
+    throws EIProtocolException
+  {
+    this.messages =
+      new EIAJCB1Messages();
+    this.validation =
+      new EIAJCB1Validation();
+
+    final var generated =
+      EIBenchmarkMessages.generate(
+        EIAJMessageType.class,
+        this.messageType,
+        MESSAGE_COUNT
+      );
+
+    this.values = new EIAJMessageType[MESSAGE_COUNT];
+    this.wire = new ProtocolAmberjackv1Type[MESSAGE_COUNT];
+    this.data = new byte[MESSAGE_COUNT][];
+    this.output = new ByteArrayOutputStream();
+
+    for (int i = 0; i < MESSAGE_COUNT; ++i) {
+      final var message = generated.get(i);
+      this.values[i] = message;
+      this.wire[i] = this.validation.convertToWire(message);
+      this.data[i] = this.messages.serialize(message);
+    }
+  }
+
+  private int next()
+  {
+    final var current = this.index;
+    this.index = (current + 1) % MESSAGE_COUNT;
+    return current;
+  }
+
+  /**
+   * Serialize a message.
+   *
+   * @return The serialized message
+   *
+   * @throws EIProtocolException On errors
+   */
+
+  @Benchmark
+  public byte[] serialize()
+    throws EIProtocolException
+  {
+    return this.messages.serialize(this.values[this.next()]);
+  }
+
+  /**
+   * Serialize a message into a reused buffer, as the server does when
+   * sending responses.
+   *
+   * @return The number of bytes written
+   *
+   * @throws EIProtocolException On errors
+   */
+
+  @Benchmark
+  public int serializeToStream()
+    throws EIProtocolException
+  {
+    this.output.reset();
+    this.messages.serialize(this.values[this.next()], this.output);
+    return this.output.size();
+  }
+
+  /**
+   * Parse a message.
+   *
+   * @return The parsed message
+   *
+   * @throws EIProtocolException On errors
+   */
+
+  @Benchmark
+  public EIAJMessageType parse()
+    throws EIProtocolException
+  {
+    return this.messages.parse(this.data[this.next()]);
+  }
+
+  /**
+   * Parse a message from a stream, as the server does when reading
+   * requests.
+   *
+   * @return The parsed message
+   *
+   * @throws EIProtocolException On errors
+   */
+
+  @Benchmark
+  public EIAJMessageType parseFromStream()
+    throws EIProtocolException
+  {
+    return this.messages.parse(
+      new ByteArrayInputStream(this.data[this.next()]));
+  }
+
+  /**
+   * Convert a message to its wire form.
+   *
+   * @return The wire message
+   *
+   * @throws EIProtocolException On errors
+   */
+
+  @Benchmark
+  public ProtocolAmberjackv1Type convertToWire()
+    throws EIProtocolException
+  {
+    return this.validation.convertToWire(this.values[this.next()]);
+  }
+
+  /**
+   * Convert a message from its wire form.
+   *
+   * @return The message
+   *
+   * @throws EIProtocolException On errors
+   */
+
+  @Benchmark
+  public EIAJMessageType convertFromWire()
+    throws EIProtocolException
+  {
+    return this.validation.convertFromWire(this.wire[this.next()]);
+  }
+}
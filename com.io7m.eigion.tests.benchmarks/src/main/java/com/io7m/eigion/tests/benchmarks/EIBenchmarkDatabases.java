@@ -0,0 +1,148 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests.benchmarks;
+
+import com.io7m.eigion.server.database.api.EISDatabaseConfiguration;
+import com.io7m.eigion.server.database.api.EISDatabaseCreate;
+import com.io7m.eigion.server.database.api.EISDatabaseException;
+import com.io7m.eigion.server.database.api.EISDatabaseTuning;
+import com.io7m.eigion.server.database.api.EISDatabaseType;
+import com.io7m.eigion.server.database.api.EISDatabaseUpgrade;
+import com.io7m.eigion.server.database.postgres.EISDatabases;
+import io.opentelemetry.api.OpenTelemetry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Functions to open the database used by benchmarks.
+ *
+ * <p>Benchmarks run against an existing PostgreSQL server. The server is
+ * specified with the following system properties:</p>
+ *
+ * <ul>
+ *   <li>{@code eigion.benchmark.db.address} (default: {@code localhost})</li>
+ *   <li>{@code eigion.benchmark.db.port} (default: {@code 5432})</li>
+ *   <li>{@code eigion.benchmark.db.name} (default: {@code eigion})</li>
+ *   <li>{@code eigion.benchmark.db.user} (default: {@code postgres})</li>
+ *   <li>{@code eigion.benchmark.db.password} (default: {@code 12345678})</li>
+ * </ul>
+ *
+ * <p>The database schema is created or upgraded as necessary.</p>
+ */
+
+public final class EIBenchmarkDatabases
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(EIBenchmarkDatabases.class);
+
+  private EIBenchmarkDatabases()
+  {
+
+  }
+
+  /**
+   * Open the benchmark database.
+   *
+   * @param tuning The database tuning parameters
+   *
+   * @return The database
+   *
+   * @throws EISDatabaseException On errors
+   */
+
+  public static EISDatabaseType open(
+    final EISDatabaseTuning tuning)
+    throws EISDatabaseException
+  {
+    final var configuration =
+      new EISDatabaseConfiguration(
+        user(),
+        password(),
+        address(),
+        port(),
+        name(),
+        EISDatabaseCreate.CREATE_DATABASE,
+        EISDatabaseUpgrade.UPGRADE_DATABASE,
+        Clock.systemUTC(),
+        List.of(),
+        tuning,
+        Optional.empty()
+      );
+
+    return new EISDatabases()
+      .open(configuration, OpenTelemetry.noop(), message -> {
+        LOG.debug("{}", message);
+      });
+  }
+
+  /**
+   * Open a plain JDBC connection to the benchmark database as the owner
+   * of the database. The schema is expected to have been created by
+   * {@link #open(EISDatabaseTuning)}.
+   *
+   * @return A connection
+   *
+   * @throws SQLException On errors
+   */
+
+  public static Connection openConnection()
+    throws SQLException
+  {
+    final var url =
+      "jdbc:postgresql://%s:%d/%s".formatted(address(), port(), name());
+
+    final var properties = new Properties();
+    properties.setProperty("user", user());
+    properties.setProperty("password", password());
+    return DriverManager.getConnection(url, properties);
+  }
+
+  private static String name()
+  {
+    return System.getProperty("eigion.benchmark.db.name", "eigion");
+  }
+
+  private static int port()
+  {
+    return Integer.parseInt(
+      System.getProperty("eigion.benchmark.db.port", "5432"));
+  }
+
+  private static String address()
+  {
+    return System.getProperty("eigion.benchmark.db.address", "localhost");
+  }
+
+  private static String password()
+  {
+    return System.getProperty("eigion.benchmark.db.password", "12345678");
+  }
+
+  private static String user()
+  {
+    return System.getProperty("eigion.benchmark.db.user", "postgres");
+  }
+}
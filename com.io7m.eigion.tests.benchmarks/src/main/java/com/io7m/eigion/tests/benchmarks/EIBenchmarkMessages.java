@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests.benchmarks;
+
+import net.jqwik.api.Arbitraries;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Functions to produce protocol messages for codec benchmarks. Messages are
+ * drawn from the jqwik providers in {@code com.io7m.eigion.tests.arbitraries}
+ * with a fixed seed, so every run measures the same payloads.
+ */
+
+public final class EIBenchmarkMessages
+{
+  private static final long SEED = 0x45494749L;
+  private static final int ATTEMPTS_MAXIMUM = 1_000_000;
+
+  private EIBenchmarkMessages()
+  {
+
+  }
+
+  /**
+   * Generate messages of the given concrete type.
+   *
+   * @param baseType The base message type for which a provider exists
+   * @param typeName The simple name of the concrete message type
+   * @param count    The number of messages
+   * @param <T>      The base message type
+   *
+   * @return The messages
+   */
+
+  public static <T> List<T> generate(
+    final Class<T> baseType,
+    final String typeName,
+    final int count)
+  {
+    final var generator =
+      Arbitraries.defaultFor(baseType).generator(1000);
+    final var random =
+      new Random(SEED);
+    final var results =
+      new ArrayList<T>(count);
+
+    for (int attempt = 0; results.size() < count; ++attempt) {
+      if (attempt == ATTEMPTS_MAXIMUM) {
+        throw new IllegalArgumentException(
+          "No %s messages of type %s were generated"
+            .formatted(baseType.getSimpleName(), typeName)
+        );
+      }
+
+      final var message = generator.next(random).value();
+      if (message.getClass().getSimpleName().equals(typeName)) {
+        results.add(message);
+      }
+    }
+    return List.copyOf(results);
+  }
+}
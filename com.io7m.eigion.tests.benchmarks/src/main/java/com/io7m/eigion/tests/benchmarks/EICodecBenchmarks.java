@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the protocol codec benchmarks with allocation profiling enabled. The
+ * {@code gc.alloc.rate.norm} results give the number of bytes allocated per
+ * operation, which is a more stable signal of codec regressions than time.
+ * Results are written in JSON format to {@code eigion-codec-benchmarks.json}
+ * so that they can be compared between builds. Any JMH command-line options
+ * given are applied on top of these defaults.
+ */
+
+public final class EICodecBenchmarks
+{
+  private EICodecBenchmarks()
+  {
+
+  }
+
+  /**
+   * The main entry point.
+   *
+   * @param args JMH command-line options
+   *
+   * @throws Exception On errors
+   */
+
+  public static void main(
+    final String[] args)
+    throws Exception
+  {
+    final var options =
+      new OptionsBuilder()
+        .parent(new CommandLineOptions(args))
+        .include(EIPikeCodecBenchmark.class.getCanonicalName())
+        .include(EIAmberjackCodecBenchmark.class.getCanonicalName())
+        .addProfiler(GCProfiler.class)
+        .resultFormat(ResultFormatType.JSON)
+        .result("eigion-codec-benchmarks.json")
+        .build();
+
+    new Runner(options).run();
+  }
+}
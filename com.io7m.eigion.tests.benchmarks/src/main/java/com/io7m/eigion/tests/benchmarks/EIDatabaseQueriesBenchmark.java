@@ -0,0 +1,236 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests.benchmarks;
+
+import com.io7m.eigion.model.EIGroupMembership;
+import com.io7m.eigion.model.EIGroupName;
+import com.io7m.eigion.model.EIGroupSearchByNameParameters;
+import com.io7m.eigion.model.EIPage;
+import com.io7m.eigion.model.EIUser;
+import com.io7m.eigion.server.database.api.EISDatabaseException;
+import com.io7m.eigion.server.database.api.EISDatabaseGroupsQueriesType;
+import com.io7m.eigion.server.database.api.EISDatabaseTuning;
+import com.io7m.eigion.server.database.api.EISDatabaseType;
+import com.io7m.eigion.server.database.api.EISDatabaseUsersQueriesType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static com.io7m.eigion.model.EIGroupRole.FOUNDER;
+import static com.io7m.eigion.model.EIPermissionSet.empty;
+import static com.io7m.eigion.server.database.api.EISDatabaseRole.EIGION;
+
+/**
+ * Benchmarks of the queries executed on every request. Each benchmark
+ * opens a connection and a transaction in the same manner as the command
+ * servlets. The {@code prepareThreshold} parameter compares the driver
+ * default ({@code 5}, under which a statement is only prepared on the server
+ * after it has been executed five times on a connection) against
+ * client-side statements ({@code 0}) and statements prepared on the server
+ * on their first execution ({@code 1}).
+ *
+ * The data set is fixed: it is created on the first run and reused by every
+ * subsequent trial and run, so that the table sizes do not change between
+ * measurements.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EIDatabaseQueriesBenchmark
+{
+  private static final int GROUP_COUNT = 1000;
+
+  private static final UUID USER_ID =
+    UUID.fromString("4b6d1c1e-4a1f-4a39-9d0c-53f2a6e1c001");
+
+  private static final String GROUP_PREFIX =
+    "com.bench.queries";
+
+  /**
+   * The driver prepare threshold.
+   */
+
+  @Param({"5", "0", "1"})
+  public int prepareThreshold;
+
+  private EISDatabaseType database;
+  private EIUser user;
+
+  /**
+   * Benchmarks of the queries executed on every request.
+   */
+
+  public EIDatabaseQueriesBenchmark()
+  {
+
+  }
+
+  /**
+   * Open the database and, if necessary, populate it with a user that is a
+   * member of a large number of groups.
+   *
+   * @throws Exception On errors
+   */
+
+  @Setup(Level.Trial)
+  public void setup()
+    throws Exception
+  {
+    final var defaults = EISDatabaseTuning.defaults();
+    this.database =
+      EIBenchmarkDatabases.open(
+        new EISDatabaseTuning(
+          defaults.maximumPoolSize(),
+          defaults.minimumIdle(),
+          defaults.connectionTimeout(),
+          defaults.idleTimeout(),
+          defaults.maximumLifetime(),
+          this.prepareThreshold,
+          defaults.preparedStatementCacheQueries(),
+          defaults.preparedStatementCacheSizeMiB(),
+          defaults.rewriteBatchedInserts()
+        )
+      );
+
+    this.user = new EIUser(USER_ID, empty());
+
+    try (var c = this.database.openConnection(EIGION)) {
+      try (var t = c.openTransaction()) {
+        t.queries(EISDatabaseUsersQueriesType.class)
+          .userPut(this.user);
+
+        final var groups =
+          t.queries(EISDatabaseGroupsQueriesType.class);
+        for (int index = 0; index < GROUP_COUNT; ++index) {
+          final var name =
+            new EIGroupName("%s.g%04d".formatted(
+              GROUP_PREFIX,
+              Integer.valueOf(index)));
+
+          if (!groups.groupExists(name)) {
+            groups.groupCreate(this.user.id(), name);
+            groups.groupUserUpdate(name, this.user.id(), Set.of(FOUNDER));
+          }
+        }
+        t.commit();
+      }
+    }
+  }
+
+  /**
+   * Close the database.
+   *
+   * @throws Exception On errors
+   */
+
+  @TearDown(Level.Trial)
+  public void tearDown()
+    throws Exception
+  {
+    this.database.close();
+  }
+
+  /**
+   * Retrieve a user, as happens on every login.
+   *
+   * @return The user
+   *
+   * @throws EISDatabaseException On errors
+   */
+
+  @Benchmark
+  public Optional<EIUser> userGet()
+    throws EISDatabaseException
+  {
+    try (var c = this.database.openConnection(EIGION)) {
+      try (var t = c.openTransaction()) {
+        return t.queries(EISDatabaseUsersQueriesType.class)
+          .userGet(this.user.id());
+      }
+    }
+  }
+
+  /**
+   * Retrieve the first page of a group search by name.
+   *
+   * @return The page
+   *
+   * @throws EISDatabaseException On errors
+   */
+
+  @Benchmark
+  public EIPage<EIGroupName> groupSearchByNamePage()
+    throws EISDatabaseException
+  {
+    try (var c = this.database.openConnectionReadOnly(EIGION)) {
+      try (var t = c.openTransaction()) {
+        final var groups =
+          t.queries(EISDatabaseGroupsQueriesType.class);
+        final var search =
+          groups.groupSearchByName(
+            new EIGroupSearchByNameParameters(
+              Optional.of(GROUP_PREFIX),
+              100L
+            )
+          );
+        return search.pageCurrent(groups);
+      }
+    }
+  }
+
+  /**
+   * Retrieve the first page of the groups of which the user is a member.
+   *
+   * @return The page
+   *
+   * @throws EISDatabaseException On errors
+   */
+
+  @Benchmark
+  public EIPage<EIGroupMembership> groupUserRolesPage()
+    throws EISDatabaseException
+  {
+    try (var c = this.database.openConnectionReadOnly(EIGION)) {
+      try (var t = c.openTransaction()) {
+        final var groups =
+          t.queries(EISDatabaseGroupsQueriesType.class);
+        return groups.groupUserRoles(this.user.id())
+          .pageCurrent(groups);
+      }
+    }
+  }
+}
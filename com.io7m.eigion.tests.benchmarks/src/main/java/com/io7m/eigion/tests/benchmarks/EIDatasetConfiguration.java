@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests.benchmarks;
+
+/**
+ * The size and seed of a generated dataset.
+ *
+ * @param users                 The number of users
+ * @param groups                The number of groups
+ * @param membershipsPerUser    The maximum number of groups each user joins
+ * @param auditEvents           The number of audit events
+ * @param groupCreationRequests The number of group creation requests
+ * @param seed                  The random seed
+ */
+
+public record EIDatasetConfiguration(
+  long users,
+  long groups,
+  int membershipsPerUser,
+  long auditEvents,
+  long groupCreationRequests,
+  long seed)
+{
+  /**
+   * The size and seed of a generated dataset.
+   *
+   * @param users                 The number of users
+   * @param groups                The number of groups
+   * @param membershipsPerUser    The maximum number of groups each user joins
+   * @param auditEvents           The number of audit events
+   * @param groupCreationRequests The number of group creation requests
+   * @param seed                  The random seed
+   */
+
+  public EIDatasetConfiguration
+  {
+    if (users < 1L) {
+      throw new IllegalArgumentException("At least one user is required");
+    }
+    if (groups < 0L || auditEvents < 0L || groupCreationRequests < 0L) {
+      throw new IllegalArgumentException("Row counts must be non-negative");
+    }
+    if (membershipsPerUser < 0) {
+      throw new IllegalArgumentException(
+        "Memberships per user must be non-negative");
+    }
+  }
+
+  /**
+   * Read a dataset configuration from the following system properties:
+   *
+   * <ul>
+   *   <li>{@code eigion.dataset.users} (default: {@code 100000})</li>
+   *   <li>{@code eigion.dataset.groups} (default: {@code 100000})</li>
+   *   <li>{@code eigion.dataset.membershipsPerUser} (default: {@code 4})</li>
+   *   <li>{@code eigion.dataset.auditEvents} (default: {@code 1000000})</li>
+   *   <li>{@code eigion.dataset.groupCreationRequests} (default: {@code 100000})</li>
+   *   <li>{@code eigion.dataset.seed} (default: {@code 0})</li>
+   * </ul>
+   *
+   * @return A configuration
+   */
+
+  public static EIDatasetConfiguration fromSystemProperties()
+  {
+    return new EIDatasetConfiguration(
+      Long.parseLong(
+        System.getProperty("eigion.dataset.users", "100000")),
+      Long.parseLong(
+        System.getProperty("eigion.dataset.groups", "100000")),
+      Integer.parseInt(
+        System.getProperty("eigion.dataset.membershipsPerUser", "4")),
+      Long.parseLong(
+        System.getProperty("eigion.dataset.auditEvents", "1000000")),
+      Long.parseLong(
+        System.getProperty("eigion.dataset.groupCreationRequests", "100000")),
+      Long.parseLong(
+        System.getProperty("eigion.dataset.seed", "0"))
+    );
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests.benchmarks;
+
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Objects;
+
+/**
+ * A writer of rows in the PostgreSQL {@code COPY} text format. Rows are
+ * buffered and sent to the server in large chunks.
+ */
+
+final class EIDatasetCopyWriter implements AutoCloseable
+{
+  private static final int BUFFER_SIZE = 1 << 20;
+
+  private final CopyIn copy;
+  private final StringBuilder text;
+  private long rows;
+
+  private EIDatasetCopyWriter(
+    final CopyIn inCopy)
+  {
+    this.copy =
+      Objects.requireNonNull(inCopy, "copy");
+    this.text =
+      new StringBuilder(BUFFER_SIZE);
+  }
+
+  /**
+   * Start a {@code COPY ... FROM STDIN} statement.
+   *
+   * @param copyManager The copy manager
+   * @param statement   The statement
+   *
+   * @return A writer
+   *
+   * @throws SQLException On errors
+   */
+
+  static EIDatasetCopyWriter start(
+    final CopyManager copyManager,
+    final String statement)
+    throws SQLException
+  {
+    return new EIDatasetCopyWriter(copyManager.copyIn(statement));
+  }
+
+  /**
+   * Write a row. A {@code null} field is written as SQL {@code NULL}.
+   *
+   * @param fields The fields
+   *
+   * @throws SQLException On errors
+   */
+
+  void row(
+    final Object... fields)
+    throws SQLException
+  {
+    for (int index = 0; index < fields.length; ++index) {
+      if (index > 0) {
+        this.text.append('\t');
+      }
+      final var field = fields[index];
+      if (field == null) {
+        this.text.append("\\N");
+      } else {
+        this.escape(field.toString());
+      }
+    }
+    this.text.append('\n');
+    ++this.rows;
+
+    if (this.text.length() >= BUFFER_SIZE) {
+      this.flush();
+    }
+  }
+
+  private void escape(
+    final String value)
+  {
+    for (int index = 0; index < value.length(); ++index) {
+      final var c = value.charAt(index);
+      switch (c) {
+        case '\\' -> this.text.append("\\\\");
+        case '\t' -> this.text.append("\\t");
+        case '\n' -> this.text.append("\\n");
+        case '\r' -> this.text.append("\\r");
+        case '\0' -> {
+          // PostgreSQL text values cannot contain NUL.
+        }
+        default -> this.text.append(c);
+      }
+    }
+  }
+
+  private void flush()
+    throws SQLException
+  {
+    final var bytes =
+      this.text.toString().getBytes(StandardCharsets.UTF_8);
+    this.copy.writeToCopy(bytes, 0, bytes.length);
+    this.text.setLength(0);
+  }
+
+  /**
+   * @return The number of rows written so far
+   */
+
+  long rows()
+  {
+    return this.rows;
+  }
+
+  @Override
+  public void close()
+    throws SQLException
+  {
+    if (!this.copy.isActive()) {
+      return;
+    }
+
+    try {
+      this.flush();
+      this.copy.endCopy();
+    } catch (final SQLException e) {
+      if (this.copy.isActive()) {
+        this.copy.cancelCopy();
+      }
+      throw e;
+    }
+  }
+}
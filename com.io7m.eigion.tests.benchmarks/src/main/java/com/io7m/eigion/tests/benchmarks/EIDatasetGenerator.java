@@ -0,0 +1,445 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests.benchmarks;
+
+import com.io7m.eigion.model.EIAuditEvent;
+import com.io7m.eigion.model.EIGroupCreationRequestStatusType;
+import com.io7m.eigion.model.EIGroupCreationRequestStatusType.Failed;
+import com.io7m.eigion.model.EIGroupMembership;
+import com.io7m.eigion.model.EIGroupName;
+import com.io7m.eigion.model.EIPermissionSet;
+import com.io7m.eigion.server.database.api.EISDatabaseTuning;
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.RandomGenerator;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * A generator of large, reproducible datasets. Values are produced by the
+ * jqwik providers in {@code com.io7m.eigion.tests.arbitraries} driven by a
+ * single seeded random number generator, and are bulk-loaded with
+ * {@code COPY}. Running the generator twice with the same configuration
+ * against two empty databases yields identical data.
+ *
+ * <p>The database is specified as for {@link EIBenchmarkDatabases}, and the
+ * dataset size is specified as for
+ * {@link EIDatasetConfiguration#fromSystemProperties()}.</p>
+ */
+
+public final class EIDatasetGenerator
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(EIDatasetGenerator.class);
+
+  private static final int GENERATOR_SIZE = 1000;
+  private static final int GROUP_NAME_LENGTH_MAXIMUM = 255;
+  private static final long TIME_BASE =
+    Instant.parse("2020-01-01T00:00:00Z").toEpochMilli();
+  private static final long TIME_RANGE =
+    Instant.parse("2023-01-01T00:00:00Z").toEpochMilli() - TIME_BASE;
+
+  private final Connection connection;
+  private final EIDatasetConfiguration configuration;
+  private final Random random;
+  private final CopyManager copyManager;
+  private final RandomGenerator<EIPermissionSet> permissions;
+  private final RandomGenerator<EIGroupName> groupNames;
+  private final RandomGenerator<EIGroupMembership> memberships;
+  private final RandomGenerator<EIAuditEvent> auditEvents;
+  private final RandomGenerator<EIGroupCreationRequestStatusType> statuses;
+  private UUID[] userIds;
+  private String[] groupNameValues;
+
+  private EIDatasetGenerator(
+    final Connection inConnection,
+    final EIDatasetConfiguration inConfiguration)
+    throws SQLException
+  {
+    this.connection =
+      Objects.requireNonNull(inConnection, "connection");
+    this.configuration =
+      Objects.requireNonNull(inConfiguration, "configuration");
+    this.random =
+      new Random(inConfiguration.seed());
+    this.copyManager =
+      inConnection.unwrap(PGConnection.class).getCopyAPI();
+
+    this.permissions =
+      generatorFor(EIPermissionSet.class);
+    this.groupNames =
+      generatorFor(EIGroupName.class);
+    this.memberships =
+      generatorFor(EIGroupMembership.class);
+    this.auditEvents =
+      generatorFor(EIAuditEvent.class);
+    this.statuses =
+      generatorFor(EIGroupCreationRequestStatusType.class);
+  }
+
+  private static <T> RandomGenerator<T> generatorFor(
+    final Class<T> clazz)
+  {
+    final Arbitrary<T> arbitrary = Arbitraries.defaultFor(clazz);
+    return arbitrary.generator(GENERATOR_SIZE);
+  }
+
+  /**
+   * Generate a dataset into the benchmark database.
+   *
+   * @param args The command-line arguments (ignored)
+   *
+   * @throws Exception On errors
+   */
+
+  public static void main(
+    final String[] args)
+    throws Exception
+  {
+    final var configuration =
+      EIDatasetConfiguration.fromSystemProperties();
+
+    /*
+     * Opening the database creates or upgrades the schema.
+     */
+
+    EIBenchmarkDatabases.open(EISDatabaseTuning.defaults()).close();
+
+    try (var connection = EIBenchmarkDatabases.openConnection()) {
+      generate(connection, configuration);
+    }
+  }
+
+  /**
+   * Generate a dataset using the given connection. The connection must
+   * belong to a role that owns the schema, and the tables must be empty.
+   * The dataset is loaded in a single transaction.
+   *
+   * @param connection    The connection
+   * @param configuration The dataset configuration
+   *
+   * @throws SQLException On errors
+   */
+
+  public static void generate(
+    final Connection connection,
+    final EIDatasetConfiguration configuration)
+    throws SQLException
+  {
+    final var generator =
+      new EIDatasetGenerator(connection, configuration);
+
+    connection.setAutoCommit(false);
+    try {
+      generator.checkEmpty();
+      generator.generateUsers();
+      generator.generateGroups();
+      generator.generateMemberships();
+      generator.generateAuditEvents();
+      generator.generateGroupCreationRequests();
+      connection.commit();
+    } catch (final SQLException e) {
+      connection.rollback();
+      throw e;
+    }
+
+    connection.setAutoCommit(true);
+    try (var st = connection.createStatement()) {
+      st.execute("analyze");
+    }
+  }
+
+  private void checkEmpty()
+    throws SQLException
+  {
+    try (var st = this.connection.createStatement();
+         var rs = st.executeQuery(
+           "select (select count(*) from users) + (select count(*) from groups)")) {
+      rs.next();
+      if (rs.getLong(1) != 0L) {
+        throw new IllegalStateException(
+          "The users and groups tables must be empty before generating a dataset.");
+      }
+    }
+  }
+
+  private <T> T next(
+    final RandomGenerator<T> generator)
+  {
+    return generator.next(this.random).value();
+  }
+
+  private OffsetDateTime nextTime()
+  {
+    final var offset =
+      (long) (this.random.nextDouble() * (double) TIME_RANGE);
+    return OffsetDateTime.ofInstant(
+      Instant.ofEpochMilli(TIME_BASE + offset),
+      ZoneOffset.UTC
+    );
+  }
+
+  private UUID nextUserId()
+  {
+    return this.userIds[this.random.nextInt(this.userIds.length)];
+  }
+
+  /*
+   * The UUID provider uses UUID.randomUUID(), which cannot be seeded, so
+   * version 4 UUIDs are built directly from the seeded generator.
+   */
+
+  private UUID nextUUID()
+  {
+    final var msb =
+      (this.random.nextLong() & 0xffff_ffff_ffff_0fffL) | 0x0000_0000_0000_4000L;
+    final var lsb =
+      (this.random.nextLong() & 0x3fff_ffff_ffff_ffffL) | 0x8000_0000_0000_0000L;
+    return new UUID(msb, lsb);
+  }
+
+  private void generateUsers()
+    throws SQLException
+  {
+    final var count =
+      Math.toIntExact(this.configuration.users());
+    this.userIds = new UUID[count];
+
+    final var timeThen = System.nanoTime();
+    try (var copy = EIDatasetCopyWriter.start(
+      this.copyManager,
+      "COPY users (id, permissions) FROM STDIN")) {
+      for (int index = 0; index < count; ++index) {
+        final var id = this.nextUUID();
+        this.userIds[index] = id;
+        copy.row(id, arrayOf(this.next(this.permissions).asIntegers()));
+      }
+      logCompleted("users", copy.rows(), timeThen);
+    }
+  }
+
+  private void generateGroups()
+    throws SQLException
+  {
+    final var count =
+      Math.toIntExact(this.configuration.groups());
+    this.groupNameValues = new String[count];
+
+    final var timeThen = System.nanoTime();
+    try (var copy = EIDatasetCopyWriter.start(
+      this.copyManager,
+      "COPY groups (name, creator, created, personal) FROM STDIN")) {
+      for (int index = 0; index < count; ++index) {
+        final var name =
+          uniqueGroupName(this.next(this.groupNames), index);
+        this.groupNameValues[index] = name;
+        copy.row(
+          name,
+          this.nextUserId(),
+          this.nextTime(),
+          Boolean.valueOf(this.random.nextInt(8) == 0)
+        );
+      }
+      logCompleted("groups", copy.rows(), timeThen);
+    }
+  }
+
+  /*
+   * Generated names are not unique, so every name gets a final segment
+   * derived from its index. Long names are truncated to their first
+   * segment so that the result remains a valid group name.
+   */
+
+  private static String uniqueGroupName(
+    final EIGroupName name,
+    final int index)
+  {
+    final var suffix =
+      ".n" + Integer.toString(index, 36);
+    final var value =
+      name.value().toLowerCase(Locale.ROOT);
+
+    if (value.length() + suffix.length() <= GROUP_NAME_LENGTH_MAXIMUM) {
+      return new EIGroupName(value + suffix).value();
+    }
+
+    final var first = value.split("\\.")[0];
+    return new EIGroupName(first + suffix).value();
+  }
+
+  private void generateMemberships()
+    throws SQLException
+  {
+    if (this.groupNameValues.length == 0) {
+      return;
+    }
+
+    try (var st = this.connection.createStatement()) {
+      st.execute("""
+        create temporary table dataset_group_roles (
+          group_name varchar(256) not null,
+          user_id    uuid         not null,
+          roles      integer[]    not null
+        ) on commit drop
+        """);
+    }
+
+    final var timeThen = System.nanoTime();
+    final var perUser =
+      Math.min(
+        this.configuration.membershipsPerUser(),
+        this.groupNameValues.length
+      );
+
+    try (var copy = EIDatasetCopyWriter.start(
+      this.copyManager,
+      "COPY dataset_group_roles (group_name, user_id, roles) FROM STDIN")) {
+      final var joined = new HashSet<Integer>(perUser);
+      for (final var userId : this.userIds) {
+        joined.clear();
+        final var memberships = this.random.nextInt(perUser + 1);
+        while (joined.size() < memberships) {
+          final var group = this.random.nextInt(this.groupNameValues.length);
+          if (joined.add(Integer.valueOf(group))) {
+            copy.row(
+              this.groupNameValues[group],
+              userId,
+              arrayOf(this.next(this.memberships).roles().asIntegers())
+            );
+          }
+        }
+      }
+      logCompleted("group_roles", copy.rows(), timeThen);
+    }
+
+    try (var st = this.connection.createStatement()) {
+      st.execute("""
+        insert into group_roles (group_id, user_id, roles)
+          select g.id, d.user_id, d.roles
+            from dataset_group_roles d
+            join groups g on g.name = d.group_name
+        """);
+    }
+  }
+
+  private void generateAuditEvents()
+    throws SQLException
+  {
+    final var timeThen = System.nanoTime();
+    try (var copy = EIDatasetCopyWriter.start(
+      this.copyManager,
+      "COPY audit (user_id, time, type, message) FROM STDIN")) {
+      for (long index = 0L; index < this.configuration.auditEvents(); ++index) {
+        final var event = this.next(this.auditEvents);
+        copy.row(
+          this.nextUserId(),
+          this.nextTime(),
+          event.type(),
+          event.message()
+        );
+      }
+      logCompleted("audit", copy.rows(), timeThen);
+    }
+  }
+
+  private void generateGroupCreationRequests()
+    throws SQLException
+  {
+    final var timeThen = System.nanoTime();
+    final var hex = HexFormat.of().withUpperCase();
+    final var tokenRandom = new byte[8];
+
+    try (var copy = EIDatasetCopyWriter.start(
+      this.copyManager,
+      "COPY groups_creation_requests (group_token, group_name, creator_user, created, completed, status, message) FROM STDIN")) {
+      final var count = this.configuration.groupCreationRequests();
+      for (long index = 0L; index < count; ++index) {
+        final var status =
+          this.next(this.statuses);
+
+        /*
+         * The token provider may produce duplicates, and EIToken.generate()
+         * cannot be seeded, so tokens are the index followed by random bits.
+         * For the same reason, the request provider is not used directly.
+         */
+
+        this.random.nextBytes(tokenRandom);
+        final var token =
+          hex.toHexDigits(index) + hex.formatHex(tokenRandom);
+
+        final var created = this.nextTime();
+        final var completed =
+          status.timeCompleted().isPresent()
+            ? created.plusSeconds(1L + this.random.nextInt(86400))
+            : null;
+
+        final String message;
+        if (status instanceof Failed failed) {
+          message = failed.message();
+        } else {
+          message = "";
+        }
+
+        copy.row(
+          token,
+          this.next(this.groupNames).value(),
+          this.nextUserId(),
+          created,
+          completed,
+          status.name(),
+          message
+        );
+      }
+      logCompleted("groups_creation_requests", copy.rows(), timeThen);
+    }
+  }
+
+  private static String arrayOf(
+    final Integer[] values)
+  {
+    return Arrays.stream(values)
+      .map(Object::toString)
+      .collect(Collectors.joining(",", "{", "}"));
+  }
+
+  private static void logCompleted(
+    final String table,
+    final long rows,
+    final long timeThen)
+  {
+    final var seconds =
+      (double) (System.nanoTime() - timeThen) / 1_000_000_000.0;
+    LOG.info("{}: {} rows in {}s", table, Long.valueOf(rows), seconds);
+  }
+}
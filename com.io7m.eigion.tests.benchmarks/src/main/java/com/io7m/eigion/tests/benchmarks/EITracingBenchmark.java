@@ -0,0 +1,207 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests.benchmarks;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static io.opentelemetry.semconv.trace.attributes.SemanticAttributes.DB_STATEMENT;
+import static io.opentelemetry.semconv.trace.attributes.SemanticAttributes.HTTP_METHOD;
+import static io.opentelemetry.semconv.trace.attributes.SemanticAttributes.HTTP_URL;
+import static io.opentelemetry.semconv.trace.attributes.SemanticAttributes.HTTP_USER_AGENT;
+import static org.jooq.SQLDialect.POSTGRES;
+
+/**
+ * Benchmarks of the tracing work performed for a single request: one
+ * server span with request attributes, and a number of query spans that
+ * each carry a rendered SQL statement. The {@code guarded} parameter
+ * compares computing attributes unconditionally against computing them
+ * only for spans that are recording.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EITracingBenchmark
+{
+  private static final int QUERIES_PER_REQUEST = 4;
+
+  /**
+   * The trace sample ratio.
+   */
+
+  @Param({"0.0", "0.1", "1.0"})
+  public double sampleRatio;
+
+  /**
+   * Whether attributes are only computed for recording spans.
+   */
+
+  @Param({"false", "true"})
+  public boolean guarded;
+
+  private SdkTracerProvider tracerProvider;
+  private Tracer tracer;
+  private DSLContext context;
+  private UUID requestId;
+
+  /**
+   * Benchmarks of the tracing work performed for a single request.
+   */
+
+  public EITracingBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up a tracer that discards all exported spans.
+   */
+
+  @Setup(Level.Trial)
+  public void setup()
+  {
+    this.tracerProvider =
+      SdkTracerProvider.builder()
+        .setSampler(Sampler.parentBased(
+          Sampler.traceIdRatioBased(this.sampleRatio)))
+        .addSpanProcessor(SimpleSpanProcessor.create(new DiscardingExporter()))
+        .build();
+
+    this.tracer =
+      this.tracerProvider.get("com.io7m.eigion.tests.benchmarks");
+    this.context =
+      DSL.using(POSTGRES);
+    this.requestId =
+      UUID.randomUUID();
+  }
+
+  /**
+   * Shut down the tracer.
+   */
+
+  @TearDown(Level.Trial)
+  public void tearDown()
+  {
+    this.tracerProvider.close();
+  }
+
+  /**
+   * Trace a single request.
+   *
+   * @return The request span
+   */
+
+  @Benchmark
+  public Span request()
+  {
+    final var span =
+      this.tracer.spanBuilder("/pike/1/0/command")
+        .setSpanKind(SpanKind.SERVER)
+        .setAttribute(HTTP_METHOD, "POST")
+        .setAttribute(HTTP_URL, "/pike/1/0/command")
+        .startSpan();
+
+    if (!this.guarded || span.isRecording()) {
+      span.setAttribute(HTTP_USER_AGENT, "com.io7m.eigion.pike/0.0.1");
+      span.setAttribute("http.request_id", this.requestId.toString());
+    }
+
+    try (var ignored = span.makeCurrent()) {
+      for (int index = 0; index < QUERIES_PER_REQUEST; ++index) {
+        final var querySpan =
+          this.tracer.spanBuilder("EISGroupByNameSearch.page")
+            .startSpan();
+
+        try {
+          final var select =
+            this.context.select(DSL.field("name"))
+              .from(DSL.table("groups"))
+              .where(DSL.field("name").likeIgnoreCase("%com.io7m%"))
+              .orderBy(DSL.field("name"))
+              .limit(Integer.valueOf(100));
+
+          if (!this.guarded || querySpan.isRecording()) {
+            querySpan.setAttribute(DB_STATEMENT, select.toString());
+          }
+        } finally {
+          querySpan.end();
+        }
+      }
+    } finally {
+      span.end();
+    }
+    return span;
+  }
+
+  private static final class DiscardingExporter implements SpanExporter
+  {
+    DiscardingExporter()
+    {
+
+    }
+
+    @Override
+    public CompletableResultCode export(
+      final Collection<SpanData> spans)
+    {
+      return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode flush()
+    {
+      return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown()
+    {
+      return CompletableResultCode.ofSuccess();
+    }
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+/**
+ * Eigion platform (Benchmarks)
+ */
+
+open module com.io7m.eigion.tests.benchmarks
+{
+  requires com.io7m.eigion.model;
+  requires com.io7m.eigion.protocol.amberjack.cb;
+  requires com.io7m.eigion.protocol.amberjack;
+  requires com.io7m.eigion.protocol.api;
+  requires com.io7m.eigion.protocol.pike.cb;
+  requires com.io7m.eigion.protocol.pike;
+  requires com.io7m.eigion.server.database.api;
+  requires com.io7m.eigion.server.database.postgres;
+  requires com.io7m.eigion.tests.arbitraries;
+
+  requires io.opentelemetry.api;
+  requires io.opentelemetry.context;
+  requires io.opentelemetry.sdk.common;
+  requires io.opentelemetry.sdk.trace;
+  requires io.opentelemetry.semconv;
+  requires java.sql;
+  requires jmh.core;
+  requires net.jqwik.api;
+  requires org.jooq;
+  requires org.postgresql.jdbc;
+  requires org.slf4j;
+}
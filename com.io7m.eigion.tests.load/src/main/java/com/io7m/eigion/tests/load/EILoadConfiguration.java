@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests.load;
+
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The configuration of a load test run.
+ *
+ * @param databaseAddress  The address of the PostgreSQL server
+ * @param databasePort     The port of the PostgreSQL server
+ * @param databaseUser     The PostgreSQL superuser
+ * @param databasePassword The PostgreSQL superuser password
+ * @param sessions         The number of concurrent sessions
+ * @param warmupIterations The number of unmeasured iterations per session
+ * @param iterations       The number of measured iterations per session
+ * @param report           The file to which the report is written
+ * @param baseline         A previous report against which to compare
+ * @param tolerance        The fraction by which results may be worse than
+ *                         the baseline before counting as a regression
+ */
+
+public record EILoadConfiguration(
+  String databaseAddress,
+  int databasePort,
+  String databaseUser,
+  String databasePassword,
+  int sessions,
+  int warmupIterations,
+  int iterations,
+  Optional<Path> report,
+  Optional<Path> baseline,
+  double tolerance)
+{
+  /**
+   * The maximum number of iterations per session. Each iteration creates a
+   * group, and the group creation request listing returns a single page of
+   * at most 1000 requests.
+   */
+
+  public static final int ITERATIONS_MAXIMUM = 500;
+
+  /**
+   * The configuration of a load test run.
+   *
+   * @param databaseAddress  The address of the PostgreSQL server
+   * @param databasePort     The port of the PostgreSQL server
+   * @param databaseUser     The PostgreSQL superuser
+   * @param databasePassword The PostgreSQL superuser password
+   * @param sessions         The number of concurrent sessions
+   * @param warmupIterations The number of unmeasured iterations per session
+   * @param iterations       The number of measured iterations per session
+   * @param report           The file to which the report is written
+   * @param baseline         A previous report against which to compare
+   * @param tolerance        The fraction by which results may be worse than
+   *                         the baseline before counting as a regression
+   */
+
+  public EILoadConfiguration
+  {
+    Objects.requireNonNull(databaseAddress, "databaseAddress");
+    Objects.requireNonNull(databaseUser, "databaseUser");
+    Objects.requireNonNull(databasePassword, "databasePassword");
+    Objects.requireNonNull(report, "report");
+    Objects.requireNonNull(baseline, "baseline");
+
+    if (sessions < 1) {
+      throw new IllegalArgumentException("At least one session is required");
+    }
+    if (warmupIterations < 0) {
+      throw new IllegalArgumentException(
+        "Warmup iterations must be non-negative");
+    }
+    if (iterations < 1 || warmupIterations + iterations > ITERATIONS_MAXIMUM) {
+      throw new IllegalArgumentException(
+        "Iterations must be in the range [1, %d]"
+          .formatted(Integer.valueOf(ITERATIONS_MAXIMUM - warmupIterations))
+      );
+    }
+    if (tolerance < 0.0) {
+      throw new IllegalArgumentException("Tolerance must be non-negative");
+    }
+  }
+
+  /**
+   * Read a load test configuration from the following system properties:
+   *
+   * <ul>
+   *   <li>{@code eigion.load.db.address} (default: {@code localhost})</li>
+   *   <li>{@code eigion.load.db.port} (default: {@code 5432})</li>
+   *   <li>{@code eigion.load.db.user} (default: {@code postgres})</li>
+   *   <li>{@code eigion.load.db.password} (default: {@code 12345678})</li>
+   *   <li>{@code eigion.load.sessions} (default: {@code 16})</li>
+   *   <li>{@code eigion.load.warmupIterations} (default: {@code 5})</li>
+   *   <li>{@code eigion.load.iterations} (default: {@code 50})</li>
+   *   <li>{@code eigion.load.report} (default: none)</li>
+   *   <li>{@code eigion.load.baseline} (default: none)</li>
+   *   <li>{@code eigion.load.tolerance} (default: {@code 0.25})</li>
+   * </ul>
+   *
+   * @return A configuration
+   */
+
+  public static EILoadConfiguration fromSystemProperties()
+  {
+    return new EILoadConfiguration(
+      System.getProperty("eigion.load.db.address", "localhost"),
+      Integer.parseInt(System.getProperty("eigion.load.db.port", "5432")),
+      System.getProperty("eigion.load.db.user", "postgres"),
+      System.getProperty("eigion.load.db.password", "12345678"),
+      Integer.parseInt(System.getProperty("eigion.load.sessions", "16")),
+      Integer.parseInt(
+        System.getProperty("eigion.load.warmupIterations", "5")),
+      Integer.parseInt(System.getProperty("eigion.load.iterations", "50")),
+      Optional.ofNullable(System.getProperty("eigion.load.report"))
+        .map(Path::of),
+      Optional.ofNullable(System.getProperty("eigion.load.baseline"))
+        .map(Path::of),
+      Double.parseDouble(System.getProperty("eigion.load.tolerance", "0.25"))
+    );
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests.load;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * A domain check server that answers every challenge correctly. The server
+ * returns the token named in the request path, so any number of sessions
+ * may have group creation requests in progress at once.
+ */
+
+public final class EILoadDomainCheckServer implements AutoCloseable
+{
+  private static final String CHALLENGE_PREFIX =
+    "/.well-known/eigion-group-challenge/";
+
+  private final Server server;
+
+  private EILoadDomainCheckServer(
+    final Server inServer)
+  {
+    this.server = Objects.requireNonNull(inServer, "server");
+  }
+
+  /**
+   * Start a domain check server.
+   *
+   * @param port The port
+   *
+   * @return A running server
+   *
+   * @throws Exception On errors
+   */
+
+  public static EILoadDomainCheckServer create(
+    final int port)
+    throws Exception
+  {
+    final var server =
+      new Server(new InetSocketAddress("localhost", port));
+
+    final var servlets = new ServletContextHandler();
+    servlets.addServlet(ChallengeServlet.class, "/");
+    server.setHandler(servlets);
+    server.start();
+    return new EILoadDomainCheckServer(server);
+  }
+
+  @Override
+  public void close()
+    throws Exception
+  {
+    this.server.stop();
+  }
+
+  /**
+   * A servlet that returns the token named in the request path.
+   */
+
+  public static final class ChallengeServlet extends HttpServlet
+  {
+    /**
+     * A servlet that returns the token named in the request path.
+     */
+
+    public ChallengeServlet()
+    {
+
+    }
+
+    @Override
+    protected void service(
+      final HttpServletRequest req,
+      final HttpServletResponse resp)
+      throws IOException
+    {
+      final var path = req.getRequestURI();
+      if (!path.startsWith(CHALLENGE_PREFIX) || !path.endsWith(".txt")) {
+        resp.setStatus(404);
+        resp.setContentLength(0);
+        return;
+      }
+
+      final var token =
+        path.substring(CHALLENGE_PREFIX.length(), path.length() - 4);
+      final var bytes =
+        token.getBytes(StandardCharsets.UTF_8);
+
+      resp.setStatus(200);
+      resp.setContentLength(bytes.length);
+      try (var output = resp.getOutputStream()) {
+        output.write(bytes);
+      }
+    }
+  }
+}
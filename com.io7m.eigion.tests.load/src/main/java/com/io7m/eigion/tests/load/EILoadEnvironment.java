@@ -0,0 +1,306 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests.load;
+
+import com.io7m.eigion.model.EIPermission;
+import com.io7m.eigion.model.EIPermissionSet;
+import com.io7m.eigion.server.EIServerFactory;
+import com.io7m.eigion.server.api.EIServerConfiguration;
+import com.io7m.eigion.server.api.EIServerConfiguratorType;
+import com.io7m.eigion.server.api.EIServerHTTPServiceConfiguration;
+import com.io7m.eigion.server.api.EIServerIdstoreConfiguration;
+import com.io7m.eigion.server.api.EIServerRateLimitConfiguration;
+import com.io7m.eigion.server.api.EIServerTokenBucketConfiguration;
+import com.io7m.eigion.server.database.api.EISDatabaseConfiguration;
+import com.io7m.eigion.server.database.api.EISDatabaseCreate;
+import com.io7m.eigion.server.database.api.EISDatabaseUpgrade;
+import com.io7m.eigion.server.database.postgres.EISDatabases;
+import com.io7m.eigion.tests.support.EIInterceptHttpClient;
+import com.io7m.jmulticlose.core.CloseableCollection;
+import com.io7m.jmulticlose.core.CloseableCollectionType;
+import com.io7m.jmulticlose.core.ClosingResourceFailedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * The set of servers against which a load test runs: an idstore server, a
+ * domain check server that accepts every challenge, and an Eigion server.
+ * The databases used by the idstore and Eigion servers are dropped and
+ * recreated each time an environment is created, so that every run starts
+ * from the same state.
+ */
+
+public final class EILoadEnvironment implements AutoCloseable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(EILoadEnvironment.class);
+
+  private static final String DATABASE_EIGION = "eigion_load";
+  private static final String DATABASE_IDSTORE = "idstore_load";
+  private static final int DOMAIN_CHECK_PORT = 20000;
+  private static final int PIKE_PORT = 60000;
+  private static final int AMBERJACK_PORT = 61000;
+
+  private final EILoadIdstore idstore;
+  private final EIServerConfiguratorType configurator;
+  private final CloseableCollectionType<ClosingResourceFailedException> resources;
+
+  private EILoadEnvironment(
+    final EILoadIdstore inIdstore,
+    final EIServerConfiguratorType inConfigurator,
+    final CloseableCollectionType<ClosingResourceFailedException> inResources)
+  {
+    this.idstore =
+      Objects.requireNonNull(inIdstore, "idstore");
+    this.configurator =
+      Objects.requireNonNull(inConfigurator, "configurator");
+    this.resources =
+      Objects.requireNonNull(inResources, "resources");
+  }
+
+  /**
+   * Create and start all the servers.
+   *
+   * @param configuration The load test configuration
+   *
+   * @return The environment
+   *
+   * @throws Exception On errors
+   */
+
+  public static EILoadEnvironment create(
+    final EILoadConfiguration configuration)
+    throws Exception
+  {
+    Objects.requireNonNull(configuration, "configuration");
+
+    recreateDatabase(configuration, DATABASE_IDSTORE);
+    recreateDatabase(configuration, DATABASE_EIGION);
+
+    final var resources = CloseableCollection.create();
+    try {
+      final var idstore =
+        resources.add(EILoadIdstore.create(configuration, DATABASE_IDSTORE));
+
+      resources.add(EILoadDomainCheckServer.create(DOMAIN_CHECK_PORT));
+
+      final var httpClient =
+        new EIInterceptHttpClient(
+          EILoadEnvironment::replaceURI,
+          HttpClient.newHttpClient()
+        );
+
+      final var serverConfiguration =
+        createServerConfiguration(configuration, idstore, httpClient);
+      final var servers =
+        new EIServerFactory();
+      final var server =
+        resources.add(servers.createServer(serverConfiguration));
+      final var configurator =
+        resources.add(servers.createServerConfigurator(serverConfiguration));
+
+      server.start();
+      return new EILoadEnvironment(idstore, configurator, resources);
+    } catch (final Exception e) {
+      try {
+        resources.close();
+      } catch (final ClosingResourceFailedException ex) {
+        e.addSuppressed(ex);
+      }
+      throw e;
+    }
+  }
+
+  private static EIServerConfiguration createServerConfiguration(
+    final EILoadConfiguration configuration,
+    final EILoadIdstore idstore,
+    final HttpClient httpClient)
+  {
+    final var clock = Clock.systemUTC();
+
+    final var databaseConfiguration =
+      new EISDatabaseConfiguration(
+        configuration.databaseUser(),
+        configuration.databasePassword(),
+        configuration.databaseAddress(),
+        configuration.databasePort(),
+        DATABASE_EIGION,
+        EISDatabaseCreate.CREATE_DATABASE,
+        EISDatabaseUpgrade.UPGRADE_DATABASE,
+        clock
+      );
+
+    return new EIServerConfiguration(
+      Locale.getDefault(),
+      clock,
+      () -> httpClient,
+      new EISDatabases(),
+      databaseConfiguration,
+      new EIServerHTTPServiceConfiguration(
+        "localhost",
+        PIKE_PORT,
+        URI.create("http://localhost:%d/".formatted(PIKE_PORT)),
+        Optional.empty()
+      ),
+      new EIServerHTTPServiceConfiguration(
+        "localhost",
+        AMBERJACK_PORT,
+        URI.create("http://localhost:%d/".formatted(AMBERJACK_PORT)),
+        Optional.empty()
+      ),
+      new EIServerIdstoreConfiguration(
+        idstore.baseURI(),
+        URI.create("http://localhost:51000/password-reset")
+      ),
+      Optional.empty(),
+      Optional.empty(),
+      Optional.empty(),
+      unlimitedRateLimits()
+    );
+  }
+
+  /*
+   * All load comes from a single address, and the point of the harness is
+   * to drive the server as hard as possible, so effectively disable rate
+   * limiting.
+   */
+
+  private static EIServerRateLimitConfiguration unlimitedRateLimits()
+  {
+    final var unlimited =
+      new EIServerTokenBucketConfiguration(
+        Long.MAX_VALUE, Duration.ofNanos(1L));
+
+    return new EIServerRateLimitConfiguration(false, unlimited, unlimited);
+  }
+
+  /*
+   * Domain checks fetch challenge files from hosts derived from group
+   * names; send them all to the local domain check server.
+   */
+
+  private static URI replaceURI(
+    final URI u)
+  {
+    final var path = u.getPath();
+    if (path == null
+      || !path.startsWith("/.well-known/eigion-group-challenge/")) {
+      return u;
+    }
+
+    try {
+      return new URI(
+        "http",
+        u.getUserInfo(),
+        "localhost",
+        DOMAIN_CHECK_PORT,
+        path,
+        u.getQuery(),
+        u.getFragment()
+      );
+    } catch (final URISyntaxException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void recreateDatabase(
+    final EILoadConfiguration configuration,
+    final String name)
+    throws SQLException
+  {
+    LOG.info("recreating database {}", name);
+
+    final var url =
+      "jdbc:postgresql://%s:%d/postgres".formatted(
+        configuration.databaseAddress(),
+        Integer.valueOf(configuration.databasePort())
+      );
+
+    final var properties = new Properties();
+    properties.setProperty("user", configuration.databaseUser());
+    properties.setProperty("password", configuration.databasePassword());
+
+    try (var connection = DriverManager.getConnection(url, properties);
+         var st = connection.createStatement()) {
+      st.execute("drop database if exists %s with (force)".formatted(name));
+      st.execute("create database %s".formatted(name));
+    }
+  }
+
+  /**
+   * @return The base URI of the Pike API
+   */
+
+  public URI basePikeURI()
+  {
+    return URI.create("http://localhost:%d/".formatted(PIKE_PORT));
+  }
+
+  /**
+   * @return The base URI of the Amberjack API
+   */
+
+  public URI baseAmberjackURI()
+  {
+    return URI.create("http://localhost:%d/".formatted(AMBERJACK_PORT));
+  }
+
+  /**
+   * Create a user that holds every permission.
+   *
+   * @param name     The user name
+   * @param password The password
+   *
+   * @return The ID of the new user
+   *
+   * @throws Exception On errors
+   */
+
+  public UUID createUser(
+    final String name,
+    final String password)
+    throws Exception
+  {
+    final var id = this.idstore.createUser(name, password);
+    this.configurator.userSetPermissions(
+      id,
+      EIPermissionSet.of(EIPermission.values())
+    );
+    return id;
+  }
+
+  @Override
+  public void close()
+    throws Exception
+  {
+    this.resources.close();
+  }
+}
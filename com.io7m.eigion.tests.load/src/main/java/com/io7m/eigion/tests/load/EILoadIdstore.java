@@ -0,0 +1,245 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests.load;
+
+import com.io7m.idstore.database.api.IdDatabaseConfiguration;
+import com.io7m.idstore.database.api.IdDatabaseCreate;
+import com.io7m.idstore.database.api.IdDatabaseUpgrade;
+import com.io7m.idstore.database.api.IdDatabaseUsersQueriesType;
+import com.io7m.idstore.database.postgres.IdDatabases;
+import com.io7m.idstore.model.IdEmail;
+import com.io7m.idstore.model.IdName;
+import com.io7m.idstore.model.IdPasswordAlgorithmPBKDF2HmacSHA256;
+import com.io7m.idstore.model.IdRealName;
+import com.io7m.idstore.server.IdServers;
+import com.io7m.idstore.server.api.IdServerBrandingConfiguration;
+import com.io7m.idstore.server.api.IdServerConfiguration;
+import com.io7m.idstore.server.api.IdServerHTTPServiceConfiguration;
+import com.io7m.idstore.server.api.IdServerHistoryConfiguration;
+import com.io7m.idstore.server.api.IdServerMailConfiguration;
+import com.io7m.idstore.server.api.IdServerMailTransportSMTP;
+import com.io7m.idstore.server.api.IdServerRateLimitConfiguration;
+import com.io7m.idstore.server.api.IdServerType;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.io7m.idstore.database.api.IdDatabaseRole.IDSTORE;
+
+/**
+ * A local idstore server used as the identity provider for load tests.
+ */
+
+public final class EILoadIdstore implements AutoCloseable
+{
+  /**
+   * The port on which the user API is served.
+   */
+
+  public static final int USER_API_PORT = 50000;
+
+  private final IdServerType server;
+  private final UUID adminId;
+
+  private EILoadIdstore(
+    final IdServerType inServer,
+    final UUID inAdminId)
+  {
+    this.server =
+      Objects.requireNonNull(inServer, "server");
+    this.adminId =
+      Objects.requireNonNull(inAdminId, "adminId");
+  }
+
+  /**
+   * Create and start an idstore server. The named database must exist and
+   * be empty.
+   *
+   * @param configuration The load test configuration
+   * @param databaseName  The name of the idstore database
+   *
+   * @return A running server
+   *
+   * @throws Exception On errors
+   */
+
+  public static EILoadIdstore create(
+    final EILoadConfiguration configuration,
+    final String databaseName)
+    throws Exception
+  {
+    final var server =
+      createServer(configuration, databaseName);
+
+    try {
+      final var adminId = UUID.randomUUID();
+      server.setup(
+        Optional.of(adminId),
+        new IdName("admin"),
+        new IdEmail("admin@example.org"),
+        new IdRealName("Admin"),
+        "12345678"
+      );
+      server.start();
+      return new EILoadIdstore(server, adminId);
+    } catch (final Exception e) {
+      server.close();
+      throw e;
+    }
+  }
+
+  private static IdServerType createServer(
+    final EILoadConfiguration configuration,
+    final String databaseName)
+  {
+    final var clock = Clock.systemUTC();
+
+    final var databaseConfiguration =
+      new IdDatabaseConfiguration(
+        configuration.databaseUser(),
+        configuration.databasePassword(),
+        configuration.databaseAddress(),
+        configuration.databasePort(),
+        databaseName,
+        IdDatabaseCreate.CREATE_DATABASE,
+        IdDatabaseUpgrade.UPGRADE_DATABASE,
+        clock
+      );
+
+    final var mailService =
+      new IdServerMailConfiguration(
+        new IdServerMailTransportSMTP("localhost", 25000),
+        Optional.empty(),
+        "no-reply@example.com",
+        Duration.ofDays(1L)
+      );
+
+    final var userApiService =
+      new IdServerHTTPServiceConfiguration(
+        "localhost",
+        USER_API_PORT,
+        URI.create("http://localhost:%d/".formatted(USER_API_PORT)),
+        Optional.empty()
+      );
+    final var userViewService =
+      new IdServerHTTPServiceConfiguration(
+        "localhost",
+        50001,
+        URI.create("http://localhost:50001/"),
+        Optional.empty()
+      );
+    final var adminApiService =
+      new IdServerHTTPServiceConfiguration(
+        "localhost",
+        51000,
+        URI.create("http://localhost:51000/"),
+        Optional.empty()
+      );
+
+    final var branding =
+      new IdServerBrandingConfiguration(
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty()
+      );
+
+    final var history =
+      new IdServerHistoryConfiguration(100, 100);
+
+    final var rateLimit =
+      new IdServerRateLimitConfiguration(
+        Duration.ofMinutes(10L),
+        Duration.ofMinutes(10L)
+      );
+
+    return new IdServers().createServer(
+      new IdServerConfiguration(
+        Locale.getDefault(),
+        clock,
+        new IdDatabases(),
+        databaseConfiguration,
+        mailService,
+        userApiService,
+        userViewService,
+        adminApiService,
+        branding,
+        history,
+        rateLimit,
+        Optional.empty()
+      )
+    );
+  }
+
+  /**
+   * @return The base URI of the user API
+   */
+
+  public URI baseURI()
+  {
+    return URI.create("http://localhost:%d/".formatted(USER_API_PORT));
+  }
+
+  /**
+   * Create a user.
+   *
+   * @param name     The user name
+   * @param password The password
+   *
+   * @return The ID of the new user
+   *
+   * @throws Exception On errors
+   */
+
+  public UUID createUser(
+    final String name,
+    final String password)
+    throws Exception
+  {
+    final var db = this.server.database();
+    try (var c = db.openConnection(IDSTORE)) {
+      try (var t = c.openTransaction()) {
+        t.adminIdSet(this.adminId);
+        final var u =
+          t.queries(IdDatabaseUsersQueriesType.class);
+
+        final var user =
+          u.userCreate(
+            new IdName(name),
+            new IdRealName(name),
+            new IdEmail("%s@example.org".formatted(name)),
+            IdPasswordAlgorithmPBKDF2HmacSHA256.create().createHashed(password)
+          );
+        t.commit();
+        return user.id();
+      }
+    }
+  }
+
+  @Override
+  public void close()
+    throws Exception
+  {
+    this.server.close();
+  }
+}
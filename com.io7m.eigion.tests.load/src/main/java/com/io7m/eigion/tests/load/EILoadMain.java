@@ -0,0 +1,162 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests.load;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Properties;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The main entry point for load tests.
+ *
+ * <p>A run starts an idstore server, a domain check server, and an Eigion
+ * server against a PostgreSQL server, creates one user per session, and
+ * then runs all sessions concurrently. A report of the latency of each
+ * command and the overall throughput is printed and optionally written to
+ * a file. If a baseline report is given, the run fails with a non-zero
+ * exit code when the results regress against the baseline, so that the
+ * harness can be used as a gate in continuous integration.</p>
+ *
+ * @see EILoadConfiguration#fromSystemProperties()
+ */
+
+public final class EILoadMain
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(EILoadMain.class);
+
+  private EILoadMain()
+  {
+
+  }
+
+  /**
+   * The main entry point.
+   *
+   * @param args The command-line arguments (ignored)
+   *
+   * @throws Exception On errors
+   */
+
+  public static void main(
+    final String[] args)
+    throws Exception
+  {
+    final var configuration =
+      EILoadConfiguration.fromSystemProperties();
+
+    final EILoadReport report;
+    try (var environment = EILoadEnvironment.create(configuration)) {
+      report = run(environment, configuration);
+    }
+
+    report.print(System.out);
+
+    final var reportFile = configuration.report();
+    if (reportFile.isPresent()) {
+      report.write(reportFile.get());
+    }
+
+    final var baselineFile = configuration.baseline();
+    final var baseline =
+      baselineFile.isPresent()
+        ? EILoadReport.readBaseline(baselineFile.get())
+        : new Properties();
+
+    final var regressions =
+      report.regressions(baseline, configuration.tolerance());
+
+    if (!regressions.isEmpty()) {
+      for (final var regression : regressions) {
+        LOG.error("regression: {}", regression);
+      }
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Run all sessions against the given environment.
+   *
+   * @param environment   The environment
+   * @param configuration The configuration
+   *
+   * @return The report
+   *
+   * @throws Exception On errors
+   */
+
+  public static EILoadReport run(
+    final EILoadEnvironment environment,
+    final EILoadConfiguration configuration)
+    throws Exception
+  {
+    final var count = configuration.sessions();
+    final var timeStart = new AtomicLong();
+    final var barrier =
+      new CyclicBarrier(count, () -> timeStart.set(System.nanoTime()));
+
+    final var sessions = new ArrayList<EILoadSession>(count);
+    for (int index = 0; index < count; ++index) {
+      final var session =
+        new EILoadSession(environment, configuration, barrier, "load", index);
+      environment.createUser(session.userName(), EILoadSession.PASSWORD);
+      sessions.add(session);
+    }
+
+    LOG.info(
+      "running {} sessions for {} iterations",
+      Integer.valueOf(count),
+      Integer.valueOf(configuration.iterations())
+    );
+
+    final var executor =
+      Executors.newFixedThreadPool(count, r -> {
+        final var thread = new Thread(r);
+        thread.setName(
+          "com.io7m.eigion.tests.load.EILoadSession[%d]"
+            .formatted(Long.valueOf(thread.getId())));
+        thread.setDaemon(true);
+        return thread;
+      });
+
+    try {
+      final var futures = new ArrayList<Future<EILoadSamples>>(count);
+      for (final var session : sessions) {
+        futures.add(executor.submit(session));
+      }
+
+      final var samples = new EILoadSamples();
+      for (final var future : futures) {
+        samples.addAll(future.get());
+      }
+
+      final var elapsed =
+        Duration.ofNanos(System.nanoTime() - timeStart.get());
+      return EILoadReport.of(samples, elapsed);
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests.load;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * The results of a load test run.
+ *
+ * @param commands   The statistics for each command
+ * @param operations The number of operations executed
+ * @param elapsed    The time taken by the measured iterations
+ */
+
+public record EILoadReport(
+  Map<String, EILoadStatistics> commands,
+  long operations,
+  Duration elapsed)
+{
+  /**
+   * The results of a load test run.
+   *
+   * @param commands   The statistics for each command
+   * @param operations The number of operations executed
+   * @param elapsed    The time taken by the measured iterations
+   */
+
+  public EILoadReport
+  {
+    commands = Map.copyOf(commands);
+    Objects.requireNonNull(elapsed, "elapsed");
+  }
+
+  /**
+   * Produce a report from the given samples.
+   *
+   * @param samples The samples
+   * @param elapsed The time taken by the measured iterations
+   *
+   * @return A report
+   */
+
+  public static EILoadReport of(
+    final EILoadSamples samples,
+    final Duration elapsed)
+  {
+    final var commands = samples.statistics();
+    final var operations =
+      commands.entrySet()
+        .stream()
+        .filter(e -> isMeasuredOperation(e.getKey()))
+        .mapToLong(e -> e.getValue().count() + e.getValue().errors())
+        .sum();
+
+    return new EILoadReport(commands, operations, elapsed);
+  }
+
+  /*
+   * Logins happen before the measured iterations, and flows are composed
+   * of other operations, so neither contributes to throughput.
+   */
+
+  private static boolean isMeasuredOperation(
+    final String command)
+  {
+    return !command.endsWith(".login") && !command.endsWith("Flow");
+  }
+
+  /**
+   * @return The number of operations per second
+   */
+
+  public double throughput()
+  {
+    final var seconds = (double) this.elapsed.toNanos() / 1_000_000_000.0;
+    if (seconds == 0.0) {
+      return 0.0;
+    }
+    return (double) this.operations / seconds;
+  }
+
+  /**
+   * @return The report as a set of properties
+   */
+
+  public Properties toProperties()
+  {
+    final var properties = new Properties();
+    properties.setProperty("operations", Long.toString(this.operations));
+    properties.setProperty("throughput", format(this.throughput()));
+
+    for (final var entry : this.commands.entrySet()) {
+      final var name = entry.getKey();
+      final var s = entry.getValue();
+      properties.setProperty(name + ".count", Long.toString(s.count()));
+      properties.setProperty(name + ".errors", Long.toString(s.errors()));
+      properties.setProperty(name + ".p50", format(s.p50()));
+      properties.setProperty(name + ".p90", format(s.p90()));
+      properties.setProperty(name + ".p99", format(s.p99()));
+      properties.setProperty(name + ".max", format(s.max()));
+    }
+    return properties;
+  }
+
+  private static String format(
+    final double x)
+  {
+    return String.format(Locale.ROOT, "%.3f", Double.valueOf(x));
+  }
+
+  /**
+   * Write the report to the given file. The file may later be used as a
+   * baseline.
+   *
+   * @param file The output file
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public void write(
+    final Path file)
+    throws IOException
+  {
+    final var sorted = new TreeMap<>(this.toProperties());
+    try (var writer = Files.newBufferedWriter(file)) {
+      for (final var entry : sorted.entrySet()) {
+        writer.write("%s=%s%n".formatted(entry.getKey(), entry.getValue()));
+      }
+    }
+  }
+
+  /**
+   * Read a report previously written with {@link #write(Path)}.
+   *
+   * @param file The input file
+   *
+   * @return The report properties
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static Properties readBaseline(
+    final Path file)
+    throws IOException
+  {
+    final var properties = new Properties();
+    try (var reader = Files.newBufferedReader(file)) {
+      properties.load(reader);
+    }
+    return properties;
+  }
+
+  /**
+   * Print the report as a table.
+   *
+   * @param output The output stream
+   */
+
+  public void print(
+    final PrintStream output)
+  {
+    output.printf(
+      Locale.ROOT,
+      "%-32s %8s %6s %10s %10s %10s %10s%n",
+      "Command", "Count", "Errors", "p50 ms", "p90 ms", "p99 ms", "Max ms"
+    );
+
+    for (final var entry : new TreeMap<>(this.commands).entrySet()) {
+      final var s = entry.getValue();
+      output.printf(
+        Locale.ROOT,
+        "%-32s %8d %6d %10.3f %10.3f %10.3f %10.3f%n",
+        entry.getKey(),
+        Long.valueOf(s.count()),
+        Long.valueOf(s.errors()),
+        Double.valueOf(s.p50()),
+        Double.valueOf(s.p90()),
+        Double.valueOf(s.p99()),
+        Double.valueOf(s.max())
+      );
+    }
+
+    output.printf(
+      Locale.ROOT,
+      "%d operations in %.3fs (%.3f operations/s)%n",
+      Long.valueOf(this.operations),
+      Double.valueOf((double) this.elapsed.toMillis() / 1000.0),
+      Double.valueOf(this.throughput())
+    );
+  }
+
+  /**
+   * Compare this report against a baseline. Any failed operation is a
+   * regression. Throughput lower than the baseline, or a 99th percentile
+   * latency higher than the baseline, by more than the given tolerance is
+   * also a regression.
+   *
+   * @param baseline  The baseline, if any
+   * @param tolerance The tolerance as a fraction of the baseline values
+   *
+   * @return A description of each regression
+   */
+
+  public List<String> regressions(
+    final Properties baseline,
+    final double tolerance)
+  {
+    Objects.requireNonNull(baseline, "baseline");
+
+    final var results = new ArrayList<String>();
+    for (final var entry : new TreeMap<>(this.commands).entrySet()) {
+      final var name = entry.getKey();
+      final var s = entry.getValue();
+      if (s.errors() > 0L) {
+        results.add("%s: %d operations failed".formatted(
+          name, Long.valueOf(s.errors())));
+      }
+
+      final var baseP99 = baseline.getProperty(name + ".p99");
+      if (baseP99 != null) {
+        final var limit = Double.parseDouble(baseP99) * (1.0 + tolerance);
+        if (s.p99() > limit) {
+          results.add("%s: p99 %s ms exceeds the limit %s ms".formatted(
+            name, format(s.p99()), format(limit)));
+        }
+      }
+    }
+
+    final var baseThroughput = baseline.getProperty("throughput");
+    if (baseThroughput != null) {
+      final var limit =
+        Double.parseDouble(baseThroughput) * (1.0 - tolerance);
+      if (this.throughput() < limit) {
+        results.add("throughput %s operations/s is below the limit %s"
+                      .formatted(format(this.throughput()), format(limit)));
+      }
+    }
+    return results;
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests.load;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * The latency samples recorded by a single session, keyed by command name.
+ * Instances are not thread-safe; each session records into its own
+ * instance, and the instances are merged when the run completes.
+ */
+
+public final class EILoadSamples
+{
+  private final TreeMap<String, Samples> samples;
+
+  /**
+   * The latency samples recorded by a single session.
+   */
+
+  public EILoadSamples()
+  {
+    this.samples = new TreeMap<>();
+  }
+
+  private Samples samplesFor(
+    final String command)
+  {
+    return this.samples.computeIfAbsent(
+      Objects.requireNonNull(command, "command"),
+      k -> new Samples()
+    );
+  }
+
+  /**
+   * Record a successful execution of a command.
+   *
+   * @param command The command
+   * @param nanos   The latency in nanoseconds
+   */
+
+  public void recordSuccess(
+    final String command,
+    final long nanos)
+  {
+    this.samplesFor(command).add(nanos);
+  }
+
+  /**
+   * Record a failed execution of a command.
+   *
+   * @param command The command
+   */
+
+  public void recordFailure(
+    final String command)
+  {
+    ++this.samplesFor(command).errors;
+  }
+
+  /**
+   * Add all the samples in {@code other} to this set of samples.
+   *
+   * @param other The other samples
+   */
+
+  public void addAll(
+    final EILoadSamples other)
+  {
+    for (final var entry : other.samples.entrySet()) {
+      final var source = entry.getValue();
+      final var target = this.samplesFor(entry.getKey());
+      for (int index = 0; index < source.count; ++index) {
+        target.add(source.values[index]);
+      }
+      target.errors += source.errors;
+    }
+  }
+
+  /**
+   * @return The statistics for each command
+   */
+
+  public Map<String, EILoadStatistics> statistics()
+  {
+    final var results = new TreeMap<String, EILoadStatistics>();
+    for (final var entry : this.samples.entrySet()) {
+      results.put(entry.getKey(), entry.getValue().statistics());
+    }
+    return results;
+  }
+
+  private static final class Samples
+  {
+    private long[] values;
+    private int count;
+    private long errors;
+
+    Samples()
+    {
+      this.values = new long[256];
+    }
+
+    void add(
+      final long nanos)
+    {
+      if (this.count == this.values.length) {
+        this.values = Arrays.copyOf(this.values, this.values.length * 2);
+      }
+      this.values[this.count] = nanos;
+      ++this.count;
+    }
+
+    EILoadStatistics statistics()
+    {
+      final var sorted = Arrays.copyOf(this.values, this.count);
+      Arrays.sort(sorted);
+
+      return new EILoadStatistics(
+        this.count,
+        this.errors,
+        percentile(sorted, 0.50),
+        percentile(sorted, 0.90),
+        percentile(sorted, 0.99),
+        sorted.length == 0 ? 0.0 : toMillis(sorted[sorted.length - 1])
+      );
+    }
+
+    private static double percentile(
+      final long[] sorted,
+      final double p)
+    {
+      if (sorted.length == 0) {
+        return 0.0;
+      }
+      final var rank = (int) Math.ceil(p * (double) sorted.length);
+      return toMillis(sorted[Math.max(0, rank - 1)]);
+    }
+
+    private static double toMillis(
+      final long nanos)
+    {
+      return (double) nanos / 1_000_000.0;
+    }
+  }
+}
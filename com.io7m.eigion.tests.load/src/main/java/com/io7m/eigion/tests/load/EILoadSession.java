@@ -0,0 +1,298 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests.load;
+
+import com.io7m.eigion.amberjack.EIAJClients;
+import com.io7m.eigion.amberjack.api.EIAJClientType;
+import com.io7m.eigion.model.EIAuditSearchParameters;
+import com.io7m.eigion.model.EIGroupCreationRequestStatusType.InProgress;
+import com.io7m.eigion.model.EIGroupCreationRequestStatusType.Succeeded;
+import com.io7m.eigion.model.EIGroupName;
+import com.io7m.eigion.model.EIGroupSearchByNameParameters;
+import com.io7m.eigion.model.EITimeRange;
+import com.io7m.eigion.model.EIToken;
+import com.io7m.eigion.pike.EIPClients;
+import com.io7m.eigion.pike.api.EIPClientType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * A single load test session. A session logs in to both the Pike and
+ * Amberjack APIs as its own user, and then repeatedly lists groups, creates
+ * a group, and searches the audit log and group names.
+ */
+
+public final class EILoadSession implements Callable<EILoadSamples>
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(EILoadSession.class);
+
+  /**
+   * The password of every session user.
+   */
+
+  public static final String PASSWORD = "12345678";
+
+  private static final Duration GROUP_CREATE_TIMEOUT =
+    Duration.ofSeconds(30L);
+
+  private final EILoadEnvironment environment;
+  private final EILoadConfiguration configuration;
+  private final CyclicBarrier measuring;
+  private final String userName;
+  private final String runName;
+
+  /**
+   * A single load test session.
+   *
+   * @param inEnvironment   The environment
+   * @param inConfiguration The configuration
+   * @param inMeasuring     A barrier that all sessions pass through before
+   *                        the measured iterations begin
+   * @param inRunName       A name unique to this run
+   * @param index           The index of this session
+   */
+
+  public EILoadSession(
+    final EILoadEnvironment inEnvironment,
+    final EILoadConfiguration inConfiguration,
+    final CyclicBarrier inMeasuring,
+    final String inRunName,
+    final int index)
+  {
+    this.environment =
+      Objects.requireNonNull(inEnvironment, "environment");
+    this.configuration =
+      Objects.requireNonNull(inConfiguration, "configuration");
+    this.measuring =
+      Objects.requireNonNull(inMeasuring, "measuring");
+    this.runName =
+      Objects.requireNonNull(inRunName, "runName");
+    this.userName =
+      "load%d".formatted(Integer.valueOf(index));
+  }
+
+  /**
+   * @return The user name of this session
+   */
+
+  public String userName()
+  {
+    return this.userName;
+  }
+
+  @Override
+  public EILoadSamples call()
+    throws Exception
+  {
+    final var samples = new EILoadSamples();
+
+    try (var pike = new EIPClients().create(Locale.ROOT);
+         var amberjack = new EIAJClients().create(Locale.ROOT)) {
+
+      timed(samples, "pike.login", () -> {
+        return pike.login(
+          this.userName,
+          PASSWORD,
+          this.environment.basePikeURI()
+        );
+      });
+      timed(samples, "amberjack.login", () -> {
+        return amberjack.login(
+          this.userName,
+          PASSWORD,
+          this.environment.baseAmberjackURI()
+        );
+      });
+
+      final var warmup = new EILoadSamples();
+      final var first = this.configuration.warmupIterations();
+      for (int index = 0; index < first; ++index) {
+        this.iteration(warmup, pike, amberjack, index);
+      }
+
+      this.measuring.await();
+
+      for (int index = 0; index < this.configuration.iterations(); ++index) {
+        this.iteration(samples, pike, amberjack, first + index);
+      }
+    } catch (final Exception e) {
+      this.measuring.reset();
+      throw e;
+    }
+
+    return samples;
+  }
+
+  private void iteration(
+    final EILoadSamples samples,
+    final EIPClientType pike,
+    final EIAJClientType amberjack,
+    final int index)
+    throws InterruptedException
+  {
+    final var groups =
+      timed(samples, "pike.groups", pike::groups);
+    if (groups.isPresent()) {
+      timed(samples, "pike.groupsNext", () -> groups.get().next());
+    }
+
+    this.groupCreate(samples, pike, index);
+
+    final var audit =
+      timed(samples, "amberjack.auditSearch", () -> {
+        return amberjack.auditSearch(
+          new EIAuditSearchParameters(
+            EITimeRange.largest(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            100L
+          ));
+      });
+    if (audit.isPresent()) {
+      timed(samples, "amberjack.auditSearchNext", () -> audit.get().next());
+    }
+
+    timed(samples, "amberjack.groupSearchByName", () -> {
+      return amberjack.groupSearchByName(
+        new EIGroupSearchByNameParameters(
+          Optional.of(this.runName),
+          100L
+        ));
+    });
+  }
+
+  /*
+   * The group creation flow: begin a request, declare it ready, and then
+   * poll the request list until the domain check completes. The whole flow
+   * is also recorded as a single operation.
+   */
+
+  private void groupCreate(
+    final EILoadSamples samples,
+    final EIPClientType pike,
+    final int index)
+    throws InterruptedException
+  {
+    final var name =
+      new EIGroupName(
+        "%s.%s.g%d".formatted(
+          this.runName,
+          this.userName,
+          Integer.valueOf(index))
+      );
+
+    final var timeThen = System.nanoTime();
+    final var challenge =
+      timed(samples, "pike.groupCreateBegin", () -> {
+        return pike.groupCreateBegin(name);
+      });
+    if (challenge.isEmpty()) {
+      samples.recordFailure("pike.groupCreateFlow");
+      return;
+    }
+
+    final var token = challenge.get().token();
+    final var ready =
+      timed(samples, "pike.groupCreateReady", () -> {
+        pike.groupCreateReady(token);
+        return token;
+      });
+    if (ready.isEmpty()) {
+      samples.recordFailure("pike.groupCreateFlow");
+      return;
+    }
+
+    if (this.waitForCompletion(samples, pike, token, timeThen)) {
+      samples.recordSuccess(
+        "pike.groupCreateFlow",
+        System.nanoTime() - timeThen);
+    } else {
+      samples.recordFailure("pike.groupCreateFlow");
+    }
+  }
+
+  private boolean waitForCompletion(
+    final EILoadSamples samples,
+    final EIPClientType pike,
+    final EIToken token,
+    final long timeThen)
+    throws InterruptedException
+  {
+    final var timeout = GROUP_CREATE_TIMEOUT.toNanos();
+    while (System.nanoTime() - timeThen < timeout) {
+      final var page =
+        timed(samples, "pike.groupCreateRequests", () -> {
+          return pike.groupCreateRequests().current();
+        });
+
+      if (page.isPresent()) {
+        final var request =
+          page.get()
+            .items()
+            .stream()
+            .filter(r -> Objects.equals(r.token(), token))
+            .findFirst();
+
+        if (request.isPresent()
+          && !(request.get().status() instanceof InProgress)) {
+          return request.get().status() instanceof Succeeded;
+        }
+      }
+
+      Thread.sleep(10L);
+    }
+
+    LOG.warn("{}: timed out waiting for group creation", this.userName);
+    return false;
+  }
+
+  private interface OperationType<T>
+  {
+    T execute()
+      throws Exception;
+  }
+
+  private static <T> Optional<T> timed(
+    final EILoadSamples samples,
+    final String command,
+    final OperationType<T> operation)
+    throws InterruptedException
+  {
+    final var timeThen = System.nanoTime();
+    try {
+      final var result = operation.execute();
+      samples.recordSuccess(command, System.nanoTime() - timeThen);
+      return Optional.of(result);
+    } catch (final InterruptedException e) {
+      throw e;
+    } catch (final Exception e) {
+      LOG.debug("{}: ", command, e);
+      samples.recordFailure(command);
+      return Optional.empty();
+    }
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests.load;
+
+/**
+ * The latency statistics for a single command. Latencies are in
+ * milliseconds, and percentiles use the nearest-rank method.
+ *
+ * @param count  The number of successful executions
+ * @param errors The number of failed executions
+ * @param p50    The median latency
+ * @param p90    The 90th percentile latency
+ * @param p99    The 99th percentile latency
+ * @param max    The maximum latency
+ */
+
+public record EILoadStatistics(
+  long count,
+  long errors,
+  double p50,
+  double p90,
+  double p99,
+  double max)
+{
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+/**
+ * Eigion platform (Load tests)
+ */
+
+open module com.io7m.eigion.tests.load
+{
+  requires com.io7m.eigion.amberjack.api;
+  requires com.io7m.eigion.amberjack;
+  requires com.io7m.eigion.model;
+  requires com.io7m.eigion.pike.api;
+  requires com.io7m.eigion.pike;
+  requires com.io7m.eigion.server.api;
+  requires com.io7m.eigion.server.database.api;
+  requires com.io7m.eigion.server.database.postgres;
+  requires com.io7m.eigion.server;
+  requires com.io7m.eigion.tests.support;
+
+  requires com.io7m.idstore.database.api;
+  requires com.io7m.idstore.database.postgres;
+  requires com.io7m.idstore.model;
+  requires com.io7m.idstore.server.api;
+  requires com.io7m.idstore.server;
+  requires com.io7m.jmulticlose.core;
+  requires java.net.http;
+  requires java.sql;
+  requires org.eclipse.jetty.server;
+  requires org.eclipse.jetty.servlet;
+  requires org.postgresql.jdbc;
+  requires org.slf4j;
+}
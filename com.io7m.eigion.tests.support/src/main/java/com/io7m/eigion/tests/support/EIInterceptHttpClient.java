@@ -15,7 +15,7 @@
  */
 
 
-package com.io7m.eigion.tests;
+package com.io7m.eigion.tests.support;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLParameters;
@@ -35,11 +35,24 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.function.Function;
 
+/**
+ * An HTTP client that rewrites the URIs of requests before sending them.
+ * Servers under test use this client for domain checks, so that challenges
+ * for arbitrary group names can be answered by a local server.
+ */
+
 public final class EIInterceptHttpClient extends HttpClient
 {
   private final Function<URI, URI> filterURI;
   private final HttpClient client;
 
+  /**
+   * An HTTP client that rewrites the URIs of requests before sending them.
+   *
+   * @param inFilterURI The URI rewriting function
+   * @param inClient    The underlying client
+   */
+
   public EIInterceptHttpClient(
     final Function<URI, URI> inFilterURI,
     final HttpClient inClient)
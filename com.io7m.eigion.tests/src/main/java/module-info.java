@@ -49,6 +49,7 @@ open module com.io7m.eigion.tests
   requires com.io7m.eigion.storage.s3;
   requires com.io7m.eigion.taskrecorder;
   requires com.io7m.eigion.tests.arbitraries;
+  requires com.io7m.eigion.tests.support;
   requires com.io7m.idstore.admin_client.api;
   requires com.io7m.idstore.admin_client;
   requires com.io7m.idstore.database.api;
@@ -19,10 +19,20 @@ package com.io7m.eigion.tests;
 
 import com.io7m.eigion.protocol.amberjack.EIAJMessageType;
 import com.io7m.eigion.protocol.amberjack.cb.EIAJCB1Messages;
+import com.io7m.eigion.protocol.api.EIProtocolException;
+import com.io7m.eigion.protocol.api.EIProtocolFrames;
 import net.jqwik.api.ForAll;
 import net.jqwik.api.Property;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static com.io7m.eigion.protocol.api.EIProtocolFrames.FRAME_SIZE_MAXIMUM;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public final class EIAJ1CBMessagesTest
 {
@@ -41,4 +51,66 @@ public final class EIAJ1CBMessagesTest
 
     assertEquals(message, m);
   }
+
+  @Property(tries = 2000)
+  public void testSerializationStream(
+    final @ForAll EIAJMessageType message)
+    throws Exception
+  {
+    final var output = new ByteArrayOutputStream();
+    MESSAGES.serialize(message, output);
+
+    assertEquals(
+      MESSAGES.serialize(message).length,
+      output.size()
+    );
+
+    final var m =
+      MESSAGES.parse(new ByteArrayInputStream(output.toByteArray()));
+
+    assertEquals(message, m);
+  }
+
+  @Property(tries = 500)
+  public void testSerializationFrames(
+    final @ForAll List<EIAJMessageType> messages)
+    throws Exception
+  {
+    final var output = new ByteArrayOutputStream();
+    for (final var message : messages) {
+      EIProtocolFrames.writeFrame(MESSAGES, message, output);
+    }
+
+    final var input = new ByteArrayInputStream(output.toByteArray());
+    for (final var message : messages) {
+      assertEquals(
+        Optional.of(message),
+        EIProtocolFrames.readFrame(MESSAGES, input, FRAME_SIZE_MAXIMUM)
+      );
+    }
+    assertEquals(
+      Optional.empty(),
+      EIProtocolFrames.readFrame(MESSAGES, input, FRAME_SIZE_MAXIMUM)
+    );
+  }
+
+  @Property(tries = 500)
+  public void testSerializationFramesTruncated(
+    final @ForAll EIAJMessageType message)
+    throws Exception
+  {
+    final var output = new ByteArrayOutputStream();
+    EIProtocolFrames.writeFrame(MESSAGES, message, output);
+
+    final var data = output.toByteArray();
+    final var truncated = Arrays.copyOf(data, data.length - 1);
+
+    assertThrows(EIProtocolException.class, () -> {
+      EIProtocolFrames.readFrame(
+        MESSAGES,
+        new ByteArrayInputStream(truncated),
+        FRAME_SIZE_MAXIMUM
+      );
+    });
+  }
 }
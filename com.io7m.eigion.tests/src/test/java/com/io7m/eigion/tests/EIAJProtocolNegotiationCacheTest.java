@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests;
+
+import com.io7m.eigion.amberjack.internal.EIAJProtocolNegotiation.IdAServerEndpoint;
+import com.io7m.eigion.amberjack.internal.EIAJProtocolNegotiationCache;
+import com.io7m.genevan.core.GenProtocolIdentifier;
+import com.io7m.genevan.core.GenProtocolVersion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class EIAJProtocolNegotiationCacheTest
+{
+  private static final Duration EXPIRATION =
+    Duration.ofMinutes(10L);
+
+  private static final List<IdAServerEndpoint> ENDPOINTS =
+    List.of(
+      new IdAServerEndpoint(
+        new GenProtocolIdentifier(
+          "com.io7m.eigion.amberjack",
+          new GenProtocolVersion(BigInteger.ONE, BigInteger.ZERO)
+        ),
+        "/amberjack/1/0/"
+      )
+    );
+
+  private EIMutableClock clock;
+  private EIAJProtocolNegotiationCache cache;
+
+  @BeforeEach
+  public void setup()
+  {
+    this.clock = new EIMutableClock();
+    this.cache = new EIAJProtocolNegotiationCache(this.clock, EXPIRATION);
+  }
+
+  /**
+   * Cached entries can be retrieved.
+   */
+
+  @Test
+  public void testPutGet()
+  {
+    final var base = URI.create("http://example.com/");
+    assertEquals(Optional.empty(), this.cache.get(base));
+
+    this.cache.put(base, ENDPOINTS);
+    assertEquals(Optional.of(ENDPOINTS), this.cache.get(base));
+    assertEquals(1, this.cache.size());
+  }
+
+  /**
+   * Base URIs are normalized before use.
+   */
+
+  @Test
+  public void testKeysNormalized()
+  {
+    this.cache.put(URI.create("http://example.com/a/../"), ENDPOINTS);
+
+    assertEquals(
+      Optional.of(ENDPOINTS),
+      this.cache.get(URI.create("http://example.com/"))
+    );
+    assertEquals(
+      Optional.of(ENDPOINTS),
+      this.cache.get(URI.create("http://example.com/./b/../"))
+    );
+    assertTrue(this.cache.invalidate(URI.create("http://example.com/c/../")));
+    assertEquals(0, this.cache.size());
+  }
+
+  /**
+   * Entries expire exactly at the end of the expiration duration.
+   */
+
+  @Test
+  public void testExpiry()
+  {
+    final var base = URI.create("http://example.com/");
+    this.cache.put(base, ENDPOINTS);
+
+    this.clock.advance(EXPIRATION.minusMillis(1L));
+    assertEquals(Optional.of(ENDPOINTS), this.cache.get(base));
+
+    this.clock.advance(Duration.ofMillis(1L));
+    assertEquals(Optional.empty(), this.cache.get(base));
+    assertEquals(0, this.cache.size());
+  }
+
+  /**
+   * Replacing an entry restarts its expiration.
+   */
+
+  @Test
+  public void testPutRefreshes()
+  {
+    final var base = URI.create("http://example.com/");
+    this.cache.put(base, ENDPOINTS);
+
+    this.clock.advance(EXPIRATION.minusMillis(1L));
+    this.cache.put(base, ENDPOINTS);
+
+    this.clock.advance(EXPIRATION.minusMillis(1L));
+    assertEquals(Optional.of(ENDPOINTS), this.cache.get(base));
+  }
+
+  /**
+   * Invalidation reports whether an entry was removed.
+   */
+
+  @Test
+  public void testInvalidate()
+  {
+    final var base = URI.create("http://example.com/");
+    assertFalse(this.cache.invalidate(base));
+
+    this.cache.put(base, ENDPOINTS);
+    assertTrue(this.cache.invalidate(base));
+    assertFalse(this.cache.invalidate(base));
+    assertEquals(Optional.empty(), this.cache.get(base));
+  }
+}
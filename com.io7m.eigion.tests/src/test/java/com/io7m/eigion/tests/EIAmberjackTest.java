@@ -19,29 +19,62 @@ package com.io7m.eigion.tests;
 import com.io7m.eigion.amberjack.EIAJClients;
 import com.io7m.eigion.amberjack.api.EIAJClientException;
 import com.io7m.eigion.amberjack.api.EIAJClientType;
+import com.io7m.eigion.amberjack.internal.EIAJClient;
+import com.io7m.eigion.amberjack.internal.EIAJClientProtocolHandlerDisconnected;
+import com.io7m.eigion.amberjack.internal.EIAJCompression;
+import com.io7m.eigion.amberjack.internal.EIAJProtocolNegotiationCache;
+import com.io7m.eigion.amberjack.internal.EIAJStrings;
+import com.io7m.eigion.model.EIAuditEvent;
 import com.io7m.eigion.model.EIAuditSearchParameters;
 import com.io7m.eigion.model.EIGroupName;
 import com.io7m.eigion.model.EIGroupSearchByNameParameters;
 import com.io7m.eigion.model.EIPermission;
 import com.io7m.eigion.model.EIPermissionSet;
 import com.io7m.eigion.model.EITimeRange;
+import com.io7m.eigion.protocol.amberjack.EIAJCommandAuditSearchBegin;
+import com.io7m.eigion.protocol.amberjack.EIAJCommandLogin;
+import com.io7m.eigion.protocol.amberjack.EIAJCommandType;
+import com.io7m.eigion.protocol.amberjack.EIAJMessageType;
+import com.io7m.eigion.protocol.amberjack.EIAJResponseAuditExport;
+import com.io7m.eigion.protocol.amberjack.EIAJResponseAuditSearch;
+import com.io7m.eigion.protocol.amberjack.EIAJResponseLogin;
+import com.io7m.eigion.protocol.amberjack.cb.EIAJCB1Messages;
+import com.io7m.eigion.protocol.api.EIProtocolFrames;
 import com.io7m.eigion.server.database.api.EISDatabaseAuditQueriesType;
+import com.io7m.eigion.tests.support.EIInterceptHttpClient;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.CookieManager;
+import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 import static com.io7m.eigion.error_codes.EIStandardErrorCodes.AUTHENTICATION_ERROR;
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.GROUP_DUPLICATE;
 import static com.io7m.eigion.error_codes.EIStandardErrorCodes.OPERATION_NOT_PERMITTED;
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.PROTOCOL_ERROR;
 import static com.io7m.eigion.error_codes.EIStandardErrorCodes.SECURITY_POLICY_DENIED;
 import static com.io7m.eigion.model.EIPermission.AMBERJACK_ACCESS;
 import static com.io7m.eigion.model.EIPermission.AUDIT_READ;
@@ -49,18 +82,35 @@ import static com.io7m.eigion.model.EIPermission.GROUP_CREATE;
 import static com.io7m.eigion.model.EIPermission.GROUP_READ;
 import static com.io7m.eigion.server.database.api.EISDatabaseRole.EIGION;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public final class EIAmberjackTest extends EIWithServerContract
 {
   private EIAJClients clients;
   private EIAJClientType client;
+  private EIMutableClock negotiationClock;
+  private EIAJProtocolNegotiationCache negotiations;
+  private AtomicInteger negotiationRequests;
+  private AtomicInteger brokenLogins;
+  private AtomicInteger loginRequests;
+  private volatile boolean loginDelayed;
+  private CookieManager negotiationCookies;
 
   @BeforeEach
   public void setup()
   {
     this.clients = new EIAJClients();
     this.client = this.clients.create(Locale.ROOT);
+    this.negotiationClock = new EIMutableClock();
+    this.negotiations =
+      new EIAJProtocolNegotiationCache(
+        this.negotiationClock,
+        EIAJProtocolNegotiationCache.DEFAULT_EXPIRATION);
+    this.negotiationRequests = new AtomicInteger();
+    this.brokenLogins = new AtomicInteger();
+    this.loginRequests = new AtomicInteger();
   }
 
   @AfterEach
@@ -180,6 +230,28 @@ public final class EIAmberjackTest extends EIWithServerContract
     assertEquals(SECURITY_POLICY_DENIED, ex.errorCode());
   }
 
+  /**
+   * Creating a group that already exists fails.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGroupCreateDuplicate()
+    throws Exception
+  {
+    this.setupStandardUserAndLogIn(AMBERJACK_ACCESS, GROUP_CREATE);
+
+    this.client.groupCreate(new EIGroupName("com.io7m.example"));
+
+    final var ex =
+      assertThrows(EIAJClientException.class, () -> {
+        this.client.groupCreate(new EIGroupName("com.io7m.example"));
+      });
+
+    assertEquals(GROUP_DUPLICATE, ex.errorCode());
+  }
+
   /**
    * Creating groups works.
    *
@@ -238,6 +310,47 @@ public final class EIAmberjackTest extends EIWithServerContract
     );
   }
 
+  /**
+   * Group searches observe groups created after an identical search.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGroupSearchSeesNewGroups()
+    throws Exception
+  {
+    this.setupStandardUserAndLogIn(AMBERJACK_ACCESS, GROUP_CREATE, GROUP_READ);
+
+    final var parameters =
+      new EIGroupSearchByNameParameters(Optional.of("com.io7m.example%"), 10L);
+
+    this.client.groupCreate(new EIGroupName("com.io7m.example0"));
+    this.client.groupCreate(new EIGroupName("com.io7m.example1"));
+
+    {
+      final var p = this.client.groupSearchByName(parameters).current();
+      assertEquals(2, p.items().size());
+    }
+
+    this.client.groupCreate(new EIGroupName("com.io7m.example2"));
+
+    /*
+     * Invalidations are delivered asynchronously.
+     */
+
+    for (int index = 0; index < 100; ++index) {
+      final var p = this.client.groupSearchByName(parameters).current();
+      if (p.items().size() == 3) {
+        assertEquals("com.io7m.example2", p.items().get(2).value());
+        return;
+      }
+      Thread.sleep(100L);
+    }
+
+    throw new AssertionError("Newly created group was never observed.");
+  }
+
   /**
    * Searching the audit log works.
    *
@@ -387,6 +500,346 @@ public final class EIAmberjackTest extends EIWithServerContract
     }
   }
 
+  /**
+   * Streaming the audit log with prefetching yields every page in order.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testAuditLogSearchStream()
+    throws Exception
+  {
+    final var userId =
+      this.setupStandardUserAndLogIn(AMBERJACK_ACCESS, AUDIT_READ);
+    final var time =
+      OffsetDateTime.ofInstant(Instant.EPOCH, ZoneId.of("UTC"));
+
+    final var database = this.server().database();
+    try (var c = database.openConnection(EIGION)) {
+      try (var t = c.openTransaction()) {
+        final var q =
+          t.queries(EISDatabaseAuditQueriesType.class);
+        for (int index = 0; index < 100; ++index) {
+          q.auditPut(
+            userId,
+            time,
+            "AUDIT_EVENT_%03d".formatted(Integer.valueOf(index)),
+            "AUDIT_MESSAGE_%03d".formatted(Integer.valueOf(index))
+          );
+        }
+        t.commit();
+      }
+    }
+
+    final var search =
+      this.client.auditSearch(
+        new EIAuditSearchParameters(
+          EITimeRange.largest(),
+          Optional.empty(),
+          Optional.of("AUDIT_EVENT_"),
+          Optional.empty(),
+          30L));
+
+    try (var pages = search.pages(2)) {
+      final var indices =
+        pages.map(p -> Integer.valueOf(p.pageIndex()))
+          .toList();
+      assertEquals(List.of(1, 2, 3, 4), indices);
+    }
+
+    try (var events = search.items(2)) {
+      final var items = events.toList();
+      assertEquals(100, items.size());
+      for (int index = 0; index < 100; ++index) {
+        final var event = items.get(index);
+        final var number = Integer.valueOf(index);
+        assertEquals("AUDIT_EVENT_%03d".formatted(number), event.type());
+        assertEquals("AUDIT_MESSAGE_%03d".formatted(number), event.message());
+      }
+    }
+  }
+
+  /**
+   * Exporting the audit log streams every matching event in batches.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testAuditLogExport()
+    throws Exception
+  {
+    final var userId =
+      this.setupStandardUserAndLogIn(AMBERJACK_ACCESS, AUDIT_READ);
+    final var time =
+      OffsetDateTime.ofInstant(Instant.EPOCH, ZoneId.of("UTC"));
+
+    final var database = this.server().database();
+    try (var c = database.openConnection(EIGION)) {
+      try (var t = c.openTransaction()) {
+        final var q =
+          t.queries(EISDatabaseAuditQueriesType.class);
+        for (int index = 0; index < 100; ++index) {
+          q.auditPut(
+            userId,
+            time,
+            "AUDIT_EVENT_%03d".formatted(Integer.valueOf(index)),
+            "AUDIT_MESSAGE_%03d".formatted(Integer.valueOf(index))
+          );
+        }
+        t.commit();
+      }
+    }
+
+    final var output = new ByteArrayOutputStream();
+    final var count =
+      this.client.auditExport(
+        new EIAuditSearchParameters(
+          EITimeRange.largest(),
+          Optional.empty(),
+          Optional.of("AUDIT_EVENT_"),
+          Optional.empty(),
+          30L),
+        output
+      );
+
+    assertEquals(100L, count);
+
+    final var messages =
+      new EIAJCB1Messages();
+    final var input =
+      new ByteArrayInputStream(output.toByteArray());
+    final var batches =
+      new ArrayList<EIAJResponseAuditExport>();
+
+    while (true) {
+      final var frame =
+        EIProtocolFrames.readFrame(
+          messages, input, EIProtocolFrames.FRAME_SIZE_MAXIMUM);
+      if (frame.isEmpty()) {
+        break;
+      }
+      batches.add((EIAJResponseAuditExport) frame.get());
+    }
+
+    assertEquals(
+      List.of(30, 30, 30, 10),
+      batches.stream()
+        .map(b -> Integer.valueOf(b.events().size()))
+        .toList()
+    );
+
+    final var items =
+      batches.stream()
+        .flatMap(b -> b.events().stream())
+        .toList();
+
+    for (int index = 0; index < 100; ++index) {
+      final var event = items.get(index);
+      final var number = Integer.valueOf(index);
+      assertEquals("AUDIT_EVENT_%03d".formatted(number), event.type());
+      assertEquals("AUDIT_MESSAGE_%03d".formatted(number), event.message());
+    }
+  }
+
+  /**
+   * Exporting the audit log requires permission.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testAuditLogExportDisallowed()
+    throws Exception
+  {
+    this.setupStandardUserAndLogIn(AMBERJACK_ACCESS);
+
+    final var ex =
+      assertThrows(EIAJClientException.class, () -> {
+        this.client.auditExport(
+          new EIAuditSearchParameters(
+            EITimeRange.largest(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            30L),
+          new ByteArrayOutputStream()
+        );
+      });
+
+    assertEquals(SECURITY_POLICY_DENIED, ex.errorCode());
+  }
+
+  /**
+   * Following the audit log delivers new matching events, and only new
+   * matching events.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testAuditLogFollow()
+    throws Exception
+  {
+    final var userId =
+      this.setupStandardUserAndLogIn(AMBERJACK_ACCESS, AUDIT_READ);
+
+    this.auditPutMany(userId, "BEFORE_EVENT_%03d", 10);
+
+    final var started =
+      new CountDownLatch(1);
+    final var received =
+      new ArrayList<EIAuditEvent>();
+    final var executor =
+      Executors.newSingleThreadExecutor();
+
+    try {
+      final var future =
+        executor.submit(() -> {
+          this.client.auditFollow(
+            new EIAuditSearchParameters(
+              EITimeRange.largest(),
+              Optional.empty(),
+              Optional.of("FOLLOW_EVENT_"),
+              Optional.empty(),
+              100L),
+            events -> {
+              started.countDown();
+              received.addAll(events);
+              return received.size() < 20;
+            }
+          );
+          return null;
+        });
+
+      assertTrue(started.await(10L, TimeUnit.SECONDS));
+      this.auditPutMany(userId, "IGNORED_EVENT_%03d", 10);
+      this.auditPutMany(userId, "FOLLOW_EVENT_%03d", 20);
+      future.get(30L, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdown();
+    }
+
+    assertEquals(20, received.size());
+    for (int index = 0; index < 20; ++index) {
+      assertEquals(
+        "FOLLOW_EVENT_%03d".formatted(Integer.valueOf(index)),
+        received.get(index).type()
+      );
+    }
+  }
+
+  /**
+   * A burst of events larger than the audit tail's batch size is delivered
+   * in full to a follower that keeps up, without the follower being dropped.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testAuditLogFollowBurst()
+    throws Exception
+  {
+    final var userId =
+      this.setupStandardUserAndLogIn(AMBERJACK_ACCESS, AUDIT_READ);
+
+    final var count =
+      2500;
+    final var started =
+      new CountDownLatch(1);
+    final var received =
+      new ArrayList<EIAuditEvent>();
+    final var executor =
+      Executors.newSingleThreadExecutor();
+
+    try {
+      final var future =
+        executor.submit(() -> {
+          this.client.auditFollow(
+            new EIAuditSearchParameters(
+              EITimeRange.largest(),
+              Optional.empty(),
+              Optional.of("BURST_EVENT_"),
+              Optional.empty(),
+              100L),
+            events -> {
+              started.countDown();
+              received.addAll(events);
+              return received.size() < count;
+            }
+          );
+          return null;
+        });
+
+      assertTrue(started.await(10L, TimeUnit.SECONDS));
+      this.auditPutMany(userId, "BURST_EVENT_%04d", count);
+      future.get(60L, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdown();
+    }
+
+    assertEquals(count, received.size());
+    for (int index = 0; index < count; ++index) {
+      assertEquals(
+        "BURST_EVENT_%04d".formatted(Integer.valueOf(index)),
+        received.get(index).type()
+      );
+    }
+  }
+
+  /**
+   * Following the audit log requires permission.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testAuditLogFollowDisallowed()
+    throws Exception
+  {
+    this.setupStandardUserAndLogIn(AMBERJACK_ACCESS);
+
+    final var ex =
+      assertThrows(EIAJClientException.class, () -> {
+        this.client.auditFollow(
+          new EIAuditSearchParameters(
+            EITimeRange.largest(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            30L),
+          events -> false
+        );
+      });
+
+    assertEquals(SECURITY_POLICY_DENIED, ex.errorCode());
+  }
+
+  private void auditPutMany(
+    final UUID userId,
+    final String typeFormat,
+    final int count)
+    throws Exception
+  {
+    final var database = this.server().database();
+    try (var c = database.openConnection(EIGION)) {
+      try (var t = c.openTransaction()) {
+        final var q =
+          t.queries(EISDatabaseAuditQueriesType.class);
+        for (int index = 0; index < count; ++index) {
+          q.auditPut(
+            userId,
+            OffsetDateTime.now(),
+            typeFormat.formatted(Integer.valueOf(index)),
+            "message"
+          );
+        }
+        t.commit();
+      }
+    }
+  }
+
   private void checkAuditLog(
     final AuditCheck... auditCheck)
     throws Exception
@@ -451,6 +904,314 @@ public final class EIAmberjackTest extends EIWithServerContract
 
   }
 
+  /**
+   * Large responses such as a page of audit events are compressed, and can
+   * be parsed whilst being decompressed. Small responses are sent
+   * uncompressed.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testResponseCompression()
+    throws Exception
+  {
+    final var userId =
+      this.setupStandardUserAndLogIn(AMBERJACK_ACCESS, AUDIT_READ);
+    final var time =
+      OffsetDateTime.ofInstant(Instant.EPOCH, ZoneId.of("UTC"));
+
+    final var database = this.server().database();
+    try (var c = database.openConnection(EIGION)) {
+      try (var t = c.openTransaction()) {
+        final var q =
+          t.queries(EISDatabaseAuditQueriesType.class);
+        for (int index = 0; index < 100; ++index) {
+          q.auditPut(
+            userId,
+            time,
+            "AUDIT_EVENT_%03d".formatted(Integer.valueOf(index)),
+            "AUDIT_MESSAGE_%03d".formatted(Integer.valueOf(index))
+          );
+        }
+        t.commit();
+      }
+    }
+
+    final var http =
+      HttpClient.newBuilder()
+        .cookieHandler(new CookieManager())
+        .build();
+    final var base =
+      this.server().baseAmberjackURI();
+
+    final var loginResponse =
+      sendCompressible(
+        http,
+        base.resolve("amberjack/1/0/login"),
+        new EIAJCommandLogin("noone", "12345678"));
+
+    assertEquals(200, loginResponse.statusCode());
+    assertEquals(
+      Optional.empty(),
+      loginResponse.headers().firstValue("Content-Encoding"));
+    assertInstanceOf(EIAJResponseLogin.class, parseResponse(loginResponse));
+
+    final var pageResponse =
+      sendCompressible(
+        http,
+        base.resolve("amberjack/1/0/command"),
+        new EIAJCommandAuditSearchBegin(
+          new EIAuditSearchParameters(
+            EITimeRange.largest(),
+            Optional.empty(),
+            Optional.of("AUDIT_EVENT_"),
+            Optional.empty(),
+            100L)));
+
+    assertEquals(200, pageResponse.statusCode());
+    assertEquals(
+      Optional.of("gzip"),
+      pageResponse.headers().firstValue("Content-Encoding"));
+
+    final var page =
+      assertInstanceOf(
+        EIAJResponseAuditSearch.class,
+        parseResponse(pageResponse));
+    assertEquals(100, page.page().items().size());
+  }
+
+  private static HttpResponse<InputStream> sendCompressible(
+    final HttpClient http,
+    final URI uri,
+    final EIAJCommandType<?> command)
+    throws Exception
+  {
+    final var request =
+      HttpRequest.newBuilder(uri)
+        .header("Accept-Encoding", EIAJCompression.ACCEPT_ENCODING)
+        .POST(HttpRequest.BodyPublishers.ofByteArray(
+          new EIAJCB1Messages().serialize(command)))
+        .build();
+
+    return http.send(request, HttpResponse.BodyHandlers.ofInputStream());
+  }
+
+  private static EIAJMessageType parseResponse(
+    final HttpResponse<InputStream> response)
+    throws Exception
+  {
+    try (var stream =
+           EIAJCompression.decompressResponse(response, response.headers())) {
+      return new EIAJCB1Messages().parse(stream);
+    }
+  }
+
+  /**
+   * A second login to the same server reuses the negotiated protocols.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testLoginNegotiationCached()
+    throws Exception
+  {
+    this.setupNegotiationUser(AMBERJACK_ACCESS);
+
+    try (var c = this.createNegotiatingClient()) {
+      c.login("noone", "12345678", this.server().baseAmberjackURI());
+      c.login("noone", "12345678", this.server().baseAmberjackURI());
+    }
+    assertEquals(1, this.negotiationRequests.get());
+  }
+
+  /**
+   * Negotiated protocols are discarded when they expire.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testLoginNegotiationExpires()
+    throws Exception
+  {
+    this.setupNegotiationUser(AMBERJACK_ACCESS);
+
+    try (var c = this.createNegotiatingClient()) {
+      c.login("noone", "12345678", this.server().baseAmberjackURI());
+      this.negotiationClock.advance(
+        EIAJProtocolNegotiationCache.DEFAULT_EXPIRATION);
+      c.login("noone", "12345678", this.server().baseAmberjackURI());
+    }
+    assertEquals(2, this.negotiationRequests.get());
+  }
+
+  /**
+   * A protocol error against a cached protocol causes the protocols to be
+   * negotiated again, and the login succeeds.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testLoginNegotiationStaleRecovers()
+    throws Exception
+  {
+    this.setupNegotiationUser(AMBERJACK_ACCESS);
+
+    try (var c = this.createNegotiatingClient()) {
+      c.login("noone", "12345678", this.server().baseAmberjackURI());
+      this.brokenLogins.set(1);
+      c.login("noone", "12345678", this.server().baseAmberjackURI());
+    }
+    assertEquals(2, this.negotiationRequests.get());
+    assertEquals(0, this.brokenLogins.get());
+  }
+
+  /**
+   * Protocols are negotiated again at most once per login.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testLoginNegotiationRetriesOnce()
+    throws Exception
+  {
+    this.setupNegotiationUser(AMBERJACK_ACCESS);
+    this.brokenLogins.set(Integer.MAX_VALUE);
+
+    try (var c = this.createNegotiatingClient()) {
+      final var ex =
+        assertThrows(EIAJClientException.class, () -> {
+          c.login("noone", "12345678", this.server().baseAmberjackURI());
+        });
+      assertEquals(PROTOCOL_ERROR, ex.errorCode());
+    }
+    assertEquals(2, this.negotiationRequests.get());
+  }
+
+  /**
+   * When the server no longer recognizes the client's session, concurrent
+   * asynchronous commands all succeed after a single, shared re-login.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testAsyncReLoginCoalesced()
+    throws Exception
+  {
+    this.setupNegotiationUser(AMBERJACK_ACCESS, GROUP_CREATE);
+
+    try (var c = this.createNegotiatingClient()) {
+      c.login("noone", "12345678", this.server().baseAmberjackURI());
+      assertEquals(1, this.loginRequests.get());
+
+      this.negotiationCookies.getCookieStore().removeAll();
+      this.loginDelayed = true;
+
+      final var futures =
+        IntStream.range(0, 4)
+          .mapToObj(i -> new EIGroupName(
+            "com.example.r%d".formatted(Integer.valueOf(i))))
+          .map(name -> c.groupCreateAsync(name))
+          .toList();
+
+      for (final var future : futures) {
+        future.get(30L, TimeUnit.SECONDS);
+      }
+    }
+    assertEquals(2, this.loginRequests.get());
+  }
+
+  private URI filterNegotiationURI(
+    final URI uri)
+  {
+    if (Objects.equals(uri.getPath(), "/")) {
+      this.negotiationRequests.incrementAndGet();
+      return uri;
+    }
+
+    if (uri.getPath().endsWith("/login")) {
+      this.loginRequests.incrementAndGet();
+      if (this.loginDelayed) {
+        pauseLogin();
+      }
+
+      final var broken =
+        this.brokenLogins.getAndUpdate(x -> Math.max(0, x - 1));
+      if (broken > 0) {
+        return uri.resolve("/broken/login");
+      }
+    }
+    return uri;
+  }
+
+  /*
+   * Requests are filtered on the thread that sends them. Holding a login
+   * request here gives every command already in flight time to receive
+   * its authentication error before the login completes.
+   */
+
+  private static void pauseLogin()
+  {
+    try {
+      Thread.sleep(1_000L);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void setupNegotiationUser(
+    final EIPermission... permissions)
+    throws Exception
+  {
+    final var userId =
+      this.idstore()
+        .createUser("noone", "12345678");
+
+    this.server()
+      .configurator()
+      .userSetPermissions(userId, EIPermissionSet.of(permissions));
+  }
+
+  /**
+   * Create a client that shares a negotiation cache driven by a mutable
+   * clock. Requests for the server's supported protocols are counted, and
+   * login requests are counted and are redirected to a path that does not
+   * speak the protocol while {@link #brokenLogins} is positive.
+   */
+
+  private EIAJClient createNegotiatingClient()
+    throws Exception
+  {
+    this.negotiationCookies = new CookieManager();
+
+    final var httpClient =
+      new EIInterceptHttpClient(
+        this::filterNegotiationURI,
+        HttpClient.newBuilder()
+          .cookieHandler(this.negotiationCookies)
+          .build()
+      );
+
+    final var strings = new EIAJStrings(Locale.ROOT);
+    return new EIAJClient(
+      Locale.ROOT,
+      strings,
+      httpClient,
+      this.negotiations,
+      new EIAJClientProtocolHandlerDisconnected(
+        Locale.ROOT,
+        strings,
+        httpClient,
+        this.negotiations
+      )
+    );
+  }
+
   private UUID setupStandardUserAndLogIn(
     final EIPermission... permissions)
     throws Exception
@@ -25,6 +25,7 @@ import com.io7m.eigion.model.EIGroupCreationRequestStatusType;
 import com.io7m.eigion.model.EIGroupCreationRequestStatusType.InProgress;
 import com.io7m.eigion.model.EIGroupName;
 import com.io7m.eigion.model.EIToken;
+import com.io7m.eigion.tests.support.EIInterceptHttpClient;
 import io.opentelemetry.api.OpenTelemetry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
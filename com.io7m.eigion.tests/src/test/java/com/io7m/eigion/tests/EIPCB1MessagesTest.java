@@ -22,6 +22,9 @@ import com.io7m.eigion.protocol.pike.cb.EIPCB1Messages;
 import net.jqwik.api.ForAll;
 import net.jqwik.api.Property;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public final class EIPCB1MessagesTest
@@ -41,4 +44,23 @@ public final class EIPCB1MessagesTest
 
     assertEquals(message, m);
   }
+
+  @Property(tries = 2000)
+  public void testSerializationStream(
+    final @ForAll EIPMessageType message)
+    throws Exception
+  {
+    final var output = new ByteArrayOutputStream();
+    MESSAGES.serialize(message, output);
+
+    assertEquals(
+      MESSAGES.serialize(message).length,
+      output.size()
+    );
+
+    final var m =
+      MESSAGES.parse(new ByteArrayInputStream(output.toByteArray()));
+
+    assertEquals(message, m);
+  }
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.eigion.tests;
+
+import com.io7m.eigion.pike.internal.EIPInFlightLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class EIPInFlightLimiterTest
+{
+  /**
+   * Tasks beyond the limit are queued, and started in submission order as
+   * earlier tasks complete.
+   */
+
+  @Test
+  public void testBounded()
+  {
+    final var limiter = new EIPInFlightLimiter(3);
+    final var started = new ArrayList<CompletableFuture<Integer>>();
+    final var results = new ArrayList<CompletableFuture<Integer>>();
+
+    for (int index = 0; index < 10; ++index) {
+      results.add(limiter.submit(() -> {
+        final var future = new CompletableFuture<Integer>();
+        started.add(future);
+        return future;
+      }));
+    }
+
+    assertEquals(3, started.size());
+    assertEquals(3, limiter.inFlight());
+
+    for (int index = 0; index < 10; ++index) {
+      assertFalse(results.get(index).isDone());
+      started.get(index).complete(Integer.valueOf(index));
+      assertEquals(Integer.valueOf(index), results.get(index).join());
+      assertTrue(limiter.inFlight() <= 3);
+    }
+
+    assertEquals(10, started.size());
+    assertEquals(0, limiter.inFlight());
+  }
+
+  /**
+   * Failing tasks release their slot.
+   */
+
+  @Test
+  public void testFailureReleases()
+  {
+    final var limiter = new EIPInFlightLimiter(1);
+
+    final var failed =
+      limiter.<Integer>submit(() -> {
+        throw new IllegalStateException();
+      });
+    assertTrue(failed.isCompletedExceptionally());
+
+    final var failedFuture =
+      limiter.<Integer>submit(() -> {
+        return CompletableFuture.failedFuture(new IllegalStateException());
+      });
+    assertTrue(failedFuture.isCompletedExceptionally());
+
+    assertEquals(0, limiter.inFlight());
+    assertEquals(
+      Integer.valueOf(23),
+      limiter.submit(() -> CompletableFuture.completedFuture(
+        Integer.valueOf(23))).join()
+    );
+  }
+
+  /**
+   * The limit must be positive.
+   */
+
+  @Test
+  public void testInvalidMaximum()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      new EIPInFlightLimiter(0);
+    });
+  }
+}
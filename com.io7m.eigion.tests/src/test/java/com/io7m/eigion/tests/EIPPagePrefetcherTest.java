@@ -0,0 +1,263 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests;
+
+import com.io7m.eigion.model.EIPage;
+import com.io7m.eigion.pike.api.EIPClientException;
+import com.io7m.eigion.pike.api.EIPClientUncheckedException;
+import com.io7m.eigion.pike.internal.EIPPagePrefetcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.IO_ERROR;
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.PROTOCOL_ERROR;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class EIPPagePrefetcherTest
+{
+  private AtomicInteger fetches;
+  private EIPPagePrefetcher<Integer> prefetcher;
+
+  @BeforeEach
+  public void setup()
+  {
+    this.fetches = new AtomicInteger();
+  }
+
+  @AfterEach
+  public void tearDown()
+  {
+    if (this.prefetcher != null) {
+      this.prefetcher.close();
+    }
+  }
+
+  /**
+   * A fetch function that returns successive pages of a search with the
+   * given number of pages.
+   */
+
+  private EIPPagePrefetcher.FetchType<Integer> pages(
+    final int pageCount)
+  {
+    return () -> {
+      final var index = this.fetches.incrementAndGet();
+      return new EIPage<>(
+        List.of(Integer.valueOf(index)),
+        index,
+        pageCount,
+        (long) index - 1L
+      );
+    };
+  }
+
+  private void waitForFetches(
+    final int count)
+    throws InterruptedException
+  {
+    for (int attempt = 0; attempt < 500; ++attempt) {
+      if (this.fetches.get() >= count) {
+        return;
+      }
+      Thread.sleep(10L);
+    }
+  }
+
+  /**
+   * Every page is delivered in order, and nothing is fetched after the last
+   * page.
+   */
+
+  @Test
+  public void testAllPages()
+  {
+    this.prefetcher =
+      new EIPPagePrefetcher<>(2, this.pages(5), this.pages(5));
+    this.prefetcher.start();
+
+    final var received = new ArrayList<Integer>();
+    while (this.prefetcher.hasNext()) {
+      received.addAll(this.prefetcher.next().items());
+    }
+
+    assertEquals(List.of(1, 2, 3, 4, 5), received);
+    assertEquals(5, this.fetches.get());
+    assertFalse(this.prefetcher.hasNext());
+  }
+
+  /**
+   * The producer runs no more than the prefetch depth ahead of the
+   * consumer.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPrefetchBounded()
+    throws Exception
+  {
+    this.prefetcher =
+      new EIPPagePrefetcher<>(
+        2, this.pages(Integer.MAX_VALUE), this.pages(Integer.MAX_VALUE));
+    this.prefetcher.start();
+
+    /*
+     * Two pages are queued, and a third is held by the producer waiting for
+     * space in the queue.
+     */
+
+    this.waitForFetches(3);
+    Thread.sleep(250L);
+    assertEquals(3, this.fetches.get());
+
+    assertEquals(List.of(1), this.prefetcher.next().items());
+    this.waitForFetches(4);
+    Thread.sleep(250L);
+    assertEquals(4, this.fetches.get());
+  }
+
+  /**
+   * Errors raised by fetches are delivered to the consumer after the pages
+   * fetched before them.
+   */
+
+  @Test
+  public void testFetchErrorPropagated()
+  {
+    final var error =
+      new EIPClientException(PROTOCOL_ERROR, "Failed!");
+
+    this.prefetcher =
+      new EIPPagePrefetcher<>(
+        2,
+        this.pages(5),
+        () -> {
+          throw error;
+        });
+    this.prefetcher.start();
+
+    assertEquals(List.of(1), this.prefetcher.next().items());
+
+    final var ex =
+      assertThrows(EIPClientUncheckedException.class, () -> {
+        this.prefetcher.hasNext();
+      });
+    assertEquals(error, ex.getCause());
+  }
+
+  /**
+   * Unchecked exceptions raised by fetches are delivered to the consumer as
+   * I/O errors rather than being lost with the producer thread.
+   */
+
+  @Test
+  public void testFetchRuntimeExceptionPropagated()
+  {
+    this.prefetcher =
+      new EIPPagePrefetcher<>(
+        2,
+        this.pages(5),
+        () -> {
+          throw new IllegalStateException("Broken!");
+        });
+    this.prefetcher.start();
+
+    assertEquals(List.of(1), this.prefetcher.next().items());
+
+    final var ex =
+      assertThrows(EIPClientUncheckedException.class, () -> {
+        this.prefetcher.hasNext();
+      });
+    final var cause =
+      assertInstanceOf(EIPClientException.class, ex.getCause());
+    assertEquals(IO_ERROR, cause.errorCode());
+    assertInstanceOf(IllegalStateException.class, cause.getCause());
+  }
+
+  /**
+   * Closing a partially consumed prefetcher stops the producer.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testClosePartiallyConsumed()
+    throws Exception
+  {
+    this.prefetcher =
+      new EIPPagePrefetcher<>(
+        2, this.pages(Integer.MAX_VALUE), this.pages(Integer.MAX_VALUE));
+    this.prefetcher.start();
+
+    assertEquals(List.of(1), this.prefetcher.next().items());
+    this.prefetcher.close();
+    assertFalse(this.prefetcher.hasNext());
+
+    Thread.sleep(250L);
+    final var fetchesAfterClose = this.fetches.get();
+    Thread.sleep(250L);
+    assertEquals(fetchesAfterClose, this.fetches.get());
+    assertTrue(fetchesAfterClose <= 4);
+  }
+
+  /**
+   * A producer whose consumer stops consuming without closing gives up
+   * after the abandon timeout. A consumer that returns receives the pages
+   * that were already fetched, followed by an error.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testAbandonedProducerStops()
+    throws Exception
+  {
+    this.prefetcher =
+      new EIPPagePrefetcher<>(
+        1,
+        Duration.ofMillis(100L),
+        this.pages(Integer.MAX_VALUE),
+        this.pages(Integer.MAX_VALUE));
+    this.prefetcher.start();
+
+    this.waitForFetches(2);
+    Thread.sleep(500L);
+    assertEquals(2, this.fetches.get());
+
+    assertEquals(List.of(1), this.prefetcher.next().items());
+
+    final var ex =
+      assertThrows(EIPClientUncheckedException.class, () -> {
+        this.prefetcher.hasNext();
+      });
+    final var cause =
+      assertInstanceOf(EIPClientException.class, ex.getCause());
+    assertEquals(IO_ERROR, cause.errorCode());
+    assertEquals(2, this.fetches.get());
+  }
+}
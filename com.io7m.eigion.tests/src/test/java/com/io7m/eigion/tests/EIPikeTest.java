@@ -17,6 +17,7 @@
 package com.io7m.eigion.tests;
 
 import com.io7m.eigion.model.EIAuditSearchParameters;
+import com.io7m.eigion.model.EIGroupCreationRequest;
 import com.io7m.eigion.model.EIGroupCreationRequestStatusType;
 import com.io7m.eigion.model.EIGroupName;
 import com.io7m.eigion.model.EIPermission;
@@ -25,23 +26,55 @@ import com.io7m.eigion.model.EITimeRange;
 import com.io7m.eigion.pike.EIPClients;
 import com.io7m.eigion.pike.api.EIPClientException;
 import com.io7m.eigion.pike.api.EIPClientType;
+import com.io7m.eigion.pike.internal.EIPClient;
+import com.io7m.eigion.pike.internal.EIPClientProtocolHandlerDisconnected;
+import com.io7m.eigion.pike.internal.EIPCompression;
+import com.io7m.eigion.pike.internal.EIPProtocolNegotiationCache;
+import com.io7m.eigion.pike.internal.EIPStrings;
+import com.io7m.eigion.protocol.pike.EIPCommandGroupsBegin;
+import com.io7m.eigion.protocol.pike.EIPCommandLogin;
+import com.io7m.eigion.protocol.pike.EIPCommandType;
+import com.io7m.eigion.protocol.pike.EIPMessageType;
+import com.io7m.eigion.protocol.pike.EIPResponseGroups;
+import com.io7m.eigion.protocol.pike.EIPResponseLogin;
+import com.io7m.eigion.protocol.pike.cb.EIPCB1Messages;
 import com.io7m.eigion.server.database.api.EISDatabaseAuditQueriesType;
+import com.io7m.eigion.server.database.api.EISDatabaseGroupsQueriesType;
+import com.io7m.eigion.tests.support.EIInterceptHttpClient;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.InputStream;
+import java.net.CookieManager;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 import static com.io7m.eigion.error_codes.EIStandardErrorCodes.AUTHENTICATION_ERROR;
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.NOT_LOGGED_IN;
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.PROTOCOL_ERROR;
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.RATE_LIMITED;
 import static com.io7m.eigion.model.EIGroupRole.FOUNDER;
 import static com.io7m.eigion.server.database.api.EISDatabaseRole.EIGION;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -49,6 +82,13 @@ public final class EIPikeTest extends EIWithServerContract
 {
   private EIPClients clients;
   private EIPClientType client;
+  private EIMutableClock negotiationClock;
+  private EIPProtocolNegotiationCache negotiations;
+  private AtomicInteger negotiationRequests;
+  private AtomicInteger brokenLogins;
+  private AtomicInteger loginRequests;
+  private volatile boolean loginDelayed;
+  private CookieManager negotiationCookies;
   private EIInterceptHttpClient httpClient;
   private EIFakeServerDomainCheck domainCheckServer;
 
@@ -58,6 +98,14 @@ public final class EIPikeTest extends EIWithServerContract
   {
     this.clients = new EIPClients();
     this.client = this.clients.create(Locale.ROOT);
+    this.negotiationClock = new EIMutableClock();
+    this.negotiations =
+      new EIPProtocolNegotiationCache(
+        this.negotiationClock,
+        EIPProtocolNegotiationCache.DEFAULT_EXPIRATION);
+    this.negotiationRequests = new AtomicInteger();
+    this.brokenLogins = new AtomicInteger();
+    this.loginRequests = new AtomicInteger();
     this.domainCheckServer = EIFakeServerDomainCheck.create(20000);
     EIFakeServerDomainCheckServlet.RETURN_TOKEN = Optional.empty();
   }
@@ -188,6 +236,93 @@ public final class EIPikeTest extends EIWithServerContract
     );
   }
 
+  /**
+   * Starting several group creations concurrently works.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGroupCreationAsyncOK()
+    throws Exception
+  {
+    this.setupStandardUserAndLogIn();
+
+    final var names =
+      List.of(
+        new EIGroupName("com.example.a"),
+        new EIGroupName("com.example.b"),
+        new EIGroupName("com.example.c"),
+        new EIGroupName("com.example.d")
+      );
+
+    final var futures =
+      names.stream()
+        .map(this.client::groupCreateBeginAsync)
+        .toList();
+
+    for (int index = 0; index < names.size(); ++index) {
+      final var challenge =
+        futures.get(index).get(10L, TimeUnit.SECONDS);
+      assertEquals(names.get(index), challenge.groupName());
+      this.client.groupCreateCancelAsync(challenge.token())
+        .get(10L, TimeUnit.SECONDS);
+    }
+
+    final var requests =
+      this.client.groupCreateRequests()
+        .current()
+        .items();
+
+    assertEquals(4, requests.size());
+  }
+
+  /**
+   * Starting too many group creations in a short time is refused.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGroupCreationRateLimited()
+    throws Exception
+  {
+    this.setupStandardUserAndLogIn();
+
+    for (int index = 0; index < 5; ++index) {
+      this.client.groupCreateBegin(
+        new EIGroupName("com.example.g%d".formatted(Integer.valueOf(index))));
+    }
+
+    final var ex =
+      assertThrows(EIPClientException.class, () -> {
+        this.client.groupCreateBegin(new EIGroupName("com.example.g5"));
+      });
+
+    assertEquals(RATE_LIMITED, ex.errorCode());
+  }
+
+  /**
+   * Asynchronous commands fail if the client is not logged in.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGroupCreationAsyncNotLoggedIn()
+    throws Exception
+  {
+    final var ex =
+      assertThrows(ExecutionException.class, () -> {
+        this.client.groupCreateBeginAsync(new EIGroupName("com.example"))
+          .get(10L, TimeUnit.SECONDS);
+      });
+
+    final var cause =
+      assertInstanceOf(EIPClientException.class, ex.getCause());
+    assertEquals(NOT_LOGGED_IN, cause.errorCode());
+  }
+
   /**
    * Cancelling a group creation works.
    *
@@ -240,6 +375,67 @@ public final class EIPikeTest extends EIWithServerContract
     );
   }
 
+  /**
+   * Changes to group creation requests are delivered to waiting clients.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGroupCreationRequestsWait()
+    throws Exception
+  {
+    this.setupStandardUserAndLogIn();
+
+    final var groupName =
+      new EIGroupName("com.example");
+    final var challenge =
+      this.client.groupCreateBegin(groupName);
+
+    this.client.groupCreateCancel(challenge.token());
+
+    /*
+     * The start and the cancellation of the request might be delivered
+     * separately, or coalesced into a single delivery of the most recent
+     * state.
+     */
+
+    final var deadline =
+      Instant.now().plusSeconds(10L);
+
+    EIGroupCreationRequest received = null;
+    while (Instant.now().isBefore(deadline)) {
+      final var requests =
+        this.client.groupCreateRequestsWait(Duration.ofSeconds(1L));
+
+      for (final var request : requests) {
+        assertEquals(challenge.token(), request.token());
+        received = request;
+      }
+
+      if (received != null
+          && received.status() instanceof EIGroupCreationRequestStatusType.Cancelled) {
+        break;
+      }
+    }
+
+    assertNotNull(received);
+    assertEquals(groupName, received.groupName());
+    assertEquals(
+      EIGroupCreationRequestStatusType.Cancelled.class,
+      received.status().getClass()
+    );
+
+    /*
+     * Nothing further changes, so the next wait times out.
+     */
+
+    assertEquals(
+      List.of(),
+      this.client.groupCreateRequestsWait(Duration.ofSeconds(1L))
+    );
+  }
+
   private void checkAuditLog(
     final AuditCheck... auditCheck)
     throws Exception
@@ -301,6 +497,301 @@ public final class EIPikeTest extends EIWithServerContract
 
   }
 
+  /**
+   * Large responses such as a page of groups are compressed, and can be parsed
+   * whilst being decompressed. Small responses are sent uncompressed.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testResponseCompression()
+    throws Exception
+  {
+    final var userId =
+      this.setupStandardUserAndLogIn();
+
+    final var database = this.server().database();
+    try (var c = database.openConnection(EIGION)) {
+      try (var t = c.openTransaction()) {
+        final var q =
+          t.queries(EISDatabaseGroupsQueriesType.class);
+        for (int index = 0; index < 100; ++index) {
+          final var name =
+            new EIGroupName("com.example.g%03d".formatted(
+              Integer.valueOf(index)));
+          q.groupCreate(userId, name);
+          q.groupUserUpdate(name, userId, Set.of(FOUNDER));
+        }
+        t.commit();
+      }
+    }
+
+    final var http =
+      HttpClient.newBuilder()
+        .cookieHandler(new CookieManager())
+        .build();
+    final var base =
+      this.server().basePikeURI();
+
+    final var loginResponse =
+      sendCompressible(
+        http,
+        base.resolve("pike/1/0/login"),
+        new EIPCommandLogin("noone", "12345678"));
+
+    assertEquals(200, loginResponse.statusCode());
+    assertEquals(
+      Optional.empty(),
+      loginResponse.headers().firstValue("Content-Encoding"));
+    assertInstanceOf(EIPResponseLogin.class, parseResponse(loginResponse));
+
+    final var pageResponse =
+      sendCompressible(
+        http,
+        base.resolve("pike/1/0/command"),
+        new EIPCommandGroupsBegin(1000L));
+
+    assertEquals(200, pageResponse.statusCode());
+    assertEquals(
+      Optional.of("gzip"),
+      pageResponse.headers().firstValue("Content-Encoding"));
+
+    final var page =
+      assertInstanceOf(EIPResponseGroups.class, parseResponse(pageResponse));
+    assertEquals(100, page.groups().items().size());
+  }
+
+  private static HttpResponse<InputStream> sendCompressible(
+    final HttpClient http,
+    final URI uri,
+    final EIPCommandType<?> command)
+    throws Exception
+  {
+    final var request =
+      HttpRequest.newBuilder(uri)
+        .header("Accept-Encoding", EIPCompression.ACCEPT_ENCODING)
+        .POST(HttpRequest.BodyPublishers.ofByteArray(
+          new EIPCB1Messages().serialize(command)))
+        .build();
+
+    return http.send(request, HttpResponse.BodyHandlers.ofInputStream());
+  }
+
+  private static EIPMessageType parseResponse(
+    final HttpResponse<InputStream> response)
+    throws Exception
+  {
+    try (var stream =
+           EIPCompression.decompressResponse(response, response.headers())) {
+      return new EIPCB1Messages().parse(stream);
+    }
+  }
+
+  /**
+   * A second login to the same server reuses the negotiated protocols.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testLoginNegotiationCached()
+    throws Exception
+  {
+    this.setupNegotiationUser();
+
+    try (var c = this.createNegotiatingClient()) {
+      c.login("noone", "12345678", this.server().basePikeURI());
+      c.login("noone", "12345678", this.server().basePikeURI());
+    }
+    assertEquals(1, this.negotiationRequests.get());
+  }
+
+  /**
+   * Negotiated protocols are discarded when they expire.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testLoginNegotiationExpires()
+    throws Exception
+  {
+    this.setupNegotiationUser();
+
+    try (var c = this.createNegotiatingClient()) {
+      c.login("noone", "12345678", this.server().basePikeURI());
+      this.negotiationClock.advance(
+        EIPProtocolNegotiationCache.DEFAULT_EXPIRATION);
+      c.login("noone", "12345678", this.server().basePikeURI());
+    }
+    assertEquals(2, this.negotiationRequests.get());
+  }
+
+  /**
+   * A protocol error against a cached protocol causes the protocols to be
+   * negotiated again, and the login succeeds.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testLoginNegotiationStaleRecovers()
+    throws Exception
+  {
+    this.setupNegotiationUser();
+
+    try (var c = this.createNegotiatingClient()) {
+      c.login("noone", "12345678", this.server().basePikeURI());
+      this.brokenLogins.set(1);
+      c.login("noone", "12345678", this.server().basePikeURI());
+    }
+    assertEquals(2, this.negotiationRequests.get());
+    assertEquals(0, this.brokenLogins.get());
+  }
+
+  /**
+   * Protocols are negotiated again at most once per login.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testLoginNegotiationRetriesOnce()
+    throws Exception
+  {
+    this.setupNegotiationUser();
+    this.brokenLogins.set(Integer.MAX_VALUE);
+
+    try (var c = this.createNegotiatingClient()) {
+      final var ex =
+        assertThrows(EIPClientException.class, () -> {
+          c.login("noone", "12345678", this.server().basePikeURI());
+        });
+      assertEquals(PROTOCOL_ERROR, ex.errorCode());
+    }
+    assertEquals(2, this.negotiationRequests.get());
+  }
+
+  /**
+   * When the server no longer recognizes the client's session, concurrent
+   * asynchronous commands all succeed after a single, shared re-login.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testAsyncReLoginCoalesced()
+    throws Exception
+  {
+    this.setupNegotiationUser();
+
+    try (var c = this.createNegotiatingClient()) {
+      c.login("noone", "12345678", this.server().basePikeURI());
+      assertEquals(1, this.loginRequests.get());
+
+      this.negotiationCookies.getCookieStore().removeAll();
+      this.loginDelayed = true;
+
+      final var futures =
+        IntStream.range(0, 4)
+          .mapToObj(i -> new EIGroupName(
+            "com.example.r%d".formatted(Integer.valueOf(i))))
+          .map(name -> c.groupCreateBeginAsync(name))
+          .toList();
+
+      for (final var future : futures) {
+        future.get(30L, TimeUnit.SECONDS);
+      }
+    }
+    assertEquals(2, this.loginRequests.get());
+  }
+
+  private URI filterNegotiationURI(
+    final URI uri)
+  {
+    if (Objects.equals(uri.getPath(), "/")) {
+      this.negotiationRequests.incrementAndGet();
+      return uri;
+    }
+
+    if (uri.getPath().endsWith("/login")) {
+      this.loginRequests.incrementAndGet();
+      if (this.loginDelayed) {
+        pauseLogin();
+      }
+
+      final var broken =
+        this.brokenLogins.getAndUpdate(x -> Math.max(0, x - 1));
+      if (broken > 0) {
+        return uri.resolve("/broken/login");
+      }
+    }
+    return uri;
+  }
+
+  /*
+   * Requests are filtered on the thread that sends them. Holding a login
+   * request here gives every command already in flight time to receive
+   * its authentication error before the login completes.
+   */
+
+  private static void pauseLogin()
+  {
+    try {
+      Thread.sleep(1_000L);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void setupNegotiationUser()
+    throws Exception
+  {
+    final var userId =
+      this.idstore()
+        .createUser("noone", "12345678");
+
+    this.server()
+      .configurator()
+      .userSetPermissions(userId, EIPermissionSet.of());
+  }
+
+  /**
+   * Create a client that shares a negotiation cache driven by a mutable
+   * clock. Requests for the server's supported protocols are counted, and
+   * login requests are counted and are redirected to a path that does not
+   * speak the protocol while {@link #brokenLogins} is positive.
+   */
+
+  private EIPClient createNegotiatingClient()
+    throws Exception
+  {
+    this.negotiationCookies = new CookieManager();
+
+    final var httpClient =
+      new EIInterceptHttpClient(
+        this::filterNegotiationURI,
+        HttpClient.newBuilder()
+          .cookieHandler(this.negotiationCookies)
+          .build()
+      );
+
+    final var strings = new EIPStrings(Locale.ROOT);
+    return new EIPClient(
+      Locale.ROOT,
+      strings,
+      httpClient,
+      this.negotiations,
+      new EIPClientProtocolHandlerDisconnected(
+        Locale.ROOT,
+        strings,
+        httpClient,
+        this.negotiations
+      )
+    );
+  }
+
   private UUID setupStandardUserAndLogIn(
     final EIPermission... permissions)
     throws Exception
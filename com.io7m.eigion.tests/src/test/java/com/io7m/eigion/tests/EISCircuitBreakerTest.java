@@ -0,0 +1,127 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests;
+
+import com.io7m.eigion.server.internal.EISCircuitBreaker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static com.io7m.eigion.server.internal.EISCircuitBreaker.EISCircuitBreakerState.CLOSED;
+import static com.io7m.eigion.server.internal.EISCircuitBreaker.EISCircuitBreakerState.HALF_OPEN;
+import static com.io7m.eigion.server.internal.EISCircuitBreaker.EISCircuitBreakerState.OPEN;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class EISCircuitBreakerTest
+{
+  private long timeNow;
+  private EISCircuitBreaker breaker;
+
+  @BeforeEach
+  public void setup()
+  {
+    this.timeNow = 0L;
+    this.breaker =
+      new EISCircuitBreaker(3, Duration.ofSeconds(10L), () -> this.timeNow);
+  }
+
+  /**
+   * The breaker stays closed below the failure threshold.
+   */
+
+  @Test
+  public void testBelowThreshold()
+  {
+    for (int index = 0; index < 2; ++index) {
+      assertTrue(this.breaker.tryAcquire());
+      this.breaker.onFailure();
+    }
+    assertEquals(CLOSED, this.breaker.state());
+    assertTrue(this.breaker.tryAcquire());
+  }
+
+  /**
+   * A success resets the failure count.
+   */
+
+  @Test
+  public void testSuccessResets()
+  {
+    for (int index = 0; index < 10; ++index) {
+      assertTrue(this.breaker.tryAcquire());
+      this.breaker.onFailure();
+      assertTrue(this.breaker.tryAcquire());
+      this.breaker.onSuccess();
+    }
+    assertEquals(CLOSED, this.breaker.state());
+  }
+
+  /**
+   * The breaker opens at the threshold, permits a single trial call after
+   * the reset duration, and closes if the trial call succeeds.
+   */
+
+  @Test
+  public void testOpenHalfOpenClose()
+  {
+    for (int index = 0; index < 3; ++index) {
+      assertTrue(this.breaker.tryAcquire());
+      this.breaker.onFailure();
+    }
+
+    assertEquals(OPEN, this.breaker.state());
+    assertFalse(this.breaker.tryAcquire());
+
+    this.timeNow = Duration.ofSeconds(10L).toNanos();
+    assertTrue(this.breaker.tryAcquire());
+    assertEquals(HALF_OPEN, this.breaker.state());
+    assertFalse(this.breaker.tryAcquire());
+
+    this.breaker.onSuccess();
+    assertEquals(CLOSED, this.breaker.state());
+    assertTrue(this.breaker.tryAcquire());
+  }
+
+  /**
+   * A failed trial call reopens the breaker.
+   */
+
+  @Test
+  public void testHalfOpenFailure()
+  {
+    for (int index = 0; index < 3; ++index) {
+      assertTrue(this.breaker.tryAcquire());
+      this.breaker.onFailure();
+    }
+
+    this.timeNow = Duration.ofSeconds(10L).toNanos();
+    assertTrue(this.breaker.tryAcquire());
+    this.breaker.onFailure();
+
+    assertEquals(OPEN, this.breaker.state());
+    assertFalse(this.breaker.tryAcquire());
+
+    this.timeNow = Duration.ofSeconds(15L).toNanos();
+    assertFalse(this.breaker.tryAcquire());
+    this.timeNow = Duration.ofSeconds(20L).toNanos();
+    assertTrue(this.breaker.tryAcquire());
+  }
+}
@@ -34,6 +34,8 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -48,6 +50,7 @@ import static com.io7m.eigion.model.EIGroupRole.USER_INVITE;
 import static com.io7m.eigion.model.EIPermissionSet.empty;
 import static java.time.OffsetDateTime.now;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -399,6 +402,162 @@ public final class EISDatabaseGroupsTest
     });
   }
 
+  /**
+   * Only recent group requests made by the given user are counted.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGroupCreationRequestCountSince()
+    throws Exception
+  {
+    this.database.withTransaction(t -> {
+      final var users =
+        t.queries(EISDatabaseUsersQueriesType.class);
+      final var groups =
+        t.queries(EISDatabaseGroupsQueriesType.class);
+
+      final var u0 = new EIUser(UUID.randomUUID(), empty());
+      users.userPut(u0);
+      final var u1 = new EIUser(UUID.randomUUID(), empty());
+      users.userPut(u1);
+
+      final var timeNow = now();
+
+      groups.groupCreationRequestStart(new EIGroupCreationRequest(
+        new EIGroupName("com.io7m.ex0"),
+        u0.id(),
+        EIToken.generate(),
+        new EIGroupCreationRequestStatusType.InProgress(timeNow.minusHours(2L))
+      ));
+
+      groups.groupCreationRequestStart(new EIGroupCreationRequest(
+        new EIGroupName("com.io7m.ex1"),
+        u0.id(),
+        EIToken.generate(),
+        new EIGroupCreationRequestStatusType.InProgress(timeNow)
+      ));
+
+      groups.groupCreationRequestStart(new EIGroupCreationRequest(
+        new EIGroupName("com.io7m.ex2"),
+        u0.id(),
+        EIToken.generate(),
+        new EIGroupCreationRequestStatusType.InProgress(timeNow)
+      ));
+
+      groups.groupCreationRequestStart(new EIGroupCreationRequest(
+        new EIGroupName("com.io7m.ex3"),
+        u1.id(),
+        EIToken.generate(),
+        new EIGroupCreationRequestStatusType.InProgress(timeNow)
+      ));
+
+      final var since = timeNow.minusHours(1L);
+      assertEquals(2L, groups.groupCreationRequestsCountSince(u0.id(), since));
+      assertEquals(1L, groups.groupCreationRequestsCountSince(u1.id(), since));
+      assertEquals(
+        0L,
+        groups.groupCreationRequestsCountSince(UUID.randomUUID(), since)
+      );
+      return null;
+    });
+  }
+
+  /**
+   * Only requests that are in progress or that completed recently are
+   * returned as changed.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGroupCreationRequestChangedSince()
+    throws Exception
+  {
+    this.database.withTransaction(t -> {
+      final var users =
+        t.queries(EISDatabaseUsersQueriesType.class);
+      final var groups =
+        t.queries(EISDatabaseGroupsQueriesType.class);
+
+      final var u0 = new EIUser(UUID.randomUUID(), empty());
+      users.userPut(u0);
+      final var u1 = new EIUser(UUID.randomUUID(), empty());
+      users.userPut(u1);
+
+      final var timeNow = now();
+      final var timeThen = timeNow.minusHours(2L);
+
+      final var completedLongAgo =
+        new EIGroupCreationRequest(
+          new EIGroupName("com.io7m.ex0"),
+          u0.id(),
+          EIToken.generate(),
+          new EIGroupCreationRequestStatusType.InProgress(timeThen)
+        );
+      groups.groupCreationRequestStart(completedLongAgo);
+      groups.groupCreationRequestComplete(
+        new EIGroupCreationRequest(
+          completedLongAgo.groupName(),
+          u0.id(),
+          completedLongAgo.token(),
+          new EIGroupCreationRequestStatusType.Cancelled(timeThen, timeThen)
+        ));
+
+      final var completedRecently =
+        new EIGroupCreationRequest(
+          new EIGroupName("com.io7m.ex1"),
+          u0.id(),
+          EIToken.generate(),
+          new EIGroupCreationRequestStatusType.InProgress(timeThen)
+        );
+      groups.groupCreationRequestStart(completedRecently);
+      groups.groupCreationRequestComplete(
+        new EIGroupCreationRequest(
+          completedRecently.groupName(),
+          u0.id(),
+          completedRecently.token(),
+          new EIGroupCreationRequestStatusType.Cancelled(timeThen, timeNow)
+        ));
+
+      final var inProgress =
+        new EIGroupCreationRequest(
+          new EIGroupName("com.io7m.ex2"),
+          u0.id(),
+          EIToken.generate(),
+          new EIGroupCreationRequestStatusType.InProgress(
+            timeThen.plusMinutes(1L))
+        );
+      groups.groupCreationRequestStart(inProgress);
+
+      groups.groupCreationRequestStart(new EIGroupCreationRequest(
+        new EIGroupName("com.io7m.ex3"),
+        u1.id(),
+        EIToken.generate(),
+        new EIGroupCreationRequestStatusType.InProgress(timeNow)
+      ));
+
+      final var since = timeNow.minusHours(1L);
+      assertEquals(
+        List.of(completedRecently.token(), inProgress.token()),
+        groups.groupCreationRequestsChangedSince(u0.id(), since)
+          .stream()
+          .map(EIGroupCreationRequest::token)
+          .toList()
+      );
+      assertEquals(
+        1,
+        groups.groupCreationRequestsChangedSince(u1.id(), since).size()
+      );
+      assertEquals(
+        List.of(),
+        groups.groupCreationRequestsChangedSince(UUID.randomUUID(), since)
+      );
+      return null;
+    });
+  }
+
   /**
    * Nonexistent users cannot have group requests.
    *
@@ -582,4 +741,84 @@ public final class EISDatabaseGroupsTest
       return null;
     });
   }
+
+  /**
+   * Copies of searches have their own position.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGroupSearchCopy()
+    throws Exception
+  {
+    this.database.withTransaction(t -> {
+      final var users =
+        t.queries(EISDatabaseUsersQueriesType.class);
+      final var groups =
+        t.queries(EISDatabaseGroupsQueriesType.class);
+
+      final var u0 = new EIUser(UUID.randomUUID(), empty());
+      users.userPut(u0);
+
+      groups.groupCreate(u0.id(), new EIGroupName("com.io7m.ex0"));
+      groups.groupCreate(u0.id(), new EIGroupName("com.io7m.ex1"));
+      groups.groupCreate(u0.id(), new EIGroupName("com.io7m.ex2"));
+
+      final var search =
+        groups.groupSearchByName(new EIGroupSearchByNameParameters(
+          Optional.of("com.io7m.ex%"),
+          2L
+        ));
+
+      assertEquals(2, search.pageNext(groups).pageIndex());
+
+      final var copy = search.copyAtFirstPage();
+      assertEquals(1, copy.pageCurrent(groups).pageIndex());
+      assertEquals(2, copy.pageNext(groups).pageIndex());
+      assertEquals(1, copy.pagePrevious(groups).pageIndex());
+      assertEquals(2, search.pageCurrent(groups).pageIndex());
+      return null;
+    });
+  }
+
+  /**
+   * Group existence, counts, and names can be queried.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGroupNames()
+    throws Exception
+  {
+    this.database.withTransaction(t -> {
+      final var users =
+        t.queries(EISDatabaseUsersQueriesType.class);
+      final var groups =
+        t.queries(EISDatabaseGroupsQueriesType.class);
+
+      final var u0 = new EIUser(UUID.randomUUID(), empty());
+      users.userPut(u0);
+
+      final var countThen = groups.groupCount();
+      assertFalse(groups.groupExists(new EIGroupName("com.io7m.ex0")));
+
+      groups.groupCreate(u0.id(), new EIGroupName("com.io7m.ex0"));
+      groups.groupCreate(u0.id(), new EIGroupName("com.io7m.ex1"));
+
+      assertTrue(groups.groupExists(new EIGroupName("com.io7m.ex0")));
+      assertTrue(groups.groupExists(new EIGroupName("com.io7m.ex1")));
+      assertFalse(groups.groupExists(new EIGroupName("com.io7m.ex2")));
+      assertEquals(countThen + 2L, groups.groupCount());
+
+      final var names = new HashSet<EIGroupName>();
+      final var count = groups.groupNamesEach(names::addAll);
+      assertEquals(countThen + 2L, count);
+      assertEquals(count, names.size());
+      assertTrue(names.contains(new EIGroupName("com.io7m.ex0")));
+      assertTrue(names.contains(new EIGroupName("com.io7m.ex1")));
+      return null;
+    });
+  }
 }
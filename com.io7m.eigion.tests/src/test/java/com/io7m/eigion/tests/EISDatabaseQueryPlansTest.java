@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests;
+
+import com.io7m.eigion.model.EIGroupSearchByNameParameters;
+import com.io7m.eigion.server.database.api.EISDatabaseGroupsQueriesType;
+import com.io7m.eigion.server.database.postgres.EISDatabaseQueryPlanCheck;
+import com.io7m.eigion.server.database.postgres.EISDatabaseQueryPlanCheckConfiguration;
+import com.io7m.eigion.server.database.postgres.EISDatabaseQueryPlans;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Testcontainers(disabledWithoutDocker = true)
+public final class EISDatabaseQueryPlansTest
+{
+  @Container
+  private final PostgreSQLContainer<?> container =
+    new PostgreSQLContainer<>("postgres")
+      .withDatabaseName("eigion")
+      .withUsername("postgres")
+      .withPassword("12345678");
+
+  private EIFakeClock clock;
+  private EITestDatabase database;
+
+  @BeforeEach
+  public void setup()
+    throws Exception
+  {
+    this.clock = new EIFakeClock();
+    this.database = EITestDatabase.create(this.container, this.clock);
+  }
+
+  @AfterEach
+  public void tearDown()
+    throws Exception
+  {
+    this.database.close();
+  }
+
+  /**
+   * Checking plans with generated data explains the expected queries, and
+   * the generated data is rolled back afterwards.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testCheckGenerated()
+    throws Exception
+  {
+    final var results =
+      EISDatabaseQueryPlans.check(
+        this.database.database(),
+        new EISDatabaseQueryPlanCheckConfiguration(
+          Double.MAX_VALUE,
+          Long.MAX_VALUE,
+          100
+        )
+      );
+
+    assertFalse(results.isEmpty());
+    assertTrue(results.stream().allMatch(EISDatabaseQueryPlanCheck::passed));
+    assertTrue(
+      results.stream()
+        .anyMatch(r -> r.query().equals("IdDatabaseUsersQueries.userGet"))
+    );
+    assertTrue(
+      results.stream()
+        .anyMatch(r -> r.query().startsWith("EISDatabaseGroupsQueries."))
+    );
+    assertTrue(
+      results.stream()
+        .anyMatch(r -> r.query().startsWith("EISDatabaseAuditQueries."))
+    );
+
+    this.database.withTransaction(t -> {
+      final var groups =
+        t.queries(EISDatabaseGroupsQueriesType.class);
+      final var page =
+        groups.groupSearchByName(
+          new EIGroupSearchByNameParameters(
+            Optional.of("com.io7m.eigion.plancheck"),
+            100L
+          )
+        ).pageCurrent(groups);
+      assertTrue(page.items().isEmpty());
+      return null;
+    });
+  }
+
+  /**
+   * A cost budget that almost no plan can meet causes checks to fail.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testCheckCostBudget()
+    throws Exception
+  {
+    final var results =
+      EISDatabaseQueryPlans.check(
+        this.database.database(),
+        new EISDatabaseQueryPlanCheckConfiguration(
+          Double.MIN_VALUE,
+          Long.MAX_VALUE,
+          0
+        )
+      );
+
+    assertFalse(results.isEmpty());
+    assertTrue(results.stream().anyMatch(r -> !r.passed()));
+  }
+}
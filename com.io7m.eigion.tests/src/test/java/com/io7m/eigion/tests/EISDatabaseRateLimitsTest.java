@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests;
+
+import com.io7m.eigion.server.database.api.EISDatabaseRateLimitQueriesType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Testcontainers(disabledWithoutDocker = true)
+public final class EISDatabaseRateLimitsTest
+{
+  @Container
+  private final PostgreSQLContainer<?> container =
+    new PostgreSQLContainer<>("postgres")
+      .withDatabaseName("eigion")
+      .withUsername("postgres")
+      .withPassword("12345678");
+
+  private EIFakeClock clock;
+  private EITestDatabase database;
+
+  @BeforeEach
+  public void setup()
+    throws Exception
+  {
+    this.clock = new EIFakeClock();
+    this.database = EITestDatabase.create(this.container, this.clock);
+  }
+
+  @AfterEach
+  public void tearDown()
+    throws Exception
+  {
+    this.database.close();
+  }
+
+  /**
+   * Buckets permit at most their capacity, and are independent.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testBucketCapacity()
+    throws Exception
+  {
+    this.database.withTransaction(t -> {
+      final var limits =
+        t.queries(EISDatabaseRateLimitQueriesType.class);
+      final var period =
+        Duration.ofHours(1L);
+
+      assertTrue(limits.rateLimitTake("a", 3L, period));
+      assertTrue(limits.rateLimitTake("a", 3L, period));
+      assertTrue(limits.rateLimitTake("a", 3L, period));
+      assertFalse(limits.rateLimitTake("a", 3L, period));
+      assertFalse(limits.rateLimitTake("a", 3L, period));
+
+      assertTrue(limits.rateLimitTake("b", 1L, period));
+      assertFalse(limits.rateLimitTake("b", 1L, period));
+      return null;
+    });
+  }
+
+  /**
+   * Buckets are refilled over time.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testBucketRefill()
+    throws Exception
+  {
+    this.database.withTransaction(t -> {
+      final var limits =
+        t.queries(EISDatabaseRateLimitQueriesType.class);
+      final var period =
+        Duration.ofMillis(100L);
+
+      assertTrue(limits.rateLimitTake("a", 1L, period));
+      assertFalse(limits.rateLimitTake("a", 1L, period));
+      Thread.sleep(250L);
+      assertTrue(limits.rateLimitTake("a", 1L, period));
+      return null;
+    });
+  }
+}
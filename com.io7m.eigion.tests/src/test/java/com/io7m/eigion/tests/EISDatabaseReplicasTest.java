@@ -0,0 +1,193 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests;
+
+import com.io7m.eigion.model.EIUser;
+import com.io7m.eigion.server.database.api.EISDatabaseConnectionType;
+import com.io7m.eigion.server.database.api.EISDatabaseException;
+import com.io7m.eigion.server.database.api.EISDatabaseTuning;
+import com.io7m.eigion.server.database.api.EISDatabaseUsersQueriesType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.io7m.eigion.model.EIPermissionSet.empty;
+import static com.io7m.eigion.server.database.api.EISDatabaseRole.EIGION;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Testcontainers(disabledWithoutDocker = true)
+public final class EISDatabaseReplicasTest
+{
+  @Container
+  private final PostgreSQLContainer<?> container =
+    new PostgreSQLContainer<>("postgres")
+      .withDatabaseName("eigion")
+      .withUsername("postgres")
+      .withPassword("12345678");
+
+  private EIFakeClock clock;
+  private EITestDatabase database;
+  private ArrayList<EISDatabaseConnectionType> connections;
+
+  @BeforeEach
+  public void setup()
+  {
+    this.clock = new EIFakeClock();
+    this.connections = new ArrayList<>();
+  }
+
+  @AfterEach
+  public void tearDown()
+    throws Exception
+  {
+    for (final var connection : this.connections) {
+      connection.close();
+    }
+    if (this.database != null) {
+      this.database.close();
+    }
+  }
+
+  /**
+   * A pool configuration with the smallest permitted pool, and a short
+   * connection timeout.
+   */
+
+  private static EISDatabaseTuning smallPools()
+  {
+    final var defaults = EISDatabaseTuning.defaults();
+    return new EISDatabaseTuning(
+      2,
+      0,
+      Duration.ofMillis(250L),
+      defaults.idleTimeout(),
+      defaults.maximumLifetime(),
+      defaults.prepareThreshold(),
+      defaults.preparedStatementCacheQueries(),
+      defaults.preparedStatementCacheSizeMiB(),
+      defaults.rewriteBatchedInserts()
+    );
+  }
+
+  private EIUser createUser()
+    throws Exception
+  {
+    final var user = new EIUser(UUID.randomUUID(), empty());
+    try (var c = this.database.database().openConnection(EIGION)) {
+      try (var t = c.openTransaction()) {
+        t.queries(EISDatabaseUsersQueriesType.class).userPut(user);
+        t.commit();
+      }
+    }
+    return user;
+  }
+
+  /**
+   * Connections to a replica can read, but cannot write.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testReplicaReadOnly()
+    throws Exception
+  {
+    this.database =
+      EITestDatabase.createWithReplicas(
+        this.container, this.clock, 1, EISDatabaseTuning.defaults());
+
+    final var user = this.createUser();
+
+    try (var c = this.database.database().openConnectionReadOnly(EIGION)) {
+      try (var t = c.openTransaction()) {
+        final var users =
+          t.queries(EISDatabaseUsersQueriesType.class);
+
+        assertEquals(Optional.of(user), users.userGet(user.id()));
+        assertThrows(EISDatabaseException.class, () -> {
+          users.userPut(new EIUser(UUID.randomUUID(), empty()));
+        });
+      }
+    }
+  }
+
+  /**
+   * Without replicas, read-only connections are opened to the primary, and
+   * still cannot write.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPrimaryFallbackReadOnly()
+    throws Exception
+  {
+    this.database =
+      EITestDatabase.createWithReplicas(
+        this.container, this.clock, 0, EISDatabaseTuning.defaults());
+
+    final var user = this.createUser();
+
+    try (var c = this.database.database().openConnectionReadOnly(EIGION)) {
+      try (var t = c.openTransaction()) {
+        final var users =
+          t.queries(EISDatabaseUsersQueriesType.class);
+
+        assertEquals(Optional.of(user), users.userGet(user.id()));
+        assertThrows(EISDatabaseException.class, () -> {
+          users.userPut(new EIUser(UUID.randomUUID(), empty()));
+        });
+      }
+    }
+  }
+
+  /**
+   * Read-only connections are distributed over the replicas in turn: with
+   * two replicas of two connections each, four connections can be held at
+   * once, and the fifth times out waiting for the first replica.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testReplicaRoundRobin()
+    throws Exception
+  {
+    this.database =
+      EITestDatabase.createWithReplicas(
+        this.container, this.clock, 2, smallPools());
+
+    final var db = this.database.database();
+    for (int index = 0; index < 4; ++index) {
+      this.connections.add(db.openConnectionReadOnly(EIGION));
+    }
+
+    assertThrows(EISDatabaseException.class, () -> {
+      this.connections.add(db.openConnectionReadOnly(EIGION));
+    });
+  }
+}
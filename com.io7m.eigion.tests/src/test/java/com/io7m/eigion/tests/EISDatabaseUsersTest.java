@@ -19,6 +19,9 @@ package com.io7m.eigion.tests;
 
 import com.io7m.eigion.model.EIPermissionSet;
 import com.io7m.eigion.model.EIUser;
+import com.io7m.eigion.server.database.api.EISDatabaseNotification;
+import com.io7m.eigion.server.database.api.EISDatabaseNotificationChannel;
+import com.io7m.eigion.server.database.api.EISDatabaseNotificationReceiverType;
 import com.io7m.eigion.server.database.api.EISDatabaseUsersQueriesType;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -28,8 +31,11 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 @Testcontainers(disabledWithoutDocker = true)
 public final class EISDatabaseUsersTest
@@ -86,4 +92,58 @@ public final class EISDatabaseUsersTest
       return null;
     });
   }
+
+  /**
+   * Updating a user publishes a notification when the transaction commits.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testUserPutNotifies()
+    throws Exception
+  {
+    final var received =
+      new LinkedBlockingQueue<EISDatabaseNotification>();
+
+    final var subscription =
+      this.database.database()
+        .subscribe(
+          EISDatabaseNotificationChannel.USERS,
+          new EISDatabaseNotificationReceiverType()
+          {
+            @Override
+            public void onNotification(
+              final EISDatabaseNotification notification)
+            {
+              received.add(notification);
+            }
+
+            @Override
+            public void onResynchronize()
+            {
+
+            }
+          });
+
+    final var user0 =
+      new EIUser(
+        UUID.randomUUID(),
+        EIPermissionSet.empty()
+      );
+
+    this.database.withTransaction(t -> {
+      final var q =
+        t.queries(EISDatabaseUsersQueriesType.class);
+      q.userPut(user0);
+      t.commit();
+      return null;
+    });
+
+    final var notification = received.poll(10L, TimeUnit.SECONDS);
+    assertNotNull(notification);
+    assertEquals(EISDatabaseNotificationChannel.USERS, notification.channel());
+    assertEquals(user0.id().toString(), notification.payload());
+    subscription.close();
+  }
 }
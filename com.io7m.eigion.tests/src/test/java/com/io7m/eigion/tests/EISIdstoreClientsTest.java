@@ -0,0 +1,216 @@
+/*
+ * Copyright © 2022 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.eigion.tests;
+
+import com.io7m.eigion.server.api.EIServerIdstoreConfiguration;
+import com.io7m.eigion.server.internal.EIHTTPErrorStatusException;
+import com.io7m.eigion.server.internal.EISIdstoreClients;
+import com.io7m.eigion.server.internal.EISStrings;
+import com.io7m.eigion.server.internal.EISTelemetryService;
+import com.io7m.idstore.user_client.api.IdUClientFactoryType;
+import com.io7m.idstore.user_client.api.IdUClientType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.io7m.eigion.error_codes.EIStandardErrorCodes.IDSTORE_UNAVAILABLE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public final class EISIdstoreClientsTest
+{
+  private static final Duration ACQUIRE_TIMEOUT =
+    Duration.ofMillis(250L);
+
+  private IdUClientFactoryType factory;
+  private ExecutorService executor;
+  private EISIdstoreClients clients;
+
+  private static EIServerIdstoreConfiguration configuration(
+    final int maximumConcurrentRequests)
+  {
+    return new EIServerIdstoreConfiguration(
+      URI.create("http://idstore.example.com/"),
+      URI.create("http://idstore.example.com/reset"),
+      maximumConcurrentRequests,
+      1000,
+      Duration.ofSeconds(30L)
+    );
+  }
+
+  private EISIdstoreClients createClients(
+    final int maximumConcurrentRequests)
+    throws Exception
+  {
+    return EISIdstoreClients.create(
+      Locale.ROOT,
+      new EISStrings(Locale.ROOT),
+      EISTelemetryService.noop(),
+      configuration(maximumConcurrentRequests),
+      this.factory,
+      ACQUIRE_TIMEOUT
+    );
+  }
+
+  @BeforeEach
+  public void setup()
+  {
+    this.factory = mock(IdUClientFactoryType.class);
+    this.executor = Executors.newCachedThreadPool();
+  }
+
+  @AfterEach
+  public void tearDown()
+    throws Exception
+  {
+    this.executor.shutdownNow();
+    this.executor.awaitTermination(5L, TimeUnit.SECONDS);
+    if (this.clients != null) {
+      this.clients.close();
+    }
+  }
+
+  /**
+   * A client is reused for successive logins rather than created for each.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testClientReused()
+    throws Exception
+  {
+    final var client = mock(IdUClientType.class);
+    when(this.factory.create(any(Locale.class))).thenReturn(client);
+
+    this.clients = this.createClients(4);
+    for (int index = 0; index < 5; ++index) {
+      this.clients.login("user", "password", Map.of());
+    }
+
+    verify(this.factory, times(1)).create(any(Locale.class));
+    verify(client, times(5))
+      .login(anyString(), anyString(), any(URI.class), anyMap());
+    verify(client, never()).close();
+  }
+
+  /**
+   * A client whose call failed unexpectedly is closed rather than returned
+   * to the pool.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFailedClientDiscarded()
+    throws Exception
+  {
+    final var broken = mock(IdUClientType.class);
+    when(broken.login(anyString(), anyString(), any(URI.class), anyMap()))
+      .thenThrow(new IllegalStateException("Broken!"));
+    final var working = mock(IdUClientType.class);
+    when(this.factory.create(any(Locale.class))).thenReturn(broken, working);
+
+    this.clients = this.createClients(4);
+
+    assertThrows(IllegalStateException.class, () -> {
+      this.clients.login("user", "password", Map.of());
+    });
+    this.clients.login("user", "password", Map.of());
+    this.clients.login("user", "password", Map.of());
+
+    verify(broken, times(1)).close();
+    verify(this.factory, times(2)).create(any(Locale.class));
+    verify(working, times(2))
+      .login(anyString(), anyString(), any(URI.class), anyMap());
+  }
+
+  /**
+   * A login that cannot obtain a permit within the acquire timeout, because
+   * every permitted call is in progress, fails as unavailable without
+   * calling the idstore server.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testAcquireTimesOut()
+    throws Exception
+  {
+    final var entered = new CountDownLatch(1);
+    final var release = new CountDownLatch(1);
+
+    final var client = mock(IdUClientType.class);
+    when(client.login(anyString(), anyString(), any(URI.class), anyMap()))
+      .thenAnswer(invocation -> {
+        entered.countDown();
+        release.await();
+        return null;
+      });
+    when(this.factory.create(any(Locale.class))).thenReturn(client);
+
+    this.clients = this.createClients(1);
+
+    final var blocked =
+      this.executor.submit(() -> {
+        return this.clients.login("user0", "password", Map.of());
+      });
+    assertTrue(entered.await(5L, TimeUnit.SECONDS));
+
+    final var timeThen = System.nanoTime();
+    final var ex =
+      assertThrows(EIHTTPErrorStatusException.class, () -> {
+        this.clients.login("user1", "password", Map.of());
+      });
+    final var elapsed = Duration.ofNanos(System.nanoTime() - timeThen);
+
+    assertEquals(503, ex.statusCode());
+    assertEquals(IDSTORE_UNAVAILABLE, ex.errorCode());
+    assertTrue(elapsed.compareTo(ACQUIRE_TIMEOUT) >= 0);
+    verify(client, times(1))
+      .login(anyString(), anyString(), any(URI.class), anyMap());
+
+    /*
+     * Once the call in progress completes, its permit is available again.
+     */
+
+    release.countDown();
+    blocked.get(5L, TimeUnit.SECONDS);
+    this.clients.login("user1", "password", Map.of());
+    verify(client, times(2))
+      .login(anyString(), anyString(), any(URI.class), anyMap());
+  }
+}
@@ -29,10 +29,9 @@ import com.io7m.eigion.server.internal.pike.security.EISecPPolicy;
 import com.io7m.eigion.server.internal.security.EISecurityException;
 import net.jqwik.api.ForAll;
 import net.jqwik.api.Property;
-import net.jqwik.api.constraints.Size;
+import net.jqwik.api.constraints.LongRange;
 
 import java.time.OffsetDateTime;
-import java.util.List;
 import java.util.UUID;
 
 import static com.io7m.eigion.error_codes.EIStandardErrorCodes.SECURITY_POLICY_DENIED;
@@ -42,12 +41,13 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 public final class EISecPPolicyTest
 {
   /**
-   * If no requests have been made in the last hour, group creation is allowed
-   * to begin.
+   * If fewer than five requests have been made in the last hour, group
+   * creation is allowed to begin.
    *
-   * @param user      The user
-   * @param timeNow   The current time
-   * @param groupName The group name
+   * @param user           The user
+   * @param timeNow        The current time
+   * @param recentRequests The number of recent requests
+   * @param groupName      The group name
    *
    * @throws Exception On errors
    */
@@ -56,6 +56,7 @@ public final class EISecPPolicyTest
   public void testGroupCreateBeginOK(
     final @ForAll EIUser user,
     final @ForAll OffsetDateTime timeNow,
+    final @ForAll @LongRange(min = 0L, max = 4L) long recentRequests,
     final @ForAll EIGroupName groupName)
     throws Exception
   {
@@ -63,7 +64,8 @@ public final class EISecPPolicyTest
       EISecPPolicy.policy();
 
     policy.check(
-      new EISecPActionGroupCreateBegin(user, timeNow, List.of(), groupName)
+      new EISecPActionGroupCreateBegin(
+        user, timeNow, recentRequests, groupName)
     );
   }
 
@@ -71,10 +73,10 @@ public final class EISecPPolicyTest
    * If five or more requests have been made in the last hour, then creating a
    * new group is not allowed.
    *
-   * @param user       The user
-   * @param timeNow    The current time
-   * @param groupNames The names used in requests
-   * @param groupName  The group name
+   * @param user           The user
+   * @param timeNow        The current time
+   * @param recentRequests The number of recent requests
+   * @param groupName      The group name
    *
    * @throws Exception On errors
    */
@@ -83,31 +85,18 @@ public final class EISecPPolicyTest
   public void testGroupCreateBeginTooMany(
     final @ForAll EIUser user,
     final @ForAll OffsetDateTime timeNow,
-    final @ForAll @Size(min = 5, max = 5) List<EIGroupName> groupNames,
+    final @ForAll @LongRange(min = 5L, max = 1000L) long recentRequests,
     final @ForAll EIGroupName groupName)
     throws Exception
   {
     final var policy =
       EISecPPolicy.policy();
 
-    final var status = new InProgress(timeNow);
-    final var requests = List.of(
-      new EIGroupCreationRequest(
-        groupNames.get(0), user.id(), EIToken.generate(), status),
-      new EIGroupCreationRequest(
-        groupNames.get(1), user.id(), EIToken.generate(), status),
-      new EIGroupCreationRequest(
-        groupNames.get(2), user.id(), EIToken.generate(), status),
-      new EIGroupCreationRequest(
-        groupNames.get(3), user.id(), EIToken.generate(), status),
-      new EIGroupCreationRequest(
-        groupNames.get(4), user.id(), EIToken.generate(), status)
-    );
-
     final var ex =
       assertThrows(EISecurityException.class, () -> {
         policy.check(
-          new EISecPActionGroupCreateBegin(user, timeNow, requests, groupName)
+          new EISecPActionGroupCreateBegin(
+            user, timeNow, recentRequests, groupName)
         );
       });
     assertEquals(SECURITY_POLICY_DENIED, ex.errorCode());
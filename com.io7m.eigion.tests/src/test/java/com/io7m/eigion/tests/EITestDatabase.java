@@ -20,8 +20,10 @@ package com.io7m.eigion.tests;
 import com.io7m.eigion.server.database.api.EISDatabaseConfiguration;
 import com.io7m.eigion.server.database.api.EISDatabaseCreate;
 import com.io7m.eigion.server.database.api.EISDatabaseException;
+import com.io7m.eigion.server.database.api.EISDatabaseReplicaConfiguration;
 import com.io7m.eigion.server.database.api.EISDatabaseRole;
 import com.io7m.eigion.server.database.api.EISDatabaseTransactionType;
+import com.io7m.eigion.server.database.api.EISDatabaseTuning;
 import com.io7m.eigion.server.database.api.EISDatabaseType;
 import com.io7m.eigion.server.database.api.EISDatabaseUpgrade;
 import com.io7m.eigion.server.database.postgres.EISDatabases;
@@ -35,7 +37,9 @@ import org.testcontainers.containers.PostgreSQLContainer;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Collections;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.TimeoutException;
 
 public final class EITestDatabase implements AutoCloseable
@@ -64,6 +68,26 @@ public final class EITestDatabase implements AutoCloseable
     final PostgreSQLContainer<?> container,
     final EIFakeClock clock)
     throws Exception
+  {
+    return createWithReplicas(
+      container,
+      clock,
+      0,
+      EISDatabaseTuning.defaults()
+    );
+  }
+
+  /**
+   * Create a database that uses the container's database as each of the
+   * given number of read-only replicas.
+   */
+
+  public static EITestDatabase createWithReplicas(
+    final PostgreSQLContainer<?> container,
+    final EIFakeClock clock,
+    final int replicaCount,
+    final EISDatabaseTuning tuning)
+    throws Exception
   {
     final var resources =
       CloseableCollection.create();
@@ -82,7 +106,15 @@ public final class EITestDatabase implements AutoCloseable
         "idstore",
         EISDatabaseCreate.CREATE_DATABASE,
         EISDatabaseUpgrade.UPGRADE_DATABASE,
-        clock
+        clock,
+        Collections.nCopies(
+          replicaCount,
+          new EISDatabaseReplicaConfiguration(
+            container.getHost(),
+            container.getFirstMappedPort().intValue())
+        ),
+        tuning,
+        Optional.empty()
       );
 
     final var databases = new EISDatabases();
@@ -124,6 +156,11 @@ public final class EITestDatabase implements AutoCloseable
     }
   }
 
+  public EISDatabaseType database()
+  {
+    return this.database;
+  }
+
   @Override
   public void close()
     throws Exception
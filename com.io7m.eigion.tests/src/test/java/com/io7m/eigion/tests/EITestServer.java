@@ -21,6 +21,7 @@ import com.io7m.eigion.server.api.EIServerConfiguration;
 import com.io7m.eigion.server.api.EIServerConfiguratorType;
 import com.io7m.eigion.server.api.EIServerHTTPServiceConfiguration;
 import com.io7m.eigion.server.api.EIServerIdstoreConfiguration;
+import com.io7m.eigion.server.api.EIServerRateLimitConfiguration;
 import com.io7m.eigion.server.api.EIServerType;
 import com.io7m.eigion.server.database.api.EISDatabaseConfiguration;
 import com.io7m.eigion.server.database.api.EISDatabaseCreate;
@@ -116,7 +117,10 @@ public final class EITestServer implements AutoCloseable
         URI.create("http://localhost:50000/"),
         URI.create("http://localhost:51000/password-reset")
       ),
-      Optional.empty()
+      Optional.empty(),
+      Optional.empty(),
+      Optional.empty(),
+      EIServerRateLimitConfiguration.defaults()
     );
   }
 